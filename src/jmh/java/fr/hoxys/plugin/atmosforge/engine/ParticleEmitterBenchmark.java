@@ -0,0 +1,48 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Banc d'essai JMH de la génération des positions de particules.
+ * Lancé par le profil Maven {@code benchmark} ; avec {@code -prof gc}, JMH rapporte aussi
+ * la mémoire allouée par opération ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleEmitterBenchmark {
+
+    // Particules émises par appel, comme une vague de pluie forte autour d'un joueur
+    private static final int BATCH_SIZE = 20;
+
+    private Blackhole blackhole;
+    private ParticleEmitter.Sink sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        this.sink = (x, y, z) -> this.blackhole.consume(x + y + z);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void emit() {
+        ParticleEmitter.emit(sink, BATCH_SIZE, 100.0, 64.0, -200.0, 5.0, 10.0, 10.0);
+    }
+}
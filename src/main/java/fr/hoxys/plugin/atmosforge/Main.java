@@ -2,17 +2,31 @@ package fr.hoxys.plugin.atmosforge;
 
 import fr.hoxys.plugin.atmosforge.commands.AtmosForgeCommand;
 import fr.hoxys.plugin.atmosforge.config.ConfigManager;
+import fr.hoxys.plugin.atmosforge.config.EffectPlanLoader;
 import fr.hoxys.plugin.atmosforge.config.LanguageManager;
 import fr.hoxys.plugin.atmosforge.config.WorldManager;
+import fr.hoxys.plugin.atmosforge.data.FileManager;
+import fr.hoxys.plugin.atmosforge.engine.ParticleBudget;
+import fr.hoxys.plugin.atmosforge.engine.ParticleCuller;
+import fr.hoxys.plugin.atmosforge.engine.PlayerEnvironmentCache;
+import fr.hoxys.plugin.atmosforge.engine.PlayerGrid;
+import fr.hoxys.plugin.atmosforge.engine.PlayerPositionCache;
+import fr.hoxys.plugin.atmosforge.engine.PotionReconciler;
+import fr.hoxys.plugin.atmosforge.engine.QualityGovernor;
+import fr.hoxys.plugin.atmosforge.engine.SkyExposureCache;
+import fr.hoxys.plugin.atmosforge.engine.SoundBus;
+import fr.hoxys.plugin.atmosforge.engine.TickEngine;
 import fr.hoxys.plugin.atmosforge.integration.PlaceholderAPIHook;
 import fr.hoxys.plugin.atmosforge.integration.ProtocolLibHook;
 import fr.hoxys.plugin.atmosforge.managers.EffectManager;
 import fr.hoxys.plugin.atmosforge.managers.SeasonManager;
 import fr.hoxys.plugin.atmosforge.managers.TimeManager;
 import fr.hoxys.plugin.atmosforge.managers.WeatherManager;
+import fr.hoxys.plugin.atmosforge.listeners.BlockListener;
 import fr.hoxys.plugin.atmosforge.listeners.PlayerListener;
 import fr.hoxys.plugin.atmosforge.listeners.WorldListener;
 import fr.hoxys.plugin.atmosforge.listeners.TimeListener;
+import fr.hoxys.plugin.atmosforge.utils.StartupTimer;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -27,17 +41,32 @@ public class Main extends JavaPlugin {
     private Logger logger;
 
     // Managers
+    private FileManager fileManager;
     private ConfigManager configManager;
     private LanguageManager languageManager;
+    private EffectPlanLoader effectPlanLoader;
     private WorldManager worldManager;
     private WeatherManager weatherManager;
     private SeasonManager seasonManager;
     private EffectManager effectManager;
     private TimeManager timeManager;
 
+    // Effect engine
+    private QualityGovernor qualityGovernor;
+    private TickEngine tickEngine;
+    private SkyExposureCache skyExposureCache;
+    private PlayerPositionCache playerPositions;
+    private PlayerEnvironmentCache playerEnvironments;
+    private PlayerGrid playerGrid;
+    private ParticleBudget particleBudget;
+    private ParticleCuller particleCuller;
+    private SoundBus soundBus;
+    private PotionReconciler potionReconciler;
+
     // Integrations
     private boolean placeholderAPIEnabled = false;
     private boolean protocolLibEnabled = false;
+    private ProtocolLibHook protocolLibHook;
 
     @Override
     public void onEnable() {
@@ -45,40 +74,73 @@ public class Main extends JavaPlugin {
         logger = getLogger();
 
         logger.info("Initializing AtmosForge v" + getDescription().getVersion() + "...");
+        StartupTimer timer = new StartupTimer();
+
+        // Initialize file manager, all writes go through its IO thread
+        fileManager = new FileManager(this);
 
         // Initialize configuration
         configManager = new ConfigManager(this);
         configManager.loadConfig();
+        fileManager.loadConfiguration();
+        timer.mark("config");
 
         // Initialize language system
         languageManager = new LanguageManager(this);
         languageManager.loadLanguage();
-
-        // Initialize world manager
+        timer.mark("language");
+
+        // Compile weather effect definitions into effect plans
+        effectPlanLoader = new EffectPlanLoader(this);
+        effectPlanLoader.loadPlans();
+        timer.mark("effect plans");
+
+        // Initialize effect tick engine and the governor scaling effects with server load
+        qualityGovernor = new QualityGovernor(this);
+        tickEngine = new TickEngine(this);
+        playerPositions = new PlayerPositionCache(tickEngine);
+        skyExposureCache = new SkyExposureCache(playerPositions);
+        playerEnvironments = new PlayerEnvironmentCache(this);
+        playerGrid = new PlayerGrid(this);
+        particleBudget = new ParticleBudget(this);
+        particleCuller = new ParticleCuller(this);
+        soundBus = new SoundBus(this);
+        potionReconciler = new PotionReconciler(this);
+
+        // Initialize world manager, persisted data is parsed in the background
         worldManager = new WorldManager(this);
         worldManager.loadWorldData();
+        timer.mark("world data");
 
         // Initialize managers
         weatherManager = new WeatherManager(this);
         seasonManager = new SeasonManager(this);
         effectManager = new EffectManager(this);
         timeManager = new TimeManager(this);
+        timer.mark("managers");
 
         // Register commands
         getCommand("atmosforge").setExecutor(new AtmosForgeCommand(this));
 
         // Register event listeners
         registerListeners();
+        timer.mark("commands and listeners");
 
         // Initialize integrations
         initializeIntegrations();
+        timer.mark("integrations");
 
-        // Initialize world weather and seasons
+        // Start effect tick engine
+        tickEngine.start();
+
+        // Queue world weather and seasons initialization
         initializeWorlds();
 
         // Start time cycle
         timeManager.startTimeCycle();
+        timer.mark("worlds");
 
+        timer.report(logger);
         logger.info("AtmosForge has been successfully enabled!");
     }
 
@@ -86,12 +148,33 @@ public class Main extends JavaPlugin {
     public void onDisable() {
         logger.info("Disabling AtmosForge...");
 
-        // Save world data before shutdown
-        worldManager.saveAllWorldData();
+        // Record the remaining weather durations before the engine stops
+        weatherManager.saveAllWorldData();
 
         // Stop time cycle
         timeManager.stopTimeCycle();
 
+        // Stop all effects and the tick engine driving them
+        effectManager.cancelAllEffects();
+        tickEngine.stop();
+        skyExposureCache.clear();
+        playerPositions.clear();
+        playerEnvironments.clear();
+        playerGrid.clear();
+        particleBudget.clear();
+        particleCuller.clear();
+        soundBus.clear();
+        potionReconciler.clear();
+
+        // Stop the particle packet threads
+        if (protocolLibHook != null) {
+            protocolLibHook.shutdown();
+        }
+
+        // Flush pending world data writes, then the remaining file writes, before shutdown
+        worldManager.shutdown();
+        fileManager.shutdown();
+
         logger.info("AtmosForge has been successfully disabled!");
     }
 
@@ -100,6 +183,7 @@ public class Main extends JavaPlugin {
         pm.registerEvents(new PlayerListener(this), this);
         pm.registerEvents(new WorldListener(this), this);
         pm.registerEvents(new TimeListener(this), this);
+        pm.registerEvents(new BlockListener(this), this);
     }
 
     private void initializeIntegrations() {
@@ -112,20 +196,23 @@ public class Main extends JavaPlugin {
 
         // Check for ProtocolLib
         if (Bukkit.getPluginManager().getPlugin("ProtocolLib") != null) {
-            new ProtocolLibHook(this).initialize();
+            protocolLibHook = new ProtocolLibHook(this);
+            protocolLibHook.initialize();
             protocolLibEnabled = true;
             logger.info("ProtocolLib integration enabled!");
         }
     }
 
     private void initializeWorlds() {
+        // Worlds are initialized a few per tick, or as soon as they are accessed
+        int queued = 0;
         for (World world : Bukkit.getWorlds()) {
             if (configManager.isWorldEnabled(world.getName())) {
-                weatherManager.initializeWeather(world);
-                seasonManager.initializeSeason(world);
-                logger.info("Initialized weather and season for world: " + world.getName());
+                worldManager.queueInitialization(world);
+                queued++;
             }
         }
+        logger.info("Queued " + queued + " worlds for weather and season initialization.");
     }
 
     // Getter methods
@@ -134,6 +221,10 @@ public class Main extends JavaPlugin {
         return instance;
     }
 
+    public FileManager getFileManager() {
+        return fileManager;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -142,6 +233,10 @@ public class Main extends JavaPlugin {
         return languageManager;
     }
 
+    public EffectPlanLoader getEffectPlanLoader() {
+        return effectPlanLoader;
+    }
+
     public WorldManager getWorldManager() {
         return worldManager;
     }
@@ -162,6 +257,46 @@ public class Main extends JavaPlugin {
         return timeManager;
     }
 
+    public TickEngine getTickEngine() {
+        return tickEngine;
+    }
+
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    public SkyExposureCache getSkyExposureCache() {
+        return skyExposureCache;
+    }
+
+    public PlayerPositionCache getPlayerPositions() {
+        return playerPositions;
+    }
+
+    public PlayerEnvironmentCache getPlayerEnvironments() {
+        return playerEnvironments;
+    }
+
+    public PlayerGrid getPlayerGrid() {
+        return playerGrid;
+    }
+
+    public ParticleBudget getParticleBudget() {
+        return particleBudget;
+    }
+
+    public ParticleCuller getParticleCuller() {
+        return particleCuller;
+    }
+
+    public SoundBus getSoundBus() {
+        return soundBus;
+    }
+
+    public PotionReconciler getPotionReconciler() {
+        return potionReconciler;
+    }
+
     public boolean isPlaceholderAPIEnabled() {
         return placeholderAPIEnabled;
     }
@@ -169,4 +304,8 @@ public class Main extends JavaPlugin {
     public boolean isProtocolLibEnabled() {
         return protocolLibEnabled;
     }
+
+    public ProtocolLibHook getProtocolLibHook() {
+        return protocolLibHook;
+    }
 }
\ No newline at end of file
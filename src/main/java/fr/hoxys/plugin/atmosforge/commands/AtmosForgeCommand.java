@@ -25,8 +25,12 @@ public class AtmosForgeCommand implements CommandExecutor, TabCompleter {
 
     private final Main plugin;
 
+    // Sous-commande /atmosforge debug
+    private final DebugCommand debugCommand;
+
     public AtmosForgeCommand(Main plugin) {
         this.plugin = plugin;
+        this.debugCommand = new DebugCommand(plugin);
     }
 
     @Override
@@ -86,6 +90,11 @@ public class AtmosForgeCommand implements CommandExecutor, TabCompleter {
                 handleInfoCommand(sender, args);
                 break;
 
+            case "debug":
+                // Les permissions sont vérifiées par la commande de débogage
+                debugCommand.onCommand(sender, cmd, label, Arrays.copyOfRange(args, 1, args.length));
+                break;
+
             default:
                 sender.sendMessage(ChatColor.RED + "Unknown subcommand. Use /atmosforge help for help.");
                 break;
@@ -101,12 +110,15 @@ public class AtmosForgeCommand implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             // Premières sous-commandes
             List<String> subCommands = Arrays.asList(
-                    "help", "reload", "weather", "season", "time", "config", "info");
+                    "help", "reload", "weather", "season", "time", "config", "info", "debug");
             return filterCompletions(subCommands, args[0]);
         } else if (args.length >= 2) {
             String subCommand = args[0].toLowerCase();
 
             switch (subCommand) {
+                case "debug":
+                    return debugCommand.onTabComplete(sender, cmd, alias, Arrays.copyOfRange(args, 1, args.length));
+
                 case "weather":
                     if (args.length == 2) {
                         return filterCompletions(Arrays.asList("set", "info"), args[1]);
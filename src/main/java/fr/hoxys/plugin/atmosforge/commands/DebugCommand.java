@@ -1,6 +1,13 @@
 package fr.hoxys.plugin.atmosforge.commands;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.data.ClimateStoreBenchmark;
+import fr.hoxys.plugin.atmosforge.data.ClimateStoreType;
+import fr.hoxys.plugin.atmosforge.engine.ParticleBenchmark;
+import fr.hoxys.plugin.atmosforge.engine.ParticleCuller;
+import fr.hoxys.plugin.atmosforge.engine.PotionReconciler;
+import fr.hoxys.plugin.atmosforge.engine.SoundBus;
+import fr.hoxys.plugin.atmosforge.engine.QualityGovernor;
 import fr.hoxys.plugin.atmosforge.models.Season;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
@@ -11,6 +18,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -34,7 +42,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         if (!hasPermission(sender, "atmosforge.admin.debug")) return true;
 
         if (args.length == 0) {
-            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug <status|toggle|dump|reset|reload-config|test> [options]");
+            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug <status|toggle|dump|reset|reload-config|test> [options]");
             return true;
         }
 
@@ -66,7 +74,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
                 break;
 
             default:
-                sender.sendMessage(ChatColor.RED + "Unknown debug subcommand. Use /atmosforge-debug for help.");
+                sender.sendMessage(ChatColor.RED + "Unknown debug subcommand. Use /atmosforge debug for help.");
                 break;
         }
 
@@ -110,7 +118,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
 
                 case "test":
                     if (args.length == 2) {
-                        return filterCompletions(Arrays.asList("weather", "season", "effect", "particles", "sounds", "tps"), args[1]);
+                        return filterCompletions(Arrays.asList("weather", "season", "effect", "particles", "sounds", "tps", "storage", "emission"), args[1]);
                     } else if (args.length == 3) {
                         if (args[1].equalsIgnoreCase("weather")) {
                             return filterCompletions(getWeatherTypeIds(), args[2]);
@@ -195,12 +203,29 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      */
     private void handleStatusCommand(CommandSender sender) {
         boolean debugEnabled = plugin.getConfigManager().getConfig().getBoolean("debug.enabled", false);
-        int maxParticlesPerPlayer = plugin.getConfigManager().getConfig().getInt("debug.max_particles_per_player", 500);
 
         sender.sendMessage(ChatColor.GOLD + "=== AtmosForge Debug Status ===");
         sender.sendMessage(ChatColor.YELLOW + "Debug mode: " +
                 (debugEnabled ? ChatColor.GREEN + "Enabled" : ChatColor.RED + "Disabled"));
-        sender.sendMessage(ChatColor.YELLOW + "Max particles per player: " + ChatColor.WHITE + maxParticlesPerPlayer);
+        int maxParticlesPerPlayer = plugin.getParticleBudget().getParticlesPerSecond();
+        sender.sendMessage(ChatColor.YELLOW + "Max particles per player: " + ChatColor.WHITE +
+                (maxParticlesPerPlayer > 0 ? maxParticlesPerPlayer + "/s" : "Unlimited"));
+        sender.sendMessage(ChatColor.YELLOW + "Players over particle budget: " + ChatColor.WHITE +
+                plugin.getParticleBudget().getLimitedPlayerCount() + " (" +
+                plugin.getParticleBudget().getDroppedParticles() + " particles dropped)");
+        ParticleCuller culler = plugin.getParticleCuller();
+        sender.sendMessage(ChatColor.YELLOW + "Particles culled out of view: " + ChatColor.WHITE +
+                (culler.isEnabled() ? String.format("%.1f%%", culler.getCullRatio() * 100) + " (" +
+                        culler.getCulledParticles() + "/" + culler.getConsideredParticles() + ")" : "Disabled"));
+        sender.sendMessage(ChatColor.YELLOW + "Compiled weather effect plans: " + ChatColor.WHITE +
+                plugin.getEffectPlanLoader().getPlanCount() + " (" +
+                plugin.getEffectPlanLoader().getSkippedEntries() + " unsupported entries skipped)");
+        SoundBus soundBus = plugin.getSoundBus();
+        sender.sendMessage(ChatColor.YELLOW + "Sounds emitted: " + ChatColor.WHITE +
+                soundBus.getEmittedSounds() + "/" + soundBus.getRequestedSounds() + " requested");
+        PotionReconciler potions = plugin.getPotionReconciler();
+        sender.sendMessage(ChatColor.YELLOW + "Potion effects applied: " + ChatColor.WHITE +
+                potions.getAppliedEffects() + "/" + potions.getRequestedEffects() + " requested");
 
         // Afficher le nombre de mondes activés
         List<String> enabledWorlds = plugin.getConfigManager().getEnabledWorlds();
@@ -220,6 +245,18 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         // Afficher des informations sur les tâches
         sender.sendMessage(ChatColor.YELLOW + "Time check interval: " + ChatColor.WHITE +
                 plugin.getTimeManager().getTimeCheckInterval() + " ticks");
+        sender.sendMessage(ChatColor.YELLOW + "Active effect tasks: " + ChatColor.WHITE +
+                plugin.getTickEngine().getActiveTaskCount());
+
+        // Afficher le niveau de qualité des effets et la charge mesurée
+        QualityGovernor governor = plugin.getQualityGovernor();
+        sender.sendMessage(ChatColor.YELLOW + "Effect quality: " + ChatColor.WHITE + governor.getLevel() +
+                (governor.isEnabled() ? "" : ChatColor.GRAY + " (adaptive quality disabled)"));
+        sender.sendMessage(ChatColor.YELLOW + "Server load: " + ChatColor.WHITE +
+                governor.describeLoad() + String.format(", %.2f ms/tick for effects", governor.getAverageOwnMs()));
+        if (!governor.isMsptMeasured()) {
+            sender.sendMessage(ChatColor.GRAY + "  This server does not expose MSPT. Tick interval never drops below 50 ms, so it only rises once TPS falls.");
+        }
         sender.sendMessage(ChatColor.YELLOW + "Weather change chance: " + ChatColor.WHITE +
                 plugin.getWeatherManager().getWeatherChangeChance() + "%");
         sender.sendMessage(ChatColor.YELLOW + "Default weather duration: " + ChatColor.WHITE +
@@ -236,7 +273,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      */
     private void handleToggleCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug toggle <option>");
+            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug toggle <option>");
             sender.sendMessage(ChatColor.RED + "Options: debug, effects, particles, sounds, damage, messages");
             return;
         }
@@ -303,7 +340,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      */
     private void handleDumpCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug dump <target>");
+            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug dump <target>");
             sender.sendMessage(ChatColor.RED + "Targets: worlds, seasons, weather, effects, config, all");
             return;
         }
@@ -511,7 +548,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      */
     private void handleResetCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug reset <target> [options]");
+            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug reset <target> [options]");
             sender.sendMessage(ChatColor.RED + "Targets: world, effects, tasks");
             return;
         }
@@ -521,7 +558,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         switch (target) {
             case "world":
                 if (args.length < 3) {
-                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug reset world <world_name>");
+                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug reset world <world_name>");
                     return;
                 }
                 String worldName = args[2];
@@ -619,6 +656,12 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         // Recharger la configuration
         plugin.getConfigManager().reloadConfig();
         plugin.getLanguageManager().reloadLanguage();
+        plugin.getEffectPlanLoader().loadPlans();
+        plugin.getParticleBudget().loadConfiguration();
+        plugin.getParticleCuller().loadConfiguration();
+        plugin.getSoundBus().loadConfiguration();
+        plugin.getPotionReconciler().loadConfiguration();
+        plugin.getQualityGovernor().loadConfiguration();
 
         sender.sendMessage(ChatColor.GREEN + "Successfully reloaded configuration and language files.");
     }
@@ -631,8 +674,8 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      */
     private void handleTestCommand(CommandSender sender, String[] args) {
         if (args.length < 2) {
-            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug test <target> [options]");
-            sender.sendMessage(ChatColor.RED + "Targets: weather, season, effect, particles, sounds, tps");
+            sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug test <target> [options]");
+            sender.sendMessage(ChatColor.RED + "Targets: weather, season, effect, particles, sounds, tps, storage, emission");
             return;
         }
 
@@ -641,7 +684,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         switch (target) {
             case "weather":
                 if (args.length < 3) {
-                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug test weather <weather_id>");
+                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug test weather <weather_id>");
                     return;
                 }
                 testWeather(sender, args[2]);
@@ -649,7 +692,7 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
 
             case "season":
                 if (args.length < 3) {
-                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge-debug test season <season_id>");
+                    sender.sendMessage(ChatColor.RED + "Usage: /atmosforge debug test season <season_id>");
                     return;
                 }
                 testSeason(sender, args[2]);
@@ -671,9 +714,35 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
                 testTPS(sender);
                 break;
 
+            case "storage":
+                int worlds = 1000;
+                if (args.length >= 3) {
+                    try {
+                        worlds = Integer.parseInt(args[2]);
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage(ChatColor.RED + "Invalid world count: " + args[2]);
+                        return;
+                    }
+                }
+                testStorage(sender, Math.max(1, Math.min(worlds, 100000)));
+                break;
+
+            case "emission":
+                int particles = 1000000;
+                if (args.length >= 3) {
+                    try {
+                        particles = Integer.parseInt(args[2]);
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage(ChatColor.RED + "Invalid particle count: " + args[2]);
+                        return;
+                    }
+                }
+                testEmission(sender, Math.max(1000, Math.min(particles, 5000000)));
+                break;
+
             default:
                 sender.sendMessage(ChatColor.RED + "Unknown test target: " + target);
-                sender.sendMessage(ChatColor.RED + "Targets: weather, season, effect, particles, sounds, tps");
+                sender.sendMessage(ChatColor.RED + "Targets: weather, season, effect, particles, sounds, tps, storage, emission");
                 break;
         }
     }
@@ -928,13 +997,14 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
      * @param sender L'expéditeur de la commande.
      */
     private void testTPS(CommandSender sender) {
-        // Obtenir les TPS du serveur
-        double[] tps = Bukkit.getServer().getTP;
+        // Obtenir les TPS du serveur, mesurés par le régulateur de qualité (l'API Spigot ne les expose pas)
+        QualityGovernor governor = plugin.getQualityGovernor();
+        double tps = governor.getAverageTps();
 
         sender.sendMessage(ChatColor.GOLD + "=== TPS (Ticks Per Second) ===");
-        sender.sendMessage(ChatColor.YELLOW + "Current (1m): " + ChatColor.WHITE + formatTPS(tps[0]));
-        sender.sendMessage(ChatColor.YELLOW + "Average (5m): " + ChatColor.WHITE + formatTPS(tps[1]));
-        sender.sendMessage(ChatColor.YELLOW + "Average (15m): " + ChatColor.WHITE + formatTPS(tps[2]));
+        sender.sendMessage(ChatColor.YELLOW + "Current: " + ChatColor.WHITE + formatTPS(tps) +
+                ChatColor.GRAY + " (" + governor.describeLoad() + ")");
+        sender.sendMessage(ChatColor.YELLOW + "Effect quality: " + ChatColor.WHITE + governor.getLevel());
 
         // Démarrer un test de charge
         if (sender instanceof Player) {
@@ -957,15 +1027,15 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
 
                 // Vérifier à nouveau les TPS après le test
                 Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    double[] newTps = Bukkit.getServer().getTPS();
+                    double newTps = governor.getAverageTps();
 
                     sender.sendMessage(ChatColor.GOLD + "=== TPS After Load Test ===");
-                    sender.sendMessage(ChatColor.YELLOW + "Current (1m): " + ChatColor.WHITE + formatTPS(newTps[0]));
-                    sender.sendMessage(ChatColor.YELLOW + "Average (5m): " + ChatColor.WHITE + formatTPS(newTps[1]));
-                    sender.sendMessage(ChatColor.YELLOW + "Average (15m): " + ChatColor.WHITE + formatTPS(newTps[2]));
+                    sender.sendMessage(ChatColor.YELLOW + "Current: " + ChatColor.WHITE + formatTPS(newTps) +
+                            ChatColor.GRAY + " (" + governor.describeLoad() + ")");
+                    sender.sendMessage(ChatColor.YELLOW + "Effect quality: " + ChatColor.WHITE + governor.getLevel());
 
                     // Calculer l'impact
-                    double impact = tps[0] - newTps[0];
+                    double impact = tps - newTps;
                     ChatColor impactColor = impact < 1.0 ? ChatColor.GREEN : (impact < 3.0 ? ChatColor.YELLOW : ChatColor.RED);
 
                     sender.sendMessage(ChatColor.YELLOW + "TPS Impact: " + impactColor + String.format("%.2f", impact));
@@ -981,6 +1051,80 @@ public class DebugCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    /**
+     * Mesure le débit de chaque stockage des données des mondes, hors du thread principal.
+     *
+     * @param sender L'expéditeur de la commande.
+     * @param worlds Le nombre de mondes à générer.
+     */
+    private void testStorage(CommandSender sender, int worlds) {
+        sender.sendMessage(ChatColor.YELLOW + "Benchmarking world data stores with " + worlds + " worlds...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "=== Storage Benchmark (" + worlds + " worlds) ===");
+
+            for (ClimateStoreType type : ClimateStoreType.values()) {
+                try {
+                    ClimateStoreBenchmark.Result result = ClimateStoreBenchmark.run(type, plugin.getDataFolder(), worlds, 20,
+                            plugin.getFileManager().getBackupCount(), plugin.getLogger());
+                    String current = type == plugin.getWorldManager().getStoreType() ? ChatColor.GREEN + " (current)" : "";
+
+                    lines.add(ChatColor.YELLOW + type.getId() + current + ChatColor.YELLOW + ": "
+                            + ChatColor.WHITE + "write all " + formatMillis(result.fullWriteNanos())
+                            + ", flush " + result.dirtyWorlds() + " dirty " + formatMillis(result.dirtyFlushNanos())
+                            + String.format(" (%.0f worlds/s)", result.getDirtyThroughput())
+                            + ", load " + formatMillis(result.loadNanos()));
+                } catch (IOException | RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Storage benchmark failed for " + type.getId(), e);
+                    lines.add(ChatColor.YELLOW + type.getId() + ": " + ChatColor.RED + "failed (" + e.getMessage() + ")");
+                }
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    /**
+     * Mesure le coût de la génération des positions de particules, hors envoi au client et hors du thread principal.
+     *
+     * @param sender L'expéditeur de la commande.
+     * @param particles Le nombre de particules à générer.
+     */
+    private void testEmission(CommandSender sender, int particles) {
+        sender.sendMessage(ChatColor.YELLOW + "Benchmarking particle emission with " + particles + " particles...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            ParticleBenchmark.Result result = ParticleBenchmark.run(particles);
+            List<String> lines = new ArrayList<>();
+
+            lines.add(ChatColor.GOLD + "=== Particle Emission Benchmark ===");
+            lines.add(ChatColor.YELLOW + "Particles: " + ChatColor.WHITE + result.particles()
+                    + " in " + formatMillis(result.nanos())
+                    + String.format(" (%.1f ns/particle)", result.getNanosPerParticle()));
+
+            if (result.allocatedBytes() < 0) {
+                lines.add(ChatColor.YELLOW + "Allocation: " + ChatColor.GRAY + "not measurable on this JVM");
+            } else {
+                ChatColor color = result.getBytesPerParticle() < 0.01 ? ChatColor.GREEN : ChatColor.RED;
+                lines.add(ChatColor.YELLOW + "Allocation: " + color + result.allocatedBytes() + " bytes"
+                        + String.format(" (%.3f bytes/particle)", result.getBytesPerParticle()));
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> lines.forEach(sender::sendMessage));
+        });
+    }
+
+    /**
+     * Formate une durée en nanosecondes en millisecondes.
+     *
+     * @param nanos La durée en nanosecondes.
+     * @return La durée formatée.
+     */
+    private String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
     /**
      * Formate une valeur TPS pour l'affichage.
      *
@@ -1,17 +1,16 @@
 package fr.hoxys.plugin.atmosforge.config;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.data.DurableFile;
 
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -24,6 +23,7 @@ public class ConfigManager {
 
     private FileConfiguration config;
     private File configFile;
+    private DurableFile durableConfigFile;
 
     /**
      * Constructeur du gestionnaire de configuration.
@@ -44,37 +44,39 @@ public class ConfigManager {
 
         // Initialiser le fichier de configuration
         configFile = new File(plugin.getDataFolder(), "config.yml");
+        durableConfigFile = plugin.getFileManager().getDurableFile("config.yml", true);
     }
 
     /**
      * Charge la configuration du plugin.
      */
     public void loadConfig() {
-        if (!configFile.exists()) {
+        if (!durableConfigFile.exists()) {
             // Si le fichier n'existe pas, le créer à partir des ressources par défaut
             plugin.saveResource("config.yml", false);
             logger.info("Created default configuration file.");
         }
 
-        config = YamlConfiguration.loadConfiguration(configFile);
+        // Lire la configuration, depuis une copie de sauvegarde si le fichier est corrompu
+        config = plugin.getFileManager().loadYaml(durableConfigFile);
 
         // Comparer avec les valeurs par défaut et ajouter les clés manquantes
         InputStream defaultConfigStream = plugin.getResource("config.yml");
         if (defaultConfigStream != null) {
             YamlConfiguration defaultConfig = YamlConfiguration.loadConfiguration(new InputStreamReader(defaultConfigStream));
+            boolean updated = false;
 
             for (String key : defaultConfig.getKeys(true)) {
                 if (!config.contains(key)) {
                     config.set(key, defaultConfig.get(key));
                     logger.info("Added missing config key: " + key);
+                    updated = true;
                 }
             }
 
             // Sauvegarder les modifications
-            try {
-                config.save(configFile);
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Could not save updated config to " + configFile, e);
+            if (updated) {
+                plugin.getFileManager().saveYamlAsync(durableConfigFile, config);
             }
         }
 
@@ -85,7 +87,7 @@ public class ConfigManager {
      * Recharge la configuration du plugin.
      */
     public void reloadConfig() {
-        config = YamlConfiguration.loadConfiguration(configFile);
+        config = plugin.getFileManager().loadYaml(durableConfigFile);
 
         // Recharger les valeurs par défaut
         InputStream defaultConfigStream = plugin.getResource("config.yml");
@@ -98,15 +100,14 @@ public class ConfigManager {
     }
 
     /**
-     * Sauvegarde la configuration du plugin.
+     * Sauvegarde la configuration du plugin, hors du thread principal.
      */
     public void saveConfig() {
-        try {
-            config.save(configFile);
-            logger.info("Configuration saved successfully.");
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save config to " + configFile, e);
-        }
+        plugin.getFileManager().saveYamlAsync(durableConfigFile, config).thenAccept(saved -> {
+            if (saved) {
+                logger.info("Configuration saved successfully.");
+            }
+        });
     }
 
     /**
@@ -0,0 +1,492 @@
+package fr.hoxys.plugin.atmosforge.config;
+
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.effects.EffectPlan;
+import fr.hoxys.plugin.atmosforge.models.effects.PlanLayer;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Color;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Particle;
+import org.bukkit.Registry;
+import org.bukkit.Sound;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.potion.PotionEffectType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Compile les définitions de {@code weathers/*.yml} en {@link EffectPlan}.
+ * <p>
+ * Chaque type de météo défini dans ces fichiers est compilé une fois, au démarrage ou au rechargement :
+ * les noms de particules, de sons et d'effets sont résolus, les couleurs et les messages préparés et les
+ * intervalles rangés en créneaux. Le moteur d'effets joue ensuite les plans sans plus consulter de YAML.
+ * Les entrées qui ne peuvent pas être résolues sont ignorées et comptées.
+ */
+public class EffectPlanLoader {
+
+    // Fichiers de définitions, dans le dossier weathers des ressources
+    private static final String[] WEATHER_FILES = {
+            "precipitations", "temperatures", "winds", "electrical", "visibility", "optical", "extreme"
+    };
+
+    // Intervalles par défaut en ticks : particules, sons, potions et vent, dégâts
+    private static final int PARTICLE_INTERVAL = 5;
+    private static final int SOUND_INTERVAL = 40;
+    private static final int HAZARD_INTERVAL = 20;
+    private static final int DAMAGE_INTERVAL = 200;
+
+    // Anciens noms de particules utilisés par les définitions, et leur nom actuel
+    private static final Map<String, String> PARTICLE_ALIASES = new HashMap<>();
+
+    // Anciens noms d'effets de potion utilisés par les définitions, et leur clé actuelle
+    private static final Map<String, String> EFFECT_ALIASES = new HashMap<>();
+
+    // Clés comprises par une entrée d'effet sur les joueurs. La direction et la hauteur ne règlent que
+    // l'intensité de la poussée ; toute autre clé restreint l'effet (when_thunder, height_dependent…) et
+    // l'entrée est ignorée plutôt que d'être appliquée pendant toute la météo
+    private static final Set<String> PLAYER_EFFECT_KEYS = Set.of(
+            "type", "chance", "conditions", "interval", "amplifier", "duration",
+            "amount", "message", "strength", "direction", "height");
+
+    static {
+        PARTICLE_ALIASES.put("WATER_DROP", "RAIN");
+        PARTICLE_ALIASES.put("WATER_SPLASH", "SPLASH");
+        PARTICLE_ALIASES.put("WATER_BUBBLE", "BUBBLE");
+        PARTICLE_ALIASES.put("DRIP_WATER", "DRIPPING_WATER");
+        PARTICLE_ALIASES.put("SMOKE_NORMAL", "SMOKE");
+        PARTICLE_ALIASES.put("SMOKE_LARGE", "LARGE_SMOKE");
+        PARTICLE_ALIASES.put("SPELL_MOB", "ENTITY_EFFECT");
+        PARTICLE_ALIASES.put("SPELL_INSTANT", "INSTANT_EFFECT");
+        PARTICLE_ALIASES.put("SPELL_WITCH", "WITCH");
+        PARTICLE_ALIASES.put("TOWN_AURA", "MYCELIUM");
+        PARTICLE_ALIASES.put("EXPLOSION_NORMAL", "POOF");
+        PARTICLE_ALIASES.put("FIREWORKS_SPARK", "FIREWORK");
+        PARTICLE_ALIASES.put("SNOWBALL", "ITEM_SNOWBALL");
+        PARTICLE_ALIASES.put("SNOW_SHOVEL", "ITEM_SNOWBALL");
+        PARTICLE_ALIASES.put("REDSTONE", "DUST");
+        PARTICLE_ALIASES.put("VILLAGER_HAPPY", "HAPPY_VILLAGER");
+
+        EFFECT_ALIASES.put("SLOW", "slowness");
+        EFFECT_ALIASES.put("CONFUSION", "nausea");
+        EFFECT_ALIASES.put("FAST_DIGGING", "haste");
+        EFFECT_ALIASES.put("SLOW_DIGGING", "mining_fatigue");
+        EFFECT_ALIASES.put("JUMP", "jump_boost");
+        EFFECT_ALIASES.put("DAMAGE_RESISTANCE", "resistance");
+    }
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Plan compilé de chaque type de météo défini
+    private Map<WeatherType, EffectPlan> plans;
+
+    // Entrées ignorées lors de la dernière compilation
+    private int skippedEntries;
+
+    // Sons du registre par nom de constante Bukkit, construit à la première résolution
+    private Map<String, Sound> soundsByName;
+
+    /**
+     * Constructeur du chargeur de plans d'effets.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public EffectPlanLoader(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.plans = new EnumMap<>(WeatherType.class);
+    }
+
+    /**
+     * Compile tous les fichiers de définitions. Les fichiers absents du dossier du plugin
+     * sont d'abord extraits des ressources. Les plans précédents sont remplacés d'un bloc.
+     */
+    public void loadPlans() {
+        File weathersDir = new File(plugin.getDataFolder(), "weathers");
+        if (!weathersDir.exists() && !weathersDir.mkdirs()) {
+            logger.warning("Failed to create weathers directory!");
+        }
+
+        Map<WeatherType, EffectPlan> compiled = new EnumMap<>(WeatherType.class);
+        skippedEntries = 0;
+        int layers = 0;
+
+        for (String name : WEATHER_FILES) {
+            String resource = "weathers/" + name + ".yml";
+            File file = new File(weathersDir, name + ".yml");
+            if (!file.exists()) {
+                if (plugin.getResource(resource) == null) {
+                    continue;
+                }
+                plugin.saveResource(resource, false);
+            }
+
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+            ConfigurationSection common = config.getConfigurationSection("common");
+            for (String key : config.getKeys(false)) {
+                ConfigurationSection section = config.getConfigurationSection(key);
+                if (section == null || key.equals("common")) {
+                    continue;
+                }
+
+                WeatherType weatherType = WeatherType.fromId(section.getString("id", key));
+                if (weatherType == null) {
+                    logger.fine("No weather type matches definition " + key + " in " + resource);
+                    continue;
+                }
+
+                EffectPlan plan = compile(weatherType, section, common);
+                compiled.put(weatherType, plan);
+                layers += plan.getLayerCount();
+            }
+        }
+
+        plans = compiled;
+        logger.info("Compiled " + compiled.size() + " weather effect plans (" + layers + " layers, " +
+                skippedEntries + " unsupported entries skipped)");
+    }
+
+    /**
+     * Compile la définition d'un type de météo.
+     */
+    private EffectPlan compile(WeatherType weatherType, ConfigurationSection section, ConfigurationSection common) {
+        List<PlanLayer> ambience = new ArrayList<>();
+        List<PlanLayer> hazards = new ArrayList<>();
+
+        if (isEnabled(section, "particles", common, "particle_effects")) {
+            for (Map<?, ?> entry : section.getMapList("particles.types")) {
+                compileEntry(weatherType, "particle", entry, ambience);
+            }
+        }
+        if (isEnabled(section, "sounds", common, "sound_effects")) {
+            for (Map<?, ?> entry : section.getMapList("sounds.types")) {
+                compileEntry(weatherType, "sound", entry, ambience);
+            }
+        }
+        if (isEnabled(section, "player_effects", common, "player_effects")) {
+            for (Map<?, ?> entry : section.getMapList("player_effects.types")) {
+                compileEntry(weatherType, "player", entry, hazards);
+            }
+        }
+        // Les effets sur les blocs ne sont pas encore compilés : ils sont comptés comme ignorés
+        if (isEnabled(section, "block_effects", common, "block_effects")) {
+            int blockEntries = section.getMapList("block_effects.types").size();
+            skippedEntries += blockEntries;
+            logger.fine("Skipped " + blockEntries + " block entries of " + weatherType.getId() +
+                    ": block effects are not compiled");
+        }
+
+        return new EffectPlan(weatherType, ambience, hazards);
+    }
+
+    /**
+     * Vérifie si une catégorie d'effets est activée : par sa propre clé enabled, sinon par les réglages communs du fichier.
+     */
+    private boolean isEnabled(ConfigurationSection section, String path, ConfigurationSection common, String commonKey) {
+        if (!section.isConfigurationSection(path)) {
+            return false;
+        }
+        boolean byDefault = common == null || common.getBoolean(commonKey, true);
+        return section.getBoolean(path + ".enabled", byDefault);
+    }
+
+    /**
+     * Compile une entrée et l'ajoute à la piste, ou la compte comme ignorée si elle ne peut pas être résolue.
+     */
+    private void compileEntry(WeatherType weatherType, String kind, Map<?, ?> entry, List<PlanLayer> track) {
+        try {
+            PlanLayer layer;
+            switch (kind) {
+                case "particle":
+                    layer = compileParticle(entry);
+                    break;
+                case "sound":
+                    layer = compileSound(entry);
+                    break;
+                default:
+                    layer = compilePlayerEffect(entry);
+                    break;
+            }
+            track.add(layer);
+        } catch (IllegalArgumentException e) {
+            skippedEntries++;
+            logger.fine("Skipped " + kind + " entry of " + weatherType.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private PlanLayer compileParticle(Map<?, ?> entry) {
+        // Les formes célestes (arcs, spirales…) sont jouées par les animations de l'intégration ProtocolLib
+        if (entry.containsKey("pattern") || entry.containsKey("fixed_position")) {
+            throw new IllegalArgumentException("shaped particles are drawn by sky animations");
+        }
+
+        Particle particle = resolveParticle(getString(entry, "type", ""));
+        return new PlanLayer.Particles(
+                getInt(entry, "interval", PARTICLE_INTERVAL),
+                getDouble(entry, "chance", 1.0),
+                particle,
+                createParticleData(particle, entry),
+                getInt(entry, "count", 1),
+                getDouble(entry, "spread", 0.0),
+                getDouble(entry, "y_offset", 0.0),
+                getDouble(entry, "height", 0.0),
+                getDouble(entry, "speed", 0.0));
+    }
+
+    private PlanLayer compileSound(Map<?, ?> entry) {
+        Sound sound = resolveSound(getString(entry, "sound", ""));
+
+        // Un son certain à chaque intervalle forme une ambiance, un son aléatoire est un événement ponctuel
+        double chance = getDouble(entry, "chance", 1.0);
+        Object ambient = entry.get("ambient");
+        return new PlanLayer.Sounds(
+                getInt(entry, "interval", SOUND_INTERVAL),
+                chance,
+                sound,
+                (float) getDouble(entry, "volume", 1.0),
+                (float) getDouble(entry, "pitch", 1.0),
+                ambient instanceof Boolean ? (Boolean) ambient : chance >= 1.0);
+    }
+
+    private PlanLayer compilePlayerEffect(Map<?, ?> entry) {
+        for (Object key : entry.keySet()) {
+            if (!PLAYER_EFFECT_KEYS.contains(String.valueOf(key))) {
+                throw new IllegalArgumentException("unsupported modifier " + key);
+            }
+        }
+
+        String type = getString(entry, "type", "").toUpperCase(Locale.ROOT);
+        double chance = getDouble(entry, "chance", 1.0);
+        PlanLayer.Condition condition = resolveCondition(getString(entry, "conditions", null));
+
+        switch (type) {
+            case "DAMAGE":
+                return new PlanLayer.Damage(
+                        getInterval(entry, DAMAGE_INTERVAL),
+                        chance,
+                        getDouble(entry, "amount", 1.0),
+                        resolveMessage(getString(entry, "message", null)),
+                        condition);
+            case "PUSH":
+                return new PlanLayer.Push(getInterval(entry, HAZARD_INTERVAL), chance,
+                        getDouble(entry, "strength", 0.5), 0.2, condition);
+            case "LIFT":
+                return new PlanLayer.Push(getInterval(entry, HAZARD_INTERVAL), chance,
+                        0.0, getDouble(entry, "strength", 0.5), condition);
+            case "THROW":
+                double strength = getDouble(entry, "strength", 1.0);
+                return new PlanLayer.Push(getInterval(entry, HAZARD_INTERVAL), chance,
+                        strength, strength / 2, condition);
+            default:
+                return new PlanLayer.Potion(
+                        getInterval(entry, HAZARD_INTERVAL),
+                        chance,
+                        resolveEffect(type),
+                        getInt(entry, "amplifier", 0),
+                        getInt(entry, "duration", 100),
+                        condition);
+        }
+    }
+
+    /**
+     * Résout un message : une clé du fichier de langue, ou à défaut un texte écrit directement dans la définition,
+     * dont les codes de couleur sont traduits.
+     */
+    private String resolveMessage(String message) {
+        if (message == null) {
+            return null;
+        }
+
+        LanguageManager languageManager = plugin.getLanguageManager();
+        if (languageManager.hasMessage(message)) {
+            return languageManager.getMessage(message);
+        }
+        return ChatColor.translateAlternateColorCodes('&', message);
+    }
+
+    /**
+     * Résout un nom de particule, y compris les anciens noms antérieurs à Minecraft 1.20.5.
+     */
+    private static Particle resolveParticle(String name) {
+        String upper = name.toUpperCase(Locale.ROOT);
+        String alias = PARTICLE_ALIASES.get(upper);
+        try {
+            return Particle.valueOf(alias != null ? alias : upper);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown particle " + name);
+        }
+    }
+
+    /**
+     * Résout un nom de son : une clé Minecraft ({@code block.amethyst_block.chime}) ou un nom de constante
+     * Bukkit ({@code BLOCK_AMETHYST_BLOCK_CHIME}). Les soulignés ne permettant pas de retrouver les points
+     * de la clé, les noms de constante sont cherchés dans un index du registre des sons.
+     */
+    private Sound resolveSound(String name) {
+        NamespacedKey key = name.indexOf('.') >= 0 ? NamespacedKey.fromString(name.toLowerCase(Locale.ROOT)) : null;
+        Sound sound = key != null ? Registry.SOUNDS.get(key) : null;
+        if (sound == null) {
+            if (soundsByName == null) {
+                soundsByName = new HashMap<>();
+                for (Sound candidate : Registry.SOUNDS) {
+                    soundsByName.put(candidate.getKey().getKey().replace('.', '_').toUpperCase(Locale.ROOT), candidate);
+                }
+            }
+            sound = soundsByName.get(name.toUpperCase(Locale.ROOT));
+        }
+        if (sound == null) {
+            throw new IllegalArgumentException("unknown sound " + name);
+        }
+        return sound;
+    }
+
+    /**
+     * Résout un nom d'effet de potion, y compris les anciens noms de Bukkit.
+     */
+    private static PotionEffectType resolveEffect(String name) {
+        String alias = EFFECT_ALIASES.get(name);
+        PotionEffectType type = Registry.EFFECT.get(NamespacedKey.minecraft(alias != null ? alias : name.toLowerCase(Locale.ROOT)));
+        if (type == null) {
+            throw new IllegalArgumentException("unknown player effect " + name);
+        }
+        return type;
+    }
+
+    /**
+     * Résout la condition d'une couche de danger. Par défaut, seuls les joueurs exposés au ciel sont concernés.
+     */
+    private static PlanLayer.Condition resolveCondition(String conditions) {
+        if (conditions == null) {
+            return PlanLayer.Condition.EXPOSED;
+        }
+
+        switch (conditions.toUpperCase(Locale.ROOT)) {
+            case "EXPOSED_TO_SKY":
+            case "EXPOSED_TO_SUN":
+            case "PROLONGED_EXPOSURE":
+                return PlanLayer.Condition.EXPOSED;
+            case "IN_WATER":
+                return PlanLayer.Condition.IN_WATER;
+            default:
+                throw new IllegalArgumentException("unsupported condition " + conditions);
+        }
+    }
+
+    /**
+     * Prépare les données d'une particule qui en exige : couleur, poussière colorée ou bloc.
+     */
+    private static Object createParticleData(Particle particle, Map<?, ?> entry) {
+        Class<?> dataType = particle.getDataType();
+        if (dataType == Void.class) {
+            return null;
+        }
+        if (dataType == Particle.DustOptions.class) {
+            return new Particle.DustOptions(parseColor(entry), 1.0f);
+        }
+        if (dataType == Color.class) {
+            return parseColor(entry);
+        }
+        if (BlockData.class.isAssignableFrom(dataType)) {
+            Material material = Material.matchMaterial(getString(entry, "block", "SAND"));
+            if (material == null || !material.isBlock()) {
+                throw new IllegalArgumentException("unknown block for particle " + particle);
+            }
+            return material.createBlockData();
+        }
+        throw new IllegalArgumentException("unsupported data for particle " + particle);
+    }
+
+    /**
+     * Lit la première couleur d'une entrée ({@code colors} ou {@code color}, en hexadécimal), avec son opacité.
+     */
+    private static Color parseColor(Map<?, ?> entry) {
+        Object colors = entry.get("colors");
+        String hex = colors instanceof List && !((List<?>) colors).isEmpty()
+                ? String.valueOf(((List<?>) colors).get(0))
+                : getString(entry, "color", "FFFFFF");
+
+        int rgb;
+        try {
+            rgb = Integer.parseInt(hex.startsWith("#") ? hex.substring(1) : hex, 16) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid color " + hex);
+        }
+
+        int alpha = (int) Math.round(Math.max(0.0, Math.min(1.0, getDouble(entry, "opacity", 1.0))) * 255);
+        return Color.fromARGB(alpha, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+    }
+
+    private static String getString(Map<?, ?> entry, String key, String def) {
+        Object value = entry.get(key);
+        return value != null ? String.valueOf(value) : def;
+    }
+
+    private static int getInt(Map<?, ?> entry, String key, int def) {
+        Object value = entry.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    /**
+     * Obtient l'intervalle d'un effet sur les joueurs : un nombre de ticks, ou le nom d'un intervalle de dégâts
+     * de la configuration ({@code frostbite}, {@code soldering_iron}), réglable par commande.
+     */
+    private int getInterval(Map<?, ?> entry, int def) {
+        Object value = entry.get("interval");
+        if (value instanceof String) {
+            String path = "effects.damage_intervals." + ((String) value).toLowerCase(Locale.ROOT);
+            FileConfiguration config = plugin.getConfigManager().getConfig();
+            if (!config.isInt(path)) {
+                throw new IllegalArgumentException("unknown interval " + value);
+            }
+            return Math.max(1, config.getInt(path));
+        }
+        return getInt(entry, "interval", def);
+    }
+
+    private static double getDouble(Map<?, ?> entry, String key, double def) {
+        Object value = entry.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    /**
+     * Obtient le plan compilé d'un type de météo.
+     *
+     * @param weatherType Le type de météo.
+     * @return Le plan, ou null si ce type de météo n'est pas défini.
+     */
+    public EffectPlan getPlan(WeatherType weatherType) {
+        return plans.get(weatherType);
+    }
+
+    /**
+     * Obtient le nombre de plans compilés.
+     *
+     * @return Le nombre de plans.
+     */
+    public int getPlanCount() {
+        return plans.size();
+    }
+
+    /**
+     * Obtient le nombre d'entrées ignorées lors de la dernière compilation.
+     *
+     * @return Le nombre d'entrées ignorées.
+     */
+    public int getSkippedEntries() {
+        return skippedEntries;
+    }
+}
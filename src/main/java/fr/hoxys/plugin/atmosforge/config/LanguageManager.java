@@ -1,6 +1,7 @@
 package fr.hoxys.plugin.atmosforge.config;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.data.DurableFile;
 import fr.hoxys.plugin.atmosforge.models.Season;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
@@ -9,10 +10,8 @@ import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -77,25 +76,27 @@ public class LanguageManager {
             }
         }
 
-        langConfig = YamlConfiguration.loadConfiguration(langFile);
+        // Lire le fichier de langue, depuis une copie de sauvegarde s'il est corrompu
+        DurableFile durableLangFile = getDurableLangFile();
+        langConfig = plugin.getFileManager().loadYaml(durableLangFile);
 
         // Vérifier si toutes les clés sont présentes en comparant avec le fichier par défaut
         InputStream defaultLangStream = plugin.getResource("lang/" + language + ".yml");
         if (defaultLangStream != null) {
             YamlConfiguration defaultLang = YamlConfiguration.loadConfiguration(new InputStreamReader(defaultLangStream));
+            boolean updated = false;
 
             for (String key : defaultLang.getKeys(true)) {
                 if (!langConfig.contains(key)) {
                     langConfig.set(key, defaultLang.get(key));
                     logger.info("Added missing language key: " + key);
+                    updated = true;
                 }
             }
 
             // Sauvegarder les modifications
-            try {
-                langConfig.save(langFile);
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Could not save updated language file to " + langFile, e);
+            if (updated) {
+                plugin.getFileManager().saveYamlAsync(durableLangFile, langConfig);
             }
         }
 
@@ -111,7 +112,7 @@ public class LanguageManager {
             return;
         }
 
-        langConfig = YamlConfiguration.loadConfiguration(langFile);
+        langConfig = plugin.getFileManager().loadYaml(getDurableLangFile());
 
         // Recharger les valeurs par défaut
         InputStream defaultLangStream = plugin.getResource("lang/" + language + ".yml");
@@ -123,6 +124,15 @@ public class LanguageManager {
         logger.info("Language reloaded successfully.");
     }
 
+    /**
+     * Obtient le fichier de langue actuel, avec écriture sûre.
+     *
+     * @return Le fichier de langue.
+     */
+    private DurableFile getDurableLangFile() {
+        return plugin.getFileManager().getDurableFile("lang/" + language + ".yml", true);
+    }
+
     /**
      * Obtient un message à partir de la clé de langue.
      *
@@ -155,6 +165,20 @@ public class LanguageManager {
         return ChatColor.translateAlternateColorCodes('&', message);
     }
 
+    /**
+     * Vérifie si le fichier de langue contient un message.
+     *
+     * @param key La clé du message.
+     * @return true si la clé désigne un message, false sinon.
+     */
+    public boolean hasMessage(String key) {
+        if (langConfig == null) {
+            loadLanguage();
+        }
+
+        return langConfig.isString(key);
+    }
+
     /**
      * Obtient le nom localisé d'un type de météo.
      *
@@ -1,29 +1,114 @@
 package fr.hoxys.plugin.atmosforge.config;
 
 import fr.hoxys.plugin.atmosforge.Main;
-
-import org.bukkit.configuration.ConfigurationSection;
+import fr.hoxys.plugin.atmosforge.data.ClimateJournal;
+import fr.hoxys.plugin.atmosforge.data.ClimateStore;
+import fr.hoxys.plugin.atmosforge.data.ClimateStoreType;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
+import fr.hoxys.plugin.atmosforge.models.ClimateTransition;
+import fr.hoxys.plugin.atmosforge.models.TransitionCause;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+import fr.hoxys.plugin.atmosforge.utils.StartupTimer;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Gestionnaire des données spécifiques à chaque monde.
+ * Chaque monde reçoit un index dense et un {@link WorldClimateState} rangé dans un tableau.
+ * L'index d'un monde chargé est retrouvé à partir de son UUID dans une table à adressage ouvert
+ * de clés primitives : les accès fréquents ne passent ni par son nom ni par une table de hachage d'objets.
+ * Chaque transition est ajoutée au {@link ClimateJournal} par lots, hors du thread principal ;
+ * le journal est périodiquement compacté en écrivant les mondes modifiés dans le {@link ClimateStore}
+ * choisi dans la configuration (YAML, binaire, SQLite ou un fichier par monde).
+ * Au démarrage, les données sont lues sur le thread d'écriture et chaque monde n'est initialisé
+ * qu'à son premier accès, ou progressivement quelques mondes par tick.
  */
 public class WorldManager {
 
     private final Main plugin;
     private final Logger logger;
 
-    private FileConfiguration worldsConfig;
-    private File worldsFile;
-    private Map<String, Map<String, Object>> worldsData;
+    // Stockage des états climatiques
+    private final ClimateStore store;
+
+    // Journal des transitions depuis le dernier instantané
+    private final ClimateJournal journal;
+
+    // Index dense de chaque monde connu
+    private final Map<String, Integer> worldIndexes;
+
+    // Index dense des mondes chargés par UUID : deux longs par case, index + 1 (0 pour une case vide)
+    private long[] uidKeys;
+    private int[] uidIndexes;
+    private int uidCount;
+
+    // États climatiques indexés par index de monde
+    private WorldClimateState[] states;
+    private int worldCount;
+
+    // Mondes modifiés depuis la dernière écriture
+    private final BitSet dirtyWorlds;
+
+    // Lecture des données persistées en cours sur le thread d'écriture
+    private CompletableFuture<ParsedWorldData> pendingLoad;
+
+    // Lectures en cours des fichiers de mondes d'un stockage chargé à la demande, par nom de monde
+    private final Map<String, CompletableFuture<WorldClimateState>> pendingWorldLoads;
+
+    // Mondes dont la météo, la saison et le temps ont été initialisés
+    private final BitSet initializedWorlds;
+
+    // Mondes chargés en attente d'initialisation
+    private final ArrayDeque<String> initializationQueue;
+
+    // Initialisation progressive des mondes en attente
+    private EffectTask initializationTask;
+
+    // Thread d'écriture partagé, chargé de sérialiser et d'écrire les données
+    private final ExecutorService ioExecutor;
+
+    // Écriture différée en attente
+    private EffectTask flushTask;
+
+    // Compaction périodique du journal
+    private EffectTask compactionTask;
+
+    // Fenêtre de regroupement des modifications en ticks
+    private int writeBehindTicks;
+
+    // Intervalle de compaction du journal en ticks
+    private int compactionIntervalTicks;
+
+    // Nombre d'enregistrements au-delà duquel le journal est compacté
+    private int journalMaxRecords;
+
+    // Type de stockage des états climatiques
+    private ClimateStoreType storeType;
+
+    // Nombre de mondes en attente initialisés à chaque tick
+    private int worldsInitializedPerTick;
 
     /**
      * Constructeur du gestionnaire de monde.
@@ -33,7 +118,15 @@ public class WorldManager {
     public WorldManager(Main plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.worldsData = new HashMap<>();
+        this.worldIndexes = new HashMap<>();
+        this.pendingWorldLoads = new HashMap<>();
+        this.uidKeys = new long[32];
+        this.uidIndexes = new int[16];
+        this.states = new WorldClimateState[8];
+        this.dirtyWorlds = new BitSet();
+        this.initializedWorlds = new BitSet();
+        this.initializationQueue = new ArrayDeque<>();
+        this.ioExecutor = plugin.getFileManager().getIoExecutor();
 
         // S'assurer que le dossier du plugin existe
         if (!plugin.getDataFolder().exists()) {
@@ -43,188 +136,786 @@ public class WorldManager {
             }
         }
 
-        // Initialiser le fichier de données de monde
-        worldsFile = new File(plugin.getDataFolder(), "worlds_data.yml");
+        journal = new ClimateJournal(new File(plugin.getDataFolder(), "climate.journal").toPath());
+
+        // Charger la configuration
+        loadConfiguration();
+
+        // Initialiser le stockage des données de monde
+        store = storeType.create(plugin.getDataFolder(), plugin.getFileManager().getBackupCount(), logger);
+    }
+
+    /**
+     * Charge la configuration du gestionnaire.
+     */
+    private void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        writeBehindTicks = Math.max(1, config.getInt("storage.write_behind_ticks", 20)); // 1 seconde par défaut
+        compactionIntervalTicks = Math.max(20, config.getInt("storage.compaction_interval_ticks", 6000)); // 5 minutes par défaut
+        journalMaxRecords = Math.max(16, config.getInt("storage.journal_max_records", 4096));
+        worldsInitializedPerTick = Math.max(1, config.getInt("storage.worlds_initialized_per_tick", 4));
+
+        String format = config.getString("storage.format", "yaml");
+        storeType = ClimateStoreType.fromId(format);
+        if (storeType == null) {
+            logger.warning("Unknown storage format '" + format + "', using yaml.");
+            storeType = ClimateStoreType.YAML;
+        }
+
+        logger.info("World data write-behind window set to: " + writeBehindTicks + " ticks");
+        logger.info("Climate journal compaction interval set to: " + compactionIntervalTicks + " ticks");
+        logger.info("World data storage format set to: " + storeType.getId());
     }
 
     /**
-     * Charge les données de tous les mondes.
+     * Lance le chargement des données de tous les mondes sur le thread d'écriture : le stockage,
+     * puis les transitions du journal. Les données sont installées dès qu'elles sont prêtes,
+     * ou au premier accès à un monde s'il survient avant.
      */
     public void loadWorldData() {
-        if (!worldsFile.exists()) {
-            try {
-                boolean created = worldsFile.createNewFile();
-                if (!created) {
-                    logger.warning("Failed to create worlds data file!");
+        // Avec un stockage chargé à la demande, les fichiers des mondes déjà chargés sont lus avec le reste
+        List<String> loadedWorlds = new ArrayList<>();
+        if (store.isLazy()) {
+            for (World world : Bukkit.getWorlds()) {
+                if (plugin.getConfigManager().isWorldEnabled(world.getName())) {
+                    loadedWorlds.add(world.getName());
                 }
-                worldsConfig = YamlConfiguration.loadConfiguration(worldsFile);
-                worldsConfig.save(worldsFile);
-                logger.info("Created empty worlds data file.");
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Could not create worlds data file", e);
-                return;
             }
-        } else {
-            worldsConfig = YamlConfiguration.loadConfiguration(worldsFile);
         }
 
-        // Charger les données pour chaque monde
-        worldsData.clear();
-        ConfigurationSection worldsSection = worldsConfig.getConfigurationSection("worlds");
+        pendingLoad = CompletableFuture.supplyAsync(() -> parseWorldData(loadedWorlds), ioExecutor);
+        pendingLoad.thenRun(() -> {
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, this::awaitWorldData);
+            }
+        });
+
+        if (compactionTask == null) {
+            compactionTask = plugin.getTickEngine().runRepeating(this::compactIfNeeded,
+                    compactionIntervalTicks, compactionIntervalTicks);
+        }
+    }
+
+    /**
+     * Lit le stockage et rejoue le journal dans des états détachés.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @param loadedWorlds Les mondes chargés dont le fichier doit être lu, avec un stockage chargé à la demande.
+     * @return Les données lues.
+     */
+    private ParsedWorldData parseWorldData(List<String> loadedWorlds) {
+        long start = System.nanoTime();
+        ParsedWorldData parsed = new ParsedWorldData();
+        parsed.compact = loadStore(parsed);
+        for (String worldName : loadedWorlds) {
+            resolveParsedState(parsed, worldName);
+        }
+
+        try {
+            int replayed = journal.replay(worldName -> resolveParsedState(parsed, worldName), logger);
+            if (replayed > 0) {
+                logger.info("Replayed " + replayed + " climate transitions from the journal.");
+                parsed.compact = true;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read the climate journal", e);
+        }
+
+        logger.info("Parsed data for " + parsed.states.size() + " worlds in "
+                + StartupTimer.formatMillis(System.nanoTime() - start) + " in the background.");
+        return parsed;
+    }
+
+    /**
+     * Obtient l'état détaché d'un monde pendant la lecture, en le créant si nécessaire.
+     * Avec un stockage chargé à la demande, le fichier du monde est lu avant le journal.
+     *
+     * @param parsed Les données en cours de lecture.
+     * @param worldName Le nom du monde.
+     * @return L'état détaché du monde.
+     */
+    private WorldClimateState resolveParsedState(ParsedWorldData parsed, String worldName) {
+        WorldClimateState state = parsed.states.get(worldName);
+        if (state == null) {
+            state = new WorldClimateState(parsed.states.size(), worldName);
+            parsed.states.put(worldName, state);
+            if (store.isLazy()) {
+                loadWorldFromStore(state);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Installe les données lues sur le thread d'écriture, en attendant la fin de la lecture si nécessaire.
+     * Appelé depuis le thread principal.
+     */
+    private void awaitWorldData() {
+        if (pendingLoad == null) {
+            return;
+        }
+
+        CompletableFuture<ParsedWorldData> load = pendingLoad;
+        pendingLoad = null;
+
+        ParsedWorldData parsed;
+        try {
+            parsed = load.join();
+        } catch (CompletionException e) {
+            logger.log(Level.SEVERE, "Could not load worlds data", e.getCause());
+            return;
+        }
+
+        for (WorldClimateState loaded : parsed.states.values()) {
+            createState(loaded.getWorldName()).copyFrom(loaded);
+        }
+
+        // Intégrer immédiatement le journal rejoué ou les données migrées dans le stockage
+        if (parsed.compact) {
+            dirtyWorlds.set(0, worldCount);
+            requestCompaction();
+        }
+    }
+
+    /**
+     * Charge les données de tous les mondes depuis le stockage configuré.
+     * Si ce stockage est vide, les données d'un autre stockage existant sont migrées.
+     * Un stockage chargé à la demande n'est lu qu'à la création de l'état de chaque monde.
+     *
+     * @param parsed Les données en cours de lecture.
+     * @return true si les données doivent être réécrites dans le stockage configuré, false sinon.
+     */
+    private boolean loadStore(ParsedWorldData parsed) {
+        Function<String, WorldClimateState> stateResolver = worldName -> resolveParsedState(parsed, worldName);
+
+        if (store.exists()) {
+            if (store.isLazy()) {
+                logger.info("World data will be loaded on demand from the " + storeType.getId() + " store.");
+                return false;
+            }
+
+            try {
+                logger.info("Loaded data for " + store.load(stateResolver) + " worlds.");
+                return false;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not read worlds data from the " + storeType.getId() + " store", e);
+                parsed.states.clear();
+            }
+        }
 
-        if (worldsSection != null) {
-            for (String worldName : worldsSection.getKeys(false)) {
-                ConfigurationSection worldSection = worldsSection.getConfigurationSection(worldName);
-                if (worldSection != null) {
-                    Map<String, Object> worldData = new HashMap<>();
+        // Migrer les données d'un autre stockage vers le stockage configuré
+        for (ClimateStoreType type : ClimateStoreType.values()) {
+            if (type == storeType) {
+                continue;
+            }
 
-                    for (String key : worldSection.getKeys(false)) {
-                        worldData.put(key, worldSection.get(key));
-                    }
+            ClimateStore source = type.create(plugin.getDataFolder(), 0, logger);
+            if (!source.exists()) {
+                continue;
+            }
 
-                    worldsData.put(worldName, worldData);
+            try {
+                int loaded = source.load(stateResolver);
+                if (loaded > 0) {
+                    logger.info("Migrating data for " + loaded + " worlds from the " + type.getId()
+                            + " store to the " + storeType.getId() + " store.");
+                    return true;
                 }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not read worlds data from the " + type.getId() + " store", e);
+                parsed.states.clear();
+            } finally {
+                source.close();
             }
         }
 
-        logger.info("Loaded data for " + worldsData.size() + " worlds.");
+        logger.info("No worlds data found, starting with an empty " + storeType.getId() + " store.");
+        return false;
     }
 
     /**
-     * Sauvegarde les données de tous les mondes.
+     * Sauvegarde immédiatement les données de tous les mondes.
+     * Bloque jusqu'à la fin de l'écriture.
      */
     public void saveAllWorldData() {
-        if (worldsConfig == null) {
-            loadWorldData();
+        awaitWorldData();
+        dirtyWorlds.set(0, worldCount);
+        flush();
+    }
+
+    /**
+     * Obtient l'index dense d'un monde, en l'enregistrant si nécessaire.
+     *
+     * @param worldName Le nom du monde.
+     * @return L'index du monde.
+     */
+    public int getWorldIndex(String worldName) {
+        return getClimateState(worldName).getIndex();
+    }
+
+    /**
+     * Obtient l'index dense d'un monde chargé, en l'enregistrant si nécessaire.
+     *
+     * @param world Le monde.
+     * @return L'index du monde.
+     */
+    public int getWorldIndex(World world) {
+        return getClimateState(world).getIndex();
+    }
+
+    /**
+     * Obtient l'état climatique d'un monde chargé, en le créant si nécessaire.
+     * Une fois les données lues, l'état est retrouvé par l'UUID du monde, sans passer par son nom.
+     *
+     * @param world Le monde.
+     * @return L'état climatique du monde.
+     */
+    public WorldClimateState getClimateState(World world) {
+        UUID uid = world.getUID();
+        if (pendingLoad == null) {
+            int index = findUidIndex(uid.getMostSignificantBits(), uid.getLeastSignificantBits());
+            if (index >= 0) {
+                return states[index];
+            }
         }
 
-        // Effacer les données actuelles
-        worldsConfig.set("worlds", null);
+        WorldClimateState state = getClimateState(world.getName());
+        putUidIndex(uid.getMostSignificantBits(), uid.getLeastSignificantBits(), state.getIndex());
+        return state;
+    }
 
-        // Sauvegarder les données pour chaque monde
-        for (Map.Entry<String, Map<String, Object>> entry : worldsData.entrySet()) {
-            String worldName = entry.getKey();
-            Map<String, Object> worldData = entry.getValue();
+    /**
+     * Cherche l'index d'un monde dans la table des UUID.
+     *
+     * @param most Les bits de poids fort de l'UUID.
+     * @param least Les bits de poids faible de l'UUID.
+     * @return L'index du monde, ou -1 s'il n'y est pas.
+     */
+    private int findUidIndex(long most, long least) {
+        int mask = uidIndexes.length - 1;
+        for (int slot = uidSlot(most, least) & mask; uidIndexes[slot] != 0; slot = (slot + 1) & mask) {
+            if (uidKeys[slot * 2] == most && uidKeys[slot * 2 + 1] == least) {
+                return uidIndexes[slot] - 1;
+            }
+        }
+        return -1;
+    }
 
-            for (Map.Entry<String, Object> dataEntry : worldData.entrySet()) {
-                worldsConfig.set("worlds." + worldName + "." + dataEntry.getKey(), dataEntry.getValue());
+    /**
+     * Associe un UUID de monde à un index, en agrandissant la table si elle est à moitié pleine.
+     *
+     * @param most Les bits de poids fort de l'UUID.
+     * @param least Les bits de poids faible de l'UUID.
+     * @param index L'index du monde.
+     */
+    private void putUidIndex(long most, long least, int index) {
+        if ((uidCount + 1) * 2 > uidIndexes.length) {
+            long[] oldKeys = uidKeys;
+            int[] oldIndexes = uidIndexes;
+            uidKeys = new long[oldKeys.length * 2];
+            uidIndexes = new int[oldIndexes.length * 2];
+            uidCount = 0;
+            for (int slot = 0; slot < oldIndexes.length; slot++) {
+                if (oldIndexes[slot] != 0) {
+                    putUidIndex(oldKeys[slot * 2], oldKeys[slot * 2 + 1], oldIndexes[slot] - 1);
+                }
             }
         }
 
-        try {
-            worldsConfig.save(worldsFile);
-            logger.info("Saved data for " + worldsData.size() + " worlds.");
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save worlds data to " + worldsFile, e);
+        int mask = uidIndexes.length - 1;
+        int slot = uidSlot(most, least) & mask;
+        while (uidIndexes[slot] != 0) {
+            if (uidKeys[slot * 2] == most && uidKeys[slot * 2 + 1] == least) {
+                uidIndexes[slot] = index + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        uidKeys[slot * 2] = most;
+        uidKeys[slot * 2 + 1] = least;
+        uidIndexes[slot] = index + 1;
+        uidCount++;
+    }
+
+    /**
+     * Oublie l'UUID d'un monde déchargé. L'état du monde est conservé sous son nom : un monde recréé
+     * sous le même nom reçoit un nouvel UUID, associé au même index lors de son premier accès.
+     *
+     * @param world Le monde déchargé.
+     */
+    public void forgetWorld(World world) {
+        UUID uid = world.getUID();
+        long most = uid.getMostSignificantBits();
+        long least = uid.getLeastSignificantBits();
+
+        int mask = uidIndexes.length - 1;
+        int slot = uidSlot(most, least) & mask;
+        while (uidIndexes[slot] != 0) {
+            if (uidKeys[slot * 2] == most && uidKeys[slot * 2 + 1] == least) {
+                removeUidSlot(slot);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Vide une case de la table des UUID en ramenant les entrées suivantes de la même séquence de sondage.
+     *
+     * @param slot La case à vider.
+     */
+    private void removeUidSlot(int slot) {
+        int mask = uidIndexes.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; uidIndexes[next] != 0; next = (next + 1) & mask) {
+            int home = uidSlot(uidKeys[next * 2], uidKeys[next * 2 + 1]) & mask;
+            // L'entrée peut combler le trou si sa case d'origine ne se trouve pas entre le trou et elle
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                uidKeys[hole * 2] = uidKeys[next * 2];
+                uidKeys[hole * 2 + 1] = uidKeys[next * 2 + 1];
+                uidIndexes[hole] = uidIndexes[next];
+                hole = next;
+            }
+        }
+        uidKeys[hole * 2] = 0L;
+        uidKeys[hole * 2 + 1] = 0L;
+        uidIndexes[hole] = 0;
+        uidCount--;
+    }
+
+    private static int uidSlot(long most, long least) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32);
+    }
+
+    /**
+     * Obtient l'état climatique d'un monde, en le créant si nécessaire.
+     *
+     * @param worldName Le nom du monde.
+     * @return L'état climatique du monde.
+     */
+    public WorldClimateState getClimateState(String worldName) {
+        awaitWorldData();
+
+        Integer index = worldIndexes.get(worldName);
+        if (index != null) {
+            return states[index];
         }
+
+        if (store.isLazy()) {
+            // Attendre la lecture du fichier du monde, lancée maintenant si elle n'a pas été demandée à l'avance
+            preloadWorld(worldName);
+            return installWorld(worldName);
+        }
+        return createState(worldName);
     }
 
     /**
-     * Obtient les données pour un monde spécifique.
+     * Lance la lecture du fichier d'un monde sur le thread d'écriture, avec un stockage chargé à la demande.
+     * Les données sont installées dès qu'elles sont prêtes, ou au premier accès au monde s'il survient avant.
      *
      * @param worldName Le nom du monde.
-     * @return Les données du monde, ou null si aucune n'est trouvée.
      */
-    public Map<String, Object> getWorldData(String worldName) {
-        return worldsData.get(worldName);
+    public void preloadWorld(String worldName) {
+        if (!store.isLazy() || pendingWorldLoads.containsKey(worldName)
+                || (pendingLoad == null && worldIndexes.containsKey(worldName))) {
+            return;
+        }
+
+        CompletableFuture<WorldClimateState> load = CompletableFuture.supplyAsync(() -> {
+            WorldClimateState loaded = new WorldClimateState(-1, worldName);
+            loadWorldFromStore(loaded);
+            return loaded;
+        }, ioExecutor);
+        pendingWorldLoads.put(worldName, load);
+        load.thenRun(() -> {
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> installWorld(worldName));
+            }
+        });
     }
 
     /**
-     * Sauvegarde les données pour un monde spécifique.
+     * Installe les données d'un monde lues sur le thread d'écriture, en attendant la fin de la lecture si nécessaire.
+     * Si l'état du monde existe déjà, il est conservé et la lecture est ignorée.
+     * Appelé depuis le thread principal.
      *
      * @param worldName Le nom du monde.
-     * @param data Les données à sauvegarder.
+     * @return L'état du monde, ou null si aucune lecture n'était en cours.
      */
-    public void saveWorldData(String worldName, Map<String, Object> data) {
-        worldsData.put(worldName, data);
+    private WorldClimateState installWorld(String worldName) {
+        CompletableFuture<WorldClimateState> load = pendingWorldLoads.remove(worldName);
+        if (load == null) {
+            return null;
+        }
 
-        // Sauvegarder immédiatement dans le fichier
-        if (worldsConfig == null) {
-            loadWorldData();
+        awaitWorldData();
+        Integer index = worldIndexes.get(worldName);
+        if (index != null) {
+            return states[index];
         }
 
-        // Effacer les données actuelles pour ce monde
-        worldsConfig.set("worlds." + worldName, null);
+        WorldClimateState state = createState(worldName);
+        try {
+            state.copyFrom(load.join());
+        } catch (CompletionException e) {
+            logger.log(Level.SEVERE, "Could not load data for world " + worldName, e.getCause());
+        }
+        return state;
+    }
 
-        // Sauvegarder les nouvelles données
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            worldsConfig.set("worlds." + worldName + "." + entry.getKey(), entry.getValue());
+    /**
+     * Crée l'état climatique vide d'un nouveau monde.
+     *
+     * @param worldName Le nom du monde.
+     * @return L'état climatique créé.
+     */
+    private WorldClimateState createState(String worldName) {
+        if (worldCount == states.length) {
+            states = Arrays.copyOf(states, worldCount * 2);
         }
 
+        WorldClimateState state = new WorldClimateState(worldCount, worldName);
+        states[worldCount] = state;
+        worldIndexes.put(worldName, worldCount);
+        worldCount++;
+        return state;
+    }
+
+    /**
+     * Lit les données d'un monde depuis un stockage chargé à la demande.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @param state L'état du monde à remplir.
+     */
+    private void loadWorldFromStore(WorldClimateState state) {
         try {
-            worldsConfig.save(worldsFile);
-            logger.fine("Saved data for world " + worldName);
+            if (store.loadWorld(state)) {
+                logger.fine("Loaded data for world " + state.getWorldName());
+            }
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save world data for " + worldName, e);
+            logger.log(Level.SEVERE, "Could not read data for world " + state.getWorldName(), e);
+            state.reset();
         }
     }
 
+    /**
+     * Obtient l'état climatique d'un monde à partir de son index.
+     *
+     * @param index L'index du monde.
+     * @return L'état climatique du monde.
+     */
+    public WorldClimateState getClimateState(int index) {
+        return states[index];
+    }
+
+    /**
+     * Obtient le nombre de mondes connus.
+     *
+     * @return Le nombre de mondes.
+     */
+    public int getWorldCount() {
+        awaitWorldData();
+        return worldCount;
+    }
+
+    /**
+     * Enregistre une transition climatique d'un monde dans le journal.
+     * L'écriture sur disque est différée et regroupée avec les autres transitions.
+     *
+     * @param state L'état du monde après la transition.
+     * @param transition La nature de la transition.
+     * @param cause L'origine de la transition.
+     */
+    public void recordTransition(WorldClimateState state, ClimateTransition transition, TransitionCause cause) {
+        journal.record(plugin.getTickEngine().getCurrentTick(), transition, cause, state);
+        markDirty(state.getIndex());
+    }
+
     /**
      * Supprime les données pour un monde spécifique.
      *
      * @param worldName Le nom du monde.
      */
     public void removeWorldData(String worldName) {
-        worldsData.remove(worldName);
+        awaitWorldData();
 
-        // Supprimer immédiatement du fichier
-        if (worldsConfig == null) {
-            loadWorldData();
+        Integer index = worldIndexes.get(worldName);
+        if (index == null) {
+            return;
         }
 
-        worldsConfig.set("worlds." + worldName, null);
+        states[index].reset();
+        recordTransition(states[index], ClimateTransition.RESET, TransitionCause.RESET);
 
-        try {
-            worldsConfig.save(worldsFile);
-            logger.info("Removed data for world " + worldName);
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not remove world data for " + worldName, e);
+        logger.info("Removed data for world " + worldName);
+    }
+
+    /**
+     * Obtient l'état climatique d'un monde, en initialisant sa météo, sa saison et son temps
+     * lors du premier accès.
+     *
+     * @param world Le monde.
+     * @return L'état climatique du monde.
+     */
+    public WorldClimateState getInitializedState(World world) {
+        WorldClimateState state = getClimateState(world);
+        if (!initializedWorlds.get(state.getIndex())) {
+            // Marquer le monde avant l'initialisation, qui accède elle-même à l'état
+            initializedWorlds.set(state.getIndex());
+            plugin.getWeatherManager().initializeWeather(world);
+            plugin.getSeasonManager().initializeSeason(world);
+            plugin.getTimeManager().initializeWorld(world);
+            logger.fine("Initialized weather and season for world: " + world.getName());
         }
+        return state;
     }
 
     /**
-     * Obtient une valeur spécifique pour un monde.
+     * Vérifie si la météo, la saison et le temps d'un monde ont été initialisés.
      *
-     * @param worldName Le nom du monde.
-     * @param key La clé de la valeur à obtenir.
-     * @return La valeur associée à la clé, ou null si non trouvée.
+     * @param world Le monde.
+     * @return true si le monde est initialisé, false sinon.
      */
-    public Object getWorldValue(String worldName, String key) {
-        Map<String, Object> worldData = getWorldData(worldName);
-        if (worldData != null) {
-            return worldData.get(key);
+    public boolean isInitialized(World world) {
+        UUID uid = world.getUID();
+        int index = findUidIndex(uid.getMostSignificantBits(), uid.getLeastSignificantBits());
+        if (index < 0) {
+            Integer named = worldIndexes.get(world.getName());
+            index = named != null ? named : -1;
         }
-        return null;
+        return index >= 0 && initializedWorlds.get(index);
     }
 
     /**
-     * Définit une valeur spécifique pour un monde.
+     * Ajoute un monde à la file des mondes initialisés progressivement, quelques-uns par tick.
+     * Un accès au monde avant son tour l'initialise immédiatement.
      *
-     * @param worldName Le nom du monde.
-     * @param key La clé de la valeur à définir.
-     * @param value La valeur à définir.
+     * @param world Le monde à initialiser.
+     */
+    public void queueInitialization(World world) {
+        initializationQueue.add(world.getName());
+
+        if (initializationTask == null) {
+            initializationTask = plugin.getTickEngine().runRepeating(this::initializeQueuedWorlds, 1L, 1L);
+        }
+    }
+
+    /**
+     * Initialise les prochains mondes de la file.
+     */
+    private void initializeQueuedWorlds() {
+        for (int i = 0; i < worldsInitializedPerTick && !initializationQueue.isEmpty(); i++) {
+            World world = Bukkit.getWorld(initializationQueue.poll());
+            if (world != null) {
+                getInitializedState(world);
+            }
+        }
+
+        if (initializationQueue.isEmpty()) {
+            initializationTask.cancel();
+            initializationTask = null;
+        }
+    }
+
+    /**
+     * Marque un monde comme modifié et planifie une écriture différée si nécessaire.
+     *
+     * @param index L'index du monde modifié.
+     */
+    private void markDirty(int index) {
+        dirtyWorlds.set(index);
+
+        if (flushTask == null) {
+            flushTask = plugin.getTickEngine().runLater(this::requestFlush, writeBehindTicks);
+        }
+    }
+
+    /**
+     * Ajoute immédiatement les transitions en attente au journal, sans bloquer le thread principal.
+     */
+    public void requestFlush() {
+        cancelFlushTask();
+
+        if (journal.getRecordCount() >= journalMaxRecords) {
+            requestCompaction();
+            return;
+        }
+
+        byte[] batch = journal.drain();
+        if (batch != null) {
+            ioExecutor.execute(() -> appendBatch(batch));
+        }
+    }
+
+    /**
+     * Compacte le journal si des transitions y ont été ajoutées depuis le dernier instantané.
      */
-    public void setWorldValue(String worldName, String key, Object value) {
-        Map<String, Object> worldData = getWorldData(worldName);
-        if (worldData == null) {
-            worldData = new HashMap<>();
-            worldsData.put(worldName, worldData);
+    private void compactIfNeeded() {
+        if (journal.getRecordCount() > 0) {
+            requestCompaction();
         }
+    }
+
+    /**
+     * Lance la compaction du journal dans un nouvel instantané, sans bloquer le thread principal.
+     */
+    public void requestCompaction() {
+        ioExecutor.execute(prepareCompaction());
+    }
 
-        worldData.put(key, value);
+    /**
+     * Compacte le journal et attend la fin de toutes les écritures.
+     */
+    public void flush() {
+        awaitWorldData();
 
-        // Sauvegarder immédiatement
-        if (worldsConfig == null) {
-            loadWorldData();
+        if (journal.getRecordCount() == 0 && dirtyWorlds.isEmpty()) {
+            cancelFlushTask();
+            return;
         }
 
-        worldsConfig.set("worlds." + worldName + "." + key, value);
+        Runnable compaction = prepareCompaction();
+        if (ioExecutor.isShutdown()) {
+            compaction.run();
+            return;
+        }
 
+        Future<?> pending = ioExecutor.submit(compaction);
         try {
-            worldsConfig.save(worldsFile);
-            logger.fine("Set " + key + " = " + value + " for world " + worldName);
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Could not save worlds data", e.getCause());
+        }
+    }
+
+    /**
+     * Écrit les données en attente puis ferme le stockage.
+     * Le thread d'écriture partagé est arrêté ensuite par le gestionnaire de fichiers.
+     */
+    public void shutdown() {
+        if (compactionTask != null) {
+            compactionTask.cancel();
+            compactionTask = null;
+        }
+        if (initializationTask != null) {
+            initializationTask.cancel();
+            initializationTask = null;
+        }
+        initializationQueue.clear();
+
+        flush();
+        store.close();
+    }
+
+    /**
+     * Prépare une compaction sur le thread principal : les transitions en attente et une copie
+     * des états modifiés sont capturées, puis le journal repart sur une nouvelle génération.
+     *
+     * @return La tâche d'écriture à exécuter sur le thread d'écriture.
+     */
+    private Runnable prepareCompaction() {
+        cancelFlushTask();
+
+        byte[] batch = journal.drain();
+        List<WorldClimateState> dirtyStates = copyDirtyStates();
+        journal.startNewGeneration();
+
+        return () -> {
+            if (batch != null) {
+                appendBatch(batch);
+            }
+
+            // Le journal n'est vidé que si les états ont bien été écrits
+            if (writeStore(dirtyStates)) {
+                try {
+                    journal.truncate();
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Could not truncate the climate journal", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Ajoute un lot de transitions au journal.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @param batch Les enregistrements à ajouter.
+     */
+    private void appendBatch(byte[] batch) {
+        try {
+            journal.append(batch);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not append to the climate journal", e);
+        }
+    }
+
+    /**
+     * Annule l'écriture différée planifiée.
+     */
+    private void cancelFlushTask() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+    }
+
+    /**
+     * Copie les états des mondes modifiés pour les transmettre au thread d'écriture.
+     *
+     * @return Une copie indépendante des états modifiés.
+     */
+    private List<WorldClimateState> copyDirtyStates() {
+        List<WorldClimateState> dirtyStates = new ArrayList<>(dirtyWorlds.cardinality());
+        for (int i = dirtyWorlds.nextSetBit(0); i >= 0; i = dirtyWorlds.nextSetBit(i + 1)) {
+            dirtyStates.add(states[i].copy());
+        }
+
+        dirtyWorlds.clear();
+        return dirtyStates;
+    }
+
+    /**
+     * Écrit les états des mondes modifiés dans le stockage.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @param dirtyStates Les états à écrire.
+     * @return true si l'écriture a réussi, false sinon.
+     */
+    private boolean writeStore(List<WorldClimateState> dirtyStates) {
+        try {
+            store.saveDirty(dirtyStates);
+            store.flush();
+            logger.fine("Saved data for " + dirtyStates.size() + " worlds.");
+            return true;
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save world value for " + worldName, e);
+            logger.log(Level.SEVERE, "Could not save worlds data to the " + storeType.getId() + " store", e);
+            return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtient le type de stockage des données climatiques.
+     *
+     * @return Le type de stockage.
+     */
+    public ClimateStoreType getStoreType() {
+        return storeType;
+    }
+
+    /**
+     * Données lues sur le thread d'écriture, en attente d'installation sur le thread principal.
+     */
+    private static final class ParsedWorldData {
+
+        // États détachés, par nom de monde
+        private final Map<String, WorldClimateState> states = new LinkedHashMap<>();
+
+        // Les données doivent être réécrites dans le stockage configuré
+        private boolean compact;
+    }
+}
@@ -0,0 +1,194 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stockage des données climatiques des mondes dans un format binaire compact.
+ * <p>
+ * Structure du fichier :
+ * <pre>
+ * int    magie "AFCS"
+ * short  version
+ * int    nombre de mondes
+ * pour chaque monde :
+ *   short  longueur du nom, puis le nom en UTF-8
+ *   byte   champs présents
+ *   short  code de la météo          (si présent)
+ *   int    durée de la météo         (si présent)
+ *   byte   code de la saison         (si présent)
+ *   int    jour de la saison         (si présent)
+ *   short  code de la météo précédente (si présent)
+ * int    CRC32 de tout ce qui précède
+ * </pre>
+ * Les codes correspondent à l'ordinal des énumérations {@link WeatherType} et {@link Season} ;
+ * tout changement de leur ordre impose d'incrémenter la version.
+ */
+public final class BinaryClimateStore extends FileClimateStore {
+
+    private static final int MAGIC = 0x41464353; // "AFCS"
+    private static final short VERSION = 1;
+
+    // Champs présents pour un monde
+    private static final int HAS_WEATHER = 1;
+    private static final int HAS_SEASON = 1 << 1;
+    private static final int HAS_PREVIOUS_WEATHER = 1 << 2;
+
+    /**
+     * Constructeur du stockage binaire.
+     *
+     * @param path Le chemin du fichier de données.
+     * @param backups Le nombre de générations précédentes à conserver.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     */
+    public BinaryClimateStore(Path path, int backups, Logger logger) {
+        super(path, backups, true, logger);
+    }
+
+    @Override
+    public ClimateStoreType getType() {
+        return ClimateStoreType.BINARY;
+    }
+
+    @Override
+    protected void decode(byte[] data, Function<String, WorldClimateState> stateResolver) throws IOException {
+        decodeStates(data, stateResolver);
+    }
+
+    @Override
+    protected byte[] encode(List<WorldClimateState> states) {
+        return encodeStates(states);
+    }
+
+    /**
+     * Décode des états climatiques au format binaire.
+     *
+     * @param data Les octets à décoder.
+     * @param stateResolver Fournit l'état à remplir pour un nom de monde.
+     * @throws IOException Si les données sont corrompues ou d'une version inconnue.
+     */
+    static void decodeStates(byte[] data, Function<String, WorldClimateState> stateResolver) throws IOException {
+        if (data.length < 14) {
+            throw new IOException("Invalid climate snapshot size: " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        // Vérifier la somme de contrôle avant toute lecture
+        int payloadLength = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, payloadLength);
+        if ((int) crc.getValue() != buffer.getInt(payloadLength)) {
+            throw new IOException("Climate snapshot checksum mismatch");
+        }
+        buffer.limit(payloadLength);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a climate snapshot file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported climate snapshot version: " + version);
+        }
+
+        int worldCount = buffer.getInt();
+
+        for (int i = 0; i < worldCount; i++) {
+            byte[] nameBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(nameBytes);
+            WorldClimateState state = stateResolver.apply(new String(nameBytes, StandardCharsets.UTF_8));
+
+            int fields = buffer.get();
+
+            if ((fields & HAS_WEATHER) != 0) {
+                int weather = buffer.getShort();
+                int duration = buffer.getInt();
+                if (WorldClimateState.isValidWeatherCode(weather)) {
+                    state.setWeatherCode(weather);
+                    state.setWeatherDuration(duration);
+                }
+            }
+
+            if ((fields & HAS_SEASON) != 0) {
+                int season = buffer.get();
+                int seasonDay = buffer.getInt();
+                if (WorldClimateState.isValidSeasonCode(season)) {
+                    state.setSeasonCode(season);
+                    state.setSeasonDay(seasonDay);
+                }
+            }
+
+            if ((fields & HAS_PREVIOUS_WEATHER) != 0) {
+                int previousWeather = buffer.getShort();
+                if (WorldClimateState.isValidWeatherCode(previousWeather)) {
+                    state.setPreviousWeatherCode(previousWeather);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encode des états climatiques au format binaire.
+     *
+     * @param states Les états à encoder.
+     * @return Les octets encodés.
+     */
+    static byte[] encodeStates(List<WorldClimateState> states) {
+        byte[][] names = new byte[states.size()][];
+        int size = 4 + 2 + 4 + 4;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = states.get(i).getWorldName().getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[i].length + 1 + (2 + 4) + (1 + 4) + 2;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(states.size());
+
+        for (int i = 0; i < names.length; i++) {
+            WorldClimateState state = states.get(i);
+            buffer.putShort((short) names[i].length);
+            buffer.put(names[i]);
+
+            int fields = 0;
+            if (state.getWeatherCode() >= 0) {
+                fields |= HAS_WEATHER;
+            }
+            if (state.getSeasonCode() >= 0) {
+                fields |= HAS_SEASON;
+            }
+            if (state.getPreviousWeatherCode() >= 0) {
+                fields |= HAS_PREVIOUS_WEATHER;
+            }
+            buffer.put((byte) fields);
+
+            if ((fields & HAS_WEATHER) != 0) {
+                buffer.putShort((short) state.getWeatherCode());
+                buffer.putInt(state.getWeatherDuration());
+            }
+            if ((fields & HAS_SEASON) != 0) {
+                buffer.put((byte) state.getSeasonCode());
+                buffer.putInt(state.getSeasonDay());
+            }
+            if ((fields & HAS_PREVIOUS_WEATHER) != 0) {
+                buffer.putShort((short) state.getPreviousWeatherCode());
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
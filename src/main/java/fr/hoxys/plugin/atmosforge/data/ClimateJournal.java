@@ -0,0 +1,304 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.ClimateTransition;
+import fr.hoxys.plugin.atmosforge.models.TransitionCause;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Journal des transitions climatiques, en ajout seul.
+ * <p>
+ * Chaque transition produit un enregistrement de {@value #RECORD_SIZE} octets contenant
+ * l'état complet du monde après la transition :
+ * <pre>
+ * long   tick moteur
+ * byte   transition ({@link ClimateTransition}) ou déclaration de monde
+ * byte   cause ({@link TransitionCause})
+ * short  emplacement du monde
+ * short  code de la météo
+ * byte   code de la saison
+ * byte   drapeaux (cycle de nuit)
+ * int    durée de la météo
+ * int    jour de la saison
+ * short  code de la météo précédente
+ * short  réservé
+ * int    CRC32 des 28 octets précédents
+ * </pre>
+ * Les emplacements sont associés aux noms de mondes par des enregistrements de déclaration,
+ * qui transportent le nom par tranches de 16 octets.
+ * Les enregistrements sont préparés sur le thread principal puis ajoutés au fichier par lots.
+ */
+public final class ClimateJournal {
+
+    public static final int RECORD_SIZE = 32;
+
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - 4;
+    private static final int NAME_CHUNK_SIZE = 16;
+    private static final byte DECLARE = 0x7F;
+    private static final int LAST_CHUNK = 0x80;
+    private static final int NIGHT_CYCLE_FLAG = 1;
+
+    private final Path path;
+    private final CRC32 crc;
+
+    // Enregistrements en attente d'écriture
+    private ByteBuffer pending;
+    private int pendingRecords;
+
+    // Nombre d'enregistrements présents dans le fichier depuis la dernière compaction
+    private int writtenRecords;
+
+    // Emplacements déjà déclarés dans le fichier courant
+    private final BitSet declaredSlots;
+
+    /**
+     * Constructeur du journal.
+     *
+     * @param path Le chemin du fichier journal.
+     */
+    public ClimateJournal(Path path) {
+        this.path = path;
+        this.crc = new CRC32();
+        this.pending = ByteBuffer.allocate(RECORD_SIZE * 64);
+        this.declaredSlots = new BitSet();
+    }
+
+    /**
+     * Prépare l'enregistrement d'une transition.
+     *
+     * @param tick Le tick moteur de la transition.
+     * @param transition La nature de la transition.
+     * @param cause L'origine de la transition.
+     * @param state L'état du monde après la transition.
+     */
+    public void record(long tick, ClimateTransition transition, TransitionCause cause, WorldClimateState state) {
+        int slot = state.getIndex();
+        if (!declaredSlots.get(slot)) {
+            declare(tick, slot, state.getWorldName());
+        }
+
+        ensureCapacity();
+        int start = pending.position();
+        pending.putLong(tick);
+        pending.put((byte) transition.ordinal());
+        pending.put((byte) cause.ordinal());
+        pending.putShort((short) slot);
+        pending.putShort((short) state.getWeatherCode());
+        pending.put((byte) state.getSeasonCode());
+        pending.put((byte) (state.isNightCycle() ? NIGHT_CYCLE_FLAG : 0));
+        pending.putInt(state.getWeatherDuration());
+        pending.putInt(state.getSeasonDay());
+        pending.putShort((short) state.getPreviousWeatherCode());
+        pending.putShort((short) 0);
+        sealRecord(start);
+    }
+
+    /**
+     * Prépare les enregistrements associant un emplacement à un nom de monde.
+     *
+     * @param tick Le tick moteur.
+     * @param slot L'emplacement du monde.
+     * @param worldName Le nom du monde.
+     */
+    private void declare(long tick, int slot, String worldName) {
+        byte[] name = worldName.getBytes(StandardCharsets.UTF_8);
+        int chunks = Math.max(1, (name.length + NAME_CHUNK_SIZE - 1) / NAME_CHUNK_SIZE);
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int offset = chunk * NAME_CHUNK_SIZE;
+            int length = Math.min(NAME_CHUNK_SIZE, name.length - offset);
+
+            ensureCapacity();
+            int start = pending.position();
+            pending.putLong(tick);
+            pending.put(DECLARE);
+            pending.put((byte) (chunk | (chunk == chunks - 1 ? LAST_CHUNK : 0)));
+            pending.putShort((short) slot);
+            pending.put(name, offset, length);
+            for (int i = length; i < NAME_CHUNK_SIZE; i++) {
+                pending.put((byte) 0);
+            }
+            sealRecord(start);
+        }
+
+        declaredSlots.set(slot);
+    }
+
+    private void ensureCapacity() {
+        if (pending.remaining() < RECORD_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private void sealRecord(int start) {
+        crc.reset();
+        crc.update(pending.array(), start, PAYLOAD_SIZE);
+        pending.putInt((int) crc.getValue());
+        pendingRecords++;
+    }
+
+    /**
+     * Retire les enregistrements en attente pour les écrire.
+     *
+     * @return Les octets à ajouter au fichier, ou null si rien n'est en attente.
+     */
+    public byte[] drain() {
+        if (pendingRecords == 0) {
+            return null;
+        }
+
+        byte[] batch = Arrays.copyOf(pending.array(), pending.position());
+        pending.clear();
+        writtenRecords += pendingRecords;
+        pendingRecords = 0;
+        return batch;
+    }
+
+    /**
+     * Ajoute un lot d'enregistrements à la fin du fichier et force leur écriture sur disque.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @param batch Les enregistrements à ajouter.
+     * @throws IOException Si l'écriture échoue.
+     */
+    public void append(byte[] batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Prépare le journal pour une compaction : les enregistrements suivants iront dans un fichier vide.
+     * Appelé depuis le thread principal.
+     */
+    public void startNewGeneration() {
+        declaredSlots.clear();
+        writtenRecords = 0;
+    }
+
+    /**
+     * Vide le fichier journal après une compaction réussie.
+     * Appelé depuis le thread d'écriture.
+     *
+     * @throws IOException Si le fichier ne peut pas être vidé.
+     */
+    public void truncate() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(0L);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Rejoue les enregistrements du fichier journal sur les états des mondes.
+     * La lecture s'arrête au premier enregistrement incomplet ou corrompu.
+     *
+     * @param stateResolver Fournit l'état à mettre à jour pour un nom de monde.
+     * @param logger Le logger utilisé pour signaler un journal tronqué.
+     * @return Le nombre de transitions rejouées.
+     * @throws IOException Si le fichier ne peut pas être lu.
+     */
+    public int replay(Function<String, WorldClimateState> stateResolver, Logger logger) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        Map<Integer, WorldClimateState> slots = new HashMap<>();
+        Map<Integer, ByteArrayOutputStream> partialNames = new HashMap<>();
+        CRC32 recordCrc = new CRC32();
+        int replayed = 0;
+
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            recordCrc.reset();
+            recordCrc.update(buffer.array(), start, PAYLOAD_SIZE);
+            if ((int) recordCrc.getValue() != buffer.getInt(start + PAYLOAD_SIZE)) {
+                logger.warning("Climate journal is corrupted at offset " + start + ", ignoring the remaining records.");
+                return replayed;
+            }
+
+            buffer.getLong();
+            byte type = buffer.get();
+            int cause = buffer.get() & 0xFF;
+            int slot = buffer.getShort() & 0xFFFF;
+
+            if (type == DECLARE) {
+                ByteArrayOutputStream name = partialNames.computeIfAbsent(slot, key -> new ByteArrayOutputStream());
+                byte[] chunk = new byte[NAME_CHUNK_SIZE];
+                buffer.get(chunk);
+                int length = NAME_CHUNK_SIZE;
+                while (length > 0 && chunk[length - 1] == 0) {
+                    length--;
+                }
+                name.write(chunk, 0, length);
+
+                if ((cause & LAST_CHUNK) != 0) {
+                    String worldName = new String(partialNames.remove(slot).toByteArray(), StandardCharsets.UTF_8);
+                    slots.put(slot, stateResolver.apply(worldName));
+                }
+            } else {
+                WorldClimateState state = slots.get(slot);
+                int weather = buffer.getShort();
+                int season = buffer.get();
+                int flags = buffer.get();
+                int duration = buffer.getInt();
+                int seasonDay = buffer.getInt();
+                int previousWeather = buffer.getShort();
+
+                if (state != null) {
+                    state.setWeatherCode(WorldClimateState.isValidWeatherCode(weather) ? weather : -1);
+                    state.setWeatherDuration(duration);
+                    state.setSeasonCode(WorldClimateState.isValidSeasonCode(season) ? season : -1);
+                    state.setSeasonDay(seasonDay);
+                    state.setPreviousWeatherCode(WorldClimateState.isValidWeatherCode(previousWeather) ? previousWeather : -1);
+                    state.setNightCycle((flags & NIGHT_CYCLE_FLAG) != 0);
+                    replayed++;
+                }
+            }
+
+            buffer.position(start + RECORD_SIZE);
+        }
+
+        if (buffer.hasRemaining()) {
+            logger.warning("Climate journal ends with an incomplete record, ignoring it.");
+        }
+        return replayed;
+    }
+
+    /**
+     * Obtient le nombre d'enregistrements écrits ou en attente depuis la dernière compaction.
+     *
+     * @return Le nombre d'enregistrements.
+     */
+    public int getRecordCount() {
+        return writtenRecords + pendingRecords;
+    }
+}
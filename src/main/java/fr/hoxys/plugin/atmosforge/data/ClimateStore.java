@@ -0,0 +1,83 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Stockage persistant des états climatiques des mondes.
+ * <p>
+ * {@link #load} est appelé une seule fois au démarrage, ou {@link #loadWorld} à la demande pour les
+ * stockages {@link #isLazy() chargés à la demande} ; {@link #saveDirty} et {@link #flush}
+ * sont appelés depuis le thread d'écriture avec des copies des états.
+ * Les états transmis à {@link #saveDirty} restent en attente jusqu'à un {@link #flush} réussi,
+ * de sorte qu'une écriture échouée est retentée lors du flush suivant.
+ */
+public interface ClimateStore {
+
+    /**
+     * Obtient le type de ce stockage.
+     *
+     * @return Le type de stockage.
+     */
+    ClimateStoreType getType();
+
+    /**
+     * Vérifie si des données existent déjà pour ce stockage.
+     *
+     * @return true si des données existent, false sinon.
+     */
+    boolean exists();
+
+    /**
+     * Charge les états de tous les mondes stockés.
+     *
+     * @param stateResolver Fournit l'état à remplir pour un nom de monde.
+     * @return Le nombre de mondes chargés.
+     * @throws IOException Si les données sont illisibles ou corrompues.
+     */
+    int load(Function<String, WorldClimateState> stateResolver) throws IOException;
+
+    /**
+     * Vérifie si les mondes sont chargés individuellement, à la demande, plutôt qu'au démarrage.
+     *
+     * @return true si le stockage est chargé à la demande, false sinon.
+     */
+    default boolean isLazy() {
+        return false;
+    }
+
+    /**
+     * Charge l'état d'un seul monde. Utilisé par les stockages chargés à la demande.
+     *
+     * @param state L'état à remplir.
+     * @return true si des données existaient pour ce monde, false sinon.
+     * @throws IOException Si les données du monde sont illisibles ou corrompues.
+     */
+    default boolean loadWorld(WorldClimateState state) throws IOException {
+        return false;
+    }
+
+    /**
+     * Met en attente les états modifiés. Un état vide supprime les données du monde.
+     *
+     * @param dirtyStates Les copies des états modifiés.
+     * @throws IOException Si les états ne peuvent pas être mis en attente.
+     */
+    void saveDirty(Collection<WorldClimateState> dirtyStates) throws IOException;
+
+    /**
+     * Écrit durablement les états en attente.
+     *
+     * @throws IOException Si l'écriture échoue ; les états restent alors en attente.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Libère les ressources du stockage.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,155 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Mesure le débit des stockages climatiques sur des mondes générés.
+ * Chaque mesure utilise un dossier temporaire qui est supprimé ensuite.
+ */
+public final class ClimateStoreBenchmark {
+
+    // Part des mondes modifiés entre deux flush
+    private static final double DIRTY_RATIO = 0.1;
+
+    /**
+     * Résultat de la mesure d'un stockage.
+     *
+     * @param type Le type de stockage mesuré.
+     * @param worlds Le nombre de mondes générés.
+     * @param fullWriteNanos La durée de l'écriture de tous les mondes.
+     * @param dirtyFlushNanos La durée moyenne d'un flush des mondes modifiés.
+     * @param dirtyWorlds Le nombre de mondes modifiés par flush.
+     * @param loadNanos La durée du chargement de tous les mondes.
+     */
+    public record Result(ClimateStoreType type, int worlds, long fullWriteNanos,
+                         long dirtyFlushNanos, int dirtyWorlds, long loadNanos) {
+
+        /**
+         * Obtient le nombre de mondes modifiés écrits par seconde.
+         *
+         * @return Le débit des flush des mondes modifiés.
+         */
+        public double getDirtyThroughput() {
+            return dirtyWorlds * 1_000_000_000.0 / Math.max(1L, dirtyFlushNanos);
+        }
+    }
+
+    private ClimateStoreBenchmark() {
+    }
+
+    /**
+     * Mesure un stockage : écriture complète, flush répétés des mondes modifiés, puis chargement.
+     *
+     * @param type Le type de stockage à mesurer.
+     * @param workFolder Le dossier dans lequel créer le dossier temporaire.
+     * @param worlds Le nombre de mondes à générer.
+     * @param rounds Le nombre de flush des mondes modifiés.
+     * @param backups Le nombre de générations précédentes conservées par les stockages à fichier unique.
+     * @param logger Le logger du plugin.
+     * @return Le résultat de la mesure.
+     * @throws IOException Si le stockage échoue.
+     */
+    public static Result run(ClimateStoreType type, File workFolder, int worlds, int rounds,
+                             int backups, Logger logger) throws IOException {
+        Path folder = Files.createTempDirectory(workFolder.toPath(), "benchmark-" + type.getId());
+        SplittableRandom random = new SplittableRandom(worlds);
+
+        try {
+            List<WorldClimateState> states = new ArrayList<>(worlds);
+            for (int i = 0; i < worlds; i++) {
+                WorldClimateState state = new WorldClimateState(i, "benchmark_world_" + i);
+                randomize(state, random);
+                states.add(state);
+            }
+
+            ClimateStore store = type.create(folder.toFile(), backups, logger);
+            long fullWriteNanos;
+            long dirtyNanos = 0L;
+            int dirtyWorlds = Math.max(1, (int) (worlds * DIRTY_RATIO));
+
+            try {
+                long start = System.nanoTime();
+                store.saveDirty(copyAll(states));
+                store.flush();
+                fullWriteNanos = System.nanoTime() - start;
+
+                for (int round = 0; round < rounds; round++) {
+                    List<WorldClimateState> dirty = new ArrayList<>(dirtyWorlds);
+                    for (int i = 0; i < dirtyWorlds; i++) {
+                        WorldClimateState state = states.get(random.nextInt(worlds));
+                        randomize(state, random);
+                        dirty.add(state.copy());
+                    }
+
+                    start = System.nanoTime();
+                    store.saveDirty(dirty);
+                    store.flush();
+                    dirtyNanos += System.nanoTime() - start;
+                }
+            } finally {
+                store.close();
+            }
+
+            ClimateStore reader = type.create(folder.toFile(), backups, logger);
+            Map<String, WorldClimateState> loaded = new HashMap<>();
+            long loadNanos;
+            try {
+                long start = System.nanoTime();
+                reader.load(worldName -> loaded.computeIfAbsent(worldName,
+                        name -> new WorldClimateState(loaded.size(), name)));
+                loadNanos = System.nanoTime() - start;
+            } finally {
+                reader.close();
+            }
+
+            if (loaded.size() != worlds) {
+                throw new IOException("Loaded " + loaded.size() + " worlds instead of " + worlds);
+            }
+
+            return new Result(type, worlds, fullWriteNanos, dirtyNanos / Math.max(1, rounds), dirtyWorlds, loadNanos);
+        } finally {
+            deleteRecursively(folder);
+        }
+    }
+
+    private static void randomize(WorldClimateState state, SplittableRandom random) {
+        WeatherType[] weatherTypes = WeatherType.values();
+        Season[] seasons = Season.values();
+
+        state.setWeather(weatherTypes[random.nextInt(weatherTypes.length)]);
+        state.setWeatherDuration(random.nextInt(1, 120));
+        state.setSeason(seasons[random.nextInt(seasons.length)]);
+        state.setSeasonDay(random.nextInt(1, 30));
+    }
+
+    private static List<WorldClimateState> copyAll(List<WorldClimateState> states) {
+        List<WorldClimateState> copies = new ArrayList<>(states.size());
+        for (WorldClimateState state : states) {
+            copies.add(state.copy());
+        }
+        return copies;
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Énumération des stockages disponibles pour les données climatiques des mondes.
+ */
+public enum ClimateStoreType {
+    YAML("yaml"),
+    BINARY("binary"),
+    SQLITE("sqlite"),
+    SHARDED("sharded");
+
+    private final String id;
+
+    ClimateStoreType(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Obtient l'identifiant du stockage, tel qu'utilisé dans la configuration.
+     *
+     * @return L'identifiant du stockage.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Crée un stockage de ce type.
+     *
+     * @param dataFolder Le dossier contenant les fichiers de données.
+     * @param backups Le nombre de générations précédentes à conserver pour les stockages à fichiers.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     * @return Le stockage créé.
+     */
+    public ClimateStore create(File dataFolder, int backups, Logger logger) {
+        switch (this) {
+            case BINARY:
+                return new BinaryClimateStore(new File(dataFolder, "worlds_data.dat").toPath(), backups, logger);
+            case SQLITE:
+                return new SqliteClimateStore(new File(dataFolder, "worlds_data.db").toPath());
+            case SHARDED:
+                return new ShardedClimateStore(new File(dataFolder, "worlds").toPath(), backups, logger);
+            case YAML:
+            default:
+                return new YamlClimateStore(new File(dataFolder, "worlds_data.yml").toPath(), backups, logger);
+        }
+    }
+
+    /**
+     * Obtient un type de stockage à partir de son identifiant.
+     *
+     * @param id L'identifiant du stockage.
+     * @return Le type de stockage correspondant, ou null s'il n'existe pas.
+     */
+    public static ClimateStoreType fromId(String id) {
+        for (ClimateStoreType type : values()) {
+            if (type.getId().equalsIgnoreCase(id)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,308 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Fichier écrit de manière sûre en cas d'arrêt brutal du serveur.
+ * <p>
+ * Chaque écriture passe par un fichier temporaire forcé sur disque, qui remplace ensuite atomiquement
+ * l'original. Le contenu est suivi d'une ligne {@code # crc32: xxxxxxxx} et les générations précédentes
+ * sont conservées dans des copies {@code .bak1}, {@code .bak2}, etc. À la lecture, un fichier corrompu
+ * est ignoré au profit de la copie valide la plus récente.
+ * <p>
+ * Un fichier modifiable à la main (configuration, langue) dont la somme de contrôle ne correspond plus
+ * est considéré comme édité, et non corrompu, tant que son contenu reste lisible.
+ * <p>
+ * Un fichier binaire porte sa propre somme de contrôle : aucune ligne n'y est ajoutée, et c'est l'interprète
+ * du contenu qui rejette une génération corrompue. Les anciennes générations suivies d'une ligne
+ * {@code # crc32} restent lisibles.
+ */
+public final class DurableFile {
+
+    private static final byte[] TRAILER_PREFIX = "\n# crc32: ".getBytes(StandardCharsets.US_ASCII);
+    private static final int TRAILER_SIZE = TRAILER_PREFIX.length + 9;
+
+    private final Path path;
+    private final boolean editable;
+    private final boolean binary;
+    private final Logger logger;
+
+    /**
+     * Interprète le contenu d'un fichier lu.
+     *
+     * @param <T> Le type du résultat.
+     */
+    @FunctionalInterface
+    public interface Parser<T> {
+
+        /**
+         * Interprète le contenu d'une génération du fichier.
+         *
+         * @param content Le contenu, sans la somme de contrôle.
+         * @return Le résultat de la lecture.
+         * @throws IOException Si le contenu est invalide.
+         */
+        T parse(byte[] content) throws IOException;
+    }
+
+    /**
+     * Constructeur du fichier.
+     *
+     * @param path Le chemin du fichier.
+     * @param editable true si le fichier peut être modifié à la main.
+     * @param logger Le logger utilisé pour signaler les fichiers corrompus.
+     */
+    public DurableFile(Path path, boolean editable, Logger logger) {
+        this(path, editable, false, logger);
+    }
+
+    /**
+     * Constructeur du fichier.
+     *
+     * @param path Le chemin du fichier.
+     * @param editable true si le fichier peut être modifié à la main.
+     * @param binary true si le contenu porte sa propre somme de contrôle et ne doit pas recevoir de ligne {@code # crc32}.
+     * @param logger Le logger utilisé pour signaler les fichiers corrompus.
+     */
+    public DurableFile(Path path, boolean editable, boolean binary, Logger logger) {
+        this.path = path;
+        this.editable = editable;
+        this.binary = binary;
+        this.logger = logger;
+    }
+
+    /**
+     * Obtient le chemin du fichier.
+     *
+     * @return Le chemin du fichier.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Vérifie si le fichier ou l'une de ses copies existe.
+     *
+     * @return true si une génération du fichier existe, false sinon.
+     */
+    public boolean exists() {
+        return Files.exists(path) || Files.exists(getBackup(1));
+    }
+
+    /**
+     * Lit la génération valide la plus récente du fichier.
+     *
+     * @param parser Interprète le contenu ; une erreur fait passer à la génération précédente.
+     * @param <T> Le type du résultat.
+     * @return Le résultat de la lecture, ou null si aucune génération n'existe.
+     * @throws IOException Si aucune génération n'est valide.
+     */
+    public <T> T read(Parser<T> parser) throws IOException {
+        IOException failure = null;
+
+        for (int generation = 0; ; generation++) {
+            Path candidate = generation == 0 ? path : getBackup(generation);
+            if (!Files.exists(candidate)) {
+                if (generation == 0) {
+                    continue;
+                }
+                break;
+            }
+
+            try {
+                T result = parser.parse(verify(readContent(candidate), generation));
+                if (generation > 0) {
+                    logger.warning("Restored " + path.getFileName() + " from backup " + candidate.getFileName());
+                }
+                return result;
+            } catch (IOException e) {
+                logger.warning("Ignoring corrupted file " + candidate + ": " + e.getMessage());
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    /**
+     * Lit le contenu complet d'une génération au travers d'un {@link FileChannel}.
+     *
+     * @param candidate Le chemin de la génération.
+     * @return Le contenu brut de la génération.
+     * @throws IOException Si la lecture échoue ou si le fichier est trop volumineux.
+     */
+    private static byte[] readContent(Path candidate) throws IOException {
+        try (FileChannel channel = FileChannel.open(candidate, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large: " + size + " bytes");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Vérifie la somme de contrôle d'une génération et la retire du contenu.
+     *
+     * @param data Le contenu brut de la génération.
+     * @param generation La génération lue (0 pour le fichier actuel).
+     * @return Le contenu sans la somme de contrôle.
+     * @throws IOException Si la somme de contrôle est absente ou incorrecte.
+     */
+    private byte[] verify(byte[] data, int generation) throws IOException {
+        int contentLength = data.length - TRAILER_SIZE;
+        if (contentLength < 0 || data[data.length - 1] != '\n'
+                || !Arrays.equals(data, contentLength, contentLength + TRAILER_PREFIX.length,
+                TRAILER_PREFIX, 0, TRAILER_PREFIX.length)) {
+            // Fichier binaire, antérieur aux sommes de contrôle, ou créé à la main
+            if (binary || editable || (generation == 0 && !Files.exists(getBackup(1)))) {
+                return data;
+            }
+            throw new IOException("Missing checksum");
+        }
+
+        long expected;
+        try {
+            expected = Long.parseLong(new String(data, contentLength + TRAILER_PREFIX.length, 8,
+                    StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed checksum", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, contentLength);
+        if (crc.getValue() != expected) {
+            if (!editable) {
+                throw new IOException("Checksum mismatch");
+            }
+            logger.info(path.getFileName() + " was modified by hand, its checksum will be updated on the next save.");
+        }
+        return Arrays.copyOf(data, contentLength);
+    }
+
+    /**
+     * Écrit une nouvelle génération du fichier. Appelé depuis un thread d'écriture.
+     *
+     * @param content Le contenu à écrire.
+     * @param backups Le nombre de générations précédentes à conserver.
+     * @throws IOException Si l'écriture échoue ; le fichier précédent reste alors intact.
+     */
+    public void write(byte[] content, int backups) throws IOException {
+        Path folder = path.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+
+        byte[] trailer = null;
+        if (!binary) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            trailer = String.format("\n# crc32: %08x\n", crc.getValue()).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (trailer != null) {
+                buffer = ByteBuffer.wrap(trailer);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+
+        rotateBackups(backups);
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncFolder(folder);
+    }
+
+    /**
+     * Supprime le fichier et toutes ses copies.
+     *
+     * @throws IOException Si un fichier ne peut pas être supprimé.
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+        for (int generation = 1; Files.deleteIfExists(getBackup(generation)); generation++) {
+            // Supprimer les copies jusqu'à la première absente
+        }
+    }
+
+    /**
+     * Décale les copies existantes et copie le fichier actuel dans la première.
+     *
+     * @param backups Le nombre de copies à conserver.
+     * @throws IOException Si une copie ne peut pas être déplacée.
+     */
+    private void rotateBackups(int backups) throws IOException {
+        if (backups <= 0 || !Files.exists(path)) {
+            return;
+        }
+
+        Files.deleteIfExists(getBackup(backups));
+        for (int generation = backups - 1; generation >= 1; generation--) {
+            Path backup = getBackup(generation);
+            if (Files.exists(backup)) {
+                Files.move(backup, getBackup(generation + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.copy(path, getBackup(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Force l'écriture du contenu d'un dossier, pour que le renommage survive à un arrêt brutal.
+     *
+     * @param folder Le dossier à synchroniser.
+     */
+    private static void syncFolder(Path folder) {
+        try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Certains systèmes ne permettent pas d'ouvrir un dossier
+        }
+    }
+
+    /**
+     * Obtient le chemin d'une copie du fichier.
+     *
+     * @param generation La génération de la copie, à partir de 1.
+     * @return Le chemin de la copie.
+     */
+    private Path getBackup(int generation) {
+        return path.resolveSibling(path.getFileName() + ".bak" + generation);
+    }
+}
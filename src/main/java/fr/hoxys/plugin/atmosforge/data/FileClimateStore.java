@@ -0,0 +1,120 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Base des stockages qui conservent tous les mondes dans un seul fichier.
+ * Une copie de chaque état est gardée en mémoire ; chaque flush réécrit le fichier complet
+ * au travers d'un {@link DurableFile}.
+ */
+abstract class FileClimateStore implements ClimateStore {
+
+    protected final DurableFile file;
+
+    // Nombre de générations précédentes conservées
+    private final int backups;
+
+    // Dernier état connu de chaque monde stocké
+    private final Map<String, WorldClimateState> states;
+
+    // Des états ont été modifiés depuis la dernière écriture
+    private boolean pending;
+
+    /**
+     * Constructeur du stockage.
+     *
+     * @param path Le chemin du fichier de données.
+     * @param backups Le nombre de générations précédentes à conserver.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     */
+    protected FileClimateStore(Path path, int backups, Logger logger) {
+        this(path, backups, false, logger);
+    }
+
+    /**
+     * Constructeur du stockage.
+     *
+     * @param path Le chemin du fichier de données.
+     * @param backups Le nombre de générations précédentes à conserver.
+     * @param binary true si le format porte sa propre somme de contrôle.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     */
+    protected FileClimateStore(Path path, int backups, boolean binary, Logger logger) {
+        // Un fichier texte peut être modifié à la main, comme config.yml : sa somme de contrôle est alors mise à jour
+        this.file = new DurableFile(path, !binary, binary, logger);
+        this.backups = backups;
+        this.states = new LinkedHashMap<>();
+    }
+
+    /**
+     * Décode le contenu du fichier de données.
+     *
+     * @param data Le contenu du fichier.
+     * @param stateResolver Fournit l'état à remplir pour un nom de monde.
+     * @throws IOException Si le contenu est corrompu.
+     */
+    protected abstract void decode(byte[] data, Function<String, WorldClimateState> stateResolver) throws IOException;
+
+    /**
+     * Encode les états des mondes.
+     *
+     * @param states Les états à encoder.
+     * @return Le contenu du fichier de données.
+     */
+    protected abstract byte[] encode(List<WorldClimateState> states);
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public int load(Function<String, WorldClimateState> stateResolver) throws IOException {
+        List<WorldClimateState> loaded = new ArrayList<>();
+        file.read(data -> {
+            decode(data, worldName -> {
+                WorldClimateState state = stateResolver.apply(worldName);
+                loaded.add(state);
+                return state;
+            });
+            return loaded;
+        });
+
+        for (WorldClimateState state : loaded) {
+            states.put(state.getWorldName(), state.copy());
+        }
+        return loaded.size();
+    }
+
+    @Override
+    public void saveDirty(Collection<WorldClimateState> dirtyStates) {
+        for (WorldClimateState state : dirtyStates) {
+            if (state.isEmpty()) {
+                states.remove(state.getWorldName());
+            } else {
+                states.put(state.getWorldName(), state);
+            }
+        }
+        pending |= !dirtyStates.isEmpty();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!pending) {
+            return;
+        }
+
+        file.write(encode(new ArrayList<>(states.values())), backups);
+        pending = false;
+    }
+}
@@ -2,6 +2,7 @@ package fr.hoxys.plugin.atmosforge.data;
 
 import fr.hoxys.plugin.atmosforge.Main;
 
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -10,16 +11,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Gestionnaire de fichiers pour AtmosForge.
  * Cette classe gère la création, le chargement et la sauvegarde des fichiers de données.
+ * Toutes les écritures passent par un {@link DurableFile} et sont exécutées sur un thread unique,
+ * hors du thread principal.
  */
 public class FileManager {
 
@@ -29,7 +35,13 @@ public class FileManager {
 
     // Cache des configurations
     private final Map<String, FileConfiguration> configCache;
-    private final Map<String, File> fileCache;
+    private final Map<String, DurableFile> fileCache;
+
+    // Thread unique chargé des écritures sur disque
+    private final ExecutorService ioExecutor;
+
+    // Nombre de générations précédentes conservées pour chaque fichier
+    private int backupCount;
 
     /**
      * Constructeur du gestionnaire de fichiers.
@@ -42,6 +54,12 @@ public class FileManager {
         this.dataFolder = plugin.getDataFolder();
         this.configCache = new HashMap<>();
         this.fileCache = new HashMap<>();
+        this.backupCount = 3;
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AtmosForge-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         // S'assurer que le dossier du plugin existe
         if (!dataFolder.exists()) {
@@ -52,6 +70,130 @@ public class FileManager {
         }
     }
 
+    /**
+     * Charge la configuration du gestionnaire.
+     * Appelé une fois la configuration du plugin chargée, qui passe elle-même par ce gestionnaire.
+     */
+    public void loadConfiguration() {
+        backupCount = Math.max(0, plugin.getConfigManager().getConfig().getInt("storage.backups", 3));
+        logger.info("File backups kept per file set to: " + backupCount);
+    }
+
+    /**
+     * Obtient un fichier à écriture sûre dans le dossier du plugin.
+     *
+     * @param fileName Le nom du fichier.
+     * @param editable true si le fichier peut être modifié à la main.
+     * @return Le fichier.
+     */
+    public DurableFile getDurableFile(String fileName, boolean editable) {
+        return new DurableFile(new File(dataFolder, fileName).toPath(), editable, logger);
+    }
+
+    /**
+     * Lit un fichier YAML, en utilisant la copie valide la plus récente s'il est corrompu.
+     *
+     * @param file Le fichier à lire.
+     * @return La configuration lue, vide si le fichier n'existe pas ou si aucune copie n'est lisible.
+     */
+    public YamlConfiguration loadYaml(DurableFile file) {
+        try {
+            YamlConfiguration config = file.read(data -> {
+                YamlConfiguration parsed = new YamlConfiguration();
+                try {
+                    parsed.loadFromString(new String(data, StandardCharsets.UTF_8));
+                } catch (InvalidConfigurationException e) {
+                    throw new IOException("Invalid YAML: " + e.getMessage(), e);
+                }
+                return parsed;
+            });
+            if (config != null) {
+                return config;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read " + file.getPath() + " or any of its backups", e);
+        }
+        return new YamlConfiguration();
+    }
+
+    /**
+     * Écrit une configuration YAML hors du thread principal.
+     * La configuration est sérialisée immédiatement, sur le thread appelant.
+     *
+     * @param file Le fichier à écrire.
+     * @param config La configuration à écrire.
+     * @return Une tâche terminée par true si l'écriture a réussi, false sinon.
+     */
+    public CompletableFuture<Boolean> saveYamlAsync(DurableFile file, FileConfiguration config) {
+        return writeAsync(file, config.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Écrit un fichier hors du thread principal.
+     *
+     * @param file Le fichier à écrire.
+     * @param content Le contenu à écrire.
+     * @return Une tâche terminée par true si l'écriture a réussi, false sinon.
+     */
+    public CompletableFuture<Boolean> writeAsync(DurableFile file, byte[] content) {
+        try {
+            return CompletableFuture.supplyAsync(() -> writeNow(file, content), ioExecutor);
+        } catch (RejectedExecutionException e) {
+            // Le thread d'écriture est arrêté : écrire directement
+            return CompletableFuture.completedFuture(writeNow(file, content));
+        }
+    }
+
+    /**
+     * Écrit un fichier sur le thread appelant.
+     *
+     * @param file Le fichier à écrire.
+     * @param content Le contenu à écrire.
+     * @return true si l'écriture a réussi, false sinon.
+     */
+    public boolean writeNow(DurableFile file, byte[] content) {
+        try {
+            file.write(content, backupCount);
+            logger.fine("Saved " + file.getPath().getFileName());
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not save " + file.getPath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Obtient le thread d'écriture partagé par les gestionnaires.
+     *
+     * @return Le service d'exécution des écritures.
+     */
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Obtient le nombre de générations précédentes conservées pour chaque fichier.
+     *
+     * @return Le nombre de copies de sauvegarde.
+     */
+    public int getBackupCount() {
+        return backupCount;
+    }
+
+    /**
+     * Termine les écritures en attente puis arrête le thread d'écriture.
+     */
+    public void shutdown() {
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for file writes to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Vérifie si un fichier existe dans le dossier du plugin.
      *
@@ -123,27 +265,22 @@ public class FileManager {
             return configCache.get(fileName);
         }
 
-        // Créer le fichier s'il n'existe pas
-        if (!fileExists(fileName)) {
-            createFile(fileName);
-        }
-
         // Obtenir le fichier
-        File file = new File(dataFolder, fileName);
+        DurableFile file = getDurableFile(fileName, true);
         fileCache.put(fileName, file);
 
-        // Charger la configuration
-        FileConfiguration config = YamlConfiguration.loadConfiguration(file);
+        // Charger la configuration, depuis une copie si le fichier est corrompu
+        FileConfiguration config = loadYaml(file);
         configCache.put(fileName, config);
 
         return config;
     }
 
     /**
-     * Sauvegarde une configuration YAML dans un fichier.
+     * Sauvegarde une configuration YAML dans un fichier, hors du thread principal.
      *
      * @param fileName Le nom du fichier.
-     * @return true si la sauvegarde a réussi, false sinon.
+     * @return true si la sauvegarde a été planifiée, false sinon.
      */
     public boolean saveConfig(String fileName) {
         // Vérifier si la configuration est en cache
@@ -152,17 +289,8 @@ public class FileManager {
             return false;
         }
 
-        FileConfiguration config = configCache.get(fileName);
-        File file = fileCache.get(fileName);
-
-        try {
-            config.save(file);
-            logger.fine("Saved configuration to " + fileName);
-            return true;
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not save config to " + fileName, e);
-            return false;
-        }
+        saveYamlAsync(fileCache.get(fileName), configCache.get(fileName));
+        return true;
     }
 
     /**
@@ -203,17 +331,10 @@ public class FileManager {
                 return false;
             }
 
-            // Créer les dossiers parents si nécessaire
-            File parent = outFile.getParentFile();
-            if (parent != null && !parent.exists()) {
-                boolean created = parent.mkdirs();
-                if (!created) {
-                    logger.warning("Failed to create parent directories for: " + outFileName);
-                }
+            // Copier le fichier immédiatement : il est lu juste après
+            if (!writeNow(getDurableFile(outFileName, true), in.readAllBytes())) {
+                return false;
             }
-
-            // Copier le fichier
-            Files.copy(in, outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             logger.info("Copied resource " + resourcePath + " to " + outFileName);
             return true;
         } catch (IOException e) {
@@ -249,14 +370,14 @@ public class FileManager {
      * @return Le contenu du fichier, ou null si une erreur s'est produite.
      */
     public String readFile(String fileName) {
-        File file = new File(dataFolder, fileName);
+        DurableFile file = getDurableFile(fileName, true);
         if (!file.exists()) {
             logger.warning("File not found: " + fileName);
             return null;
         }
 
         try {
-            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            return file.read(data -> new String(data, StandardCharsets.UTF_8));
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Could not read file: " + fileName, e);
             return null;
@@ -264,32 +385,14 @@ public class FileManager {
     }
 
     /**
-     * Écrit une chaîne dans un fichier.
+     * Écrit une chaîne dans un fichier, hors du thread principal.
      *
      * @param fileName Le nom du fichier.
      * @param content Le contenu à écrire.
-     * @return true si l'écriture a réussi, false sinon.
+     * @return Une tâche terminée par true si l'écriture a réussi, false sinon.
      */
-    public boolean writeFile(String fileName, String content) {
-        File file = new File(dataFolder, fileName);
-
-        // Créer les dossiers parents si nécessaire
-        File parent = file.getParentFile();
-        if (parent != null && !parent.exists()) {
-            boolean created = parent.mkdirs();
-            if (!created) {
-                logger.warning("Failed to create parent directories for: " + fileName);
-            }
-        }
-
-        try {
-            Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
-            logger.fine("Wrote to file: " + fileName);
-            return true;
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, "Could not write to file: " + fileName, e);
-            return false;
-        }
+    public CompletableFuture<Boolean> writeFile(String fileName, String content) {
+        return writeAsync(getDurableFile(fileName, true), content.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -0,0 +1,156 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Stockage des données climatiques avec un petit fichier binaire par monde.
+ * Seuls les fichiers des mondes modifiés sont réécrits, et chaque monde n'est lu
+ * qu'au moment où il est chargé par le serveur.
+ * Les fichiers sont écrits au travers d'un {@link DurableFile}, avec le même nombre de générations
+ * précédentes que les autres fichiers de données.
+ */
+public final class ShardedClimateStore implements ClimateStore {
+
+    private static final String EXTENSION = ".dat";
+
+    private final Path folder;
+    private final Logger logger;
+
+    // Nombre de générations précédentes conservées pour chaque monde
+    private final int backups;
+
+    // États en attente d'écriture, par nom de monde
+    private final Map<String, WorldClimateState> pending;
+
+    /**
+     * Constructeur du stockage par monde.
+     *
+     * @param folder Le dossier contenant les fichiers des mondes.
+     * @param backups Le nombre de générations précédentes à conserver pour chaque monde.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     */
+    public ShardedClimateStore(Path folder, int backups, Logger logger) {
+        this.folder = folder;
+        this.logger = logger;
+        this.backups = backups;
+        this.pending = new LinkedHashMap<>();
+    }
+
+    @Override
+    public ClimateStoreType getType() {
+        return ClimateStoreType.SHARDED;
+    }
+
+    @Override
+    public boolean exists() {
+        if (!Files.isDirectory(folder)) {
+            return false;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + EXTENSION)) {
+            return files.iterator().hasNext();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public int load(Function<String, WorldClimateState> stateResolver) throws IOException {
+        if (!Files.isDirectory(folder)) {
+            return 0;
+        }
+
+        int loaded = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + EXTENSION)) {
+            for (Path file : files) {
+                if (new DurableFile(file, false, true, logger).read(data -> {
+                    BinaryClimateStore.decodeStates(data, stateResolver);
+                    return file;
+                }) != null) {
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public boolean loadWorld(WorldClimateState state) throws IOException {
+        return getWorldFile(state.getWorldName()).read(data -> {
+            BinaryClimateStore.decodeStates(data, worldName -> state);
+            return state;
+        }) != null;
+    }
+
+    @Override
+    public void saveDirty(Collection<WorldClimateState> dirtyStates) {
+        for (WorldClimateState state : dirtyStates) {
+            pending.put(state.getWorldName(), state);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Files.createDirectories(folder);
+
+        // Écrire chaque monde indépendamment : un échec ne bloque pas les autres
+        IOException failure = null;
+        Iterator<WorldClimateState> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            WorldClimateState state = iterator.next();
+            DurableFile file = getWorldFile(state.getWorldName());
+
+            try {
+                if (state.isEmpty()) {
+                    file.delete();
+                } else {
+                    file.write(BinaryClimateStore.encodeStates(Collections.singletonList(state)), backups);
+                }
+                iterator.remove();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Obtient le fichier d'un monde. Le nom est encodé pour rester un nom de fichier valide.
+     *
+     * @param worldName Le nom du monde.
+     * @return Le fichier du monde.
+     */
+    private DurableFile getWorldFile(String worldName) {
+        return new DurableFile(folder.resolve(URLEncoder.encode(worldName, StandardCharsets.UTF_8) + EXTENSION), false, true, logger);
+    }
+}
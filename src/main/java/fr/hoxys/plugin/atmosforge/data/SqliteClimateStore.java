@@ -0,0 +1,223 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stockage des données climatiques des mondes dans une base SQLite embarquée.
+ * Une ligne par monde : seuls les mondes modifiés sont écrits, dans une transaction par flush.
+ * Le pilote JDBC SQLite est fourni par le serveur.
+ */
+public final class SqliteClimateStore implements ClimateStore {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS world_climate ("
+            + "world TEXT PRIMARY KEY, "
+            + "weather TEXT, "
+            + "weather_duration INTEGER, "
+            + "season TEXT, "
+            + "season_day INTEGER, "
+            + "previous_weather TEXT)";
+    private static final String SELECT_ALL = "SELECT world, weather, weather_duration, season, season_day, previous_weather "
+            + "FROM world_climate";
+    private static final String UPSERT = "INSERT OR REPLACE INTO world_climate "
+            + "(world, weather, weather_duration, season, season_day, previous_weather) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM world_climate WHERE world = ?";
+
+    private final Path path;
+
+    // États en attente d'écriture, par nom de monde
+    private final Map<String, WorldClimateState> pending;
+
+    private Connection connection;
+
+    /**
+     * Constructeur du stockage SQLite.
+     *
+     * @param path Le chemin du fichier de base de données.
+     */
+    public SqliteClimateStore(Path path) {
+        this.path = path;
+        this.pending = new LinkedHashMap<>();
+    }
+
+    @Override
+    public ClimateStoreType getType() {
+        return ClimateStoreType.SQLITE;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public int load(Function<String, WorldClimateState> stateResolver) throws IOException {
+        if (!exists()) {
+            return 0;
+        }
+
+        int loaded = 0;
+        try (Statement statement = getConnection().createStatement();
+             ResultSet result = statement.executeQuery(SELECT_ALL)) {
+            while (result.next()) {
+                WorldClimateState state = stateResolver.apply(result.getString(1));
+
+                WeatherType weather = WeatherType.fromId(result.getString(2));
+                if (weather != null) {
+                    state.setWeather(weather);
+                    state.setWeatherDuration(result.getInt(3));
+                }
+
+                Season season = Season.fromId(result.getString(4));
+                if (season != null) {
+                    state.setSeason(season);
+                    state.setSeasonDay(result.getInt(5));
+                }
+
+                state.setPreviousWeather(WeatherType.fromId(result.getString(6)));
+                loaded++;
+            }
+            // Terminer la transaction de lecture ouverte par la requête
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Could not read worlds data from " + path, e);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void saveDirty(Collection<WorldClimateState> dirtyStates) {
+        for (WorldClimateState state : dirtyStates) {
+            pending.put(state.getWorldName(), state);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            Connection conn = getConnection();
+            try (PreparedStatement upsert = conn.prepareStatement(UPSERT);
+                 PreparedStatement delete = conn.prepareStatement(DELETE)) {
+                for (WorldClimateState state : pending.values()) {
+                    if (state.isEmpty()) {
+                        delete.setString(1, state.getWorldName());
+                        delete.addBatch();
+                    } else {
+                        bindState(upsert, state);
+                        upsert.addBatch();
+                    }
+                }
+
+                upsert.executeBatch();
+                delete.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not save worlds data to " + path, e);
+        }
+
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // La base est déjà à jour après le dernier flush
+        }
+        connection = null;
+    }
+
+    /**
+     * Lie les valeurs d'un état aux paramètres de la requête d'écriture.
+     *
+     * @param statement La requête d'écriture.
+     * @param state L'état à écrire.
+     * @throws SQLException Si un paramètre ne peut pas être lié.
+     */
+    private void bindState(PreparedStatement statement, WorldClimateState state) throws SQLException {
+        statement.setString(1, state.getWorldName());
+
+        WeatherType weather = state.getWeather();
+        if (weather != null) {
+            statement.setString(2, weather.getId());
+            statement.setInt(3, state.getWeatherDuration());
+        } else {
+            statement.setNull(2, Types.VARCHAR);
+            statement.setNull(3, Types.INTEGER);
+        }
+
+        Season season = state.getSeason();
+        if (season != null) {
+            statement.setString(4, season.getId());
+            statement.setInt(5, state.getSeasonDay());
+        } else {
+            statement.setNull(4, Types.VARCHAR);
+            statement.setNull(5, Types.INTEGER);
+        }
+
+        WeatherType previousWeather = state.getPreviousWeather();
+        if (previousWeather != null) {
+            statement.setString(6, previousWeather.getId());
+        } else {
+            statement.setNull(6, Types.VARCHAR);
+        }
+    }
+
+    /**
+     * Obtient la connexion à la base, en l'ouvrant si nécessaire.
+     *
+     * @return La connexion à la base.
+     * @throws SQLException Si la base ne peut pas être ouverte.
+     */
+    private Connection getConnection() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite JDBC driver is not available", e);
+        }
+
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + path.toAbsolutePath());
+        try (Statement statement = conn.createStatement()) {
+            // Chaque transaction validée doit être sur disque avant que le journal soit vidé
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=FULL");
+            statement.execute(CREATE_TABLE);
+        }
+        conn.setAutoCommit(false);
+        connection = conn;
+        return conn;
+    }
+}
@@ -0,0 +1,104 @@
+package fr.hoxys.plugin.atmosforge.data;
+
+import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Stockage des données climatiques des mondes dans un fichier YAML lisible.
+ */
+public final class YamlClimateStore extends FileClimateStore {
+
+    /**
+     * Constructeur du stockage YAML.
+     *
+     * @param path Le chemin du fichier de données.
+     * @param backups Le nombre de générations précédentes à conserver.
+     * @param logger Le logger utilisé pour signaler un fichier corrompu.
+     */
+    public YamlClimateStore(Path path, int backups, Logger logger) {
+        super(path, backups, logger);
+    }
+
+    @Override
+    public ClimateStoreType getType() {
+        return ClimateStoreType.YAML;
+    }
+
+    @Override
+    protected void decode(byte[] data, Function<String, WorldClimateState> stateResolver) throws IOException {
+        YamlConfiguration worldsConfig = new YamlConfiguration();
+        try {
+            worldsConfig.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid worlds data file " + file.getPath(), e);
+        }
+
+        ConfigurationSection worldsSection = worldsConfig.getConfigurationSection("worlds");
+        if (worldsSection == null) {
+            return;
+        }
+
+        for (String worldName : worldsSection.getKeys(false)) {
+            ConfigurationSection worldSection = worldsSection.getConfigurationSection(worldName);
+            if (worldSection == null) {
+                continue;
+            }
+
+            WorldClimateState state = stateResolver.apply(worldName);
+
+            WeatherType weather = WeatherType.fromId(worldSection.getString("weather"));
+            if (weather != null && worldSection.contains("weather_duration")) {
+                state.setWeather(weather);
+                state.setWeatherDuration(worldSection.getInt("weather_duration"));
+            }
+
+            Season season = Season.fromId(worldSection.getString("season"));
+            if (season != null && worldSection.contains("season_day")) {
+                state.setSeason(season);
+                state.setSeasonDay(worldSection.getInt("season_day"));
+            }
+
+            state.setPreviousWeather(WeatherType.fromId(worldSection.getString("previous_weather")));
+        }
+    }
+
+    @Override
+    protected byte[] encode(List<WorldClimateState> states) {
+        YamlConfiguration worldsConfig = new YamlConfiguration();
+
+        for (WorldClimateState state : states) {
+            String path = "worlds." + state.getWorldName() + ".";
+
+            WeatherType weather = state.getWeather();
+            if (weather != null) {
+                worldsConfig.set(path + "weather", weather.getId());
+                worldsConfig.set(path + "weather_duration", state.getWeatherDuration());
+            }
+
+            Season season = state.getSeason();
+            if (season != null) {
+                worldsConfig.set(path + "season", season.getId());
+                worldsConfig.set(path + "season_day", state.getSeasonDay());
+            }
+
+            WeatherType previousWeather = state.getPreviousWeather();
+            if (previousWeather != null) {
+                worldsConfig.set(path + "previous_weather", previousWeather.getId());
+            }
+        }
+
+        return worldsConfig.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+}
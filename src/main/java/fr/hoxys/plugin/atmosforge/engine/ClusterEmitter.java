@@ -0,0 +1,214 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Émission de particules sur l'union des zones des joueurs d'un {@link PlayerGrid.Cluster}.
+ * <p>
+ * L'union est découpée en tuiles carrées du côté d'une zone ; chaque tuile occupée est échantillonnée
+ * une seule fois, dans le rectangle couvert par les zones qui la touchent, à la densité d'une zone.
+ * Le travail suit donc la surface occupée par le groupe, et non le nombre de joueurs multiplié par
+ * le nombre de particules. Chaque particule est envoyée aux joueurs dont la zone la contient et qui
+ * peuvent la voir.
+ * <p>
+ * Chaque joueur demande d'abord à son budget les particules de sa propre zone, puis ne reçoit jamais
+ * plus que ce qui lui a été accordé ; les particules accordées mais non envoyées lui sont rendues.
+ * Un joueur n'est donc décompté que des particules qu'il reçoit réellement.
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class ClusterEmitter {
+
+    /**
+     * Envoi d'une particule à un joueur.
+     */
+    @FunctionalInterface
+    public interface Target {
+
+        /**
+         * Envoie une particule à un joueur.
+         *
+         * @param player Le joueur qui voit la particule.
+         * @param x La coordonnée X.
+         * @param y La coordonnée Y.
+         * @param z La coordonnée Z.
+         */
+        void spawn(Player player, double x, double y, double z);
+    }
+
+    // Tableaux de travail réutilisés d'un appel à l'autre (thread principal uniquement)
+    private static int[] granted = new int[8];
+    private static int[] sent = new int[8];
+    private static int[] overlapping = new int[8];
+    private static long[] tiles = new long[32];
+
+    private ClusterEmitter() {
+    }
+
+    /**
+     * Crée des particules sur l'union des zones des joueurs d'un groupe.
+     * X et Z sont tirés dans {@code joueur ± spread}, Y dans {@code [y + yOffset, y + yOffset + yRange)}
+     * à partir du premier joueur du groupe dont la zone contient la particule.
+     *
+     * @param plugin L'instance du plugin principal.
+     * @param cluster Le groupe de joueurs.
+     * @param particles Le nombre de particules souhaité dans la zone de chaque joueur.
+     * @param priority La priorité des particules auprès du budget des joueurs.
+     * @param spread L'étendue horizontale autour de chaque joueur.
+     * @param yOffset Le décalage vertical de la zone.
+     * @param yRange La hauteur de la zone, 0 pour une hauteur fixe.
+     * @param target L'envoi des particules aux joueurs.
+     */
+    public static void emit(Main plugin, PlayerGrid.Cluster cluster, int particles, ParticlePriority priority,
+                            double spread, double yOffset, double yRange, Target target) {
+        int members = cluster.size();
+        if (members == 0 || particles <= 0 || spread <= 0) {
+            return;
+        }
+        ensureCapacity(members);
+
+        // Part de chaque joueur, demandée pour sa propre zone
+        ParticleBudget budget = plugin.getParticleBudget();
+        int maxGranted = 0;
+        for (int i = 0; i < members; i++) {
+            granted[i] = budget.request(cluster.getPlayer(i), particles, priority, 0.0);
+            sent[i] = 0;
+            maxGranted = Math.max(maxGranted, granted[i]);
+        }
+
+        if (maxGranted > 0) {
+            double tile = spread * 2;
+            int tileCount = collectTiles(cluster, members, spread, tile);
+            double density = maxGranted / (tile * tile);
+            for (int i = 0; i < tileCount; i++) {
+                emitTile(plugin, cluster, members, tiles[i], tile, density, maxGranted, spread, yOffset, yRange, target);
+            }
+        }
+
+        // Rendre à chaque joueur ce qu'il n'a pas reçu
+        for (int i = 0; i < members; i++) {
+            budget.refund(cluster.getPlayer(i), granted[i] - sent[i]);
+        }
+    }
+
+    /**
+     * Range dans {@link #tiles} les tuiles touchées par au moins une zone, sans doublon.
+     *
+     * @return Le nombre de tuiles distinctes.
+     */
+    private static int collectTiles(PlayerGrid.Cluster cluster, int members, double spread, double tile) {
+        int count = 0;
+        for (int i = 0; i < members; i++) {
+            int minX = (int) Math.floor((cluster.getX(i) - spread) / tile);
+            int maxX = (int) Math.floor((cluster.getX(i) + spread) / tile);
+            int minZ = (int) Math.floor((cluster.getZ(i) - spread) / tile);
+            int maxZ = (int) Math.floor((cluster.getZ(i) + spread) / tile);
+            for (int tx = minX; tx <= maxX; tx++) {
+                for (int tz = minZ; tz <= maxZ; tz++) {
+                    if (count == tiles.length) {
+                        tiles = Arrays.copyOf(tiles, count * 2);
+                    }
+                    tiles[count++] = ((long) tx << 32) | (tz & 0xFFFFFFFFL);
+                }
+            }
+        }
+
+        Arrays.sort(tiles, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || tiles[unique - 1] != tiles[i]) {
+                tiles[unique++] = tiles[i];
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Échantillonne une tuile dans le rectangle couvert par les zones qui la touchent.
+     */
+    private static void emitTile(Main plugin, PlayerGrid.Cluster cluster, int members, long key, double tile,
+                                 double density, int maxGranted, double spread,
+                                 double yOffset, double yRange, Target target) {
+        double tileX = (int) (key >> 32) * tile;
+        double tileZ = (int) key * tile;
+
+        // Joueurs dont la zone touche la tuile, et rectangle couvert par leurs zones
+        int count = 0;
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minZ = Double.MAX_VALUE;
+        double maxZ = -Double.MAX_VALUE;
+        for (int i = 0; i < members; i++) {
+            double x = cluster.getX(i);
+            double z = cluster.getZ(i);
+            if (x + spread < tileX || x - spread > tileX + tile || z + spread < tileZ || z - spread > tileZ + tile) {
+                continue;
+            }
+            overlapping[count++] = i;
+            minX = Math.min(minX, x - spread);
+            maxX = Math.max(maxX, x + spread);
+            minZ = Math.min(minZ, z - spread);
+            maxZ = Math.max(maxZ, z + spread);
+        }
+
+        double x0 = Math.max(tileX, minX);
+        double x1 = Math.min(tileX + tile, maxX);
+        double z0 = Math.max(tileZ, minZ);
+        double z1 = Math.min(tileZ + tile, maxZ);
+        if (count == 0 || x1 <= x0 || z1 <= z0) {
+            return;
+        }
+
+        SplittableRandom random = ParticleEmitter.random();
+        ParticleCuller culler = plugin.getParticleCuller();
+        double expected = density * (x1 - x0) * (z1 - z0);
+        int candidates = (int) expected;
+        if (random.nextDouble() < expected - candidates) {
+            candidates++;
+        }
+
+        for (int c = 0; c < candidates; c++) {
+            double x = x0 + random.nextDouble() * (x1 - x0);
+            double z = z0 + random.nextDouble() * (z1 - z0);
+            double y = Double.NaN;
+
+            for (int k = 0; k < count; k++) {
+                int viewer = overlapping[k];
+                if (Math.abs(x - cluster.getX(viewer)) > spread || Math.abs(z - cluster.getZ(viewer)) > spread) {
+                    continue;
+                }
+
+                // La hauteur suit le premier joueur du groupe qui couvre la position
+                if (Double.isNaN(y)) {
+                    double baseY = cluster.getY(viewer) + yOffset;
+                    y = yRange > 0 ? baseY + random.nextDouble() * yRange : baseY;
+                }
+
+                // Un joueur au budget réduit ne reçoit qu'une part des particules, sans dépasser sa part
+                if (sent[viewer] >= granted[viewer]
+                        || (granted[viewer] < maxGranted && random.nextInt(maxGranted) >= granted[viewer])) {
+                    continue;
+                }
+
+                Player player = cluster.getPlayer(viewer);
+                if (culler.isVisibleThroughTerrain(culler.view(player), x, y, z)) {
+                    target.spawn(player, x, y, z);
+                    sent[viewer]++;
+                }
+            }
+        }
+    }
+
+    private static void ensureCapacity(int members) {
+        if (granted.length < members) {
+            int capacity = Math.max(members, granted.length * 2);
+            granted = new int[capacity];
+            sent = new int[capacity];
+            overlapping = new int[capacity];
+        }
+    }
+}
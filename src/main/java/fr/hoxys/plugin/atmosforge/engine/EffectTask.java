@@ -0,0 +1,120 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+/**
+ * Poignée d'une tâche enregistrée auprès du {@link TickEngine}.
+ * Remplace les {@code BukkitTask} individuelles utilisées auparavant par chaque effet.
+ * La poignée sert aussi de maillon dans la {@link TimingWheel}, ce qui évite toute allocation
+ * lors de la replanification d'une tâche répétitive.
+ */
+public final class EffectTask {
+
+    private final TimingWheel wheel;
+    private final Runnable action;
+    private long interval;
+
+    // Intervalle étiré par le régulateur de qualité lorsque le serveur est surchargé
+    private final boolean adaptive;
+
+    // Tick moteur auquel la tâche doit être exécutée
+    long deadline;
+    private boolean cancelled;
+
+    // Chaînage dans l'emplacement de la roue (-1 lorsque la tâche n'y est pas insérée)
+    EffectTask prev;
+    EffectTask next;
+    int bucket = -1;
+
+    EffectTask(TimingWheel wheel, Runnable action, long deadline, long interval, boolean adaptive) {
+        this.wheel = wheel;
+        this.action = action;
+        this.deadline = deadline;
+        this.interval = interval;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Réarme la tâche avec une nouvelle échéance et un nouvel intervalle, même si elle a été annulée.
+     * La tâche doit avoir été retirée de la roue.
+     *
+     * @param deadline Le tick moteur de la prochaine exécution.
+     * @param interval Le nouvel intervalle de répétition.
+     */
+    void rearm(long deadline, long interval) {
+        this.deadline = deadline;
+        this.interval = interval;
+        this.cancelled = false;
+    }
+
+    /**
+     * Vérifie si la tâche est actuellement insérée dans la roue.
+     *
+     * @return true si la tâche attend sa prochaine échéance, false sinon.
+     */
+    boolean isScheduled() {
+        return bucket >= 0;
+    }
+
+    /**
+     * Exécute l'action associée à la tâche.
+     */
+    void run() {
+        action.run();
+    }
+
+    /**
+     * Annule la tâche. Elle est immédiatement retirée du moteur.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+
+        cancelled = true;
+        wheel.cancel(this);
+    }
+
+    /**
+     * Vérifie si la tâche a été annulée.
+     *
+     * @return true si la tâche est annulée, false sinon.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Vérifie si la tâche est répétitive.
+     *
+     * @return true si la tâche se répète, false si elle ne s'exécute qu'une fois.
+     */
+    public boolean isRepeating() {
+        return interval > 0;
+    }
+
+    /**
+     * Obtient l'intervalle de répétition de la tâche.
+     *
+     * @return L'intervalle en ticks, ou 0 pour une tâche unique.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Vérifie si l'intervalle de la tâche suit le niveau de qualité des effets.
+     *
+     * @return true si l'intervalle est adapté à la charge du serveur, false sinon.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Obtient le tick moteur de la prochaine exécution de la tâche.
+     *
+     * @return Le tick d'échéance.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+}
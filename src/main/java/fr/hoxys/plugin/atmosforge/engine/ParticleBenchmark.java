@@ -0,0 +1,96 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Mesure le coût de la génération des positions de particules : durée et mémoire allouée par particule.
+ * Les particules sont envoyées vers un accumulateur au lieu du serveur, pour ne mesurer que le chemin du plugin.
+ * La mesure n'accède à aucune API Bukkit et doit être lancée hors du thread principal.
+ */
+public final class ParticleBenchmark {
+
+    // Nombre de particules émises par appel, comme une vague de pluie forte autour d'un joueur
+    private static final int BATCH_SIZE = 20;
+
+    /**
+     * Résultat d'une mesure.
+     *
+     * @param particles Le nombre de particules émises.
+     * @param nanos La durée de l'émission.
+     * @param allocatedBytes La mémoire allouée par le thread pendant l'émission, ou -1 si la JVM ne la mesure pas.
+     */
+    public record Result(long particles, long nanos, long allocatedBytes) {
+
+        /**
+         * Obtient la durée moyenne par particule.
+         *
+         * @return La durée par particule en nanosecondes.
+         */
+        public double getNanosPerParticle() {
+            return (double) nanos / Math.max(1L, particles);
+        }
+
+        /**
+         * Obtient la mémoire allouée par particule.
+         *
+         * @return Les octets alloués par particule, ou -1 si la JVM ne les mesure pas.
+         */
+        public double getBytesPerParticle() {
+            return allocatedBytes < 0 ? -1 : (double) allocatedBytes / Math.max(1L, particles);
+        }
+    }
+
+    private ParticleBenchmark() {
+    }
+
+    /**
+     * Mesure l'émission d'un nombre de particules, après un premier passage de préchauffage.
+     *
+     * @param particles Le nombre de particules à émettre.
+     * @return Le résultat de la mesure.
+     */
+    public static Result run(long particles) {
+        Accumulator accumulator = new Accumulator();
+        long batches = Math.max(1L, particles / BATCH_SIZE);
+
+        // Préchauffage : laisser le JIT compiler la boucle avant de mesurer
+        emitBatches(accumulator, batches);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().threadId();
+
+        long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0L;
+        long start = System.nanoTime();
+        emitBatches(accumulator, batches);
+        long nanos = System.nanoTime() - start;
+        long allocated = allocations != null ? allocations.getThreadAllocatedBytes(threadId) - allocatedBefore : -1L;
+
+        // Utiliser le résultat pour que le JIT ne supprime pas la boucle
+        if (accumulator.sum == Double.MIN_VALUE) {
+            nanos++;
+        }
+        return new Result(batches * BATCH_SIZE, nanos, allocated);
+    }
+
+    private static void emitBatches(Accumulator accumulator, long batches) {
+        for (long i = 0; i < batches; i++) {
+            ParticleEmitter.emit(accumulator, BATCH_SIZE, i, 64.0, -i, 5.0, 10.0, 0.0);
+        }
+    }
+
+    /**
+     * Destination qui additionne les coordonnées reçues.
+     */
+    private static final class Accumulator implements ParticleEmitter.Sink {
+        private double sum;
+
+        @Override
+        public void emit(double x, double y, double z) {
+            sum += x + y + z;
+        }
+    }
+}
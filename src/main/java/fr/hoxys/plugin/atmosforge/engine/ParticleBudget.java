@@ -0,0 +1,297 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Budget de particules par joueur et par seconde, partagé par tous les effets actifs.
+ * <p>
+ * Chaque effet demande un nombre de particules avant de les envoyer et reçoit le nombre autorisé :
+ * <ul>
+ *     <li>la distance entre le joueur et l'effet choisit un niveau de détail ({@link Tier}),
+ *     puis le niveau de qualité du {@link QualityGovernor} réduit la demande lorsque le serveur est surchargé ;</li>
+ *     <li>si la demande de la seconde précédente dépassait le budget, chaque priorité reçoit la part
+ *     que lui laissent les priorités supérieures, et les effets de priorité basse perdent un niveau de détail ;</li>
+ *     <li>le nombre de particules envoyées dans la seconde ne dépasse jamais le budget.</li>
+ * </ul>
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class ParticleBudget {
+
+    // Durée d'une fenêtre de budget en ticks
+    private static final int WINDOW_TICKS = 20;
+
+    private static final ParticlePriority[] PRIORITIES = ParticlePriority.values();
+
+    /**
+     * Niveau de détail d'un effet, selon sa distance au joueur.
+     */
+    public enum Tier {
+        FULL(1.0),
+        REDUCED(0.5),
+        MINIMAL(0.25),
+        CULLED(0.0);
+
+        private final double factor;
+
+        Tier(double factor) {
+            this.factor = factor;
+        }
+
+        /**
+         * Obtient la part des particules conservée à ce niveau.
+         *
+         * @return La part conservée, entre 0 et 1.
+         */
+        public double getFactor() {
+            return factor;
+        }
+
+        /**
+         * Obtient le niveau de détail inférieur.
+         *
+         * @return Le niveau inférieur, ou celui-ci s'il n'y en a pas.
+         */
+        public Tier degrade() {
+            return this == CULLED ? CULLED : values()[ordinal() + 1];
+        }
+    }
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Budget par joueur et par seconde, 0 pour aucune limite
+    private int particlesPerSecond;
+
+    // Distances au-delà desquelles le niveau de détail est réduit
+    private double reducedDistance;
+    private double minimalDistance;
+    private double cullDistance;
+
+    // Consommation de chaque joueur
+    private final Map<UUID, Usage> usages;
+
+    // Nombre de particules refusées depuis le démarrage, pour le débogage
+    private long droppedParticles;
+
+    /**
+     * Constructeur du budget de particules.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public ParticleBudget(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.usages = new HashMap<>();
+
+        // Charger la configuration
+        loadConfiguration();
+    }
+
+    /**
+     * Charge la configuration du budget.
+     */
+    public void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        particlesPerSecond = Math.max(0, config.getInt("debug.max_particles_per_player", 500));
+        reducedDistance = config.getDouble("effects.particle_lod.reduced_distance", 32.0);
+        minimalDistance = config.getDouble("effects.particle_lod.minimal_distance", 64.0);
+        cullDistance = config.getDouble("effects.particle_lod.cull_distance", 128.0);
+
+        logger.info("Particle budget set to: " + (particlesPerSecond > 0 ? particlesPerSecond + " per player per second" : "unlimited"));
+    }
+
+    /**
+     * Demande l'envoi de particules à un joueur.
+     *
+     * @param player Le joueur qui verra les particules.
+     * @param count Le nombre de particules souhaité.
+     * @param priority La priorité de l'effet.
+     * @param distance La distance entre le joueur et le centre de l'effet, en blocs.
+     * @return Le nombre de particules à envoyer, entre 0 et count.
+     */
+    public int request(Player player, int count, ParticlePriority priority, double distance) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        Usage usage = getUsage(player);
+        Tier tier = getTier(distance);
+        if (usage.overBudget && priority == ParticlePriority.LOW) {
+            tier = tier.degrade();
+        }
+
+        double wanted = plugin.getQualityGovernor().scaleParticles(count * tier.getFactor());
+        if (particlesPerSecond <= 0) {
+            return round(wanted);
+        }
+
+        usage.demand[priority.ordinal()] += wanted;
+
+        int granted = Math.min(round(wanted * usage.scales[priority.ordinal()]), particlesPerSecond - usage.granted);
+        granted = Math.max(0, Math.min(granted, count));
+        usage.granted += granted;
+        droppedParticles += count - granted;
+        return granted;
+    }
+
+    /**
+     * Rend au budget d'un joueur des particules accordées mais finalement non envoyées
+     * (hors de la zone partagée, ou invisibles pour lui). Doit suivre la demande dans le même tick.
+     *
+     * @param player Le joueur.
+     * @param unused Le nombre de particules accordées et non envoyées.
+     */
+    public void refund(Player player, int unused) {
+        if (unused <= 0 || particlesPerSecond <= 0) {
+            return;
+        }
+
+        Usage usage = usages.get(player.getUniqueId());
+        if (usage != null) {
+            usage.granted = Math.max(0, usage.granted - unused);
+        }
+    }
+
+    /**
+     * Obtient le niveau de détail correspondant à une distance.
+     *
+     * @param distance La distance entre le joueur et l'effet, en blocs.
+     * @return Le niveau de détail.
+     */
+    public Tier getTier(double distance) {
+        if (distance <= reducedDistance) {
+            return Tier.FULL;
+        } else if (distance <= minimalDistance) {
+            return Tier.REDUCED;
+        } else if (distance <= cullDistance) {
+            return Tier.MINIMAL;
+        }
+        return Tier.CULLED;
+    }
+
+    /**
+     * Oublie la consommation d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        usages.remove(player.getUniqueId());
+    }
+
+    /**
+     * Oublie la consommation de tous les joueurs.
+     */
+    public void clear() {
+        usages.clear();
+    }
+
+    /**
+     * Obtient le budget par joueur et par seconde.
+     *
+     * @return Le budget, 0 pour aucune limite.
+     */
+    public int getParticlesPerSecond() {
+        return particlesPerSecond;
+    }
+
+    /**
+     * Obtient le nombre de joueurs qui dépassaient leur budget lors de la seconde précédente.
+     *
+     * @return Le nombre de joueurs limités.
+     */
+    public int getLimitedPlayerCount() {
+        int count = 0;
+        for (Usage usage : usages.values()) {
+            if (usage.overBudget) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Obtient le nombre de particules refusées depuis le démarrage.
+     *
+     * @return Le nombre de particules refusées.
+     */
+    public long getDroppedParticles() {
+        return droppedParticles;
+    }
+
+    /**
+     * Obtient la consommation d'un joueur pour la fenêtre courante, en passant à la fenêtre suivante si nécessaire.
+     */
+    private Usage getUsage(Player player) {
+        Usage usage = usages.get(player.getUniqueId());
+        if (usage == null) {
+            usage = new Usage();
+            usages.put(player.getUniqueId(), usage);
+        }
+
+        long tick = plugin.getTickEngine().getCurrentTick();
+        long elapsed = tick - usage.windowStart;
+        if (elapsed >= WINDOW_TICKS || elapsed < 0) {
+            // Après une seconde sans demande, la demande précédente ne représente plus la charge actuelle
+            if (elapsed >= WINDOW_TICKS * 2L || elapsed < 0) {
+                Arrays.fill(usage.demand, 0.0);
+            }
+            usage.roll(particlesPerSecond);
+            usage.windowStart = tick;
+        }
+        return usage;
+    }
+
+    /**
+     * Arrondit aléatoirement une part de particule, pour que les petites demandes restent visibles en moyenne.
+     */
+    private static int round(double particles) {
+        int whole = (int) particles;
+        return ParticleEmitter.random().nextDouble() < particles - whole ? whole + 1 : whole;
+    }
+
+    /**
+     * Consommation d'un joueur : demande et particules accordées dans la fenêtre courante,
+     * et part accordée à chaque priorité d'après la demande de la fenêtre précédente.
+     */
+    private static final class Usage {
+        private long windowStart = Long.MIN_VALUE / 2;
+        private int granted;
+        private boolean overBudget;
+        private final double[] demand = new double[PRIORITIES.length];
+        private final double[] scales = new double[PRIORITIES.length];
+
+        private Usage() {
+            Arrays.fill(scales, 1.0);
+        }
+
+        private void roll(int budget) {
+            double remaining = budget;
+            double total = 0.0;
+
+            // Les priorités hautes se servent en premier, les suivantes se partagent le reste
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                total += demand[i];
+                if (budget <= 0 || demand[i] <= remaining) {
+                    scales[i] = 1.0;
+                    remaining -= demand[i];
+                } else {
+                    scales[i] = Math.max(0.0, remaining) / demand[i];
+                    remaining = 0.0;
+                }
+                demand[i] = 0.0;
+            }
+
+            overBudget = budget > 0 && total > budget;
+            granted = 0;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Élimine les particules qu'un joueur ne peut pas voir, avant la construction de tout paquet.
+ * <p>
+ * Une particule est éliminée lorsqu'elle se trouve :
+ * <ul>
+ *     <li>au-delà de la distance d'affichage du joueur ;</li>
+ *     <li>derrière le joueur, hors d'un cône autour de son regard (les particules très proches sont toujours gardées) ;</li>
+ *     <li>sous la surface de sa colonne alors que le joueur est à l'air libre : sous terre ou sous un toit.</li>
+ * </ul>
+ * Les deux premiers tests n'utilisent qu'une {@link View}, instantané immuable du regard du joueur,
+ * et peuvent être faits depuis n'importe quel thread. Le test du terrain lit les cartes des hauteurs
+ * et doit être fait depuis le thread principal.
+ */
+public final class ParticleCuller {
+
+    // Distance en dessous de laquelle une particule n'est jamais éliminée par la direction du regard
+    private static final double NEAR_DISTANCE = 4.0;
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Configuration
+    private boolean enabled;
+    private double minDot;
+
+    // Regard de chaque joueur pour le tick courant
+    private final Map<UUID, View> views;
+
+    // Particules examinées et éliminées depuis le démarrage
+    private final LongAdder considered;
+    private final LongAdder culled;
+
+    /**
+     * Constructeur de l'élimination des particules.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public ParticleCuller(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.views = new HashMap<>();
+        this.considered = new LongAdder();
+        this.culled = new LongAdder();
+
+        // Charger la configuration
+        loadConfiguration();
+    }
+
+    /**
+     * Charge la configuration de l'élimination.
+     */
+    public void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        enabled = config.getBoolean("effects.culling.enabled", true);
+        double maxAngle = Math.max(0.0, Math.min(180.0, config.getDouble("effects.culling.max_angle", 100.0)));
+        minDot = Math.cos(Math.toRadians(maxAngle));
+        views.clear();
+
+        logger.info("Particle view culling " + (enabled ? "enabled (" + maxAngle + "° from view direction)" : "disabled"));
+    }
+
+    /**
+     * Obtient le regard d'un joueur pour le tick courant. Doit être appelé depuis le thread principal.
+     * L'instantané retourné est immuable et peut être transmis à d'autres threads.
+     *
+     * @param player Le joueur.
+     * @return Le regard du joueur.
+     */
+    public View view(Player player) {
+        long tick = plugin.getTickEngine().getCurrentTick();
+        View view = views.get(player.getUniqueId());
+        if (view == null || view.tick != tick) {
+            view = createView(player, tick);
+            views.put(player.getUniqueId(), view);
+        }
+        return view;
+    }
+
+    private View createView(Player player, long tick) {
+        Location eye = player.getEyeLocation();
+        double yaw = Math.toRadians(eye.getYaw());
+        double pitch = Math.toRadians(eye.getPitch());
+        double horizontal = Math.cos(pitch);
+
+        World world = player.getWorld();
+        int chunks = Math.min(player.getClientViewDistance(), Bukkit.getViewDistance());
+        double maxDistance = Math.max(2, chunks) * 16.0;
+
+        boolean exposed = plugin.getPlayerEnvironments().get(player).isExposed();
+        return new View(tick, world, eye.getX(), eye.getY(), eye.getZ(),
+                -Math.sin(yaw) * horizontal, -Math.sin(pitch), Math.cos(yaw) * horizontal,
+                maxDistance * maxDistance, exposed);
+    }
+
+    /**
+     * Vérifie si un joueur peut voir une particule, d'après sa distance et la direction de son regard.
+     * Peut être appelé depuis n'importe quel thread.
+     *
+     * @param view Le regard du joueur.
+     * @param x La coordonnée X de la particule.
+     * @param y La coordonnée Y de la particule.
+     * @param z La coordonnée Z de la particule.
+     * @return true si la particule doit être envoyée, false si elle est éliminée.
+     */
+    public boolean isVisible(View view, double x, double y, double z) {
+        return isVisible(view, x, y, z, 1);
+    }
+
+    /**
+     * Vérifie si un joueur peut voir un groupe de particules apparaissant au même endroit,
+     * d'après sa distance et la direction de son regard. Peut être appelé depuis n'importe quel thread.
+     *
+     * @param view Le regard du joueur.
+     * @param x La coordonnée X des particules.
+     * @param y La coordonnée Y des particules.
+     * @param z La coordonnée Z des particules.
+     * @param particles Le nombre de particules du groupe, pour les statistiques.
+     * @return true si les particules doivent être envoyées, false si elles sont éliminées.
+     */
+    public boolean isVisible(View view, double x, double y, double z, int particles) {
+        considered.add(particles);
+        if (!enabled || inView(view, x, y, z)) {
+            return true;
+        }
+        culled.add(particles);
+        return false;
+    }
+
+    /**
+     * Vérifie si un joueur peut voir une particule, en tenant compte en plus du terrain.
+     * Doit être appelé depuis le thread principal.
+     *
+     * @param view Le regard du joueur.
+     * @param x La coordonnée X de la particule.
+     * @param y La coordonnée Y de la particule.
+     * @param z La coordonnée Z de la particule.
+     * @return true si la particule doit être envoyée, false si elle est éliminée.
+     */
+    public boolean isVisibleThroughTerrain(View view, double x, double y, double z) {
+        return isVisibleThroughTerrain(view, x, y, z, 1);
+    }
+
+    /**
+     * Vérifie si un joueur peut voir un groupe de particules apparaissant au même endroit,
+     * en tenant compte en plus du terrain. Doit être appelé depuis le thread principal.
+     *
+     * @param view Le regard du joueur.
+     * @param x La coordonnée X des particules.
+     * @param y La coordonnée Y des particules.
+     * @param z La coordonnée Z des particules.
+     * @param particles Le nombre de particules du groupe, pour les statistiques.
+     * @return true si les particules doivent être envoyées, false si elles sont éliminées.
+     */
+    public boolean isVisibleThroughTerrain(View view, double x, double y, double z, int particles) {
+        considered.add(particles);
+        if (!enabled || (inView(view, x, y, z) && !isBuried(view, x, y, z))) {
+            return true;
+        }
+        culled.add(particles);
+        return false;
+    }
+
+    private boolean inView(View view, double x, double y, double z) {
+        double dx = x - view.eyeX;
+        double dy = y - view.eyeY;
+        double dz = z - view.eyeZ;
+        double distanceSquared = dx * dx + dy * dy + dz * dz;
+        if (distanceSquared > view.maxDistanceSquared) {
+            return false;
+        }
+        if (distanceSquared <= NEAR_DISTANCE * NEAR_DISTANCE) {
+            return true;
+        }
+
+        // Comparer le cosinus de l'angle avec le regard, sans racine carrée : dot / |d| >= minDot
+        double dot = dx * view.dirX + dy * view.dirY + dz * view.dirZ;
+        if (minDot >= 0) {
+            return dot >= 0 && dot * dot >= minDot * minDot * distanceSquared;
+        }
+        return dot >= 0 || dot * dot <= minDot * minDot * distanceSquared;
+    }
+
+    /**
+     * Vérifie si une particule se trouve sous la surface alors que le joueur est à l'air libre.
+     * Les colonnes des chunks non chargés ne sont pas lues.
+     */
+    private boolean isBuried(View view, double x, double y, double z) {
+        if (!view.exposed) {
+            return false;
+        }
+        int highest = plugin.getSkyExposureCache().getLoadedHighestBlockYAt(view.world,
+                (int) Math.floor(x), (int) Math.floor(z));
+        return y < highest;
+    }
+
+    /**
+     * Oublie le regard d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        views.remove(player.getUniqueId());
+    }
+
+    /**
+     * Oublie le regard de tous les joueurs.
+     */
+    public void clear() {
+        views.clear();
+    }
+
+    /**
+     * Obtient le nombre de particules examinées depuis le démarrage.
+     *
+     * @return Le nombre de particules examinées.
+     */
+    public long getConsideredParticles() {
+        return considered.sum();
+    }
+
+    /**
+     * Obtient le nombre de particules éliminées depuis le démarrage.
+     *
+     * @return Le nombre de particules éliminées.
+     */
+    public long getCulledParticles() {
+        return culled.sum();
+    }
+
+    /**
+     * Obtient la part des particules éliminées depuis le démarrage.
+     *
+     * @return La part éliminée, entre 0 et 1.
+     */
+    public double getCullRatio() {
+        long total = considered.sum();
+        return total == 0 ? 0.0 : (double) culled.sum() / total;
+    }
+
+    /**
+     * Vérifie si l'élimination est activée.
+     *
+     * @return true si elle est activée, false sinon.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Regard d'un joueur lors d'un tick : position des yeux, direction et distance d'affichage.
+     */
+    public static final class View {
+        private final long tick;
+        private final World world;
+        private final double eyeX;
+        private final double eyeY;
+        private final double eyeZ;
+        private final double dirX;
+        private final double dirY;
+        private final double dirZ;
+        private final double maxDistanceSquared;
+        private final boolean exposed;
+
+        private View(long tick, World world, double eyeX, double eyeY, double eyeZ,
+                     double dirX, double dirY, double dirZ, double maxDistanceSquared, boolean exposed) {
+            this.tick = tick;
+            this.world = world;
+            this.eyeX = eyeX;
+            this.eyeY = eyeY;
+            this.eyeZ = eyeZ;
+            this.dirX = dirX;
+            this.dirY = dirY;
+            this.dirZ = dirZ;
+            this.maxDistanceSquared = maxDistanceSquared;
+            this.exposed = exposed;
+        }
+    }
+}
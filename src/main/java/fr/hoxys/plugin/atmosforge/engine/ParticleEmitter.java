@@ -0,0 +1,68 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Génération des positions de particules sans allocation.
+ * Les coordonnées sont tirées en doubles primitifs avec un {@link SplittableRandom} propre au thread
+ * et transmises à un {@link Sink}, qui envoie la particule sans créer de {@code Location}.
+ */
+public final class ParticleEmitter {
+
+    // Générateur propre à chaque thread : SplittableRandom n'est pas thread-safe
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(SplittableRandom::new);
+
+    /**
+     * Destination des particules générées.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Émet une particule à une position.
+         *
+         * @param x La coordonnée X.
+         * @param y La coordonnée Y.
+         * @param z La coordonnée Z.
+         */
+        void emit(double x, double y, double z);
+    }
+
+    private ParticleEmitter() {
+    }
+
+    /**
+     * Obtient le générateur aléatoire du thread courant.
+     *
+     * @return Le générateur du thread courant.
+     */
+    public static SplittableRandom random() {
+        return RANDOM.get();
+    }
+
+    /**
+     * Émet des particules à des positions aléatoires dans une boîte autour d'un centre.
+     * X et Z sont tirés dans {@code centre ± spread}, Y dans {@code [cy + yOffset, cy + yOffset + yRange)}.
+     *
+     * @param sink La destination des particules.
+     * @param count Le nombre de particules.
+     * @param cx La coordonnée X du centre.
+     * @param cy La coordonnée Y du centre.
+     * @param cz La coordonnée Z du centre.
+     * @param spread L'étendue horizontale autour du centre.
+     * @param yOffset Le décalage vertical de la boîte.
+     * @param yRange La hauteur de la boîte, 0 pour une hauteur fixe.
+     */
+    public static void emit(Sink sink, int count, double cx, double cy, double cz,
+                            double spread, double yOffset, double yRange) {
+        SplittableRandom random = RANDOM.get();
+        double minY = cy + yOffset;
+
+        for (int i = 0; i < count; i++) {
+            double x = cx + (random.nextDouble() * 2 - 1) * spread;
+            double z = cz + (random.nextDouble() * 2 - 1) * spread;
+            double y = yRange > 0 ? minY + random.nextDouble() * yRange : minY;
+            sink.emit(x, y, z);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+/**
+ * Priorité d'un effet de particules dans le budget de chaque joueur.
+ * Lorsqu'un joueur dépasse son budget, les priorités basses sont réduites en premier.
+ */
+public enum ParticlePriority {
+    // Effets signalant un danger ou un événement (éclair, tornade)
+    HIGH,
+    // Précipitations autour du joueur
+    NORMAL,
+    // Ambiance et décor lointain (brouillard, aurore, arc-en-ciel)
+    LOW
+}
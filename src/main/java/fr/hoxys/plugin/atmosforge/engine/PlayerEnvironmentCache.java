@@ -0,0 +1,159 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Environnement de chaque joueur (exposition au ciel, abri, altitude et biome), calculé au plus une fois par tick.
+ * <p>
+ * Tous les effets qui dépendent de l'environnement du joueur (dégâts, potions, vent…) lisent le même
+ * {@link Environment} : quel que soit le nombre de dangers actifs, l'environnement d'un joueur n'est
+ * calculé qu'une fois, lors de la première demande du tick. Le biome n'est relu que lorsque le joueur
+ * change de bloc. Chaque joueur possède un {@link Environment} réutilisé, mis à jour en place.
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class PlayerEnvironmentCache {
+
+    private final Main plugin;
+
+    // Environnement de chaque joueur, mis à jour en place
+    private final Map<UUID, Environment> environments;
+
+    /**
+     * Constructeur du cache des environnements.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public PlayerEnvironmentCache(Main plugin) {
+        this.plugin = plugin;
+        this.environments = new HashMap<>();
+    }
+
+    /**
+     * Obtient l'environnement d'un joueur pour le tick courant.
+     * L'objet retourné est réutilisé aux ticks suivants et ne doit pas être conservé.
+     *
+     * @param player Le joueur.
+     * @return L'environnement du joueur.
+     */
+    public Environment get(Player player) {
+        Environment environment = environments.get(player.getUniqueId());
+        if (environment == null) {
+            environment = new Environment();
+            environments.put(player.getUniqueId(), environment);
+        }
+
+        long tick = plugin.getTickEngine().getCurrentTick();
+        if (environment.tick != tick) {
+            update(player, environment);
+            environment.tick = tick;
+        }
+        return environment;
+    }
+
+    private void update(Player player, Environment environment) {
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        World world = player.getWorld();
+        int x = (int) Math.floor(position.getX());
+        int y = (int) Math.floor(position.getY());
+        int z = (int) Math.floor(position.getZ());
+
+        // Le biome ne change qu'avec le bloc occupé
+        if (environment.biome == null || environment.world != world
+                || environment.blockX != x || environment.blockY != y || environment.blockZ != z) {
+            environment.biome = world.getBiome(x, y, z);
+        }
+
+        // La hauteur de la colonne peut changer à chaque tick, mais elle est servie par le cache d'exposition
+        int highest = plugin.getSkyExposureCache().getHighestBlockYAt(world, x, z);
+
+        environment.world = world;
+        environment.blockX = x;
+        environment.blockY = y;
+        environment.blockZ = z;
+        environment.altitude = position.getY();
+        environment.cover = Math.max(0, highest - y);
+    }
+
+    /**
+     * Oublie l'environnement d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        environments.remove(player.getUniqueId());
+    }
+
+    /**
+     * Oublie tous les environnements.
+     */
+    public void clear() {
+        environments.clear();
+    }
+
+    /**
+     * Environnement d'un joueur lors d'un tick.
+     */
+    public static final class Environment {
+        private long tick = -1L;
+        private World world;
+        private int blockX;
+        private int blockY;
+        private int blockZ;
+        private double altitude;
+        private int cover;
+        private Biome biome;
+
+        /**
+         * Vérifie si le joueur est directement exposé au ciel (pas sous un abri).
+         *
+         * @return true si le joueur est exposé, false sinon.
+         */
+        public boolean isExposed() {
+            return cover == 0;
+        }
+
+        /**
+         * Obtient l'épaisseur de l'abri au-dessus du joueur.
+         *
+         * @return La distance en blocs entre le joueur et le bloc le plus haut de sa colonne, 0 s'il est exposé.
+         */
+        public int getCover() {
+            return cover;
+        }
+
+        /**
+         * Obtient l'altitude du joueur.
+         *
+         * @return La coordonnée Y du joueur.
+         */
+        public double getAltitude() {
+            return altitude;
+        }
+
+        /**
+         * Obtient le biome dans lequel se trouve le joueur.
+         *
+         * @return Le biome.
+         */
+        public Biome getBiome() {
+            return biome;
+        }
+
+        /**
+         * Obtient le monde dans lequel se trouve le joueur.
+         *
+         * @return Le monde.
+         */
+        public World getWorld() {
+            return world;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Grille spatiale des joueurs de chaque monde, qui regroupe les joueurs proches en groupes.
+ * <p>
+ * Les joueurs sont rangés dans des cellules carrées dont le côté est la portée de l'effet qui les demande ;
+ * deux joueurs appartiennent au même groupe lorsque leurs cellules se touchent, directement ou par
+ * l'intermédiaire d'autres joueurs. Deux joueurs dont les zones d'effet se chevauchent sont donc toujours
+ * dans le même groupe, et un effet centré sur les joueurs peut émettre une seule fois par groupe au lieu
+ * d'une fois par joueur. Les groupes d'un monde sont calculés au plus une fois par tick et par portée.
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class PlayerGrid {
+
+    private final Main plugin;
+
+    // Groupes de chaque monde pour le tick où ils ont été calculés, par côté de cellule
+    private final Map<UUID, Snapshot> snapshots;
+
+    /**
+     * Constructeur de la grille des joueurs.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public PlayerGrid(Main plugin) {
+        this.plugin = plugin;
+        this.snapshots = new HashMap<>();
+    }
+
+    /**
+     * Obtient les groupes de joueurs d'un monde pour le tick courant.
+     *
+     * @param world Le monde.
+     * @param reach La distance en blocs en dessous de laquelle les zones d'effet de deux joueurs peuvent se chevaucher.
+     * @return Les groupes de joueurs, à ne pas modifier.
+     */
+    public List<Cluster> getClusters(World world, double reach) {
+        long tick = plugin.getTickEngine().getCurrentTick();
+        Snapshot snapshot = snapshots.get(world.getUID());
+        if (snapshot == null || snapshot.tick != tick) {
+            snapshot = new Snapshot(tick);
+            snapshots.put(world.getUID(), snapshot);
+        }
+
+        int cellSize = Math.max(1, (int) Math.ceil(reach));
+        List<Cluster> clusters = snapshot.clusters.get(cellSize);
+        if (clusters == null) {
+            clusters = build(world, cellSize);
+            snapshot.clusters.put(cellSize, clusters);
+        }
+        return clusters;
+    }
+
+    /**
+     * Oublie les groupes d'un monde.
+     *
+     * @param world Le monde.
+     */
+    public void forgetWorld(World world) {
+        snapshots.remove(world.getUID());
+    }
+
+    /**
+     * Oublie les groupes de tous les mondes.
+     */
+    public void clear() {
+        snapshots.clear();
+    }
+
+    /**
+     * Range les joueurs d'un monde dans la grille et réunit ceux dont les cellules se touchent.
+     */
+    private List<Cluster> build(World world, int cellSize) {
+        List<Player> players = world.getPlayers();
+        int count = players.size();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] z = new double[count];
+        Map<Long, Integer> cells = new HashMap<>();
+        int[] parent = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            PlayerPositionCache.Position position = plugin.getPlayerPositions().get(players.get(i));
+            x[i] = position.getX();
+            y[i] = position.getY();
+            z[i] = position.getZ();
+            parent[i] = i;
+
+            // Un seul représentant par cellule suffit : les autres joueurs de la cellule le rejoignent
+            Integer occupant = cells.putIfAbsent(cellKey(cell(x[i], cellSize), cell(z[i], cellSize)), i);
+            if (occupant != null) {
+                union(parent, occupant, i);
+            }
+        }
+
+        // Réunir les cellules voisines, y compris en diagonale
+        for (Map.Entry<Long, Integer> entry : cells.entrySet()) {
+            int cellX = (int) (entry.getKey() >> 32);
+            int cellZ = (int) (long) entry.getKey();
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Integer neighbour = cells.get(cellKey(cellX + dx, cellZ + dz));
+                    if (neighbour != null) {
+                        union(parent, entry.getValue(), neighbour);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, Cluster> clusters = new HashMap<>();
+        List<Cluster> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int root = find(parent, i);
+            Cluster cluster = clusters.get(root);
+            if (cluster == null) {
+                cluster = new Cluster();
+                clusters.put(root, cluster);
+                result.add(cluster);
+            }
+            cluster.add(players.get(i), x[i], y[i], z[i]);
+        }
+        return result;
+    }
+
+    private static int cell(double coordinate, int cellSize) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Groupe de joueurs proches, avec leur position au moment du calcul.
+     */
+    public static final class Cluster {
+        private final List<Player> players = new ArrayList<>(1);
+        private double[] coordinates = new double[3];
+
+        private void add(Player player, double x, double y, double z) {
+            int index = players.size();
+            if (coordinates.length < (index + 1) * 3) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[index * 3] = x;
+            coordinates[index * 3 + 1] = y;
+            coordinates[index * 3 + 2] = z;
+            players.add(player);
+        }
+
+        /**
+         * Obtient le nombre de joueurs du groupe.
+         *
+         * @return Le nombre de joueurs.
+         */
+        public int size() {
+            return players.size();
+        }
+
+        /**
+         * Obtient un joueur du groupe.
+         *
+         * @param index L'indice du joueur.
+         * @return Le joueur.
+         */
+        public Player getPlayer(int index) {
+            return players.get(index);
+        }
+
+        /**
+         * Obtient la coordonnée X d'un joueur du groupe.
+         *
+         * @param index L'indice du joueur.
+         * @return La coordonnée X.
+         */
+        public double getX(int index) {
+            return coordinates[index * 3];
+        }
+
+        /**
+         * Obtient la coordonnée Y d'un joueur du groupe.
+         *
+         * @param index L'indice du joueur.
+         * @return La coordonnée Y.
+         */
+        public double getY(int index) {
+            return coordinates[index * 3 + 1];
+        }
+
+        /**
+         * Obtient la coordonnée Z d'un joueur du groupe.
+         *
+         * @param index L'indice du joueur.
+         * @return La coordonnée Z.
+         */
+        public double getZ(int index) {
+            return coordinates[index * 3 + 2];
+        }
+    }
+
+    /**
+     * Groupes d'un monde pour un tick, par côté de cellule.
+     */
+    private static final class Snapshot {
+        private final long tick;
+        private final Map<Integer, List<Cluster>> clusters = new HashMap<>(4);
+
+        private Snapshot(long tick) {
+            this.tick = tick;
+        }
+    }
+}
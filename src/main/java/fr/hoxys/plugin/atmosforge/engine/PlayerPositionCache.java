@@ -0,0 +1,114 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Positions des joueurs, relues au plus une fois par tick du moteur.
+ * Chaque joueur possède une {@link Location} réutilisée : après la première lecture,
+ * obtenir la position d'un joueur n'alloue plus rien.
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class PlayerPositionCache {
+
+    private final TickEngine tickEngine;
+
+    // Position de chaque joueur, mise à jour en place
+    private final Map<UUID, Position> positions;
+
+    /**
+     * Constructeur du cache des positions.
+     *
+     * @param tickEngine Le moteur de ticks qui fournit le tick courant.
+     */
+    public PlayerPositionCache(TickEngine tickEngine) {
+        this.tickEngine = tickEngine;
+        this.positions = new HashMap<>();
+    }
+
+    /**
+     * Obtient la position d'un joueur pour le tick courant.
+     * L'objet retourné est réutilisé aux ticks suivants et ne doit pas être conservé.
+     *
+     * @param player Le joueur.
+     * @return La position du joueur.
+     */
+    public Position get(Player player) {
+        Position position = positions.get(player.getUniqueId());
+        if (position == null) {
+            position = new Position();
+            positions.put(player.getUniqueId(), position);
+        }
+
+        long tick = tickEngine.getCurrentTick();
+        if (position.tick != tick) {
+            player.getLocation(position.location);
+            position.tick = tick;
+        }
+        return position;
+    }
+
+    /**
+     * Oublie la position d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        positions.remove(player.getUniqueId());
+    }
+
+    /**
+     * Oublie toutes les positions.
+     */
+    public void clear() {
+        positions.clear();
+    }
+
+    /**
+     * Position d'un joueur lors d'un tick.
+     */
+    public static final class Position {
+        private final Location location = new Location(null, 0, 0, 0);
+        private long tick = -1L;
+
+        /**
+         * Obtient la coordonnée X.
+         *
+         * @return La coordonnée X.
+         */
+        public double getX() {
+            return location.getX();
+        }
+
+        /**
+         * Obtient la coordonnée Y.
+         *
+         * @return La coordonnée Y.
+         */
+        public double getY() {
+            return location.getY();
+        }
+
+        /**
+         * Obtient la coordonnée Z.
+         *
+         * @return La coordonnée Z.
+         */
+        public double getZ() {
+            return location.getZ();
+        }
+
+        /**
+         * Obtient l'orientation horizontale du regard.
+         *
+         * @return L'angle de lacet en degrés.
+         */
+        public float getYaw() {
+            return location.getYaw();
+        }
+    }
+}
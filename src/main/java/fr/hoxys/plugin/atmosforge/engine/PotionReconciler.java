@@ -0,0 +1,251 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Applique les effets de potion météo en ne transmettant au joueur que les changements.
+ * <p>
+ * Les effets demandent un effet de potion à chaque passage, pour une durée courte. Au lieu de
+ * le réappliquer à chaque fois, le réconciliateur l'accorde pour une durée plus longue (le bail)
+ * et mémorise son expiration : les demandes suivantes ne font rien tant que l'effet accordé dure
+ * encore plus longtemps que la durée demandée, sauf si l'amplificateur augmente. Lorsqu'un effet
+ * n'est plus demandé, il est retiré au moment où il aurait expiré sans bail, de sorte que les joueurs
+ * ressentent exactement la même chose qu'avant.
+ * <p>
+ * Seuls les effets accordés par AtmosForge sont retirés : un effet de même type obtenu autrement
+ * (potion bue, balise…) est laissé en place. Doit être utilisé depuis le thread principal.
+ */
+public final class PotionReconciler {
+
+    // Intervalle entre deux recherches d'effets qui ne sont plus demandés
+    private static final long SWEEP_INTERVAL = 20L;
+
+    // Écart toléré entre la durée restante mesurée par le joueur et celle mémorisée
+    private static final int DURATION_TOLERANCE = 20;
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Configuration
+    private int leaseTicks;
+
+    // Effets accordés à chaque joueur, par type d'effet
+    private final Map<UUID, Map<PotionEffectType, Grant>> grants;
+
+    // Effets demandés et réellement appliqués depuis le démarrage
+    private long requestedEffects;
+    private long appliedEffects;
+
+    /**
+     * Constructeur du réconciliateur d'effets de potion.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public PotionReconciler(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.grants = new HashMap<>();
+
+        // Charger la configuration
+        loadConfiguration();
+
+        // Retirer régulièrement les effets qui ne sont plus demandés
+        plugin.getTickEngine().runRepeating(this::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL);
+    }
+
+    /**
+     * Charge la configuration du réconciliateur.
+     */
+    public void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        leaseTicks = Math.max(20, config.getInt("effects.potions.lease_ticks", 1200));
+
+        logger.info("Weather potion effects granted for " + leaseTicks + " ticks at a time");
+    }
+
+    /**
+     * Demande qu'un joueur ait un effet de potion pendant au moins la durée indiquée.
+     *
+     * @param player Le joueur.
+     * @param type Le type d'effet.
+     * @param duration La durée minimale en ticks de l'effet après cette demande.
+     * @param amplifier L'amplificateur de l'effet.
+     */
+    public void grant(Player player, PotionEffectType type, int duration, int amplifier) {
+        grant(player, type, duration, amplifier, true, true, true);
+    }
+
+    /**
+     * Demande qu'un joueur ait un effet de potion pendant au moins la durée indiquée.
+     *
+     * @param player Le joueur.
+     * @param type Le type d'effet.
+     * @param duration La durée minimale en ticks de l'effet après cette demande.
+     * @param amplifier L'amplificateur de l'effet.
+     * @param ambient Si l'effet est ambient (particules moins visibles).
+     * @param particles Si les particules doivent être affichées.
+     * @param icon Si l'icône doit être affichée.
+     */
+    public void grant(Player player, PotionEffectType type, int duration, int amplifier,
+                      boolean ambient, boolean particles, boolean icon) {
+        requestedEffects++;
+        long now = plugin.getTickEngine().getCurrentTick();
+
+        Map<PotionEffectType, Grant> playerGrants = grants.computeIfAbsent(player.getUniqueId(), id -> new HashMap<>(4));
+        Grant grant = playerGrants.get(type);
+        if (grant == null) {
+            grant = new Grant();
+            playerGrants.put(type, grant);
+        } else if (amplifier <= grant.amplifier && grant.expiresAt - now > duration && player.hasPotionEffect(type)) {
+            // L'effet accordé couvre déjà la demande
+            grant.requestedUntil = Math.max(grant.requestedUntil, now + duration);
+            return;
+        }
+
+        int grantedDuration = Math.max(duration, leaseTicks);
+        player.addPotionEffect(new PotionEffect(type, grantedDuration, amplifier, ambient, particles, icon));
+        appliedEffects++;
+
+        grant.amplifier = amplifier;
+        grant.expiresAt = now + grantedDuration;
+        grant.requestedUntil = now + duration;
+    }
+
+    /**
+     * Retire un effet accordé à un joueur, s'il est toujours celui d'AtmosForge.
+     *
+     * @param player Le joueur.
+     * @param type Le type d'effet.
+     */
+    public void revoke(Player player, PotionEffectType type) {
+        Map<PotionEffectType, Grant> playerGrants = grants.get(player.getUniqueId());
+        if (playerGrants == null) {
+            return;
+        }
+
+        Grant grant = playerGrants.remove(type);
+        if (grant != null) {
+            remove(player, type, grant, plugin.getTickEngine().getCurrentTick());
+        }
+    }
+
+    /**
+     * Retire tous les effets accordés aux joueurs d'un monde, par exemple à la fin d'une météo.
+     *
+     * @param world Le monde.
+     */
+    public void revokeWorld(World world) {
+        for (Player player : world.getPlayers()) {
+            revokeAll(player);
+        }
+    }
+
+    /**
+     * Retire les effets accordés à un joueur et l'oublie.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        revokeAll(player);
+        grants.remove(player.getUniqueId());
+    }
+
+    /**
+     * Retire les effets accordés à tous les joueurs connectés et oublie tous les joueurs.
+     */
+    public void clear() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            revokeAll(player);
+        }
+        grants.clear();
+    }
+
+    private void revokeAll(Player player) {
+        Map<PotionEffectType, Grant> playerGrants = grants.get(player.getUniqueId());
+        if (playerGrants == null) {
+            return;
+        }
+
+        long now = plugin.getTickEngine().getCurrentTick();
+        for (Map.Entry<PotionEffectType, Grant> entry : playerGrants.entrySet()) {
+            remove(player, entry.getKey(), entry.getValue(), now);
+        }
+        playerGrants.clear();
+    }
+
+    /**
+     * Retire les effets qui ne sont plus demandés et qui auraient expiré sans bail.
+     */
+    private void sweep() {
+        long now = plugin.getTickEngine().getCurrentTick();
+        Iterator<Map.Entry<UUID, Map<PotionEffectType, Grant>>> players = grants.entrySet().iterator();
+        while (players.hasNext()) {
+            Map.Entry<UUID, Map<PotionEffectType, Grant>> playerEntry = players.next();
+            Player player = plugin.getServer().getPlayer(playerEntry.getKey());
+            if (player == null) {
+                players.remove();
+                continue;
+            }
+
+            Iterator<Map.Entry<PotionEffectType, Grant>> entries = playerEntry.getValue().entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<PotionEffectType, Grant> entry = entries.next();
+                if (entry.getValue().requestedUntil <= now) {
+                    remove(player, entry.getKey(), entry.getValue(), now);
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retire l'effet d'un joueur seulement s'il correspond à celui accordé : même amplificateur
+     * et pas plus de temps restant que le bail.
+     */
+    private void remove(Player player, PotionEffectType type, Grant grant, long now) {
+        PotionEffect current = player.getPotionEffect(type);
+        if (current != null && current.getAmplifier() == grant.amplifier
+                && current.getDuration() <= grant.expiresAt - now + DURATION_TOLERANCE) {
+            player.removePotionEffect(type);
+        }
+    }
+
+    /**
+     * Obtient le nombre d'effets demandés depuis le démarrage.
+     *
+     * @return Le nombre d'effets demandés.
+     */
+    public long getRequestedEffects() {
+        return requestedEffects;
+    }
+
+    /**
+     * Obtient le nombre d'effets réellement appliqués aux joueurs depuis le démarrage.
+     *
+     * @return Le nombre d'effets appliqués.
+     */
+    public long getAppliedEffects() {
+        return appliedEffects;
+    }
+
+    /**
+     * Effet accordé à un joueur : amplificateur, expiration du bail et fin de la dernière demande, en ticks du moteur.
+     */
+    private static final class Grant {
+        private int amplifier;
+        private long expiresAt;
+        private long requestedUntil;
+    }
+}
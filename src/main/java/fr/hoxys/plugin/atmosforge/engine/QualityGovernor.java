@@ -0,0 +1,315 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Régulateur de la qualité des effets selon la charge du serveur.
+ * <p>
+ * La charge du serveur est mesurée par la durée de travail d'un tick (MSPT) lorsque le serveur l'expose,
+ * comme Paper avec {@code Server#getAverageTickTime()}. Elle monte dès qu'un tick dépasse ses 50 ms
+ * de budget habituel et permet de réduire les effets avant que les TPS ne baissent.
+ * Sinon, le moteur de ticks transmet à chaque tick l'intervalle écoulé depuis le tick précédent.
+ * Il transmet aussi le temps passé à exécuter les effets d'AtmosForge. Les mesures sont lissées
+ * et évaluées une fois par seconde :
+ * <ul>
+ *     <li>au-dessus des seuils de dégradation, la qualité baisse immédiatement d'un niveau ;</li>
+ *     <li>sous les seuils de récupération, plus bas, pendant plusieurs secondes consécutives, elle remonte d'un niveau.</li>
+ * </ul>
+ * L'écart entre les seuils et le délai de récupération évitent les oscillations entre deux niveaux.
+ * <p>
+ * L'API Spigot, elle, n'expose pas le MSPT. L'intervalle entre deux ticks n'en est qu'une borne inférieure :
+ * il ne descend jamais sous 50 ms, et un serveur à 48 ms de travail par tick y apparaît à 50 ms. Sur Spigot,
+ * ce seuil ne réagit donc qu'une fois que le serveur prend du retard, c'est-à-dire lorsque les TPS baissent déjà.
+ * Seul le budget propre des effets agit avant, lorsque la charge vient d'AtmosForge.
+ */
+public final class QualityGovernor {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    // Poids d'un tick dans les moyennes, soit une constante de temps d'environ une seconde
+    private static final double SMOOTHING = 0.05;
+
+    // Intervalle entre deux évaluations en ticks
+    private static final int EVALUATION_TICKS = 20;
+
+    // Ticks ignorés au démarrage, dont la durée reflète le chargement du serveur
+    private static final int WARMUP_TICKS = 100;
+
+    // Nombre d'évaluations entre deux baisses, le temps que les moyennes reflètent la baisse précédente
+    private static final int DEGRADE_COOLDOWN = 3;
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Durée moyenne de travail d'un tick en millisecondes, exposée par Paper ; null sur Spigot
+    private final MethodHandle averageTickTime;
+
+    // Configuration
+    private boolean enabled;
+    private double degradeMspt;
+    private double recoverMspt;
+    private double degradeIntervalMs;
+    private double recoverIntervalMs;
+    private double ownBudgetMs;
+    private int recoverDelaySeconds;
+
+    // Mesures lissées en millisecondes ; -1 tant que le MSPT n'est pas mesuré
+    private double averageMspt = -1.0;
+    private double averageIntervalMs = 50.0;
+    private double averageOwnMs;
+
+    private long lastTickStart;
+    private long sampledTicks;
+    private int healthyEvaluations;
+    private int cooldown;
+
+    private QualityLevel level = QualityLevel.FULL;
+
+    /**
+     * Constructeur du régulateur de qualité.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public QualityGovernor(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.averageTickTime = findAverageTickTime();
+
+        // Charger la configuration
+        loadConfiguration();
+    }
+
+    /**
+     * Charge la configuration du régulateur.
+     */
+    public void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        enabled = config.getBoolean("quality.enabled", true);
+        degradeMspt = config.getDouble("quality.degrade_mspt", 45.0);
+        recoverMspt = Math.min(degradeMspt, config.getDouble("quality.recover_mspt", 35.0));
+        degradeIntervalMs = config.getDouble("quality.degrade_tick_interval_ms", 55.0);
+        recoverIntervalMs = Math.min(degradeIntervalMs, config.getDouble("quality.recover_tick_interval_ms", 51.0));
+        ownBudgetMs = config.getDouble("quality.own_budget_ms", 2.0);
+        recoverDelaySeconds = Math.max(1, config.getInt("quality.recover_delay_seconds", 10));
+
+        if (!enabled) {
+            level = QualityLevel.FULL;
+        }
+
+        logger.info("Adaptive effect quality " + (!enabled ? "disabled"
+                : averageTickTime != null ? "enabled (degrade above " + degradeMspt + " MSPT)"
+                : "enabled (degrade above a " + degradeIntervalMs + " ms tick interval, MSPT is not exposed by this server)"));
+    }
+
+    /**
+     * Cherche la méthode {@code getAverageTickTime()} du serveur, ajoutée par Paper.
+     *
+     * @return La méthode, ou null si le serveur ne l'expose pas.
+     */
+    private static MethodHandle findAverageTickTime() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Server.class, "getAverageTickTime",
+                    MethodType.methodType(double.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Enregistre la mesure d'un tick. Appelé par le moteur de ticks depuis le thread principal.
+     *
+     * @param tickStart L'instant du début du tick, en nanosecondes ; l'écart avec le précédent donne l'intervalle entre ticks.
+     * @param ownNanos Le temps passé à exécuter les effets pendant ce tick, en nanosecondes.
+     */
+    void recordTick(long tickStart, long ownNanos) {
+        long previous = lastTickStart;
+        lastTickStart = tickStart;
+        if (previous == 0L) {
+            return;
+        }
+
+        averageIntervalMs += SMOOTHING * ((tickStart - previous) / NANOS_PER_MILLI - averageIntervalMs);
+        averageOwnMs += SMOOTHING * (ownNanos / NANOS_PER_MILLI - averageOwnMs);
+
+        sampledTicks++;
+        if (sampledTicks >= WARMUP_TICKS && sampledTicks % EVALUATION_TICKS == 0) {
+            evaluate();
+        }
+    }
+
+    /**
+     * Oublie la mesure du dernier tick, lorsque le moteur est arrêté.
+     */
+    void reset() {
+        lastTickStart = 0L;
+    }
+
+    /**
+     * Ajuste le niveau de qualité d'après les moyennes courantes.
+     */
+    private void evaluate() {
+        if (!enabled) {
+            return;
+        }
+
+        if (cooldown > 0) {
+            cooldown--;
+        }
+
+        boolean overloaded;
+        boolean healthy;
+        if (sampleMspt()) {
+            overloaded = averageMspt > degradeMspt || averageOwnMs > ownBudgetMs;
+            healthy = averageMspt < recoverMspt && averageOwnMs < ownBudgetMs / 2;
+        } else {
+            overloaded = averageIntervalMs > degradeIntervalMs || averageOwnMs > ownBudgetMs;
+            healthy = averageIntervalMs < recoverIntervalMs && averageOwnMs < ownBudgetMs / 2;
+        }
+
+        if (overloaded) {
+            healthyEvaluations = 0;
+            if (cooldown == 0 && level != QualityLevel.MINIMAL) {
+                changeLevel(level.lower());
+                cooldown = DEGRADE_COOLDOWN;
+            }
+        } else if (healthy && level != QualityLevel.FULL) {
+            if (++healthyEvaluations >= recoverDelaySeconds) {
+                changeLevel(level.higher());
+                healthyEvaluations = 0;
+            }
+        } else {
+            healthyEvaluations = 0;
+        }
+    }
+
+    /**
+     * Lit la durée moyenne de travail d'un tick, si le serveur l'expose.
+     * Le serveur la lisse déjà sur ses derniers ticks.
+     *
+     * @return true si le MSPT a été lu, false sinon.
+     */
+    private boolean sampleMspt() {
+        if (averageTickTime == null) {
+            return false;
+        }
+
+        try {
+            averageMspt = (double) averageTickTime.invoke(Bukkit.getServer());
+            return true;
+        } catch (Throwable e) {
+            logger.log(Level.FINE, "Could not read the average tick time", e);
+            averageMspt = -1.0;
+            return false;
+        }
+    }
+
+    private void changeLevel(QualityLevel newLevel) {
+        logger.info(String.format("Effect quality changed from %s to %s (%s, %.2f ms/tick for effects)",
+                level, newLevel, describeLoad(), averageOwnMs));
+        level = newLevel;
+    }
+
+    /**
+     * Décrit la charge mesurée du serveur : le MSPT s'il est mesuré, sinon l'intervalle entre deux ticks.
+     *
+     * @return La description de la charge.
+     */
+    public String describeLoad() {
+        return averageMspt >= 0 ? String.format("%.1f MSPT", averageMspt)
+                : String.format("%.1f ms tick interval", averageIntervalMs);
+    }
+
+    /**
+     * Applique le niveau de qualité à l'intervalle d'un effet visuel ou sonore.
+     *
+     * @param interval L'intervalle nominal en ticks.
+     * @return L'intervalle à utiliser en ticks.
+     */
+    public long scaleInterval(long interval) {
+        return Math.max(1L, Math.round(interval * level.getIntervalMultiplier()));
+    }
+
+    /**
+     * Applique le niveau de qualité à un nombre de particules.
+     *
+     * @param particles Le nombre nominal de particules.
+     * @return Le nombre de particules à conserver.
+     */
+    public double scaleParticles(double particles) {
+        return particles * level.getParticleMultiplier();
+    }
+
+    /**
+     * Obtient le niveau de qualité actuel.
+     *
+     * @return Le niveau de qualité.
+     */
+    public QualityLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Vérifie si la charge est mesurée par la durée de travail des ticks (MSPT).
+     *
+     * @return true si le serveur expose le MSPT, false si seul l'intervalle entre ticks est mesuré.
+     */
+    public boolean isMsptMeasured() {
+        return averageTickTime != null && averageMspt >= 0;
+    }
+
+    /**
+     * Obtient la durée moyenne de travail d'un tick du serveur.
+     *
+     * @return Le MSPT moyen en millisecondes, ou -1 si le serveur ne l'expose pas.
+     */
+    public double getAverageMspt() {
+        return averageMspt;
+    }
+
+    /**
+     * Obtient l'intervalle moyen entre deux ticks du serveur.
+     * Ce n'est pas la durée de travail d'un tick : il ne descend jamais sous 50 ms.
+     *
+     * @return L'intervalle moyen en millisecondes.
+     */
+    public double getAverageTickInterval() {
+        return averageIntervalMs;
+    }
+
+    /**
+     * Obtient le nombre moyen de ticks par seconde, déduit de l'intervalle moyen entre deux ticks.
+     *
+     * @return Le nombre de ticks par seconde, au plus 20.
+     */
+    public double getAverageTps() {
+        return Math.min(20.0, 1000.0 / Math.max(1.0, averageIntervalMs));
+    }
+
+    /**
+     * Obtient le temps moyen passé à exécuter les effets d'AtmosForge à chaque tick.
+     *
+     * @return Le temps moyen en millisecondes.
+     */
+    public double getAverageOwnMs() {
+        return averageOwnMs;
+    }
+
+    /**
+     * Vérifie si la qualité adaptative est activée.
+     *
+     * @return true si elle est activée, false sinon.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
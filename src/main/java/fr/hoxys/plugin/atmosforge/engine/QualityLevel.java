@@ -0,0 +1,55 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+/**
+ * Niveau de qualité des effets, choisi par le {@link QualityGovernor} selon la charge du serveur.
+ */
+public enum QualityLevel {
+    FULL(1.0, 1.0),
+    REDUCED(0.6, 1.5),
+    LOW(0.3, 2.0),
+    MINIMAL(0.1, 4.0);
+
+    private final double particleMultiplier;
+    private final double intervalMultiplier;
+
+    QualityLevel(double particleMultiplier, double intervalMultiplier) {
+        this.particleMultiplier = particleMultiplier;
+        this.intervalMultiplier = intervalMultiplier;
+    }
+
+    /**
+     * Obtient la part des particules conservée à ce niveau.
+     *
+     * @return Le multiplicateur du nombre de particules.
+     */
+    public double getParticleMultiplier() {
+        return particleMultiplier;
+    }
+
+    /**
+     * Obtient le facteur appliqué à l'intervalle des effets visuels et sonores.
+     *
+     * @return Le multiplicateur des intervalles.
+     */
+    public double getIntervalMultiplier() {
+        return intervalMultiplier;
+    }
+
+    /**
+     * Obtient le niveau inférieur.
+     *
+     * @return Le niveau inférieur, ou celui-ci s'il n'y en a pas.
+     */
+    public QualityLevel lower() {
+        return this == MINIMAL ? MINIMAL : values()[ordinal() + 1];
+    }
+
+    /**
+     * Obtient le niveau supérieur.
+     *
+     * @return Le niveau supérieur, ou celui-ci s'il n'y en a pas.
+     */
+    public QualityLevel higher() {
+        return this == FULL ? FULL : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,401 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache de l'exposition au ciel, utilisé par les dégâts et les effets de particules.
+ * <p>
+ * Chaque chunk chargé consulté possède une carte des hauteurs de 16x16 colonnes ({@code short[256]},
+ * 512 octets). Une colonne est lue auprès du monde à la première demande, puis servie depuis le tableau
+ * jusqu'à ce qu'un bloc de la colonne soit posé, cassé ou mis à jour par la physique.
+ * La carte d'un chunk est supprimée lorsqu'il est déchargé.
+ * <p>
+ * Les cartes d'un monde sont rangées dans une table à adressage ouvert indexée par la clé {@code long}
+ * du chunk, sans boîtage ; la carte du dernier chunk consulté est conservée à part, ce qui réduit les
+ * demandes successives dans un même chunk (une particule après l'autre) à une comparaison et une lecture de tableau.
+ * <p>
+ * Le résultat de chaque joueur est en plus mémorisé tant qu'il ne change pas de bloc et que la
+ * colonne sous lui n'a pas été invalidée. Sa position est lue dans le {@link PlayerPositionCache}. Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public final class SkyExposureCache {
+
+    // Valeur d'une colonne dont la hauteur doit être relue
+    private static final short UNKNOWN = Short.MIN_VALUE;
+
+    // Cartes des hauteurs par monde, puis par chunk
+    private final Map<UUID, ChunkTable> heightmaps;
+
+    // Dernier résultat calculé pour chaque joueur
+    private final Map<UUID, PlayerExposure> playerExposures;
+
+    // Positions des joueurs, lues une fois par tick
+    private final PlayerPositionCache positions;
+
+    // Dernier chunk consulté, servi sans passer par les tables
+    private World lastWorld;
+    private long lastKey;
+    private short[] lastColumns;
+
+    /**
+     * Constructeur du cache d'exposition.
+     *
+     * @param positions Le cache des positions des joueurs.
+     */
+    public SkyExposureCache(PlayerPositionCache positions) {
+        this.heightmaps = new HashMap<>();
+        this.playerExposures = new HashMap<>();
+        this.positions = positions;
+    }
+
+    /**
+     * Vérifie si un joueur est directement exposé au ciel (pas sous un abri).
+     *
+     * @param player Le joueur à vérifier.
+     * @return true si le joueur est exposé, false sinon.
+     */
+    public boolean isPlayerExposed(Player player) {
+        PlayerPositionCache.Position position = positions.get(player);
+        World world = player.getWorld();
+        int x = (int) Math.floor(position.getX());
+        int y = (int) Math.floor(position.getY());
+        int z = (int) Math.floor(position.getZ());
+
+        PlayerExposure exposure = playerExposures.get(player.getUniqueId());
+        if (exposure != null && exposure.matches(world, x, y, z)) {
+            return exposure.exposed;
+        }
+
+        if (exposure == null) {
+            exposure = new PlayerExposure();
+            playerExposures.put(player.getUniqueId(), exposure);
+        }
+
+        short[] columns = getChunkHeights(world, x >> 4, z >> 4);
+        int highest = columns != null ? getHeight(world, columns, x, z) : world.getHighestBlockYAt(x, z);
+
+        exposure.world = world;
+        exposure.x = x;
+        exposure.y = y;
+        exposure.z = z;
+        exposure.columns = columns;
+        exposure.height = (short) highest;
+        exposure.exposed = highest <= y;
+        return exposure.exposed;
+    }
+
+    /**
+     * Vérifie si une position est directement exposée au ciel.
+     *
+     * @param world Le monde de la position.
+     * @param x La coordonnée X du bloc.
+     * @param y La coordonnée Y du bloc.
+     * @param z La coordonnée Z du bloc.
+     * @return true si aucun bloc ne se trouve au-dessus de la position, false sinon.
+     */
+    public boolean isExposed(World world, int x, int y, int z) {
+        return getHighestBlockYAt(world, x, z) <= y;
+    }
+
+    /**
+     * Obtient la hauteur du bloc le plus haut d'une colonne, comme {@link World#getHighestBlockYAt(int, int)}.
+     * Les colonnes des chunks non chargés sont lues directement auprès du monde, sans être mises en cache.
+     *
+     * @param world Le monde de la colonne.
+     * @param x La coordonnée X de la colonne.
+     * @param z La coordonnée Z de la colonne.
+     * @return La hauteur du bloc le plus haut.
+     */
+    public int getHighestBlockYAt(World world, int x, int z) {
+        short[] columns = getChunkHeights(world, x >> 4, z >> 4);
+        if (columns == null) {
+            return world.getHighestBlockYAt(x, z);
+        }
+        return getHeight(world, columns, x, z);
+    }
+
+    /**
+     * Obtient la hauteur du bloc le plus haut d'une colonne, uniquement si son chunk est chargé.
+     * Contrairement à {@link #getHighestBlockYAt(World, int, int)}, ne provoque jamais de chargement.
+     *
+     * @param world Le monde de la colonne.
+     * @param x La coordonnée X de la colonne.
+     * @param z La coordonnée Z de la colonne.
+     * @return La hauteur du bloc le plus haut, ou {@link Integer#MIN_VALUE} si le chunk n'est pas chargé.
+     */
+    public int getLoadedHighestBlockYAt(World world, int x, int z) {
+        short[] columns = getChunkHeights(world, x >> 4, z >> 4);
+        return columns != null ? getHeight(world, columns, x, z) : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Invalide la colonne contenant un bloc modifié.
+     *
+     * @param world Le monde du bloc.
+     * @param x La coordonnée X du bloc.
+     * @param z La coordonnée Z du bloc.
+     */
+    public void invalidateColumn(World world, int x, int z) {
+        ChunkTable chunks = heightmaps.get(world.getUID());
+        if (chunks == null) {
+            return;
+        }
+
+        short[] columns = chunks.get(chunkKey(x >> 4, z >> 4));
+        if (columns != null) {
+            columns[columnIndex(x, z)] = UNKNOWN;
+        }
+    }
+
+    /**
+     * Supprime la carte des hauteurs d'un chunk déchargé.
+     *
+     * @param world Le monde du chunk.
+     * @param chunkX La coordonnée X du chunk.
+     * @param chunkZ La coordonnée Z du chunk.
+     */
+    public void evictChunk(World world, int chunkX, int chunkZ) {
+        ChunkTable chunks = heightmaps.get(world.getUID());
+        if (chunks == null) {
+            return;
+        }
+
+        short[] columns = chunks.remove(chunkKey(chunkX, chunkZ));
+        if (columns != null) {
+            // Les résultats mémorisés qui pointent encore vers ce tableau deviennent invalides
+            Arrays.fill(columns, UNKNOWN);
+            if (columns == lastColumns) {
+                forgetLastChunk();
+            }
+        }
+        if (chunks.size() == 0) {
+            heightmaps.remove(world.getUID());
+        }
+    }
+
+    /**
+     * Supprime toutes les cartes des hauteurs d'un monde déchargé.
+     *
+     * @param world Le monde déchargé.
+     */
+    public void evictWorld(World world) {
+        ChunkTable chunks = heightmaps.remove(world.getUID());
+        if (chunks != null) {
+            chunks.invalidateAll();
+        }
+        if (lastWorld == world) {
+            forgetLastChunk();
+        }
+    }
+
+    /**
+     * Oublie le résultat mémorisé d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forgetPlayer(Player player) {
+        playerExposures.remove(player.getUniqueId());
+    }
+
+    /**
+     * Vide entièrement le cache.
+     */
+    public void clear() {
+        heightmaps.clear();
+        playerExposures.clear();
+        forgetLastChunk();
+    }
+
+    /**
+     * Obtient le nombre de chunks dont la carte des hauteurs est en cache.
+     *
+     * @return Le nombre de chunks en cache.
+     */
+    public int getCachedChunkCount() {
+        int count = 0;
+        for (ChunkTable chunks : heightmaps.values()) {
+            count += chunks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Obtient la carte des hauteurs d'un chunk chargé, en la créant si nécessaire.
+     *
+     * @return La carte des hauteurs, ou null si le chunk n'est pas chargé.
+     */
+    private short[] getChunkHeights(World world, int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        if (world == lastWorld && key == lastKey) {
+            return lastColumns;
+        }
+
+        ChunkTable chunks = heightmaps.get(world.getUID());
+        short[] columns = chunks != null ? chunks.get(key) : null;
+        if (columns != null) {
+            rememberLastChunk(world, key, columns);
+            return columns;
+        }
+
+        // Un chunk non chargé ne recevrait pas d'événement de déchargement : ne pas le mettre en cache
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        if (chunks == null) {
+            chunks = new ChunkTable();
+            heightmaps.put(world.getUID(), chunks);
+        }
+        columns = new short[256];
+        Arrays.fill(columns, UNKNOWN);
+        chunks.put(key, columns);
+        rememberLastChunk(world, key, columns);
+        return columns;
+    }
+
+    private void rememberLastChunk(World world, long key, short[] columns) {
+        lastWorld = world;
+        lastKey = key;
+        lastColumns = columns;
+    }
+
+    private void forgetLastChunk() {
+        lastWorld = null;
+        lastColumns = null;
+    }
+
+    private static int getHeight(World world, short[] columns, int x, int z) {
+        int index = columnIndex(x, z);
+        short height = columns[index];
+        if (height == UNKNOWN) {
+            height = (short) world.getHighestBlockYAt(x, z);
+            columns[index] = height;
+        }
+        return height;
+    }
+
+    private static int columnIndex(int x, int z) {
+        return ((z & 15) << 4) | (x & 15);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Table à adressage ouvert des cartes des hauteurs d'un monde, indexée par la clé du chunk.
+     * Les suppressions décalent les entrées suivantes, sans marqueur de case supprimée.
+     */
+    private static final class ChunkTable {
+        private long[] keys = new long[64];
+        private short[][] values = new short[64][];
+        private int size;
+
+        private static int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private short[] get(long key) {
+            int slot = find(key);
+            return slot >= 0 ? values[slot] : null;
+        }
+
+        private void put(long key, short[] columns) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                short[][] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new short[oldValues.length * 2][];
+                size = 0;
+                for (int i = 0; i < oldValues.length; i++) {
+                    if (oldValues[i] != null) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+
+            int mask = keys.length - 1;
+            int slot = slot(key) & mask;
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    values[slot] = columns;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = columns;
+            size++;
+        }
+
+        private short[] remove(long key) {
+            int hole = find(key);
+            if (hole < 0) {
+                return null;
+            }
+
+            short[] removed = values[hole];
+            int mask = keys.length - 1;
+            for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+                // Remonter l'entrée si la case libérée se trouve entre sa case idéale et sa case actuelle
+                int ideal = slot(keys[next]) & mask;
+                if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            values[hole] = null;
+            size--;
+            return removed;
+        }
+
+        private void invalidateAll() {
+            for (short[] columns : values) {
+                if (columns != null) {
+                    Arrays.fill(columns, UNKNOWN);
+                }
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Dernier résultat d'exposition d'un joueur, valide tant qu'il reste sur le même bloc
+     * et que la hauteur de sa colonne n'a pas changé.
+     */
+    private static final class PlayerExposure {
+        private World world;
+        private int x;
+        private int y;
+        private int z;
+        private short[] columns;
+        private short height;
+        private boolean exposed;
+
+        private boolean matches(World world, int x, int y, int z) {
+            return columns != null
+                    && this.x == x && this.y == y && this.z == z
+                    && this.world == world
+                    && columns[columnIndex(x, z)] == height;
+        }
+    }
+}
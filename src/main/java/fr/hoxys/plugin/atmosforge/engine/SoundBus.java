@@ -0,0 +1,250 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.integration.ProtocolLibHook;
+
+import org.bukkit.Sound;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Table de mixage des sons météo de chaque joueur.
+ * <p>
+ * Les effets ne jouent plus leurs sons directement : ils les demandent au bus, qui les collecte
+ * pendant le tick puis les émet en une fois à la fin du tick. Les demandes d'un même son à la même
+ * hauteur sont fusionnées en gardant le volume le plus fort, et seules les couches d'ambiance les plus
+ * fortes sont conservées au-delà d'un plafond par joueur. Les sons ponctuels (tonnerre…) ne sont
+ * jamais plafonnés. Un seul paquet est donc envoyé par son distinct, quel que soit le nombre d'effets actifs.
+ * Avec ProtocolLib, ces paquets rejoignent les particules du joueur dans son paquet groupé du tick.
+ * Doit être utilisé depuis le thread principal.
+ */
+public final class SoundBus {
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Configuration
+    private int maxAmbientLayers;
+
+    // Sons en attente de chaque joueur pour le tick courant
+    private final Map<UUID, Mix> mixes;
+
+    // Sons demandés et émis depuis le démarrage
+    private long requestedSounds;
+    private long emittedSounds;
+
+    /**
+     * Constructeur du bus sonore.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public SoundBus(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.mixes = new HashMap<>();
+
+        // Charger la configuration
+        loadConfiguration();
+
+        // Émettre les sons une fois toutes les tâches du tick exécutées
+        plugin.getTickEngine().runAtEndOfTick(this::flush);
+    }
+
+    /**
+     * Charge la configuration du bus sonore.
+     */
+    public void loadConfiguration() {
+        FileConfiguration config = plugin.getConfigManager().getConfig();
+        maxAmbientLayers = Math.max(1, config.getInt("effects.sound.max_ambient_layers", 3));
+
+        logger.info("Sound bus limited to " + maxAmbientLayers + " ambient layers per player");
+    }
+
+    /**
+     * Demande un son d'ambiance pour un joueur. Les couches d'ambiance les plus faibles
+     * sont abandonnées lorsque le joueur en reçoit trop lors d'un même tick.
+     *
+     * @param player Le joueur.
+     * @param sound Le son à jouer.
+     * @param volume Le volume du son.
+     * @param pitch La hauteur du son.
+     */
+    public void playAmbient(Player player, Sound sound, float volume, float pitch) {
+        request(player, sound, volume, pitch, true);
+    }
+
+    /**
+     * Demande un son ponctuel pour un joueur. Les sons ponctuels sont fusionnés mais jamais plafonnés.
+     *
+     * @param player Le joueur.
+     * @param sound Le son à jouer.
+     * @param volume Le volume du son.
+     * @param pitch La hauteur du son.
+     */
+    public void play(Player player, Sound sound, float volume, float pitch) {
+        request(player, sound, volume, pitch, false);
+    }
+
+    private void request(Player player, Sound sound, float volume, float pitch, boolean ambient) {
+        if (volume <= 0f) {
+            return;
+        }
+
+        requestedSounds++;
+        mixes.computeIfAbsent(player.getUniqueId(), id -> new Mix(player)).add(sound, volume, pitch, ambient);
+    }
+
+    /**
+     * Émet les sons collectés pendant le tick, un paquet par son distinct et par joueur.
+     */
+    private void flush() {
+        ProtocolLibHook hook = plugin.isProtocolLibEnabled() ? plugin.getProtocolLibHook() : null;
+        for (Mix mix : mixes.values()) {
+            if (mix.size == 0) {
+                continue;
+            }
+
+            if (mix.player.isOnline()) {
+                emittedSounds += mix.emit(maxAmbientLayers, hook);
+            }
+            mix.reset();
+        }
+    }
+
+    /**
+     * Oublie les sons en attente d'un joueur.
+     *
+     * @param player Le joueur.
+     */
+    public void forget(Player player) {
+        mixes.remove(player.getUniqueId());
+    }
+
+    /**
+     * Oublie les sons en attente de tous les joueurs.
+     */
+    public void clear() {
+        mixes.clear();
+    }
+
+    /**
+     * Obtient le nombre de sons demandés par les effets depuis le démarrage.
+     *
+     * @return Le nombre de sons demandés.
+     */
+    public long getRequestedSounds() {
+        return requestedSounds;
+    }
+
+    /**
+     * Obtient le nombre de sons réellement envoyés aux joueurs depuis le démarrage.
+     *
+     * @return Le nombre de sons envoyés.
+     */
+    public long getEmittedSounds() {
+        return emittedSounds;
+    }
+
+    /**
+     * Sons en attente d'un joueur. Les entrées sont réutilisées d'un tick à l'autre.
+     */
+    private static final class Mix {
+        private final Player player;
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        private Mix(Player player) {
+            this.player = player;
+        }
+
+        private void add(Sound sound, float volume, float pitch, boolean ambient) {
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries[i];
+                if (entry.sound == sound && Float.compare(entry.pitch, pitch) == 0) {
+                    // Deux sons identiques joués ensemble ne s'entendent pas plus qu'un seul, au plus fort des deux
+                    entry.volume = Math.max(entry.volume, volume);
+                    entry.ambient &= ambient;
+                    return;
+                }
+            }
+
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            Entry entry = entries[size];
+            if (entry == null) {
+                entry = new Entry();
+                entries[size] = entry;
+            }
+            entry.sound = sound;
+            entry.volume = volume;
+            entry.pitch = pitch;
+            entry.ambient = ambient;
+            size++;
+        }
+
+        /**
+         * Joue les sons du mélange, en ne gardant que les couches d'ambiance les plus fortes.
+         *
+         * @param maxAmbientLayers Le nombre maximal de couches d'ambiance.
+         * @param hook L'intégration ProtocolLib qui regroupe les paquets du joueur, ou null sans ProtocolLib.
+         * @return Le nombre de sons joués.
+         */
+        private int emit(int maxAmbientLayers, ProtocolLibHook hook) {
+            int ambientLayers = 0;
+            for (int i = 0; i < size; i++) {
+                if (entries[i].ambient) {
+                    ambientLayers++;
+                }
+            }
+
+            // Couper les couches d'ambiance les plus faibles, une à une : elles sont rarement nombreuses
+            while (ambientLayers > maxAmbientLayers) {
+                Entry quietest = null;
+                for (int i = 0; i < size; i++) {
+                    Entry entry = entries[i];
+                    if (entry.ambient && entry.sound != null && (quietest == null || entry.volume < quietest.volume)) {
+                        quietest = entry;
+                    }
+                }
+                quietest.sound = null;
+                ambientLayers--;
+            }
+
+            int emitted = 0;
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries[i];
+                if (entry.sound != null) {
+                    if (hook == null || !hook.sendSoundPacket(player, entry.sound, entry.volume, entry.pitch)) {
+                        player.playSound(player, entry.sound, entry.volume, entry.pitch);
+                    }
+                    emitted++;
+                }
+            }
+            return emitted;
+        }
+
+        private void reset() {
+            for (int i = 0; i < size; i++) {
+                entries[i].sound = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Son en attente : le son, sa hauteur, le plus fort volume demandé et s'il s'agit d'une couche d'ambiance.
+     */
+    private static final class Entry {
+        private Sound sound;
+        private float volume;
+        private float pitch;
+        private boolean ambient;
+    }
+}
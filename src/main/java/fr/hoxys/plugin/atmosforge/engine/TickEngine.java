@@ -0,0 +1,216 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moteur de ticks centralisé d'AtmosForge.
+ * Une seule tâche Bukkit pilote tous les effets actifs du serveur, chacun étant exécuté
+ * à son propre intervalle. Les échéances sont rangées dans une {@link TimingWheel} :
+ * le coût d'un tick ne dépend que du nombre de tâches qui arrivent à échéance.
+ */
+public class TickEngine {
+
+    private final Main plugin;
+    private final Logger logger;
+
+    // Roue temporelle contenant toutes les tâches planifiées
+    private final TimingWheel wheel;
+
+    // Régulateur de qualité, qui reçoit la mesure de chaque tick
+    private final QualityGovernor governor;
+
+    // Traitement des tâches échues, conservé pour ne pas allouer à chaque tick
+    private final Consumer<EffectTask> dispatcher;
+
+    // Actions exécutées à la fin de chaque tick, après toutes les tâches échues
+    private final List<Runnable> endOfTickActions;
+
+    // Tâche Bukkit unique qui pilote le moteur
+    private BukkitTask driverTask;
+
+    /**
+     * Constructeur du moteur de ticks.
+     *
+     * @param plugin L'instance du plugin principal.
+     */
+    public TickEngine(Main plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.wheel = new TimingWheel();
+        this.governor = plugin.getQualityGovernor();
+        this.dispatcher = this::dispatch;
+        this.endOfTickActions = new ArrayList<>();
+    }
+
+    /**
+     * Démarre le moteur de ticks.
+     */
+    public void start() {
+        if (driverTask != null) {
+            return;
+        }
+
+        driverTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        logger.info("Effect tick engine started.");
+    }
+
+    /**
+     * Arrête le moteur de ticks et annule toutes les tâches enregistrées.
+     */
+    public void stop() {
+        if (driverTask != null) {
+            driverTask.cancel();
+            driverTask = null;
+        }
+
+        wheel.clear(EffectTask::cancel);
+        governor.reset();
+
+        logger.info("Effect tick engine stopped.");
+    }
+
+    /**
+     * Enregistre une tâche répétitive.
+     *
+     * @param action L'action à exécuter.
+     * @param delay Le délai avant la première exécution en ticks.
+     * @param interval L'intervalle entre les exécutions en ticks.
+     * @return La poignée de la tâche enregistrée.
+     */
+    public EffectTask runRepeating(Runnable action, long delay, long interval) {
+        return register(action, delay, Math.max(1L, interval), false);
+    }
+
+    /**
+     * Enregistre un effet visuel ou sonore répétitif.
+     * Son intervalle est étiré par le {@link QualityGovernor} lorsque le serveur est surchargé.
+     *
+     * @param action L'action à exécuter.
+     * @param delay Le délai avant la première exécution en ticks.
+     * @param interval L'intervalle nominal entre les exécutions en ticks.
+     * @return La poignée de la tâche enregistrée.
+     */
+    public EffectTask runEffect(Runnable action, long delay, long interval) {
+        return register(action, delay, Math.max(1L, interval), true);
+    }
+
+    /**
+     * Enregistre une tâche exécutée une seule fois.
+     *
+     * @param action L'action à exécuter.
+     * @param delay Le délai avant l'exécution en ticks.
+     * @return La poignée de la tâche enregistrée.
+     */
+    public EffectTask runLater(Runnable action, long delay) {
+        return register(action, delay, 0L, false);
+    }
+
+    /**
+     * Replanifie une tâche répétitive existante avec un nouvel intervalle, qu'elle soit active ou annulée.
+     * La poignée et son action sont réutilisées : aucune allocation n'a lieu.
+     *
+     * @param task La tâche à replanifier.
+     * @param delay Le délai avant la prochaine exécution en ticks.
+     * @param interval Le nouvel intervalle entre les exécutions en ticks.
+     */
+    public void reschedule(EffectTask task, long delay, long interval) {
+        wheel.cancel(task);
+        task.rearm(wheel.now() + Math.max(1L, delay), Math.max(1L, interval));
+        wheel.schedule(task);
+    }
+
+    /**
+     * Enregistre une action exécutée à chaque tick, une fois toutes les tâches échues exécutées.
+     * Sert aux étapes qui rassemblent ce que les effets ont produit pendant le tick.
+     *
+     * @param action L'action à exécuter.
+     */
+    public void runAtEndOfTick(Runnable action) {
+        endOfTickActions.add(action);
+    }
+
+    /**
+     * Enregistre une tâche auprès du moteur.
+     *
+     * @param action L'action à exécuter.
+     * @param delay Le délai avant la première exécution en ticks.
+     * @param interval L'intervalle de répétition, ou 0 pour une tâche unique.
+     * @param adaptive Si l'intervalle suit le niveau de qualité des effets.
+     * @return La poignée de la tâche enregistrée.
+     */
+    private EffectTask register(Runnable action, long delay, long interval, boolean adaptive) {
+        // Un délai nul correspond au prochain tick, comme avec l'ordonnanceur Bukkit
+        EffectTask task = new EffectTask(wheel, action, wheel.now() + Math.max(1L, delay), interval, adaptive);
+        wheel.schedule(task);
+        return task;
+    }
+
+    /**
+     * Exécute un tick du moteur : lance toutes les tâches arrivées à échéance et les actions de fin de tick,
+     * puis transmet au régulateur de qualité l'instant de début du tick et le temps passé dans les effets.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        wheel.advance(dispatcher);
+        for (int i = 0; i < endOfTickActions.size(); i++) {
+            try {
+                endOfTickActions.get(i).run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "End of tick action threw an exception", e);
+            }
+        }
+        governor.recordTick(start, System.nanoTime() - start);
+    }
+
+    /**
+     * Exécute une tâche échue puis la replanifie si elle est répétitive.
+     *
+     * @param task La tâche à exécuter.
+     */
+    private void dispatch(EffectTask task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Effect task threw an exception", e);
+        }
+
+        // La tâche a pu être annulée ou replanifiée par sa propre action
+        if (task.isCancelled() || task.isScheduled()) {
+            return;
+        }
+
+        if (task.isRepeating()) {
+            long interval = task.isAdaptive() ? governor.scaleInterval(task.getInterval()) : task.getInterval();
+            task.deadline = wheel.now() + interval;
+            wheel.schedule(task);
+        } else {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Obtient le tick actuel du moteur.
+     *
+     * @return Le nombre de ticks écoulés depuis le démarrage du moteur.
+     */
+    public long getCurrentTick() {
+        return wheel.now();
+    }
+
+    /**
+     * Obtient le nombre de tâches actives enregistrées auprès du moteur.
+     *
+     * @return Le nombre de tâches actives.
+     */
+    public int getActiveTaskCount() {
+        return wheel.size();
+    }
+}
@@ -0,0 +1,173 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Roue temporelle hiérarchique utilisée par le {@link TickEngine}.
+ * Quatre niveaux de 64 emplacements couvrent 64^4 ticks (environ 9 jours) ; les échéances
+ * plus lointaines sont replacées au niveau supérieur à chaque passage.
+ * Les tâches sont chaînées directement dans les emplacements : l'insertion, l'annulation
+ * et le déclenchement se font en O(1) sans aucune allocation.
+ */
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // Portée maximale de la roue en ticks
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    // Têtes des listes chaînées, indexées par niveau * SLOTS + emplacement
+    private final EffectTask[] buckets;
+
+    // Dernier tick traité par la roue
+    private long now;
+    private int size;
+
+    TimingWheel() {
+        this.buckets = new EffectTask[SLOTS * LEVELS];
+    }
+
+    /**
+     * Insère une tâche dans la roue selon son échéance.
+     * L'échéance doit être strictement postérieure au tick courant.
+     *
+     * @param task La tâche à insérer.
+     */
+    void schedule(EffectTask task) {
+        long deadline = task.deadline;
+        long delta = deadline - now;
+
+        int bucket;
+        if (delta < SLOTS) {
+            bucket = (int) (deadline & SLOT_MASK);
+        } else if (delta < 1L << (SLOT_BITS * 2)) {
+            bucket = SLOTS + (int) ((deadline >>> SLOT_BITS) & SLOT_MASK);
+        } else if (delta < 1L << (SLOT_BITS * 3)) {
+            bucket = SLOTS * 2 + (int) ((deadline >>> (SLOT_BITS * 2)) & SLOT_MASK);
+        } else {
+            // Les échéances hors de portée sont replacées lors du prochain passage du niveau supérieur
+            long clamped = delta < MAX_SPAN ? deadline : now + MAX_SPAN - 1;
+            bucket = SLOTS * 3 + (int) ((clamped >>> (SLOT_BITS * 3)) & SLOT_MASK);
+        }
+
+        link(task, bucket);
+        size++;
+    }
+
+    /**
+     * Retire une tâche de la roue.
+     *
+     * @param task La tâche à retirer.
+     */
+    void cancel(EffectTask task) {
+        if (task.bucket < 0) {
+            return;
+        }
+
+        unlink(task);
+        size--;
+    }
+
+    /**
+     * Avance la roue d'un tick et transmet chaque tâche arrivée à échéance au consommateur.
+     * Le consommateur peut replanifier la tâche ou en insérer de nouvelles.
+     *
+     * @param consumer Le consommateur des tâches échues.
+     */
+    void advance(Consumer<EffectTask> consumer) {
+        now++;
+
+        // Redescendre les tâches des niveaux supérieurs lorsque le niveau inférieur boucle
+        for (int level = 1; level < LEVELS; level++) {
+            if (((now >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                break;
+            }
+            cascade(level * SLOTS + (int) ((now >>> (SLOT_BITS * level)) & SLOT_MASK));
+        }
+
+        // Déclencher les tâches de l'emplacement courant
+        int bucket = (int) (now & SLOT_MASK);
+        EffectTask task;
+        while ((task = buckets[bucket]) != null) {
+            unlink(task);
+            size--;
+            consumer.accept(task);
+        }
+    }
+
+    /**
+     * Réinsère toutes les tâches d'un emplacement de niveau supérieur.
+     *
+     * @param bucket L'emplacement à redistribuer.
+     */
+    private void cascade(int bucket) {
+        EffectTask task;
+        while ((task = buckets[bucket]) != null) {
+            unlink(task);
+            size--;
+            schedule(task);
+        }
+    }
+
+    private void link(EffectTask task, int bucket) {
+        EffectTask head = buckets[bucket];
+        task.bucket = bucket;
+        task.prev = null;
+        task.next = head;
+        if (head != null) {
+            head.prev = task;
+        }
+        buckets[bucket] = task;
+    }
+
+    private void unlink(EffectTask task) {
+        if (task.prev != null) {
+            task.prev.next = task.next;
+        } else {
+            buckets[task.bucket] = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.bucket = -1;
+    }
+
+    /**
+     * Obtient le dernier tick traité par la roue.
+     *
+     * @return Le tick courant.
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Obtient le nombre de tâches planifiées dans la roue.
+     *
+     * @return Le nombre de tâches.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retire toutes les tâches de la roue.
+     *
+     * @param consumer Le consommateur appelé pour chaque tâche retirée.
+     */
+    void clear(Consumer<EffectTask> consumer) {
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            EffectTask task;
+            while ((task = buckets[bucket]) != null) {
+                unlink(task);
+                consumer.accept(task);
+            }
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,89 @@
+package fr.hoxys.plugin.atmosforge.integration;
+
+/**
+ * Image d'un effet céleste : positions relatives au joueur qui le voit et forme de particule de chaque point.
+ * <p>
+ * Les coordonnées sont rangées à la suite dans un seul tableau (x, y, z pour chaque point), que la lecture
+ * parcourt dans l'ordre. Une image est remplie par une {@link SkyAnimation} lors de sa construction,
+ * n'est plus modifiée ensuite et peut être lue depuis n'importe quel thread.
+ */
+final class EffectFrame {
+
+    private final float[] coordinates;
+    private final PacketBundler.Shape[] shapes;
+
+    /**
+     * Constructeur d'une image vide.
+     *
+     * @param size Le nombre de points de l'image.
+     */
+    EffectFrame(int size) {
+        this.coordinates = new float[size * 3];
+        this.shapes = new PacketBundler.Shape[size];
+    }
+
+    /**
+     * Définit un point de l'image. Réservé à la construction de l'image.
+     *
+     * @param point L'indice du point.
+     * @param x La coordonnée X relative au joueur.
+     * @param y La coordonnée Y relative au joueur.
+     * @param z La coordonnée Z relative au joueur.
+     * @param shape La forme de particule du point.
+     */
+    void set(int point, double x, double y, double z, PacketBundler.Shape shape) {
+        coordinates[point * 3] = (float) x;
+        coordinates[point * 3 + 1] = (float) y;
+        coordinates[point * 3 + 2] = (float) z;
+        shapes[point] = shape;
+    }
+
+    /**
+     * Obtient le nombre de points de l'image.
+     *
+     * @return Le nombre de points.
+     */
+    int size() {
+        return shapes.length;
+    }
+
+    /**
+     * Obtient la coordonnée X d'un point, relative au joueur.
+     *
+     * @param point L'indice du point.
+     * @return La coordonnée relative.
+     */
+    float getX(int point) {
+        return coordinates[point * 3];
+    }
+
+    /**
+     * Obtient la coordonnée Y d'un point, relative au joueur.
+     *
+     * @param point L'indice du point.
+     * @return La coordonnée relative.
+     */
+    float getY(int point) {
+        return coordinates[point * 3 + 1];
+    }
+
+    /**
+     * Obtient la coordonnée Z d'un point, relative au joueur.
+     *
+     * @param point L'indice du point.
+     * @return La coordonnée relative.
+     */
+    float getZ(int point) {
+        return coordinates[point * 3 + 2];
+    }
+
+    /**
+     * Obtient la forme de particule d'un point.
+     *
+     * @param point L'indice du point.
+     * @return La forme de particule.
+     */
+    PacketBundler.Shape getShape(int point) {
+        return shapes[point];
+    }
+}
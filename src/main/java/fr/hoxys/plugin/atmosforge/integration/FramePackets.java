@@ -0,0 +1,130 @@
+package fr.hoxys.plugin.atmosforge.integration;
+
+import com.comphenix.protocol.events.PacketContainer;
+
+import java.util.logging.Logger;
+
+/**
+ * Paquets de particules d'une image d'effet céleste placée à une origine donnée, un par point.
+ * <p>
+ * Les paquets sont construits une seule fois, par le premier thread de particules qui en a besoin,
+ * puis partagés par tous les joueurs dont l'effet tombe sur la même origine pendant que l'image est affichée.
+ * Un paquet partagé n'est jamais modifié après sa construction.
+ */
+final class FramePackets {
+
+    private final EffectFrame frame;
+    private final double originX;
+    private final double originY;
+    private final double originZ;
+
+    // Paquet de chaque point, null tant que l'image n'a pas été construite ou si le point est en erreur
+    private PacketContainer[] packets;
+
+    // Dernier tick où l'image a été demandée, lu et écrit par le thread principal uniquement
+    private long lastUsedTick;
+
+    /**
+     * Constructeur des paquets d'une image.
+     *
+     * @param frame L'image.
+     * @param originX La coordonnée X de l'origine de l'image.
+     * @param originY La coordonnée Y de l'origine de l'image.
+     * @param originZ La coordonnée Z de l'origine de l'image.
+     */
+    FramePackets(EffectFrame frame, double originX, double originY, double originZ) {
+        this.frame = frame;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+    }
+
+    /**
+     * Obtient les paquets de l'image, en les construisant lors du premier appel.
+     * Un point dont le paquet ne peut pas être construit est ignoré seul.
+     *
+     * @param bundler Le regroupement de paquets, qui détient les paquets modèles.
+     * @param logger Le logger du plugin.
+     * @return Le paquet de chaque point, null pour un point en erreur.
+     */
+    synchronized PacketContainer[] getPackets(PacketBundler bundler, Logger logger) {
+        if (packets != null) {
+            return packets;
+        }
+
+        PacketContainer[] built = new PacketContainer[frame.size()];
+        RuntimeException failure = null;
+        int failed = 0;
+
+        for (int point = 0; point < built.length; point++) {
+            try {
+                built[point] = bundler.createParticlePacket(frame.getShape(point),
+                        originX + frame.getX(point), originY + frame.getY(point), originZ + frame.getZ(point), 1);
+            } catch (RuntimeException e) {
+                // FieldAccessException de ProtocolLib, ou particule refusée par le serveur
+                failure = e;
+                failed++;
+            }
+        }
+
+        if (failure != null) {
+            logger.warning("Failed to build " + failed + " sky effect packets: " + failure.getMessage());
+        }
+        packets = built;
+        return packets;
+    }
+
+    /**
+     * Obtient la coordonnée X de l'origine de l'image.
+     *
+     * @return La coordonnée X.
+     */
+    double getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Obtient la coordonnée Y de l'origine de l'image.
+     *
+     * @return La coordonnée Y.
+     */
+    double getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Obtient la coordonnée Z de l'origine de l'image.
+     *
+     * @return La coordonnée Z.
+     */
+    double getOriginZ() {
+        return originZ;
+    }
+
+    /**
+     * Obtient l'image dont ce sont les paquets.
+     *
+     * @return L'image.
+     */
+    EffectFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Obtient le dernier tick où l'image a été demandée. Appelé depuis le thread principal.
+     *
+     * @return Le tick.
+     */
+    long getLastUsedTick() {
+        return lastUsedTick;
+    }
+
+    /**
+     * Note que l'image est demandée lors d'un tick. Appelé depuis le thread principal.
+     *
+     * @param tick Le tick courant.
+     */
+    void markUsed(long tick) {
+        this.lastUsedTick = tick;
+    }
+}
@@ -0,0 +1,409 @@
+package fr.hoxys.plugin.atmosforge.integration;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedParticle;
+
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Regroupe les paquets destinés à chaque joueur pendant un tick et les envoie en un seul paquet groupé.
+ * <p>
+ * Les apparitions de particules identiques (même type, position, dispersion et vitesse) sont fusionnées
+ * en additionnant leur nombre. Les paquets déjà construits, comme ceux des sons, sont ajoutés tels quels.
+ * Lors de l'envoi, les paquets d'un joueur sont réunis dans un paquet {@code BUNDLE}, que le client
+ * traite d'un bloc : une seule trame réseau au lieu d'une par particule ou par son.
+ * <p>
+ * Les paquets d'un tick forment un {@link Batch}. Chaque génération confiée aux threads de particules
+ * pendant ce tick est liée à son lot par {@link #bind(Runnable)} ; le lot est fermé à la fin du tick par
+ * {@link #endTick()} et n'est envoyé qu'une fois fermé et toutes ses générations terminées ou abandonnées.
+ * Les envois sont exécutés par un unique thread, qui ne rejette jamais de travail : les particules d'un tick
+ * partent ensemble, dans un seul paquet groupé par joueur.
+ * <p>
+ * Les champs d'un paquet de particules qui ne dépendent pas de la position sont décrits par une {@link Shape}.
+ * Un paquet modèle est construit une fois par forme, puis copié pour chaque apparition en ne réécrivant
+ * que les coordonnées (des {@code double} depuis 1.21.5) et le nombre de particules. Une apparition dont
+ * le paquet ne peut pas être construit est ignorée sans interrompre l'envoi des autres.
+ * Un paquet déjà construit peut être mis en attente pour plusieurs joueurs, comme ceux des effets célestes
+ * partagés par les joueurs voisins.
+ * Les paquets peuvent être ajoutés depuis n'importe quel thread.
+ */
+final class PacketBundler {
+
+    // Nombre maximal de paquets qu'un client accepte dans un paquet groupé
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    // Lot de la génération exécutée par le thread courant, null hors d'une génération
+    private static final ThreadLocal<Batch> GENERATING = new ThreadLocal<>();
+
+    private final ProtocolManager protocolManager;
+    private final Logger logger;
+
+    // Thread unique qui construit et envoie les paquets groupés
+    private final ExecutorService sender;
+
+    // Lot du tick en cours, remplacé à chaque fin de tick par le thread principal
+    private volatile Batch current;
+
+    // Paquet modèle de chaque forme de particule
+    private final Map<Shape, PacketContainer> templates;
+
+    /**
+     * Constructeur du regroupement de paquets.
+     *
+     * @param protocolManager Le gestionnaire de ProtocolLib.
+     * @param logger Le logger du plugin.
+     */
+    PacketBundler(ProtocolManager protocolManager, Logger logger) {
+        this.protocolManager = protocolManager;
+        this.logger = logger;
+        this.sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AtmosForge-Bundles");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.current = new Batch();
+        this.templates = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Lie une génération au lot du tick en cours : le lot ne sera pas envoyé avant qu'elle ne soit
+     * terminée ou abandonnée. Appelé depuis le thread principal, au moment de confier la génération.
+     *
+     * @param generation La génération des particules.
+     * @return La génération liée, à confier aux threads de particules.
+     */
+    Generation bind(Runnable generation) {
+        Batch batch = current;
+        batch.pending.incrementAndGet();
+        return new Generation(batch, generation);
+    }
+
+    /**
+     * Met en attente l'apparition de particules pour un joueur, dans le lot de la génération en cours
+     * ou, hors d'une génération, dans celui du tick en cours.
+     *
+     * @param player Le joueur qui verra les particules.
+     * @param spawn L'apparition de particules.
+     */
+    void spawn(Player player, Spawn spawn) {
+        getBatch().getOutbox(player).add(spawn);
+    }
+
+    /**
+     * Met en attente un paquet déjà construit pour un joueur.
+     *
+     * @param player Le joueur destinataire.
+     * @param packet Le paquet.
+     */
+    void send(Player player, PacketContainer packet) {
+        getBatch().getOutbox(player).add(packet);
+    }
+
+    private Batch getBatch() {
+        Batch batch = GENERATING.get();
+        return batch != null ? batch : current;
+    }
+
+    /**
+     * Ferme le lot du tick en cours et en ouvre un nouveau. Le lot fermé est envoyé dès que ses
+     * générations sont terminées. Appelé depuis le thread principal à la fin de chaque tick.
+     */
+    void endTick() {
+        Batch batch = current;
+        current = new Batch();
+        release(batch);
+    }
+
+    /**
+     * Retire une référence au lot et confie son envoi au thread d'envoi lorsque c'était la dernière.
+     */
+    private void release(Batch batch) {
+        if (batch.pending.decrementAndGet() == 0 && !batch.outboxes.isEmpty()) {
+            try {
+                sender.execute(() -> flush(batch));
+            } catch (RejectedExecutionException ignored) {
+                // Le plugin est en cours d'arrêt
+            }
+        }
+    }
+
+    /**
+     * Envoie les paquets d'un lot à chaque joueur, en un paquet groupé par joueur.
+     * Appelé depuis le thread d'envoi.
+     */
+    private void flush(Batch batch) {
+        for (Outbox outbox : batch.outboxes.values()) {
+            if (!outbox.player.isOnline()) {
+                continue;
+            }
+
+            List<PacketContainer> packets = createPackets(outbox);
+            if (!packets.isEmpty()) {
+                send(outbox.player, packets);
+            }
+        }
+    }
+
+    /**
+     * Construit les paquets d'un joueur : les paquets déjà construits, puis ceux des apparitions.
+     * Une apparition en erreur est ignorée seule.
+     *
+     * @param outbox Les paquets en attente du joueur.
+     * @return Les paquets à envoyer.
+     */
+    private List<PacketContainer> createPackets(Outbox outbox) {
+        List<PacketContainer> packets = new ArrayList<>(outbox.packets.size() + outbox.spawns.size());
+        packets.addAll(outbox.packets);
+        RuntimeException failure = null;
+        int failed = 0;
+
+        for (Spawn spawn : outbox.spawns.values()) {
+            try {
+                packets.add(createParticlePacket(spawn));
+            } catch (RuntimeException e) {
+                // FieldAccessException de ProtocolLib, ou particule refusée par le serveur
+                failure = e;
+                failed++;
+            }
+        }
+
+        if (failure != null) {
+            logger.warning("Failed to build " + failed + " particle packets for " + outbox.player.getName() + ": " + failure.getMessage());
+        }
+        return packets;
+    }
+
+    /**
+     * Arrête le thread d'envoi. Les paquets en attente sont abandonnés.
+     */
+    void shutdown() {
+        sender.shutdownNow();
+        current = new Batch();
+    }
+
+    private void send(Player player, List<PacketContainer> packets) {
+        try {
+            if (packets.size() == 1) {
+                protocolManager.sendServerPacket(player, packets.get(0));
+                return;
+            }
+
+            for (int start = 0; start < packets.size(); start += MAX_BUNDLE_SIZE) {
+                PacketContainer bundle = new PacketContainer(PacketType.Play.Server.BUNDLE);
+                bundle.getPacketBundles().write(0, packets.subList(start, Math.min(packets.size(), start + MAX_BUNDLE_SIZE)));
+                protocolManager.sendServerPacket(player, bundle);
+            }
+        } catch (Exception e) {
+            logger.warning("Failed to send packet bundle to " + player.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Construit le paquet correspondant à une apparition de particules, à partir du modèle de sa forme.
+     */
+    private PacketContainer createParticlePacket(Spawn spawn) {
+        return createParticlePacket(spawn.shape, spawn.x, spawn.y, spawn.z, spawn.count);
+    }
+
+    /**
+     * Construit un paquet de particules à partir du modèle de sa forme. Le paquet peut être envoyé
+     * à plusieurs joueurs par {@link #send(Player, PacketContainer)} tant qu'il n'est plus modifié.
+     * Peut être appelé depuis n'importe quel thread.
+     *
+     * @param shape La forme des particules.
+     * @param x La coordonnée X des particules.
+     * @param y La coordonnée Y des particules.
+     * @param z La coordonnée Z des particules.
+     * @param count Le nombre de particules.
+     * @return Le paquet.
+     */
+    PacketContainer createParticlePacket(Shape shape, double x, double y, double z, int count) {
+        PacketContainer packet = templates.computeIfAbsent(shape, this::createTemplate).shallowClone();
+        packet.getDoubles().write(0, x);
+        packet.getDoubles().write(1, y);
+        packet.getDoubles().write(2, z);
+        packet.getIntegers().write(0, count);
+        return packet;
+    }
+
+    /**
+     * Construit le paquet modèle d'une forme de particule, sans position.
+     */
+    private PacketContainer createTemplate(Shape shape) {
+        PacketContainer packet = protocolManager.createPacket(PacketType.Play.Server.WORLD_PARTICLES);
+
+        // Définir les données du paquet : les seuls champs float sont la dispersion et la vitesse
+        packet.getNewParticles().write(0, WrappedParticle.create(shape.particle(), shape.data()));
+        packet.getBooleans().write(0, true); // Longue distance
+        packet.getFloat().write(0, shape.offsetX());
+        packet.getFloat().write(1, shape.offsetY());
+        packet.getFloat().write(2, shape.offsetZ());
+        packet.getFloat().write(3, shape.speed());
+        return packet;
+    }
+
+    /**
+     * Champs d'un paquet de particules qui ne dépendent pas de sa position.
+     *
+     * @param particle Le type de particule.
+     * @param offsetX La dispersion en X.
+     * @param offsetY La dispersion en Y.
+     * @param offsetZ La dispersion en Z.
+     * @param speed La vitesse des particules.
+     * @param data Les données de la particule, du type {@link Particle#getDataType()}, ou null si elle n'en a pas.
+     */
+    record Shape(Particle particle, float offsetX, float offsetY, float offsetZ, float speed, Object data) {
+
+        /**
+         * Obtient la forme d'une particule immobile, sans dispersion.
+         *
+         * @param particle Le type de particule.
+         * @return La forme de particule.
+         */
+        static Shape of(Particle particle) {
+            return new Shape(particle, 0f, 0f, 0f, 0f, null);
+        }
+
+        /**
+         * Obtient la forme d'une particule immobile, sans dispersion, avec ses données.
+         *
+         * @param particle Le type de particule.
+         * @param data Les données de la particule.
+         * @return La forme de particule.
+         */
+        static Shape of(Particle particle, Object data) {
+            return new Shape(particle, 0f, 0f, 0f, 0f, data);
+        }
+    }
+
+    /**
+     * Apparition de particules en attente d'envoi.
+     * Deux apparitions sont égales lorsqu'elles ne diffèrent que par leur nombre de particules.
+     */
+    static final class Spawn {
+        private final Shape shape;
+        private final double x;
+        private final double y;
+        private final double z;
+        private int count;
+
+        /**
+         * Constructeur d'une apparition de particules.
+         *
+         * @param shape La forme des particules.
+         * @param x La coordonnée X des particules.
+         * @param y La coordonnée Y des particules.
+         * @param z La coordonnée Z des particules.
+         * @param count Le nombre de particules.
+         */
+        Spawn(Shape shape, double x, double y, double z, int count) {
+            this.shape = shape;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.count = count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Spawn)) return false;
+            Spawn other = (Spawn) o;
+            return Double.compare(x, other.x) == 0
+                    && Double.compare(y, other.y) == 0
+                    && Double.compare(z, other.z) == 0
+                    && shape.equals(other.shape);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = shape.hashCode();
+            result = 31 * result + Double.hashCode(x);
+            result = 31 * result + Double.hashCode(y);
+            result = 31 * result + Double.hashCode(z);
+            return result;
+        }
+    }
+
+    /**
+     * Génération de particules liée au lot de son tick.
+     */
+    final class Generation implements Runnable {
+        private final Batch batch;
+        private final Runnable generation;
+
+        private Generation(Batch batch, Runnable generation) {
+            this.batch = batch;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            GENERATING.set(batch);
+            try {
+                generation.run();
+            } finally {
+                GENERATING.remove();
+                release(batch);
+            }
+        }
+
+        /**
+         * Abandonne la génération sans l'exécuter, lorsque les threads de particules sont en retard.
+         */
+        void discard() {
+            release(batch);
+        }
+    }
+
+    /**
+     * Paquets d'un tick. Le lot compte une référence tant qu'il est ouvert, plus une par génération en cours.
+     */
+    private static final class Batch {
+        private final Map<UUID, Outbox> outboxes = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private Outbox getOutbox(Player player) {
+            return outboxes.computeIfAbsent(player.getUniqueId(), id -> new Outbox(player));
+        }
+    }
+
+    /**
+     * Paquets en attente pour un joueur dans un lot.
+     */
+    private static final class Outbox {
+        private final Player player;
+        private final Map<Spawn, Spawn> spawns = new LinkedHashMap<>();
+        private final List<PacketContainer> packets = new ArrayList<>();
+
+        private Outbox(Player player) {
+            this.player = player;
+        }
+
+        private synchronized void add(Spawn spawn) {
+            Spawn existing = spawns.putIfAbsent(spawn, spawn);
+            if (existing != null) {
+                existing.count += spawn.count;
+            }
+        }
+
+        private synchronized void add(PacketContainer packet) {
+            packets.add(packet);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package fr.hoxys.plugin.atmosforge.integration;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.ParticleCuller;
+import fr.hoxys.plugin.atmosforge.engine.ParticleEmitter;
+import fr.hoxys.plugin.atmosforge.engine.ParticlePriority;
+import fr.hoxys.plugin.atmosforge.engine.PlayerPositionCache;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
 import com.comphenix.protocol.PacketType;
@@ -9,25 +13,81 @@ import com.comphenix.protocol.ProtocolManager;
 import com.comphenix.protocol.events.PacketAdapter;
 import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
-import com.comphenix.protocol.wrappers.EnumWrappers.Particle;
+import com.comphenix.protocol.wrappers.EnumWrappers;
 
-import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
 import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 
-import java.util.Random;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
  * Classe d'intégration avec ProtocolLib.
  * Permet de créer des effets visuels avancés pour les différents types de météo.
+ * <p>
+ * Sur le thread principal, chaque effet ne fait que demander son budget de particules et relever
+ * la position du joueur. Le calcul des positions, la construction des paquets et leur envoi sont
+ * réalisés par un groupe de threads dédié. Lorsque ce groupe prend du retard, les effets les plus
+ * anciens en attente sont abandonnés : une image de pluie périmée n'a plus d'intérêt.
+ * <p>
+ * Avant d'être envoyées, les particules qu'un joueur ne peut pas voir (derrière lui, trop loin ou sous le terrain)
+ * sont éliminées par le {@link ParticleCuller}.
+ * <p>
+ * Les paquets générés ne partent pas immédiatement : ceux d'un même joueur, particules et sons du
+ * {@link fr.hoxys.plugin.atmosforge.engine.SoundBus}, sont regroupés par un {@link PacketBundler}
+ * et envoyés ensemble une fois par tick.
+ * <p>
+ * L'origine des effets célestes est alignée sur une grille : les joueurs voisins voient alors la même image
+ * au même endroit, dont les paquets sont construits une seule fois et partagés par tous ces joueurs.
  */
 public class ProtocolLibHook {
 
+    // Nombre maximal d'effets en attente de génération
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // Nombre de cases par côté de la grille dans laquelle sont réparties les précipitations et le brouillard
+    private static final int SCATTER_CELLS = 3;
+
+    // Côté de la grille sur laquelle est alignée l'origine des effets célestes, en blocs
+    private static final double SKY_ANCHOR_GRID = 4.0;
+
+    // Nombre de ticks sans demande après lequel les paquets d'une image céleste sont oubliés
+    private static final long FRAME_PACKETS_TTL = 5;
+
+    // Bloc des particules de tempête de sable, partagé pour que les apparitions identiques restent fusionnables
+    private static final BlockData SAND = Material.SAND.createBlockData();
+
     private final Main plugin;
     private final Logger logger;
     private ProtocolManager protocolManager;
-    private final Random random;
+
+    // Threads qui génèrent et envoient les paquets de particules
+    private final ThreadPoolExecutor particleExecutor;
+
+    // Paquets en attente de chaque joueur, envoyés une fois par tick
+    private PacketBundler bundler;
+
+    // Un paquet de son n'a pas pu être construit : les sons sont joués par Bukkit
+    private volatile boolean soundPacketsFailed;
+
+    // Animations précalculées des effets célestes, communes à tous les joueurs
+    private final Map<WeatherType, SkyAnimation> skyAnimations;
+
+    // Paquets des images célestes affichées, par image et par origine, lus et modifiés par le thread principal
+    private final Map<FrameKey, FramePackets> framePackets;
 
     /**
      * Constructeur de l'intégration ProtocolLib.
@@ -37,7 +97,26 @@ public class ProtocolLibHook {
     public ProtocolLibHook(Main plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.random = new Random();
+
+        int threads = Math.max(1, plugin.getConfigManager().getConfig().getInt("effects.particle_threads", 2));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.particleExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "AtmosForge-Particles-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, ProtocolLibHook::discardOldest);
+
+        // Précalculer les images clés des effets célestes
+        int keyframes = Math.max(1, plugin.getConfigManager().getConfig().getInt("effects.sky_keyframes", 32));
+        this.skyAnimations = new EnumMap<>(WeatherType.class);
+        for (WeatherType weatherType : WeatherType.values()) {
+            SkyAnimation animation = SkyAnimation.forWeather(weatherType, keyframes);
+            if (animation != null) {
+                skyAnimations.put(weatherType, animation);
+            }
+        }
+        this.framePackets = new HashMap<>();
     }
 
     /**
@@ -45,11 +124,44 @@ public class ProtocolLibHook {
      */
     public void initialize() {
         protocolManager = ProtocolLibrary.getProtocolManager();
+        bundler = new PacketBundler(protocolManager, logger);
 
         // Enregistrer les écouteurs de paquets si nécessaire
         registerPacketListeners();
 
-        logger.info("ProtocolLib integration initialized.");
+        // Fermer le lot du tick une fois tous les effets exécutés et les sons du bus ajoutés, le bus étant enregistré avant
+        plugin.getTickEngine().runAtEndOfTick(bundler::endTick);
+
+        // Oublier les paquets des images célestes qui ne sont plus affichées
+        plugin.getTickEngine().runRepeating(this::evictFramePackets, FRAME_PACKETS_TTL, FRAME_PACKETS_TTL);
+
+        logger.info("ProtocolLib integration initialized with " + particleExecutor.getCorePoolSize() + " particle threads.");
+    }
+
+    /**
+     * Arrête les threads de particules. Les effets en attente sont abandonnés.
+     */
+    public void shutdown() {
+        particleExecutor.shutdownNow();
+        if (bundler != null) {
+            bundler.shutdown();
+        }
+        try {
+            if (!particleExecutor.awaitTermination(2, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for particle threads to stop.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtient le nombre d'effets en attente de génération.
+     *
+     * @return Le nombre d'effets en attente.
+     */
+    public int getPendingEffectCount() {
+        return particleExecutor.getQueue().size();
     }
 
     /**
@@ -111,66 +223,110 @@ public class ProtocolLibHook {
     }
 
     /**
-     * Envoie un paquet de particules à un joueur.
+     * Met en attente l'envoi de particules à un joueur. Les particules sont envoyées avec les autres
+     * paquets du joueur lors du prochain envoi groupé ; les apparitions identiques sont fusionnées.
+     * Peut être appelé depuis n'importe quel thread.
      *
-     * @param player Le joueur auquel envoyer le paquet.
+     * @param player Le joueur auquel envoyer les particules.
      * @param particle Le type de particule.
-     * @param location L'emplacement des particules.
+     * @param x La coordonnée X des particules.
+     * @param y La coordonnée Y des particules.
+     * @param z La coordonnée Z des particules.
      * @param count Le nombre de particules.
      * @param offsetX Le décalage X.
      * @param offsetY Le décalage Y.
      * @param offsetZ Le décalage Z.
      * @param speed La vitesse des particules.
-     * @param data Les données supplémentaires (dépend du type de particule).
+     * @param data Les données de la particule, du type {@link Particle#getDataType()}, ou null si elle n'en a pas.
+     */
+    public void sendParticlePacket(Player player, Particle particle, double x, double y, double z, int count,
+                                   float offsetX, float offsetY, float offsetZ, float speed, Object data) {
+        if (bundler == null) return;
+
+        PacketBundler.Shape shape = new PacketBundler.Shape(particle, offsetX, offsetY, offsetZ, speed, data);
+        bundler.spawn(player, new PacketBundler.Spawn(shape, x, y, z, count));
+    }
+
+    /**
+     * Met en attente un son pour un joueur, dans le même paquet groupé que ses particules.
+     * Le son suit le joueur, comme {@link Player#playSound(org.bukkit.entity.Entity, Sound, float, float)}.
+     * Appelé depuis le thread principal.
+     *
+     * @param player Le joueur qui entend le son.
+     * @param sound Le son.
+     * @param volume Le volume du son.
+     * @param pitch La hauteur du son.
+     * @return true si le son a été mis en attente, false s'il doit être joué autrement.
      */
-    public void sendParticlePacket(Player player, Particle particle, Location location, int count,
-                                   float offsetX, float offsetY, float offsetZ, float speed, int[] data) {
-        if (protocolManager == null) return;
+    public boolean sendSoundPacket(Player player, Sound sound, float volume, float pitch) {
+        if (bundler == null || soundPacketsFailed) return false;
 
+        PacketContainer packet;
         try {
-            PacketContainer packet = protocolManager.createPacket(PacketType.Play.Server.WORLD_PARTICLES);
-
-            // Définir les données du paquet
-            packet.getParticles().write(0, particle);
-            packet.getBooleans().write(0, true); // Longue distance
-            packet.getFloat().write(0, (float) location.getX());
-            packet.getFloat().write(1, (float) location.getY());
-            packet.getFloat().write(2, (float) location.getZ());
-            packet.getFloat().write(3, offsetX);
-            packet.getFloat().write(4, offsetY);
-            packet.getFloat().write(5, offsetZ);
-            packet.getFloat().write(6, speed);
-            packet.getIntegers().write(0, count);
-
-            // Envoyer le paquet
-            protocolManager.sendServerPacket(player, packet);
-        } catch (Exception e) {
-            logger.warning("Failed to send particle packet: " + e.getMessage());
+            packet = protocolManager.createPacket(PacketType.Play.Server.ENTITY_SOUND);
+            packet.getSoundEffects().write(0, sound);
+            packet.getSoundCategories().write(0, EnumWrappers.SoundCategory.MASTER);
+            packet.getIntegers().write(0, player.getEntityId());
+            packet.getFloat().write(0, volume);
+            packet.getFloat().write(1, pitch);
+            packet.getLongs().write(0, ThreadLocalRandom.current().nextLong());
+        } catch (RuntimeException e) {
+            // Disposition du paquet inconnue de cette version de ProtocolLib
+            soundPacketsFailed = true;
+            logger.warning("Failed to build sound packets, sounds will be played through Bukkit: " + e.getMessage());
+            return false;
         }
+
+        bundler.send(player, packet);
+        return true;
     }
 
     /**
-     * Crée des particules de pluie personnalisées autour d'un joueur.
+     * Confie la génération d'un effet aux threads de particules. La génération est liée au lot du tick en cours,
+     * qui attend sa fin avant d'être envoyé. Appelé depuis le thread principal.
      *
-     * @param player Le joueur autour duquel créer les particules.
-     * @param intensity L'intensité des particules (nombre de particules).
+     * @param generation La génération des particules, qui ne doit lire aucun état du monde.
      */
-    public void createRainEffect(Player player, int intensity) {
-        Location playerLoc = player.getLocation();
+    private void submit(Runnable generation) {
+        PacketBundler.Generation bound = bundler.bind(generation);
+        try {
+            particleExecutor.execute(bound);
+        } catch (RejectedExecutionException ignored) {
+            // Le plugin est en cours d'arrêt
+            bound.discard();
+        }
+    }
 
-        // Créer des particules de pluie dans un rayon autour du joueur
-        for (int i = 0; i < intensity; i++) {
-            double x = playerLoc.getX() + (random.nextDouble() * 30 - 15);
-            double z = playerLoc.getZ() + (random.nextDouble() * 30 - 15);
-            double y = playerLoc.getY() + 10 + random.nextDouble() * 5;
+    /**
+     * Abandonne la plus ancienne génération en attente pour faire place à une nouvelle :
+     * une image de pluie périmée n'a plus d'intérêt. Le lot de la génération abandonnée n'attend plus sa fin.
+     */
+    private static void discardOldest(Runnable generation, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            discard(generation);
+            return;
+        }
 
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
+        discard(executor.getQueue().poll());
+        executor.execute(generation);
+    }
 
-            // Envoyer un paquet de particules de goutte d'eau
-            sendParticlePacket(player, Particle.WATER_DROP, particleLoc, 1, 0, 0, 0, 0, null);
+    private static void discard(Runnable generation) {
+        if (generation instanceof PacketBundler.Generation) {
+            ((PacketBundler.Generation) generation).discard();
         }
     }
 
+    /**
+     * Crée des particules de pluie personnalisées autour d'un joueur.
+     *
+     * @param player Le joueur autour duquel créer les particules.
+     * @param intensity L'intensité des particules (nombre de particules).
+     */
+    public void createRainEffect(Player player, int intensity) {
+        createPrecipitationEffect(player, intensity, Particle.RAIN);
+    }
+
     /**
      * Crée des particules de neige personnalisées autour d'un joueur.
      *
@@ -178,19 +334,24 @@ public class ProtocolLibHook {
      * @param intensity L'intensité des particules (nombre de particules).
      */
     public void createSnowEffect(Player player, int intensity) {
-        Location playerLoc = player.getLocation();
+        createPrecipitationEffect(player, intensity, Particle.ITEM_SNOWBALL);
+    }
 
-        // Créer des particules de neige dans un rayon autour du joueur
-        for (int i = 0; i < intensity; i++) {
-            double x = playerLoc.getX() + (random.nextDouble() * 30 - 15);
-            double z = playerLoc.getZ() + (random.nextDouble() * 30 - 15);
-            double y = playerLoc.getY() + 10 + random.nextDouble() * 5;
+    /**
+     * Crée des précipitations tombant dans un rayon autour d'un joueur.
+     *
+     * @param player Le joueur autour duquel créer les particules.
+     * @param intensity Le nombre de particules souhaité.
+     * @param particle Le type de particule.
+     */
+    private void createPrecipitationEffect(Player player, int intensity, Particle particle) {
+        int count = plugin.getParticleBudget().request(player, intensity, ParticlePriority.NORMAL, 0.0);
+        if (count == 0) return;
 
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
 
-            // Envoyer un paquet de particules de neige
-            sendParticlePacket(player, Particle.SNOW_SHOVEL, particleLoc, 1, 0, 0, 0, 0, null);
-        }
+        // Dans un rayon de 15 blocs, entre 10 et 15 blocs au-dessus du joueur
+        sendScattered(player, particle, count, position.getX(), position.getY() + 12.5, position.getZ(), 15, 1.25f);
     }
 
     /**
@@ -199,18 +360,47 @@ public class ProtocolLibHook {
      * @param player Le joueur autour duquel créer les particules.
      */
     public void createFogEffect(Player player) {
-        Location playerLoc = player.getLocation();
+        int count = plugin.getParticleBudget().request(player, 30, ParticlePriority.LOW, 0.0);
+        if (count == 0) return;
 
-        // Créer des particules de brouillard dans un rayon autour du joueur
-        for (int i = 0; i < 30; i++) {
-            double x = playerLoc.getX() + (random.nextDouble() * 20 - 10);
-            double z = playerLoc.getZ() + (random.nextDouble() * 20 - 10);
-            double y = playerLoc.getY() + random.nextDouble() * 4 - 1;
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
 
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
+        // Dans un rayon de 10 blocs, à hauteur du joueur
+        sendScattered(player, Particle.CLOUD, count, position.getX(), position.getY() + 1, position.getZ(), 10, 1f);
+    }
 
-            // Envoyer un paquet de particules de nuage
-            sendParticlePacket(player, Particle.CLOUD, particleLoc, 1, 0.5f, 0.1f, 0.5f, 0, null);
+    /**
+     * Répartit des particules dans un carré autour d'un point, en une apparition par case d'une grille.
+     * Le client disperse lui-même les particules de chaque apparition selon une loi normale dont l'écart type
+     * est le décalage ; les cases que le joueur ne peut pas voir ne sont pas envoyées.
+     *
+     * @param player Le joueur qui voit les particules.
+     * @param particle Le type de particule.
+     * @param count Le nombre total de particules.
+     * @param centerX La coordonnée X du centre du carré.
+     * @param centerY La coordonnée Y du centre du carré.
+     * @param centerZ La coordonnée Z du centre du carré.
+     * @param radius Le demi-côté du carré.
+     * @param offsetY La dispersion verticale.
+     */
+    private void sendScattered(Player player, Particle particle, int count,
+                               double centerX, double centerY, double centerZ, double radius, float offsetY) {
+        ParticleCuller culler = plugin.getParticleCuller();
+        ParticleCuller.View view = culler.view(player);
+        double cellSize = radius * 2 / SCATTER_CELLS;
+        float offset = (float) (cellSize / 4);
+        int cells = SCATTER_CELLS * SCATTER_CELLS;
+
+        for (int cell = 0; cell < cells; cell++) {
+            // Partager les particules entre les cases, sans en perdre à l'arrondi
+            int cellCount = count * (cell + 1) / cells - count * cell / cells;
+            if (cellCount == 0) continue;
+
+            double x = centerX - radius + cellSize * (cell % SCATTER_CELLS + 0.5);
+            double z = centerZ - radius + cellSize * (cell / SCATTER_CELLS + 0.5);
+            if (culler.isVisibleThroughTerrain(view, x, centerY, z, cellCount)) {
+                sendParticlePacket(player, particle, x, centerY, z, cellCount, offset, offsetY, offset, 0, null);
+            }
         }
     }
 
@@ -220,43 +410,7 @@ public class ProtocolLibHook {
      * @param player Le joueur pour lequel créer l'arc-en-ciel.
      */
     public void createRainbowEffect(Player player) {
-        Location playerLoc = player.getLocation();
-
-        // Déterminer la direction que le joueur regarde
-        double yaw = Math.toRadians(playerLoc.getYaw());
-        double dirX = -Math.sin(yaw);
-        double dirZ = Math.cos(yaw);
-
-        // Créer un arc-en-ciel à distance
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j < 30; j++) {
-                // Calcul de position en arc
-                double angle = j * (Math.PI / 30);
-                double height = Math.sin(angle) * 20;
-                double width = Math.cos(angle) * 20;
-
-                double x = playerLoc.getX() + dirX * 50 + width;
-                double z = playerLoc.getZ() + dirZ * 50;
-                double y = playerLoc.getY() + height + 10 + i * 2;
-
-                Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-
-                // Couleurs de l'arc-en-ciel
-                Particle particle;
-                switch (i) {
-                    case 0: particle = Particle.REDSTONE; break; // Rouge
-                    case 1: particle = Particle.FLAME; break; // Orange
-                    case 2: particle = Particle.VILLAGER_HAPPY; break; // Jaune
-                    case 3: particle = Particle.SLIME; break; // Vert
-                    case 4: particle = Particle.DRIP_WATER; break; // Bleu
-                    case 5: particle = Particle.SPELL_WITCH; break; // Indigo
-                    default: particle = Particle.PORTAL; break; // Violet
-                }
-
-                // Envoyer les particules
-                sendParticlePacket(player, particle, particleLoc, 1, 0, 0, 0, 0, null);
-            }
-        }
+        createSkyEffect(player, WeatherType.RAINBOW);
     }
 
     /**
@@ -265,54 +419,128 @@ public class ProtocolLibHook {
      * @param player Le joueur pour lequel créer l'aurore.
      */
     public void createAuroraEffect(Player player) {
-        Location playerLoc = player.getLocation();
-
-        // Créer des ondulations d'aurore
-        for (int wave = 0; wave < 3; wave++) {
-            for (int i = 0; i < 50; i++) {
-                double angle = i * (Math.PI * 2 / 50);
-                double distance = 30 + wave * 10;
-                double waveHeight = Math.sin(angle * 4 + System.currentTimeMillis() / 1000.0) * 5;
-
-                double x = playerLoc.getX() + Math.cos(angle) * distance;
-                double z = playerLoc.getZ() + Math.sin(angle) * distance;
-                double y = playerLoc.getY() + 20 + waveHeight + wave * 3;
+        createSkyEffect(player, WeatherType.AURORA);
+    }
 
-                Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
+    /**
+     * Crée l'effet céleste d'un type de météo pour un joueur, en jouant l'image clé du tick courant.
+     *
+     * @param player Le joueur qui voit l'effet.
+     * @param weatherType Le type de météo.
+     */
+    public void createSkyEffect(Player player, WeatherType weatherType) {
+        SkyAnimation animation = skyAnimations.get(weatherType);
+        if (animation == null) return;
+
+        // Ne garder que les points accordés par le budget
+        int granted = plugin.getParticleBudget().request(player, animation.getPointCount(), ParticlePriority.LOW, animation.getDistance());
+        if (granted == 0) return;
+
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        double originX = position.getX();
+        double originY = position.getY();
+        double originZ = position.getZ();
+
+        if (animation.isFacing()) {
+            // Placer le centre de l'effet à 50 blocs dans la direction que le joueur regarde
+            double yaw = Math.toRadians(position.getYaw());
+            originX -= Math.sin(yaw) * 50;
+            originZ += Math.cos(yaw) * 50;
+        }
 
-                // Alterner entre vert et bleu pour l'aurore
-                Particle particle = (i % 2 == 0) ? Particle.SPELL_MOB : Particle.SPELL_INSTANT;
+        // Aligner l'origine sur la grille, pour partager les paquets de l'image avec les joueurs voisins
+        long tick = plugin.getTickEngine().getCurrentTick();
+        EffectFrame frame = animation.frameAt(tick);
+        FrameKey key = new FrameKey(frame, Math.round(originX / SKY_ANCHOR_GRID),
+                Math.round(originY / SKY_ANCHOR_GRID), Math.round(originZ / SKY_ANCHOR_GRID));
+        FramePackets packets = framePackets.computeIfAbsent(key, k -> new FramePackets(frame,
+                k.anchorX() * SKY_ANCHOR_GRID, k.anchorY() * SKY_ANCHOR_GRID, k.anchorZ() * SKY_ANCHOR_GRID));
+        packets.markUsed(tick);
+
+        ParticleCuller.View view = plugin.getParticleCuller().view(player);
+        submit(() -> sendFrame(player, view, packets, granted));
+    }
 
-                // Envoyer les particules
-                sendParticlePacket(player, particle, particleLoc, 1, 0, 0, 0, 0, null);
+    /**
+     * Envoie une image d'effet céleste à un joueur, avec les paquets partagés de l'image.
+     *
+     * @param player Le joueur qui voit l'effet.
+     * @param view Le regard du joueur, pour éliminer les points qu'il ne peut pas voir.
+     * @param packets Les paquets de l'image, construits lors du premier envoi.
+     * @param granted Le nombre de points accordés par le budget, répartis uniformément sur l'image.
+     */
+    private void sendFrame(Player player, ParticleCuller.View view, FramePackets packets, int granted) {
+        ParticleCuller culler = plugin.getParticleCuller();
+        PacketContainer[] points = packets.getPackets(bundler, logger);
+        EffectFrame frame = packets.getFrame();
+        double stride = (double) points.length / granted;
+        for (double point = 0; point < points.length; point += stride) {
+            int index = (int) point;
+            if (points[index] == null) continue;
+
+            double x = packets.getOriginX() + frame.getX(index);
+            double y = packets.getOriginY() + frame.getY(index);
+            double z = packets.getOriginZ() + frame.getZ(index);
+            if (culler.isVisible(view, x, y, z)) {
+                bundler.send(player, points[index]);
             }
         }
     }
 
+    /**
+     * Oublie les paquets des images célestes qui n'ont plus été demandées depuis quelques ticks.
+     * Appelé depuis le thread principal.
+     */
+    private void evictFramePackets() {
+        long oldest = plugin.getTickEngine().getCurrentTick() - FRAME_PACKETS_TTL;
+        framePackets.values().removeIf(packets -> packets.getLastUsedTick() < oldest);
+    }
+
+    /**
+     * Image céleste placée sur une case de la grille d'alignement.
+     *
+     * @param frame L'image, comparée par identité.
+     * @param anchorX La case en X.
+     * @param anchorY La case en Y.
+     * @param anchorZ La case en Z.
+     */
+    private record FrameKey(EffectFrame frame, long anchorX, long anchorY, long anchorZ) {
+    }
+
     /**
      * Crée un effet visuel pour une tempête de sable.
      *
      * @param player Le joueur pour lequel créer la tempête.
      */
     public void createSandstormEffect(Player player) {
-        Location playerLoc = player.getLocation();
-
-        // Créer des particules de sable tourbillonnantes
-        for (int i = 0; i < 40; i++) {
-            double radius = 15;
-            double angle = random.nextDouble() * Math.PI * 2;
-            double height = random.nextDouble() * 10;
-
-            double x = playerLoc.getX() + Math.cos(angle) * radius;
-            double z = playerLoc.getZ() + Math.sin(angle) * radius;
-            double y = playerLoc.getY() + height;
-
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-
-            // Envoyer des particules de bloc de sable
-            sendParticlePacket(player, Particle.BLOCK_CRACK, particleLoc,
-                    5, 0.5f, 0.5f, 0.5f, 0.2f, new int[]{12}); // 12 = ID du bloc de sable
-        }
+        // Créer des particules de sable tourbillonnantes, 5 particules par paquet
+        int packets = plugin.getParticleBudget().request(player, 40 * 5, ParticlePriority.NORMAL, 0.0) / 5;
+        if (packets == 0) return;
+
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        double originX = position.getX();
+        double originY = position.getY();
+        double originZ = position.getZ();
+        ParticleCuller culler = plugin.getParticleCuller();
+        ParticleCuller.View view = culler.view(player);
+
+        submit(() -> {
+            SplittableRandom random = ParticleEmitter.random();
+            for (int i = 0; i < packets; i++) {
+                double radius = 15;
+                double angle = random.nextDouble() * Math.PI * 2;
+                double height = random.nextDouble() * 10;
+
+                double x = originX + Math.cos(angle) * radius;
+                double z = originZ + Math.sin(angle) * radius;
+                double y = originY + height;
+                if (!culler.isVisible(view, x, y, z, 5)) continue;
+
+                // Envoyer des particules de bloc de sable
+                sendParticlePacket(player, Particle.BLOCK, x, y, z,
+                        5, 0.5f, 0.5f, 0.5f, 0.2f, SAND);
+            }
+        });
     }
 
     /**
@@ -321,23 +549,33 @@ public class ProtocolLibHook {
      * @param player Le joueur pour lequel créer le blizzard.
      */
     public void createBlizzardEffect(Player player) {
-        Location playerLoc = player.getLocation();
-
-        // Créer des particules de neige horizontales
-        for (int i = 0; i < 50; i++) {
-            double radius = 20;
-            double angle = random.nextDouble() * Math.PI * 2;
-            double height = random.nextDouble() * 10;
-
-            double x = playerLoc.getX() + Math.cos(angle) * radius;
-            double z = playerLoc.getZ() + Math.sin(angle) * radius;
-            double y = playerLoc.getY() + height;
-
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-
-            // Envoyer des particules de neige avec vitesse horizontale
-            sendParticlePacket(player, Particle.SNOW_SHOVEL, particleLoc,
-                    3, 0.2f, 0.1f, 0.2f, 0.5f, null);
-        }
+        // Créer des particules de neige horizontales, 3 particules par paquet
+        int packets = plugin.getParticleBudget().request(player, 50 * 3, ParticlePriority.NORMAL, 0.0) / 3;
+        if (packets == 0) return;
+
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        double originX = position.getX();
+        double originY = position.getY();
+        double originZ = position.getZ();
+        ParticleCuller culler = plugin.getParticleCuller();
+        ParticleCuller.View view = culler.view(player);
+
+        submit(() -> {
+            SplittableRandom random = ParticleEmitter.random();
+            for (int i = 0; i < packets; i++) {
+                double radius = 20;
+                double angle = random.nextDouble() * Math.PI * 2;
+                double height = random.nextDouble() * 10;
+
+                double x = originX + Math.cos(angle) * radius;
+                double z = originZ + Math.sin(angle) * radius;
+                double y = originY + height;
+                if (!culler.isVisible(view, x, y, z, 3)) continue;
+
+                // Envoyer des particules de neige avec vitesse horizontale
+                sendParticlePacket(player, Particle.ITEM_SNOWBALL, x, y, z,
+                        3, 0.2f, 0.1f, 0.2f, 0.5f, null);
+            }
+        });
     }
 }
\ No newline at end of file
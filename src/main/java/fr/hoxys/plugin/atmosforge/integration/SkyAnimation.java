@@ -0,0 +1,212 @@
+package fr.hoxys.plugin.atmosforge.integration;
+
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+
+import org.bukkit.Color;
+import org.bukkit.Particle;
+
+/**
+ * Animation en boucle d'un effet céleste, précalculée en images clés.
+ * <p>
+ * Toutes les images d'une boucle sont calculées une seule fois, à la création de l'animation ;
+ * la lecture se contente ensuite de choisir l'image correspondant au tick courant. Les effets
+ * immobiles n'ont qu'une image.
+ */
+final class SkyAnimation {
+
+    // Couleurs de l'arc-en-ciel, de l'extérieur vers l'intérieur
+    private static final PacketBundler.Shape[] RAINBOW_SHAPES = {
+            PacketBundler.Shape.of(Particle.DUST, new Particle.DustOptions(Color.RED, 1.0f)), // Rouge
+            PacketBundler.Shape.of(Particle.FLAME), // Orange
+            PacketBundler.Shape.of(Particle.HAPPY_VILLAGER), // Jaune
+            PacketBundler.Shape.of(Particle.ITEM_SLIME), // Vert
+            PacketBundler.Shape.of(Particle.DRIPPING_WATER), // Bleu
+            PacketBundler.Shape.of(Particle.WITCH), // Indigo
+            PacketBundler.Shape.of(Particle.PORTAL) // Violet
+    };
+
+    // Arc lunaire, presque blanc
+    private static final PacketBundler.Shape[] MOONBOW_SHAPES = {
+            PacketBundler.Shape.of(Particle.END_ROD),
+            PacketBundler.Shape.of(Particle.DUST, new Particle.DustOptions(Color.WHITE, 1.0f)),
+            PacketBundler.Shape.of(Particle.END_ROD)
+    };
+
+    // Alterner entre vert et bleu pour l'aurore
+    private static final PacketBundler.Shape AURORA_GREEN = PacketBundler.Shape.of(Particle.DUST,
+            new Particle.DustOptions(Color.fromRGB(0x3CFF8C), 1.5f));
+    private static final PacketBundler.Shape AURORA_BLUE = PacketBundler.Shape.of(Particle.DUST,
+            new Particle.DustOptions(Color.fromRGB(0x46A0FF), 1.5f));
+
+    private static final PacketBundler.Shape GLOW = PacketBundler.Shape.of(Particle.END_ROD);
+    private static final PacketBundler.Shape SPARK = PacketBundler.Shape.of(Particle.FIREWORK);
+
+    // Durée d'une ondulation complète de l'aurore : sa phase avance d'un radian par seconde
+    private static final int AURORA_LOOP_TICKS = (int) Math.round(Math.PI * 2 * 20);
+
+    /**
+     * Calcul des positions d'une image.
+     */
+    private interface Geometry {
+
+        /**
+         * Remplit une image.
+         *
+         * @param frame L'image à remplir.
+         * @param progress L'avancement dans la boucle, entre 0 inclus et 1 exclu.
+         */
+        void fill(EffectFrame frame, double progress);
+    }
+
+    private final EffectFrame[] frames;
+    private final int loopTicks;
+    private final boolean facing;
+    private final double distance;
+
+    private SkyAnimation(int points, int keyframes, int loopTicks, boolean facing, double distance, Geometry geometry) {
+        // Plus d'images que de ticks par boucle ne serait jamais affiché
+        this.loopTicks = Math.max(1, loopTicks);
+        this.frames = new EffectFrame[Math.max(1, Math.min(keyframes, this.loopTicks))];
+        this.facing = facing;
+        this.distance = distance;
+
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new EffectFrame(points);
+            geometry.fill(frames[i], (double) i / frames.length);
+        }
+    }
+
+    /**
+     * Crée l'animation d'un type de météo.
+     *
+     * @param weatherType Le type de météo.
+     * @param keyframes Le nombre d'images par boucle des effets animés.
+     * @return L'animation, ou null si ce type de météo n'a pas d'effet céleste.
+     */
+    static SkyAnimation forWeather(WeatherType weatherType, int keyframes) {
+        switch (weatherType) {
+            case RAINBOW:
+                return new SkyAnimation(7 * 30, 1, 1, true, 50.0, (frame, progress) -> fillArc(frame, RAINBOW_SHAPES, 30, 20.0));
+            case MOONBOW:
+                return new SkyAnimation(3 * 30, 1, 1, true, 50.0, (frame, progress) -> fillArc(frame, MOONBOW_SHAPES, 30, 16.0));
+            case AURORA:
+                return new SkyAnimation(3 * 50, keyframes, AURORA_LOOP_TICKS, false, 40.0, SkyAnimation::fillAurora);
+            case HALO:
+                return new SkyAnimation(60, keyframes, 40, false, 25.0, SkyAnimation::fillHalo);
+            case SUNDOG:
+                return new SkyAnimation(2 * 12, 1, 1, true, 40.0, (frame, progress) -> fillSundogs(frame));
+            case LIGHT_PILLAR:
+                return new SkyAnimation(4 * 20, keyframes, 20, false, 20.0, SkyAnimation::fillPillars);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Arc vertical de bandes concentriques, centré devant le joueur.
+     */
+    private static void fillArc(EffectFrame frame, PacketBundler.Shape[] bands, int pointsPerBand, double radius) {
+        int point = 0;
+        for (int i = 0; i < bands.length; i++) {
+            for (int j = 0; j < pointsPerBand; j++, point++) {
+                // Calcul de position en arc
+                double angle = j * (Math.PI / pointsPerBand);
+                frame.set(point, Math.cos(angle) * radius, Math.sin(angle) * radius + 10 + i * 2, 0.0, bands[i]);
+            }
+        }
+    }
+
+    /**
+     * Trois rideaux ondulants autour du joueur. Leur phase fait un tour complet par boucle.
+     */
+    private static void fillAurora(EffectFrame frame, double progress) {
+        double phase = progress * Math.PI * 2;
+        int point = 0;
+        for (int wave = 0; wave < 3; wave++) {
+            for (int i = 0; i < 50; i++, point++) {
+                double angle = i * (Math.PI * 2 / 50);
+                double distance = 30 + wave * 10;
+                double waveHeight = Math.sin(angle * 4 + phase) * 5;
+
+                frame.set(point, Math.cos(angle) * distance, 20 + waveHeight + wave * 3, Math.sin(angle) * distance,
+                        (i % 2 == 0) ? AURORA_GREEN : AURORA_BLUE);
+            }
+        }
+    }
+
+    /**
+     * Anneau lumineux au-dessus du joueur, qui tourne lentement d'un point par boucle.
+     */
+    private static void fillHalo(EffectFrame frame, double progress) {
+        int points = frame.size();
+        for (int i = 0; i < points; i++) {
+            double angle = (i + progress) * (Math.PI * 2 / points);
+            frame.set(i, Math.cos(angle) * 12, 25, Math.sin(angle) * 12, GLOW);
+        }
+    }
+
+    /**
+     * Deux taches lumineuses allongées, de part et d'autre du point que regarde le joueur.
+     */
+    private static void fillSundogs(EffectFrame frame) {
+        int point = 0;
+        for (int side = -1; side <= 1; side += 2) {
+            for (int i = 0; i < 12; i++, point++) {
+                frame.set(point, side * 22 + (i % 3 - 1) * 0.5, 18 + i * 0.4, 0.0, (i % 2 == 0) ? GLOW : SPARK);
+            }
+        }
+    }
+
+    /**
+     * Quatre colonnes de lumière autour du joueur, dont les points montent d'un cran par boucle.
+     */
+    private static void fillPillars(EffectFrame frame, double progress) {
+        int point = 0;
+        for (int pillar = 0; pillar < 4; pillar++) {
+            double angle = pillar * (Math.PI / 2) + Math.PI / 4;
+            double x = Math.cos(angle) * 20;
+            double z = Math.sin(angle) * 20;
+            for (int i = 0; i < 20; i++, point++) {
+                frame.set(point, x, 2 + (i + progress) * 1.5, z, GLOW);
+            }
+        }
+    }
+
+    /**
+     * Obtient l'image à afficher lors d'un tick.
+     *
+     * @param tick Le tick courant du moteur.
+     * @return L'image correspondante.
+     */
+    EffectFrame frameAt(long tick) {
+        int index = (int) (Math.floorMod(tick, (long) loopTicks) * frames.length / loopTicks);
+        return frames[index];
+    }
+
+    /**
+     * Obtient le nombre de points de chaque image.
+     *
+     * @return Le nombre de points.
+     */
+    int getPointCount() {
+        return frames[0].size();
+    }
+
+    /**
+     * Vérifie si l'effet se place devant le joueur, dans la direction de son regard.
+     *
+     * @return true s'il suit le regard du joueur, false s'il est centré sur le joueur.
+     */
+    boolean isFacing() {
+        return facing;
+    }
+
+    /**
+     * Obtient la distance entre le joueur et l'effet, utilisée pour son niveau de détail.
+     *
+     * @return La distance en blocs.
+     */
+    double getDistance() {
+        return distance;
+    }
+}
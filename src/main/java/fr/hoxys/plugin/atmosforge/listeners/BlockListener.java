@@ -0,0 +1,61 @@
+package fr.hoxys.plugin.atmosforge.listeners;
+
+import fr.hoxys.plugin.atmosforge.Main;
+
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Écouteur des modifications de blocs, qui tient à jour le cache d'exposition au ciel.
+ */
+public class BlockListener implements Listener {
+
+    private final Main plugin;
+
+    public BlockListener(Main plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gère l'événement quand un bloc est posé.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Gère l'événement quand un bloc est cassé.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Gère l'événement quand un bloc est mis à jour par la physique (chute, écoulement, explosion...).
+     * Cet événement est très fréquent : seule la colonne concernée est invalidée.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    /**
+     * Gère l'événement quand un chunk est déchargé.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        plugin.getSkyExposureCache().evictChunk(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    private void invalidate(Block block) {
+        plugin.getSkyExposureCache().invalidateColumn(block.getWorld(), block.getX(), block.getZ());
+    }
+}
@@ -42,6 +42,17 @@ public class PlayerListener implements Listener {
     public void onPlayerQuit(PlayerQuitEvent event) {
         // Annuler tous les effets météorologiques appliqués au joueur
         // Ceci est optionnel, car les tâches sont annulées automatiquement quand le joueur se déconnecte
+
+        // Oublier la position, l'environnement, l'exposition au ciel, le budget de particules et les sons en attente du joueur
+        plugin.getPlayerPositions().forget(event.getPlayer());
+        plugin.getPlayerEnvironments().forget(event.getPlayer());
+        plugin.getParticleBudget().forget(event.getPlayer());
+        plugin.getParticleCuller().forget(event.getPlayer());
+        plugin.getSoundBus().forget(event.getPlayer());
+
+        // Retirer les effets de potion accordés, pour ne pas les conserver jusqu'à la prochaine connexion
+        plugin.getPotionReconciler().forget(event.getPlayer());
+        plugin.getSkyExposureCache().forgetPlayer(event.getPlayer());
     }
 
     /**
@@ -24,7 +24,10 @@ public class WorldListener implements Listener {
      */
     @EventHandler
     public void onWorldInit(WorldInitEvent event) {
-        // Nous n'avons pas besoin de faire quoi que ce soit lors de l'initialisation
+        // Lire les données du monde pendant la préparation de ses chunks, avant WorldLoadEvent
+        if (plugin.getConfigManager().isWorldEnabled(event.getWorld().getName())) {
+            plugin.getWorldManager().preloadWorld(event.getWorld().getName());
+        }
     }
 
     /**
@@ -34,9 +37,8 @@ public class WorldListener implements Listener {
     public void onWorldLoad(WorldLoadEvent event) {
         // Vérifier si ce monde doit être activé pour AtmosForge
         if (plugin.getConfigManager().isWorldEnabled(event.getWorld().getName())) {
-            // Initialiser la météo et la saison pour ce monde
-            plugin.getWeatherManager().initializeWeather(event.getWorld());
-            plugin.getSeasonManager().initializeSeason(event.getWorld());
+            // Charger les données du monde et initialiser sa météo, sa saison et son temps
+            plugin.getWorldManager().getInitializedState(event.getWorld());
 
             plugin.getLogger().info("Initialized weather and season for newly loaded world: " +
                     event.getWorld().getName());
@@ -48,10 +50,15 @@ public class WorldListener implements Listener {
      */
     @EventHandler
     public void onWorldUnload(WorldUnloadEvent event) {
+        // Les cartes des hauteurs de ce monde ne recevront plus d'événements
+        plugin.getSkyExposureCache().evictWorld(event.getWorld());
+        plugin.getPlayerGrid().forgetWorld(event.getWorld());
+
         // Vérifier si ce monde était activé pour AtmosForge
         if (plugin.getConfigManager().isWorldEnabled(event.getWorld().getName())) {
-            // Sauvegarder les données de ce monde avant qu'il ne soit déchargé
-            plugin.getWorldManager().saveWorldData(event.getWorld().getName();
+            // Enregistrer l'état de ce monde seulement avant qu'il ne soit déchargé
+            plugin.getWeatherManager().checkpointWorld(event.getWorld());
+            plugin.getWorldManager().requestFlush();
 
             // Annuler tous les effets météorologiques pour ce monde
             plugin.getEffectManager().cancelWorldEffects(event.getWorld());
@@ -59,5 +66,8 @@ public class WorldListener implements Listener {
             plugin.getLogger().info("Saved data and cancelled effects for unloaded world: " +
                     event.getWorld().getName());
         }
+
+        // L'UUID de ce monde ne sera plus utilisé, même s'il est recréé sous le même nom
+        plugin.getWorldManager().forgetWorld(event.getWorld());
     }
 }
\ No newline at end of file
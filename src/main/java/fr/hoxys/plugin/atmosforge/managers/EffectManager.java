@@ -1,37 +1,50 @@
 package fr.hoxys.plugin.atmosforge.managers;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
+import fr.hoxys.plugin.atmosforge.engine.TickEngine;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.effects.EffectPlan;
 import fr.hoxys.plugin.atmosforge.models.effects.WeatherEffect;
 import fr.hoxys.plugin.atmosforge.models.effects.ParticleEffect;
 import fr.hoxys.plugin.atmosforge.models.effects.SoundEffect;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.UUID;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
  * Gestionnaire des effets météorologiques pour les joueurs et le monde.
+ * <p>
+ * Les définitions d'effets sont les {@link EffectPlan} partagés, un par type de météo, compilés au chargement.
+ * L'état d'exécution de chaque monde (météo et plan actifs, pas des pistes, tâches) est rangé dans des tableaux
+ * indexés par l'index dense du monde. Chaque monde reçoit ses tâches une seule fois, une par piste : ambiance et
+ * dangers du plan, particules dessinées par ProtocolLib, sons et effets sur les joueurs des météos sans plan.
+ * Elles sont ensuite replanifiées à chaque changement de météo, sans allocation.
  */
 public class EffectManager {
 
     private final Main plugin;
     private final Logger logger;
 
-    // Tâches d'effets par monde
-    private final Map<UUID, Set<BukkitTask>> worldEffectTasks;
+    // État d'exécution des effets, indexé par l'index dense des mondes
+    private World[] effectWorlds;
+    private WeatherType[] activeWeathers;
+    private EffectPlan[] activePlans;
+    private boolean[] planParticles;
+    private long[] ambienceSteps;
+    private long[] hazardSteps;
+
+    // Tâches réutilisées de chaque monde : pistes du plan, puis particules par paquets, sons et effets sans plan
+    private EffectTask[] ambienceTasks;
+    private EffectTask[] hazardTasks;
+    private EffectTask[] packetParticleTasks;
+    private EffectTask[] soundTasks;
+    private EffectTask[] playerTasks;
 
     // Intervalles de dégâts en ticks
     private int frostbiteDamageInterval;
@@ -40,7 +53,17 @@ public class EffectManager {
     public EffectManager(Main plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.worldEffectTasks = new HashMap<>();
+        this.effectWorlds = new World[4];
+        this.activeWeathers = new WeatherType[4];
+        this.activePlans = new EffectPlan[4];
+        this.planParticles = new boolean[4];
+        this.ambienceSteps = new long[4];
+        this.hazardSteps = new long[4];
+        this.ambienceTasks = new EffectTask[4];
+        this.hazardTasks = new EffectTask[4];
+        this.packetParticleTasks = new EffectTask[4];
+        this.soundTasks = new EffectTask[4];
+        this.playerTasks = new EffectTask[4];
 
         // Charger la configuration
         loadConfiguration();
@@ -65,7 +88,7 @@ public class EffectManager {
      * @param weatherType Le type de météo.
      */
     public void applyWeatherEffects(World world, WeatherType weatherType) {
-        UUID worldId = world.getUID();
+        int index = plugin.getWorldManager().getWorldIndex(world);
 
         // Annuler les tâches d'effets précédentes pour ce monde
         cancelWorldEffects(world);
@@ -76,113 +99,326 @@ public class EffectManager {
             return;
         }
 
-        // Créer un ensemble pour stocker les nouvelles tâches
-        Set<BukkitTask> tasks = new HashSet<>();
+        ensureCapacity(index);
+        effectWorlds[index] = world;
+        activeWeathers[index] = weatherType;
 
-        // Appliquer les effets de particules si disponibles
-        applyParticleEffects(world, weatherType, tasks);
+        // Appliquer les effets de particules dessinés par ProtocolLib si disponibles
+        boolean packetParticles = applyParticleEffects(index, weatherType);
+        int started = packetParticles ? 1 : 0;
 
-        // Appliquer les effets sonores si disponibles
-        applySoundEffects(world, weatherType, tasks);
+        EffectPlan plan = plugin.getEffectPlanLoader().getPlan(weatherType);
+        if (plan != null) {
+            // Jouer le plan compilé depuis les définitions de weathers/*.yml
+            started += applyEffectPlan(index, plan, !packetParticles);
+        } else {
+            // Appliquer les effets sonores si disponibles
+            started += applySoundEffects(index, weatherType);
 
-        // Appliquer les effets de potion/statut aux joueurs
-        applyPlayerEffects(world, weatherType, tasks);
+            // Appliquer les effets de potion/statut aux joueurs
+            started += applyPlayerEffects(index, weatherType);
+        }
 
-        // Stocker les tâches créées
-        worldEffectTasks.put(worldId, tasks);
+        logger.fine("Applied " + started + " weather effects for " + weatherType.getId() + " in world " + world.getName());
+    }
 
-        logger.fine("Applied " + tasks.size() + " weather effects for " + weatherType.getId() + " in world " + world.getName());
+    /**
+     * Joue le plan d'effets compilé d'un type de météo : une tâche adaptative pour l'ambiance,
+     * une tâche à intervalle fixe pour les dangers. Les tâches du monde sont créées lors de son premier plan,
+     * puis replanifiées au pas du nouveau plan.
+     *
+     * @param index L'index du monde.
+     * @param plan Le plan d'effets.
+     * @param particles Si les particules du plan doivent être émises, faux lorsque ProtocolLib les dessine déjà.
+     * @return Le nombre de tâches démarrées.
+     */
+    private int applyEffectPlan(int index, EffectPlan plan, boolean particles) {
+        activePlans[index] = plan;
+        planParticles[index] = particles;
+        ambienceSteps[index] = 0L;
+        hazardSteps[index] = 0L;
+
+        TickEngine engine = plugin.getTickEngine();
+        int started = 0;
+        EffectPlan.Track ambience = plan.getAmbience();
+        if (!ambience.isEmpty()) {
+            if (ambienceTasks[index] == null) {
+                ambienceTasks[index] = engine.runEffect(() -> runAmbience(index), 0L, ambience.getPeriod());
+            } else {
+                engine.reschedule(ambienceTasks[index], 0L, ambience.getPeriod());
+            }
+            started++;
+        }
+
+        EffectPlan.Track hazards = plan.getHazards();
+        if (!hazards.isEmpty()) {
+            if (hazardTasks[index] == null) {
+                hazardTasks[index] = engine.runRepeating(() -> runHazards(index), 0L, hazards.getPeriod());
+            } else {
+                engine.reschedule(hazardTasks[index], 0L, hazards.getPeriod());
+            }
+            started++;
+        }
+        return started;
     }
 
     /**
-     * Applique les effets de particules pour un type de météo.
+     * Joue un pas de la piste d'ambiance du plan actif d'un monde.
      *
-     * @param world Le monde auquel appliquer les effets.
+     * @param index L'index du monde.
+     */
+    private void runAmbience(int index) {
+        EffectPlan plan = activePlans[index];
+        if (plan != null) {
+            plan.getAmbience().run(plugin, effectWorlds[index], ambienceSteps[index]++, planParticles[index]);
+        }
+    }
+
+    /**
+     * Joue un pas de la piste des dangers du plan actif d'un monde.
+     *
+     * @param index L'index du monde.
+     */
+    private void runHazards(int index) {
+        EffectPlan plan = activePlans[index];
+        if (plan != null) {
+            plan.getHazards().run(plugin, effectWorlds[index], hazardSteps[index]++, true);
+        }
+    }
+
+    /**
+     * Arrête les effets actifs d'un monde, en conservant ses tâches pour la prochaine météo.
+     *
+     * @param index L'index du monde.
+     * @return true si des effets étaient actifs, false sinon.
+     */
+    private boolean stopWorldEffects(int index) {
+        if (index >= activeWeathers.length || activeWeathers[index] == null) {
+            return false;
+        }
+
+        cancelTask(ambienceTasks[index]);
+        cancelTask(hazardTasks[index]);
+        cancelTask(packetParticleTasks[index]);
+        cancelTask(soundTasks[index]);
+        cancelTask(playerTasks[index]);
+        activeWeathers[index] = null;
+        activePlans[index] = null;
+        effectWorlds[index] = null;
+        return true;
+    }
+
+    private static void cancelTask(EffectTask task) {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Agrandit les tableaux d'état des effets pour contenir un index de monde.
+     *
+     * @param index L'index du monde.
+     */
+    private void ensureCapacity(int index) {
+        if (index < activeWeathers.length) {
+            return;
+        }
+
+        int capacity = Math.max(activeWeathers.length * 2, index + 1);
+        effectWorlds = Arrays.copyOf(effectWorlds, capacity);
+        activeWeathers = Arrays.copyOf(activeWeathers, capacity);
+        activePlans = Arrays.copyOf(activePlans, capacity);
+        planParticles = Arrays.copyOf(planParticles, capacity);
+        ambienceSteps = Arrays.copyOf(ambienceSteps, capacity);
+        hazardSteps = Arrays.copyOf(hazardSteps, capacity);
+        ambienceTasks = Arrays.copyOf(ambienceTasks, capacity);
+        hazardTasks = Arrays.copyOf(hazardTasks, capacity);
+        packetParticleTasks = Arrays.copyOf(packetParticleTasks, capacity);
+        soundTasks = Arrays.copyOf(soundTasks, capacity);
+        playerTasks = Arrays.copyOf(playerTasks, capacity);
+    }
+
+    /**
+     * Applique les effets de particules dessinés par ProtocolLib pour un type de météo.
+     *
+     * @param index L'index du monde.
      * @param weatherType Le type de météo.
-     * @param tasks L'ensemble de tâches à mettre à jour.
+     * @return true si des particules sont dessinées par ProtocolLib, false sinon.
+     */
+    private boolean applyParticleEffects(int index, WeatherType weatherType) {
+        // Ces effets sont tous dessinés par paquets
+        if (!plugin.isProtocolLibEnabled()) {
+            return false;
+        }
+
+        // Déterminer l'intervalle des particules en fonction du type de météo
+        long interval;
+        switch (weatherType) {
+            case LIGHT_RAIN:
+            case MODERATE_RAIN:
+            case HEAVY_RAIN:
+            case DRIZZLE:
+            case SHOWER:
+            case LIGHT_SNOW:
+            case MODERATE_SNOW:
+            case HEAVY_SNOW:
+            case BLIZZARD:
+                interval = 5L; // Toutes les 5 ticks (1/4 de seconde)
+                break;
+
+            case FOG:
+            case MIST:
+            case FREEZING_FOG:
+            case AURORA:
+            case RAINBOW:
+            case MOONBOW:
+            case HALO:
+            case SUNDOG:
+            case LIGHT_PILLAR:
+                interval = 10L;
+                break;
+
+            default:
+                // Aucun effet de particule pour les autres types de météo
+                return false;
+        }
+
+        TickEngine engine = plugin.getTickEngine();
+        if (packetParticleTasks[index] == null) {
+            packetParticleTasks[index] = engine.runEffect(() -> runPacketParticles(index), 0L, interval);
+        } else {
+            engine.reschedule(packetParticleTasks[index], 0L, interval);
+        }
+        return true;
+    }
+
+    /**
+     * Dessine un pas des particules par paquets de la météo active d'un monde.
+     *
+     * @param index L'index du monde.
      */
-    private void applyParticleEffects(World world, WeatherType weatherType, Set<BukkitTask> tasks) {
-        // Déterminer quels effets de particules appliquer en fonction du type de météo
+    private void runPacketParticles(int index) {
+        WeatherType weatherType = activeWeathers[index];
+        if (weatherType == null) {
+            return;
+        }
+
         switch (weatherType) {
             case LIGHT_RAIN:
             case MODERATE_RAIN:
             case HEAVY_RAIN:
             case DRIZZLE:
             case SHOWER:
-                // Particules de pluie avec intensité variable
-                BukkitTask rainTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Créer des particules de pluie autour du joueur
-                        // L'intensité dépend du type de météo
-                        int intensity = 5; // Par défaut pour LIGHT_RAIN
-                        if (weatherType == WeatherType.MODERATE_RAIN) intensity = 10;
-                        else if (weatherType == WeatherType.HEAVY_RAIN || weatherType == WeatherType.SHOWER) intensity = 20;
-                        else if (weatherType == WeatherType.DRIZZLE) intensity = 3;
-
-                        // Utiliser ProtocolLib pour les effets de particules personnalisés si disponible
-                        if (plugin.isProtocolLibEnabled()) {
-                            spawnCustomRainParticles(player, intensity);
-                        }
-                    }
-                }, 0L, 5L); // Exécuter toutes les 5 ticks (1/4 de seconde)
-                tasks.add(rainTask);
+                // Particules de pluie, l'intensité dépend du type de météo
+                int rainIntensity = 5; // Par défaut pour LIGHT_RAIN
+                if (weatherType == WeatherType.MODERATE_RAIN) rainIntensity = 10;
+                else if (weatherType == WeatherType.HEAVY_RAIN || weatherType == WeatherType.SHOWER) rainIntensity = 20;
+                else if (weatherType == WeatherType.DRIZZLE) rainIntensity = 3;
+
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    spawnCustomRainParticles(player, rainIntensity);
+                }
                 break;
 
             case LIGHT_SNOW:
             case MODERATE_SNOW:
             case HEAVY_SNOW:
             case BLIZZARD:
-                // Particules de neige avec intensité variable
-                BukkitTask snowTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Créer des particules de neige autour du joueur
-                        // L'intensité dépend du type de météo
-                        int intensity = 5; // Par défaut pour LIGHT_SNOW
-                        if (weatherType == WeatherType.MODERATE_SNOW) intensity = 10;
-                        else if (weatherType == WeatherType.HEAVY_SNOW) intensity = 15;
-                        else if (weatherType == WeatherType.BLIZZARD) intensity = 25;
-
-                        // Utiliser ProtocolLib pour les effets de particules personnalisés si disponible
-                        if (plugin.isProtocolLibEnabled()) {
-                            spawnCustomSnowParticles(player, intensity);
-                        }
-                    }
-                }, 0L, 5L);
-                tasks.add(snowTask);
+                // Particules de neige, l'intensité dépend du type de météo
+                int snowIntensity = 5; // Par défaut pour LIGHT_SNOW
+                if (weatherType == WeatherType.MODERATE_SNOW) snowIntensity = 10;
+                else if (weatherType == WeatherType.HEAVY_SNOW) snowIntensity = 15;
+                else if (weatherType == WeatherType.BLIZZARD) snowIntensity = 25;
+
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    spawnCustomSnowParticles(player, snowIntensity);
+                }
                 break;
 
             case FOG:
             case MIST:
             case FREEZING_FOG:
                 // Particules de brouillard
-                BukkitTask fogTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Créer des particules de brouillard autour du joueur
-                        if (plugin.isProtocolLibEnabled()) {
-                            spawnFogParticles(player);
-                        }
-                    }
-                }, 0L, 10L);
-                tasks.add(fogTask);
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    spawnFogParticles(player);
+                }
                 break;
 
-            // Ajouter d'autres cas pour les différents types de météo
+            case AURORA:
+            case RAINBOW:
+            case MOONBOW:
+            case HALO:
+            case SUNDOG:
+            case LIGHT_PILLAR:
+                // Effets célestes, joués à partir de leurs images clés précalculées
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    plugin.getProtocolLibHook().createSkyEffect(player, weatherType);
+                }
+                break;
 
             default:
-                // Aucun effet de particule pour les autres types de météo
                 break;
         }
     }
 
     /**
-     * Applique les effets sonores pour un type de météo.
+     * Applique les effets sonores pour un type de météo sans plan.
      *
-     * @param world Le monde auquel appliquer les effets.
+     * @param index L'index du monde.
      * @param weatherType Le type de météo.
-     * @param tasks L'ensemble de tâches à mettre à jour.
+     * @return Le nombre de tâches démarrées.
      */
-    private void applySoundEffects(World world, WeatherType weatherType, Set<BukkitTask> tasks) {
-        // Déterminer quels effets sonores appliquer en fonction du type de météo
+    private int applySoundEffects(int index, WeatherType weatherType) {
+        // Déterminer l'intervalle des sons en fonction du type de météo
+        long interval;
+        switch (weatherType) {
+            case LIGHT_RAIN:
+            case MODERATE_RAIN:
+            case HEAVY_RAIN:
+            case DRIZZLE:
+            case SHOWER:
+                interval = 40L; // Toutes les 2 secondes
+                break;
+
+            case THUNDERSTORM:
+            case LIGHTNING:
+            case THUNDER:
+                interval = 100L; // Toutes les 5 secondes
+                break;
+
+            case STRONG_WIND:
+            case GUST:
+            case STORM:
+            case HURRICANE:
+            case TORNADO:
+                interval = 60L; // Toutes les 3 secondes
+                break;
+
+            default:
+                // Aucun effet sonore pour les autres types de météo
+                return 0;
+        }
+
+        TickEngine engine = plugin.getTickEngine();
+        if (soundTasks[index] == null) {
+            soundTasks[index] = engine.runEffect(() -> runSounds(index), 0L, interval);
+        } else {
+            engine.reschedule(soundTasks[index], 0L, interval);
+        }
+        return 1;
+    }
+
+    /**
+     * Joue un pas des sons de la météo active d'un monde.
+     *
+     * @param index L'index du monde.
+     */
+    private void runSounds(int index) {
+        WeatherType weatherType = activeWeathers[index];
+        if (weatherType == null) {
+            return;
+        }
+
         switch (weatherType) {
             case LIGHT_RAIN:
             case MODERATE_RAIN:
@@ -190,33 +426,25 @@ public class EffectManager {
             case DRIZZLE:
             case SHOWER:
                 // Sons de pluie avec intensité variable
-                BukkitTask rainSoundTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Jouer un son de pluie
-                        float volume = 0.2f; // Par défaut pour LIGHT_RAIN
-                        if (weatherType == WeatherType.MODERATE_RAIN) volume = 0.4f;
-                        else if (weatherType == WeatherType.HEAVY_RAIN || weatherType == WeatherType.SHOWER) volume = 0.8f;
-                        else if (weatherType == WeatherType.DRIZZLE) volume = 0.1f;
-
-                        player.playSound(player.getLocation(), org.bukkit.Sound.WEATHER_RAIN, volume, 1.0f);
-                    }
-                }, 0L, 40L); // Toutes les 2 secondes
-                tasks.add(rainSoundTask);
+                float rainVolume = 0.2f; // Par défaut pour LIGHT_RAIN
+                if (weatherType == WeatherType.MODERATE_RAIN) rainVolume = 0.4f;
+                else if (weatherType == WeatherType.HEAVY_RAIN || weatherType == WeatherType.SHOWER) rainVolume = 0.8f;
+                else if (weatherType == WeatherType.DRIZZLE) rainVolume = 0.1f;
+
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    plugin.getSoundBus().playAmbient(player, org.bukkit.Sound.WEATHER_RAIN, rainVolume, 1.0f);
+                }
                 break;
 
             case THUNDERSTORM:
             case LIGHTNING:
             case THUNDER:
-                // Sons d'orage aléatoires
-                BukkitTask thunderSoundTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    // Jouer un son de tonnerre aléatoirement
-                    if (Math.random() < 0.1) { // 10% de chance chaque fois
-                        for (Player player : world.getPlayers()) {
-                            player.playSound(player.getLocation(), org.bukkit.Sound.ENTITY_LIGHTNING_BOLT_THUNDER, 1.0f, 1.0f);
-                        }
+                // Jouer un son de tonnerre aléatoirement
+                if (Math.random() < 0.1) { // 10% de chance chaque fois
+                    for (Player player : effectWorlds[index].getPlayers()) {
+                        plugin.getSoundBus().play(player, org.bukkit.Sound.ENTITY_LIGHTNING_BOLT_THUNDER, 1.0f, 1.0f);
                     }
-                }, 0L, 100L); // Toutes les 5 secondes
-                tasks.add(thunderSoundTask);
+                }
                 break;
 
             case STRONG_WIND:
@@ -225,118 +453,136 @@ public class EffectManager {
             case HURRICANE:
             case TORNADO:
                 // Sons de vent
-                BukkitTask windSoundTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Jouer un son de vent
-                        float volume = 0.3f; // Par défaut pour STRONG_WIND
-                        if (weatherType == WeatherType.STORM || weatherType == WeatherType.GUST) volume = 0.6f;
-                        else if (weatherType == WeatherType.HURRICANE || weatherType == WeatherType.TORNADO) volume = 1.0f;
-
-                        // Utiliser un son qui ressemble au vent
-                        player.playSound(player.getLocation(), org.bukkit.Sound.ENTITY_PHANTOM_AMBIENT, volume, 0.5f);
-                    }
-                }, 0L, 60L); // Toutes les 3 secondes
-                tasks.add(windSoundTask);
+                float windVolume = 0.3f; // Par défaut pour STRONG_WIND
+                if (weatherType == WeatherType.STORM || weatherType == WeatherType.GUST) windVolume = 0.6f;
+                else if (weatherType == WeatherType.HURRICANE || weatherType == WeatherType.TORNADO) windVolume = 1.0f;
+
+                // Utiliser un son qui ressemble au vent
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    plugin.getSoundBus().playAmbient(player, org.bukkit.Sound.ENTITY_PHANTOM_AMBIENT, windVolume, 0.5f);
+                }
                 break;
 
-            // Ajouter d'autres cas pour les différents types de météo
-
             default:
-                // Aucun effet sonore pour les autres types de météo
                 break;
         }
     }
 
     /**
-     * Applique les effets aux joueurs pour un type de météo.
+     * Applique les effets aux joueurs pour un type de météo sans plan.
      *
-     * @param world Le monde auquel appliquer les effets.
+     * @param index L'index du monde.
      * @param weatherType Le type de météo.
-     * @param tasks L'ensemble de tâches à mettre à jour.
+     * @return Le nombre de tâches démarrées.
      */
-    private void applyPlayerEffects(World world, WeatherType weatherType, Set<BukkitTask> tasks) {
-        // Déterminer quels effets de joueur appliquer en fonction du type de météo
+    private int applyPlayerEffects(int index, WeatherType weatherType) {
+        // Déterminer l'intervalle des effets de joueur en fonction du type de météo
+        long interval;
+        switch (weatherType) {
+            case HEAT_WAVE:
+            case HEATSTROKE:
+                interval = solderingIronDamageInterval;
+                break;
+
+            case COLD_WAVE:
+            case BLIZZARD:
+                interval = frostbiteDamageInterval;
+                break;
+
+            case TORNADO:
+            case HURRICANE:
+                interval = 20L; // Toutes les secondes
+                break;
+
+            default:
+                // Aucun effet de joueur spécifique pour les autres types de météo
+                return 0;
+        }
+
+        TickEngine engine = plugin.getTickEngine();
+        if (playerTasks[index] == null) {
+            playerTasks[index] = engine.runRepeating(() -> runPlayerEffects(index), 0L, interval);
+        } else {
+            engine.reschedule(playerTasks[index], 0L, interval);
+        }
+        return 1;
+    }
+
+    /**
+     * Applique un pas des effets aux joueurs de la météo active d'un monde.
+     *
+     * @param index L'index du monde.
+     */
+    private void runPlayerEffects(int index) {
+        WeatherType weatherType = activeWeathers[index];
+        if (weatherType == null) {
+            return;
+        }
+
         switch (weatherType) {
             case HEAT_WAVE:
             case HEATSTROKE:
                 // Effet de chaleur extrême - dommages périodiques "Soldering Iron"
-                BukkitTask heatDamageTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Vérifier si le joueur est exposé au ciel (et donc à la chaleur)
-                        if (isPlayerExposedToSky(player)) {
-                            // Appliquer les effets de chaleur
-                            player.addPotionEffect(new PotionEffect(PotionEffectType.HUNGER, 100, 0));
-
-                            // Dommages de chaleur "Soldering Iron" si c'est une canicule
-                            if (weatherType == WeatherType.HEATSTROKE) {
-                                player.damage(1.0); // 0.5 cœur de dommage
-                                player.sendMessage(plugin.getLanguageManager().getMessage("effects.heat_damage"));
-                            }
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    // Vérifier si le joueur est exposé au ciel (et donc à la chaleur)
+                    if (isPlayerExposedToSky(player)) {
+                        // Appliquer les effets de chaleur
+                        plugin.getPotionReconciler().grant(player, PotionEffectType.HUNGER, 100, 0);
+
+                        // Dommages de chaleur "Soldering Iron" si c'est une canicule
+                        if (weatherType == WeatherType.HEATSTROKE) {
+                            player.damage(1.0); // 0.5 cœur de dommage
+                            player.sendMessage(plugin.getLanguageManager().getMessage("effects.heat_damage"));
                         }
                     }
-                }, 0L, solderingIronDamageInterval);
-                tasks.add(heatDamageTask);
+                }
                 break;
 
             case COLD_WAVE:
             case BLIZZARD:
                 // Effet de froid extrême - dommages périodiques "Frostbite"
-                BukkitTask coldDamageTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Vérifier si le joueur est exposé au ciel (et donc au froid)
-                        if (isPlayerExposedToSky(player)) {
-                            // Appliquer les effets de froid
-                            player.addPotionEffect(new PotionEffect(PotionEffectType.SLOWNESS, 100, 0));
-
-                            // Dommages de froid "Frostbite"
-                            if (weatherType == WeatherType.BLIZZARD) {
-                                player.damage(1.0); // 0.5 cœur de dommage
-                                player.sendMessage(plugin.getLanguageManager().getMessage("effects.cold_damage"));
-                            }
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    // Vérifier si le joueur est exposé au ciel (et donc au froid)
+                    if (isPlayerExposedToSky(player)) {
+                        // Appliquer les effets de froid
+                        plugin.getPotionReconciler().grant(player, PotionEffectType.SLOWNESS, 100, 0);
+
+                        // Dommages de froid "Frostbite"
+                        if (weatherType == WeatherType.BLIZZARD) {
+                            player.damage(1.0); // 0.5 cœur de dommage
+                            player.sendMessage(plugin.getLanguageManager().getMessage("effects.cold_damage"));
                         }
                     }
-                }, 0L, frostbiteDamageInterval);
-                tasks.add(coldDamageTask);
+                }
                 break;
 
             case TORNADO:
             case HURRICANE:
                 // Effet de vent extrême - mouvement aléatoire et dommages
-                BukkitTask windEffectTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Player player : world.getPlayers()) {
-                        // Vérifier si le joueur est exposé au ciel (et donc au vent)
-                        if (isPlayerExposedToSky(player)) {
-                            // Appliquer une force aléatoire au joueur (comme s'il était soufflé par le vent)
-                            double strength = 0.5;
-                            if (weatherType == WeatherType.TORNADO) strength = 1.0;
-
-                            // Direction aléatoire
-                            double angle = Math.random() * 2 * Math.PI;
-                            double x = Math.cos(angle) * strength;
-                            double z = Math.sin(angle) * strength;
-
-                            player.setVelocity(player.getVelocity().add(org.bukkit.util.Vector.fromConfiguration(
-                                    new org.bukkit.configuration.MemoryConfiguration()
-                                            .set("x", x)
-                                            .set("y", 0.2)
-                                            .set("z", z)
-                            )));
-
-                            // Dommages si c'est une tornade
-                            if (weatherType == WeatherType.TORNADO && Math.random() < 0.2) { // 20% de chance
-                                player.damage(2.0); // 1 cœur de dommage
-                                player.sendMessage(plugin.getLanguageManager().getMessage("effects.wind_damage"));
-                            }
+                for (Player player : effectWorlds[index].getPlayers()) {
+                    // Vérifier si le joueur est exposé au ciel (et donc au vent)
+                    if (isPlayerExposedToSky(player)) {
+                        // Appliquer une force aléatoire au joueur (comme s'il était soufflé par le vent)
+                        double strength = 0.5;
+                        if (weatherType == WeatherType.TORNADO) strength = 1.0;
+
+                        // Direction aléatoire
+                        double angle = Math.random() * 2 * Math.PI;
+                        double x = Math.cos(angle) * strength;
+                        double z = Math.sin(angle) * strength;
+
+                        player.setVelocity(player.getVelocity().add(new org.bukkit.util.Vector(x, 0.2, z)));
+
+                        // Dommages si c'est une tornade
+                        if (weatherType == WeatherType.TORNADO && Math.random() < 0.2) { // 20% de chance
+                            player.damage(2.0); // 1 cœur de dommage
+                            player.sendMessage(plugin.getLanguageManager().getMessage("effects.wind_damage"));
                         }
                     }
-                }, 0L, 20L); // Toutes les secondes
-                tasks.add(windEffectTask);
+                }
                 break;
 
-            // Ajouter d'autres cas pour les différents types de météo
-
             default:
-                // Aucun effet de joueur spécifique pour les autres types de météo
                 break;
         }
     }
@@ -348,7 +594,7 @@ public class EffectManager {
      * @return true si le joueur est exposé, false sinon.
      */
     private boolean isPlayerExposedToSky(Player player) {
-        return player.getWorld().getHighestBlockYAt(player.getLocation()) <= player.getLocation().getY();
+        return plugin.getPlayerEnvironments().get(player).isExposed();
     }
 
     /**
@@ -357,14 +603,9 @@ public class EffectManager {
      * @param world Le monde pour lequel annuler les effets.
      */
     public void cancelWorldEffects(World world) {
-        UUID worldId = world.getUID();
-        if (worldEffectTasks.containsKey(worldId)) {
-            Set<BukkitTask> tasks = worldEffectTasks.get(worldId);
-            for (BukkitTask task : tasks) {
-                task.cancel();
-            }
-            tasks.clear();
-            worldEffectTasks.remove(worldId);
+        if (stopWorldEffects(plugin.getWorldManager().getWorldIndex(world))) {
+            // Retirer les effets de potion accordés par la météo précédente
+            plugin.getPotionReconciler().revokeWorld(world);
 
             logger.fine("Cancelled all weather effects for world " + world.getName());
         }
@@ -374,13 +615,9 @@ public class EffectManager {
      * Annule tous les effets météorologiques en cours pour tous les mondes.
      */
     public void cancelAllEffects() {
-        for (Set<BukkitTask> tasks : worldEffectTasks.values()) {
-            for (BukkitTask task : tasks) {
-                task.cancel();
-            }
-            tasks.clear();
+        for (int index = 0; index < activeWeathers.length; index++) {
+            stopWorldEffects(index);
         }
-        worldEffectTasks.clear();
 
         logger.fine("Cancelled all weather effects for all worlds");
     }
@@ -393,18 +630,9 @@ public class EffectManager {
      * @param intensity L'intensité des particules.
      */
     private void spawnCustomRainParticles(Player player, int intensity) {
-        // Cette méthode utiliserait ProtocolLib pour envoyer des paquets de particules personnalisés
-        // Ceci est une implémentation simplifiée
+        // Les paquets sont générés et envoyés par les threads de particules de l'intégration
         if (plugin.isProtocolLibEnabled()) {
-            // Mise en œuvre spécifique pour ProtocolLib ici
-            // En attendant, utiliser les particules standard de Bukkit
-            org.bukkit.Location loc = player.getLocation();
-            for (int i = 0; i < intensity; i++) {
-                double x = loc.getX() + (Math.random() * 10 - 5);
-                double y = loc.getY() + 10;
-                double z = loc.getZ() + (Math.random() * 10 - 5);
-                player.getWorld().spawnParticle(Particle.FALLING_DRIPSTONE_WATER, x, y, z, 1, 0, 0, 0, 0);
-            }
+            plugin.getProtocolLibHook().createRainEffect(player, intensity);
         }
     }
 
@@ -416,18 +644,9 @@ public class EffectManager {
      * @param intensity L'intensité des particules.
      */
     private void spawnCustomSnowParticles(Player player, int intensity) {
-        // Cette méthode utiliserait ProtocolLib pour envoyer des paquets de particules personnalisés
-        // Ceci est une implémentation simplifiée
+        // Les paquets sont générés et envoyés par les threads de particules de l'intégration
         if (plugin.isProtocolLibEnabled()) {
-            // Mise en œuvre spécifique pour ProtocolLib ici
-            // En attendant, utiliser les particules standard de Bukkit
-            org.bukkit.Location loc = player.getLocation();
-            for (int i = 0; i < intensity; i++) {
-                double x = loc.getX() + (Math.random() * 10 - 5);
-                double y = loc.getY() + 10;
-                double z = loc.getZ() + (Math.random() * 10 - 5);
-                player.getWorld().spawnParticle(Particle.SNOWFLAKE, x, y, z, 1, 0, 0, 0, 0);
-            }
+            plugin.getProtocolLibHook().createSnowEffect(player, intensity);
         }
     }
 
@@ -438,18 +657,9 @@ public class EffectManager {
      * @param player Le joueur autour duquel créer les particules.
      */
     private void spawnFogParticles(Player player) {
-        // Cette méthode utiliserait ProtocolLib pour envoyer des paquets de particules personnalisés
-        // Ceci est une implémentation simplifiée
+        // Les paquets sont générés et envoyés par les threads de particules de l'intégration
         if (plugin.isProtocolLibEnabled()) {
-            // Mise en œuvre spécifique pour ProtocolLib ici
-            // En attendant, utiliser les particules standard de Bukkit
-            org.bukkit.Location loc = player.getLocation();
-            for (int i = 0; i < 10; i++) {
-                double x = loc.getX() + (Math.random() * 20 - 10);
-                double y = loc.getY() + (Math.random() * 4 - 2);
-                double z = loc.getZ() + (Math.random() * 20 - 10);
-                player.getWorld().spawnParticle(org.bukkit.Particle.CLOUD, x, y, z, 1, 0.5, 0.1, 0.5, 0);
-            }
+            plugin.getProtocolLibHook().createFogEffect(player);
         }
     }
 
@@ -476,6 +686,9 @@ public class EffectManager {
             config.set("effects.damage_intervals.frostbite", interval);
             plugin.getConfigManager().saveConfig();
 
+            // Les plans qui nomment cet intervalle le lisent à la compilation
+            refreshDamageIntervals();
+
             logger.info("Frostbite damage interval updated to: " + interval + " ticks");
         }
     }
@@ -503,7 +716,34 @@ public class EffectManager {
             config.set("effects.damage_intervals.soldering_iron", interval);
             plugin.getConfigManager().saveConfig();
 
+            // Les plans qui nomment cet intervalle le lisent à la compilation
+            refreshDamageIntervals();
+
             logger.info("Soldering Iron damage interval updated to: " + interval + " ticks");
         }
     }
+
+    /**
+     * Recompile les plans d'effets et replanifie les tâches des mondes actifs au nouvel intervalle de dégâts.
+     */
+    private void refreshDamageIntervals() {
+        plugin.getEffectPlanLoader().loadPlans();
+
+        for (int index = 0; index < activeWeathers.length; index++) {
+            WeatherType weatherType = activeWeathers[index];
+            if (weatherType == null) {
+                continue;
+            }
+
+            if (activePlans[index] == null) {
+                applyPlayerEffects(index, weatherType);
+                continue;
+            }
+
+            EffectPlan plan = plugin.getEffectPlanLoader().getPlan(weatherType);
+            if (plan != null) {
+                applyEffectPlan(index, plan, planParticles[index]);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -2,16 +2,16 @@ package fr.hoxys.plugin.atmosforge.managers;
 
 import fr.hoxys.plugin.atmosforge.Main;
 import fr.hoxys.plugin.atmosforge.api.events.SeasonChangeEvent;
+import fr.hoxys.plugin.atmosforge.models.ClimateTransition;
 import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.TransitionCause;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import java.util.logging.Logger;
 
 /**
@@ -22,20 +22,12 @@ public class SeasonManager {
     private final Main plugin;
     private final Logger logger;
 
-    // Stocke la saison actuelle pour chaque monde
-    private final Map<UUID, Season> currentSeasons;
-
-    // Stocke le jour actuel de la saison pour chaque monde (de 1 à N)
-    private final Map<UUID, Integer> currentSeasonDays;
-
     // Nombre de jours dans chaque saison (configurable)
     private int daysPerSeason;
 
     public SeasonManager(Main plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.currentSeasons = new HashMap<>();
-        this.currentSeasonDays = new HashMap<>();
 
         // Charger la configuration
         loadConfiguration();
@@ -58,25 +50,17 @@ public class SeasonManager {
      * @param world Le monde à initialiser.
      */
     public void initializeSeason(World world) {
-        UUID worldId = world.getUID();
-        Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
-
-        if (worldData != null && worldData.containsKey("season") && worldData.containsKey("season_day")) {
-            String seasonId = (String) worldData.get("season");
-            int seasonDay = (int) worldData.get("season_day");
-
-            Season season = Season.fromId(seasonId);
-            if (season != null) {
-                currentSeasons.put(worldId, season);
-                currentSeasonDays.put(worldId, seasonDay);
-                logger.info("Loaded saved season for world " + world.getName() + ": " + season.getDisplayName() + ", Day " + seasonDay);
-                return;
-            }
+        WorldClimateState state = getState(world);
+        Season season = state.getSeason();
+
+        if (season != null) {
+            logger.info("Loaded saved season for world " + world.getName() + ": " + season.getDisplayName() + ", Day " + state.getSeasonDay());
+            return;
         }
 
         // Si aucune donnée sauvegardée n'est trouvée ou si les données sont invalides, initialiser avec les valeurs par défaut
-        currentSeasons.put(worldId, Season.SPRING);
-        currentSeasonDays.put(worldId, 1);
+        state.setSeason(Season.SPRING);
+        state.setSeasonDay(1);
         logger.info("Initialized default season for world " + world.getName() + ": " + Season.SPRING.getDisplayName() + ", Day 1");
     }
 
@@ -87,11 +71,11 @@ public class SeasonManager {
      * @return La saison actuelle du monde.
      */
     public Season getCurrentSeason(World world) {
-        UUID worldId = world.getUID();
-        if (!currentSeasons.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getSeasonCode() < 0) {
             initializeSeason(world);
         }
-        return currentSeasons.get(worldId);
+        return state.getSeason();
     }
 
     /**
@@ -101,11 +85,11 @@ public class SeasonManager {
      * @return Le jour actuel de la saison.
      */
     public int getCurrentSeasonDay(World world) {
-        UUID worldId = world.getUID();
-        if (!currentSeasonDays.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getSeasonCode() < 0) {
             initializeSeason(world);
         }
-        return currentSeasonDays.get(worldId);
+        return state.getSeasonDay();
     }
 
     /**
@@ -121,8 +105,8 @@ public class SeasonManager {
             day = 1;
         }
 
-        UUID worldId = world.getUID();
-        Season oldSeason = currentSeasons.getOrDefault(worldId, Season.SPRING);
+        WorldClimateState state = getState(world);
+        Season oldSeason = state.getSeason() != null ? state.getSeason() : Season.SPRING;
 
         // Déclencher l'événement de changement de saison
         SeasonChangeEvent event = new SeasonChangeEvent(world, oldSeason, season);
@@ -132,14 +116,14 @@ public class SeasonManager {
             return false;
         }
 
-        currentSeasons.put(worldId, season);
-        currentSeasonDays.put(worldId, day);
+        state.setSeason(season);
+        state.setSeasonDay(day);
 
         // Mettre à jour la météo pour correspondre à la nouvelle saison
         updateWeatherForSeason(world, season);
 
         // Sauvegarder les données du monde
-        saveWorldData(world);
+        saveWorldData(world, TransitionCause.MANUAL);
 
         logger.info("Season manually changed for world " + world.getName() + " to " + season.getDisplayName() + ", Day " + day);
         return true;
@@ -152,16 +136,17 @@ public class SeasonManager {
      * @param world Le monde pour lequel avancer la saison.
      */
     public void advanceDay(World world) {
-        UUID worldId = world.getUID();
-        if (!currentSeasons.containsKey(worldId) || !currentSeasonDays.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getSeasonCode() < 0) {
             initializeSeason(world);
         }
 
-        Season currentSeason = currentSeasons.get(worldId);
-        int currentDay = currentSeasonDays.get(worldId);
+        Season currentSeason = state.getSeason();
+        int currentDay = state.getSeasonDay();
 
         // Augmenter le jour actuel
         currentDay++;
+        TransitionCause cause = TransitionCause.DAY_ADVANCE;
 
         // Si nous avons atteint la fin de la saison, passer à la suivante
         if (currentDay > daysPerSeason) {
@@ -174,6 +159,7 @@ public class SeasonManager {
             if (!event.isCancelled()) {
                 currentSeason = nextSeason;
                 currentDay = 1;
+                cause = TransitionCause.SEASON_CHANGE;
 
                 // Mettre à jour la météo pour correspondre à la nouvelle saison
                 updateWeatherForSeason(world, currentSeason);
@@ -182,11 +168,11 @@ public class SeasonManager {
             }
         }
 
-        currentSeasons.put(worldId, currentSeason);
-        currentSeasonDays.put(worldId, currentDay);
+        state.setSeason(currentSeason);
+        state.setSeasonDay(currentDay);
 
         // Sauvegarder les données du monde
-        saveWorldData(world);
+        saveWorldData(world, cause);
 
         logger.fine("Advanced day for world " + world.getName() + " to " + currentSeason.getDisplayName() + ", Day " + currentDay);
     }
@@ -208,7 +194,8 @@ public class SeasonManager {
             WeatherType randomWeather = seasonalWeathers.get(randomIndex);
 
             // Définir la météo
-            weatherManager.setWeather(world, randomWeather);
+            weatherManager.setWeather(world, randomWeather, weatherManager.getDefaultWeatherDuration(),
+                    TransitionCause.SEASON_CHANGE);
         }
     }
 
@@ -216,32 +203,33 @@ public class SeasonManager {
      * Sauvegarde les données de saison pour un monde spécifique.
      *
      * @param world Le monde pour lequel sauvegarder les données.
+     * @param cause L'origine de la sauvegarde.
      */
-    private void saveWorldData(World world) {
-        UUID worldId = world.getUID();
-        if (currentSeasons.containsKey(worldId) && currentSeasonDays.containsKey(worldId)) {
-            Season season = currentSeasons.get(worldId);
-            int day = currentSeasonDays.get(worldId);
-
-            Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
-            if (worldData == null) {
-                worldData = new HashMap<>();
-            }
-
-            worldData.put("season", season.getId());
-            worldData.put("season_day", day);
-
-            plugin.getWorldManager().saveWorldData(world.getName(), worldData);
+    private void saveWorldData(World world, TransitionCause cause) {
+        WorldClimateState state = getState(world);
+        if (state.getSeasonCode() >= 0) {
+            plugin.getWorldManager().recordTransition(state, ClimateTransition.SEASON, cause);
         }
     }
 
+    /**
+     * Obtient l'état climatique d'un monde, initialisé lors du premier accès.
+     *
+     * @param world Le monde concerné.
+     * @return L'état climatique du monde.
+     */
+    private WorldClimateState getState(World world) {
+        return plugin.getWorldManager().getInitializedState(world);
+    }
+
     /**
      * Sauvegarde les données de saison pour tous les mondes.
      */
     public void saveAllWorldData() {
         for (World world : Bukkit.getWorlds()) {
-            if (plugin.getConfigManager().isWorldEnabled(world.getName())) {
-                saveWorldData(world);
+            // Un monde jamais initialisé n'a rien à enregistrer
+            if (plugin.getConfigManager().isWorldEnabled(world.getName()) && plugin.getWorldManager().isInitialized(world)) {
+                saveWorldData(world, TransitionCause.CHECKPOINT);
             }
         }
     }
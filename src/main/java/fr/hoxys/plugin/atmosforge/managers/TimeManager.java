@@ -1,12 +1,15 @@
 package fr.hoxys.plugin.atmosforge.managers;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
+import fr.hoxys.plugin.atmosforge.models.ClimateTransition;
+import fr.hoxys.plugin.atmosforge.models.TransitionCause;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,14 +25,11 @@ public class TimeManager {
     private final Logger logger;
 
     // Tâche principale de cycle de temps
-    private BukkitTask timeCycleTask;
+    private EffectTask timeCycleTask;
 
     // Stocke le dernier jour Minecraft connu pour chaque monde
     private final Map<UUID, Long> lastKnownDays;
 
-    // Stocke si le cycle de nuit est actif pour chaque monde
-    private final Map<UUID, Boolean> nightCycleActive;
-
     // Intervalle de vérification du temps en ticks
     private int timeCheckInterval;
 
@@ -37,7 +37,6 @@ public class TimeManager {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.lastKnownDays = new HashMap<>();
-        this.nightCycleActive = new HashMap<>();
 
         // Charger la configuration
         loadConfiguration();
@@ -53,20 +52,23 @@ public class TimeManager {
         logger.info("Time check interval set to: " + timeCheckInterval + " ticks");
     }
 
+    /**
+     * Initialise le suivi du temps pour un monde : dernier jour connu et statut jour/nuit.
+     *
+     * @param world Le monde à initialiser.
+     */
+    public void initializeWorld(World world) {
+        lastKnownDays.put(world.getUID(), getCurrentMinecraftDay(world));
+        getState(world).setNightCycle(isNightTime(world));
+    }
+
     /**
      * Démarre le cycle de temps principal.
+     * Le suivi de chaque monde commence lors de son initialisation.
      */
     public void startTimeCycle() {
-        // Initialiser le dernier jour connu pour tous les mondes
-        for (World world : Bukkit.getWorlds()) {
-            if (plugin.getConfigManager().isWorldEnabled(world.getName())) {
-                lastKnownDays.put(world.getUID(), getCurrentMinecraftDay(world));
-                nightCycleActive.put(world.getUID(), isNightTime(world));
-            }
-        }
-
         // Démarrer la tâche de surveillance du temps
-        timeCycleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::checkTimeChanges, 0L, timeCheckInterval);
+        timeCycleTask = plugin.getTickEngine().runRepeating(this::checkTimeChanges, 0L, timeCheckInterval);
 
         logger.info("Time cycle started with interval: " + timeCheckInterval + " ticks");
     }
@@ -88,7 +90,8 @@ public class TimeManager {
      */
     private void checkTimeChanges() {
         for (World world : Bukkit.getWorlds()) {
-            if (plugin.getConfigManager().isWorldEnabled(world.getName())) {
+            // Les mondes pas encore initialisés sont suivis à partir de leur initialisation
+            if (plugin.getConfigManager().isWorldEnabled(world.getName()) && plugin.getWorldManager().isInitialized(world)) {
                 UUID worldId = world.getUID();
 
                 // Vérifier le jour actuel
@@ -111,11 +114,15 @@ public class TimeManager {
                 }
 
                 // Vérifier si c'est la nuit ou le jour
+                WorldClimateState state = getState(world);
                 boolean isNight = isNightTime(world);
-                boolean wasNight = nightCycleActive.getOrDefault(worldId, false);
+                boolean wasNight = state.isNightCycle();
 
                 // Si le statut jour/nuit a changé
                 if (isNight != wasNight) {
+                    // Mettre à jour le statut de nuit avant de l'enregistrer avec la transition
+                    state.setNightCycle(isNight);
+
                     if (isNight) {
                         // Passage au cycle de nuit
                         logger.fine("Night cycle started in world " + world.getName());
@@ -125,9 +132,6 @@ public class TimeManager {
                         logger.fine("Day cycle resumed in world " + world.getName());
                         deactivateNightCycle(world);
                     }
-
-                    // Mettre à jour le statut de nuit
-                    nightCycleActive.put(worldId, isNight);
                 }
             }
         }
@@ -166,16 +170,13 @@ public class TimeManager {
         // Sauvegarder la météo actuelle pour la restaurer plus tard
         WeatherType currentWeather = plugin.getWeatherManager().getCurrentWeather(world);
 
-        // Stocker la météo actuelle dans les données du monde
-        Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
-        if (worldData == null) {
-            worldData = new HashMap<>();
-        }
-        worldData.put("previous_weather", currentWeather.getId());
-        plugin.getWorldManager().saveWorldData(world.getName(), worldData);
+        // Stocker la météo actuelle dans l'état du monde
+        WorldClimateState state = getState(world);
+        state.setPreviousWeather(currentWeather);
+        plugin.getWorldManager().recordTransition(state, ClimateTransition.NIGHT_CYCLE, TransitionCause.NIGHT_CYCLE);
 
         // Passer à la météo NIGHT_CYCLE
-        plugin.getWeatherManager().setWeather(world, WeatherType.NIGHT_CYCLE);
+        plugin.getWeatherManager().setWeather(world, WeatherType.NIGHT_CYCLE, 0, TransitionCause.NIGHT_CYCLE);
 
         logger.fine("Switched to night cycle for world " + world.getName() + ", saved previous weather: " + currentWeather.getId());
     }
@@ -188,32 +189,23 @@ public class TimeManager {
      */
     private void deactivateNightCycle(World world) {
         // Récupérer la météo précédente
-        Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
+        WorldClimateState state = getState(world);
 
-        if (worldData != null && worldData.containsKey("previous_weather")) {
-            String previousWeatherId = (String) worldData.get("previous_weather");
-            WeatherType previousWeather = WeatherType.fromId(previousWeatherId);
+        if (state.getPreviousWeatherCode() >= 0) {
+            WeatherType previousWeather = state.getPreviousWeather();
 
-            if (previousWeather != null) {
-                // Restaurer la météo précédente
-                plugin.getWeatherManager().setWeather(world, previousWeather);
+            // Restaurer la météo précédente
+            plugin.getWeatherManager().setWeather(world, previousWeather, 0, TransitionCause.NIGHT_CYCLE);
 
-                logger.fine("Night cycle ended for world " + world.getName() + ", restored weather: " + previousWeather.getId());
-            } else {
-                // Si la météo précédente est invalide, définir une météo aléatoire
-                plugin.getWeatherManager().setRandomWeatherForSeason(
-                        world, plugin.getSeasonManager().getCurrentSeason(world));
-
-                logger.fine("Night cycle ended for world " + world.getName() + ", set random weather");
-            }
+            logger.fine("Night cycle ended for world " + world.getName() + ", restored weather: " + previousWeather.getId());
 
             // Supprimer la météo précédente sauvegardée
-            worldData.remove("previous_weather");
-            plugin.getWorldManager().saveWorldData(world.getName(), worldData);
+            state.setPreviousWeatherCode(-1);
+            plugin.getWorldManager().recordTransition(state, ClimateTransition.NIGHT_CYCLE, TransitionCause.NIGHT_CYCLE);
         } else {
             // Si aucune météo précédente n'est trouvée, définir une météo aléatoire
             plugin.getWeatherManager().setRandomWeatherForSeason(
-                    world, plugin.getSeasonManager().getCurrentSeason(world));
+                    world, plugin.getSeasonManager().getCurrentSeason(world), TransitionCause.NIGHT_CYCLE);
 
             logger.fine("Night cycle ended for world " + world.getName() + ", no previous weather found, set random weather");
         }
@@ -245,7 +237,7 @@ public class TimeManager {
             // Redémarrer la tâche avec le nouvel intervalle
             if (timeCycleTask != null) {
                 timeCycleTask.cancel();
-                timeCycleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::checkTimeChanges, 0L, interval);
+                timeCycleTask = plugin.getTickEngine().runRepeating(this::checkTimeChanges, 0L, interval);
             }
 
             logger.info("Time check interval updated to: " + interval + " ticks");
@@ -259,8 +251,7 @@ public class TimeManager {
      * @return true si le cycle de nuit est actif, false sinon.
      */
     public boolean isNightCycleActive(World world) {
-        UUID worldId = world.getUID();
-        return nightCycleActive.getOrDefault(worldId, false);
+        return getState(world).isNightCycle();
     }
 
     /**
@@ -274,20 +265,30 @@ public class TimeManager {
         world.setTime(newTime);
 
         // Mettre à jour le statut de nuit
-        UUID worldId = world.getUID();
+        WorldClimateState state = getState(world);
         boolean isNight = !day;
-        boolean wasNight = nightCycleActive.getOrDefault(worldId, false);
+        boolean wasNight = state.isNightCycle();
 
         // Appliquer les changements si nécessaire
         if (isNight != wasNight) {
+            state.setNightCycle(isNight);
             if (isNight) {
                 activateNightCycle(world);
             } else {
                 deactivateNightCycle(world);
             }
-            nightCycleActive.put(worldId, isNight);
         }
 
         logger.info("Forced " + (day ? "day" : "night") + " for world " + world.getName());
     }
+
+    /**
+     * Obtient l'état climatique d'un monde.
+     *
+     * @param world Le monde concerné.
+     * @return L'état climatique du monde.
+     */
+    private WorldClimateState getState(World world) {
+        return plugin.getWorldManager().getClimateState(world);
+    }
 }
\ No newline at end of file
@@ -2,18 +2,21 @@ package fr.hoxys.plugin.atmosforge.managers;
 
 import fr.hoxys.plugin.atmosforge.Main;
 import fr.hoxys.plugin.atmosforge.api.events.WeatherChangeEvent;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
+import fr.hoxys.plugin.atmosforge.models.ClimateTransition;
 import fr.hoxys.plugin.atmosforge.models.Season;
+import fr.hoxys.plugin.atmosforge.models.TransitionCause;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 import fr.hoxys.plugin.atmosforge.models.Weather;
+import fr.hoxys.plugin.atmosforge.models.WorldClimateState;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.Random;
 import java.util.logging.Logger;
@@ -27,11 +30,11 @@ public class WeatherManager {
     private final Logger logger;
     private final Random random;
 
-    // Stocke la météo actuelle pour chaque monde
-    private final Map<UUID, WeatherType> currentWeathers;
+    // Nombre de ticks serveur dans une minute
+    private static final long TICKS_PER_MINUTE = 20L * 60L;
 
-    // Stocke la durée restante de la météo actuelle en minutes pour chaque monde
-    private final Map<UUID, Integer> weatherDurations;
+    // Échéances d'expiration de la météo actuelle, indexées par index de monde
+    private EffectTask[] weatherExpirations;
 
     // Durée par défaut d'une condition météo en minutes (configurable)
     private int defaultWeatherDuration;
@@ -43,8 +46,7 @@ public class WeatherManager {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
         this.random = new Random();
-        this.currentWeathers = new HashMap<>();
-        this.weatherDurations = new HashMap<>();
+        this.weatherExpirations = new EffectTask[8];
 
         // Charger la configuration
         loadConfiguration();
@@ -69,25 +71,19 @@ public class WeatherManager {
      * @param world Le monde à initialiser.
      */
     public void initializeWeather(World world) {
-        UUID worldId = world.getUID();
-        Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
-
-        if (worldData != null && worldData.containsKey("weather") && worldData.containsKey("weather_duration")) {
-            String weatherId = (String) worldData.get("weather");
-            int duration = (int) worldData.get("weather_duration");
-
-            WeatherType weather = WeatherType.fromId(weatherId);
-            if (weather != null) {
-                currentWeathers.put(worldId, weather);
-                weatherDurations.put(worldId, duration);
-                logger.info("Loaded saved weather for world " + world.getName() + ": " + weather.getId() + ", Duration: " + duration + " minutes");
-                return;
-            }
+        WorldClimateState state = getState(world);
+        WeatherType weather = state.getWeather();
+
+        if (weather != null) {
+            int duration = state.getWeatherDuration();
+            scheduleExpiration(world, state, duration);
+            logger.info("Loaded saved weather for world " + world.getName() + ": " + weather.getId() + ", Duration: " + duration + " minutes");
+            return;
         }
 
         // Si aucune donnée sauvegardée n'est trouvée ou si les données sont invalides, initialiser avec une météo aléatoire
         Season currentSeason = plugin.getSeasonManager().getCurrentSeason(world);
-        setRandomWeatherForSeason(world, currentSeason);
+        setRandomWeatherForSeason(world, currentSeason, TransitionCause.INITIAL);
     }
 
     /**
@@ -97,11 +93,11 @@ public class WeatherManager {
      * @return Le type de météo actuel du monde.
      */
     public WeatherType getCurrentWeather(World world) {
-        UUID worldId = world.getUID();
-        if (!currentWeathers.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getWeatherCode() < 0) {
             initializeWeather(world);
         }
-        return currentWeathers.get(worldId);
+        return state.getWeather();
     }
 
     /**
@@ -111,11 +107,18 @@ public class WeatherManager {
      * @return La durée restante de la météo en minutes.
      */
     public int getWeatherDuration(World world) {
-        UUID worldId = world.getUID();
-        if (!weatherDurations.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getWeatherCode() < 0) {
             initializeWeather(world);
         }
-        return weatherDurations.get(worldId);
+
+        // Déduire la durée restante de l'échéance planifiée
+        long expiryTick = state.getWeatherExpiryTick();
+        if (expiryTick > 0L) {
+            long remainingTicks = expiryTick - plugin.getTickEngine().getCurrentTick();
+            return (int) Math.max(1L, (remainingTicks + TICKS_PER_MINUTE - 1) / TICKS_PER_MINUTE);
+        }
+        return state.getWeatherDuration();
     }
 
     /**
@@ -127,12 +130,25 @@ public class WeatherManager {
      * @return true si le changement a réussi, false sinon.
      */
     public boolean setWeather(World world, WeatherType weatherType, int duration) {
+        return setWeather(world, weatherType, duration, TransitionCause.MANUAL);
+    }
+
+    /**
+     * Change la météo d'un monde en précisant l'origine du changement.
+     *
+     * @param world Le monde pour lequel changer la météo.
+     * @param weatherType Le nouveau type de météo.
+     * @param duration La durée en minutes (utilise la valeur par défaut si inférieure ou égale à 0).
+     * @param cause L'origine du changement, enregistrée dans le journal climatique.
+     * @return true si le changement a réussi, false sinon.
+     */
+    public boolean setWeather(World world, WeatherType weatherType, int duration, TransitionCause cause) {
         if (duration <= 0) {
             duration = defaultWeatherDuration;
         }
 
-        UUID worldId = world.getUID();
-        WeatherType oldWeatherType = currentWeathers.getOrDefault(worldId, WeatherType.CLEAR_SKY);
+        WorldClimateState state = getState(world);
+        WeatherType oldWeatherType = state.getWeather() != null ? state.getWeather() : WeatherType.CLEAR_SKY;
 
         // Déclencher l'événement de changement de météo
         WeatherChangeEvent event = new WeatherChangeEvent(world, oldWeatherType, weatherType);
@@ -143,8 +159,9 @@ public class WeatherManager {
         }
 
         // Appliquer la nouvelle météo
-        currentWeathers.put(worldId, weatherType);
-        weatherDurations.put(worldId, duration);
+        state.setWeather(weatherType);
+        state.setWeatherDuration(duration);
+        scheduleExpiration(world, state, duration);
 
         // Mettre à jour les effets de la météo
         applyWeatherEffects(world, weatherType);
@@ -153,7 +170,7 @@ public class WeatherManager {
         updateMinecraftWeather(world, weatherType);
 
         // Sauvegarder les données du monde
-        saveWorldData(world);
+        saveWorldData(world, cause);
 
         logger.info("Weather manually changed for world " + world.getName() + " to " + weatherType.getId() + ", Duration: " + duration + " minutes");
         return true;
@@ -177,23 +194,75 @@ public class WeatherManager {
      * @param minutes Nombre de minutes à soustraire.
      */
     public void decreaseWeatherDuration(World world, int minutes) {
-        UUID worldId = world.getUID();
-        if (!currentWeathers.containsKey(worldId) || !weatherDurations.containsKey(worldId)) {
+        WorldClimateState state = getState(world);
+        if (state.getWeatherCode() < 0) {
             initializeWeather(world);
             return;
         }
 
-        int currentDuration = weatherDurations.get(worldId);
+        int currentDuration = getWeatherDuration(world);
         currentDuration -= minutes;
 
         if (currentDuration <= 0) {
             // La météo a expiré, en choisir une nouvelle
             Season currentSeason = plugin.getSeasonManager().getCurrentSeason(world);
-            setRandomWeatherForSeason(world, currentSeason);
+            setRandomWeatherForSeason(world, currentSeason, TransitionCause.EXPIRY);
         } else {
-            weatherDurations.put(worldId, currentDuration);
-            saveWorldData(world);
+            state.setWeatherDuration(currentDuration);
+            scheduleExpiration(world, state, currentDuration);
+            saveWorldData(world, TransitionCause.MANUAL);
+        }
+    }
+
+    /**
+     * Planifie l'expiration de la météo actuelle d'un monde auprès du moteur de ticks.
+     * Le cycle de nuit n'expire pas : il prend fin avec le retour du jour.
+     *
+     * @param world Le monde concerné.
+     * @param state L'état climatique du monde.
+     * @param duration La durée restante en minutes.
+     */
+    private void scheduleExpiration(World world, WorldClimateState state, int duration) {
+        int index = state.getIndex();
+        if (index >= weatherExpirations.length) {
+            weatherExpirations = Arrays.copyOf(weatherExpirations, Math.max(index + 1, weatherExpirations.length * 2));
+        }
+
+        EffectTask previous = weatherExpirations[index];
+        if (previous != null) {
+            previous.cancel();
+            weatherExpirations[index] = null;
+        }
+        state.setWeatherExpiryTick(0L);
+
+        if (state.getWeather() == WeatherType.NIGHT_CYCLE) {
+            return;
         }
+
+        UUID worldId = world.getUID();
+        EffectTask expiration = plugin.getTickEngine().runLater(
+                () -> expireWeather(worldId, state), duration * TICKS_PER_MINUTE);
+        weatherExpirations[index] = expiration;
+        state.setWeatherExpiryTick(expiration.getDeadline());
+    }
+
+    /**
+     * Fait expirer la météo actuelle d'un monde et en choisit une nouvelle.
+     *
+     * @param worldId L'identifiant du monde concerné.
+     * @param state L'état climatique du monde.
+     */
+    private void expireWeather(UUID worldId, WorldClimateState state) {
+        weatherExpirations[state.getIndex()] = null;
+        state.setWeatherExpiryTick(0L);
+
+        World world = Bukkit.getWorld(worldId);
+        if (world == null) {
+            return;
+        }
+
+        logger.fine("Weather expired in world " + world.getName());
+        setRandomWeatherForSeason(world, plugin.getSeasonManager().getCurrentSeason(world), TransitionCause.EXPIRY);
     }
 
     /**
@@ -203,11 +272,22 @@ public class WeatherManager {
      * @param season La saison actuelle.
      */
     public void setRandomWeatherForSeason(World world, Season season) {
+        setRandomWeatherForSeason(world, season, TransitionCause.MANUAL);
+    }
+
+    /**
+     * Définit une météo aléatoire adaptée à la saison actuelle en précisant l'origine du changement.
+     *
+     * @param world Le monde pour lequel définir la météo.
+     * @param season La saison actuelle.
+     * @param cause L'origine du changement, enregistrée dans le journal climatique.
+     */
+    public void setRandomWeatherForSeason(World world, Season season, TransitionCause cause) {
         List<WeatherType> seasonalWeathers = season.getCommonWeatherTypes();
 
         if (seasonalWeathers.isEmpty()) {
             // Si aucune météo saisonnière n'est disponible, utiliser le ciel dégagé par défaut
-            setWeather(world, WeatherType.CLEAR_SKY);
+            setWeather(world, WeatherType.CLEAR_SKY, defaultWeatherDuration, cause);
             return;
         }
 
@@ -218,7 +298,7 @@ public class WeatherManager {
         // Durée aléatoire entre 50% et 150% de la durée par défaut
         int randomDuration = (int) (defaultWeatherDuration * (0.5 + random.nextDouble()));
 
-        setWeather(world, randomWeather, randomDuration);
+        setWeather(world, randomWeather, randomDuration, cause);
     }
 
     /**
@@ -230,7 +310,7 @@ public class WeatherManager {
     public boolean tryChangeWeather(World world) {
         if (random.nextInt(100) < weatherChangeChance) {
             Season currentSeason = plugin.getSeasonManager().getCurrentSeason(world);
-            setRandomWeatherForSeason(world, currentSeason);
+            setRandomWeatherForSeason(world, currentSeason, TransitionCause.DAILY_CHANGE);
             return true;
         }
         return false;
@@ -243,11 +323,17 @@ public class WeatherManager {
      * @return true si le cycle de nuit est actif, false sinon.
      */
     public boolean isNightCycle(World world) {
-        UUID worldId = world.getUID();
-        if (currentWeathers.containsKey(worldId)) {
-            return currentWeathers.get(worldId) == WeatherType.NIGHT_CYCLE;
-        }
-        return false;
+        return getState(world).getWeather() == WeatherType.NIGHT_CYCLE;
+    }
+
+    /**
+     * Obtient l'état climatique d'un monde, initialisé lors du premier accès.
+     *
+     * @param world Le monde concerné.
+     * @return L'état climatique du monde.
+     */
+    private WorldClimateState getState(World world) {
+        return plugin.getWorldManager().getInitializedState(world);
     }
 
     /**
@@ -306,22 +392,26 @@ public class WeatherManager {
      * Sauvegarde les données météorologiques pour un monde spécifique.
      *
      * @param world Le monde pour lequel sauvegarder les données.
+     * @param cause L'origine de la sauvegarde.
      */
-    private void saveWorldData(World world) {
-        UUID worldId = world.getUID();
-        if (currentWeathers.containsKey(worldId) && weatherDurations.containsKey(worldId)) {
-            WeatherType weather = currentWeathers.get(worldId);
-            int duration = weatherDurations.get(worldId);
-
-            Map<String, Object> worldData = plugin.getWorldManager().getWorldData(world.getName());
-            if (worldData == null) {
-                worldData = new HashMap<>();
-            }
-
-            worldData.put("weather", weather.getId());
-            worldData.put("weather_duration", duration);
+    private void saveWorldData(World world, TransitionCause cause) {
+        WorldClimateState state = getState(world);
+        if (state.getWeatherCode() >= 0) {
+            // Enregistrer la durée restante plutôt que la durée initiale
+            state.setWeatherDuration(getWeatherDuration(world));
+            plugin.getWorldManager().recordTransition(state, ClimateTransition.WEATHER, cause);
+        }
+    }
 
-            plugin.getWorldManager().saveWorldData(world.getName(), worldData);
+    /**
+     * Enregistre un point de contrôle des données météorologiques d'un seul monde.
+     *
+     * @param world Le monde à sauvegarder.
+     */
+    public void checkpointWorld(World world) {
+        // Un monde jamais initialisé n'a rien à enregistrer
+        if (plugin.getConfigManager().isWorldEnabled(world.getName()) && plugin.getWorldManager().isInitialized(world)) {
+            saveWorldData(world, TransitionCause.CHECKPOINT);
         }
     }
 
@@ -330,9 +420,7 @@ public class WeatherManager {
      */
     public void saveAllWorldData() {
         for (World world : Bukkit.getWorlds()) {
-            if (plugin.getConfigManager().isWorldEnabled(world.getName())) {
-                saveWorldData(world);
-            }
+            checkpointWorld(world);
         }
     }
 
@@ -0,0 +1,12 @@
+package fr.hoxys.plugin.atmosforge.models;
+
+/**
+ * Nature d'une transition climatique enregistrée dans le journal.
+ * L'ordinal est écrit sur disque : les nouvelles valeurs doivent être ajoutées à la fin.
+ */
+public enum ClimateTransition {
+    WEATHER,
+    SEASON,
+    NIGHT_CYCLE,
+    RESET
+}
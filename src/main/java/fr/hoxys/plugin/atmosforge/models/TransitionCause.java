@@ -0,0 +1,26 @@
+package fr.hoxys.plugin.atmosforge.models;
+
+/**
+ * Origine d'une transition climatique enregistrée dans le journal.
+ * L'ordinal est écrit sur disque : les nouvelles valeurs doivent être ajoutées à la fin.
+ */
+public enum TransitionCause {
+    // Première initialisation d'un monde
+    INITIAL,
+    // Commande ou appel à l'API
+    MANUAL,
+    // Fin de la durée de la météo
+    EXPIRY,
+    // Changement aléatoire quotidien
+    DAILY_CHANGE,
+    // Passage d'un jour de saison
+    DAY_ADVANCE,
+    // Changement de saison
+    SEASON_CHANGE,
+    // Début ou fin du cycle de nuit
+    NIGHT_CYCLE,
+    // Réinitialisation des données du monde
+    RESET,
+    // Enregistrement de la durée restante (arrêt, déchargement du monde)
+    CHECKPOINT
+}
@@ -1,6 +1,7 @@
 package fr.hoxys.plugin.atmosforge.models;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
 import fr.hoxys.plugin.atmosforge.models.effects.WeatherEffect;
 import fr.hoxys.plugin.atmosforge.models.effects.BlockEffect;
 import fr.hoxys.plugin.atmosforge.models.effects.ParticleEffect;
@@ -13,7 +14,6 @@ import org.bukkit.Sound;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -25,13 +25,16 @@ import java.util.logging.Logger;
 /**
  * Classe représentant une condition météorologique avec ses effets.
  * Cette classe sert de base pour tous les types de météo spécifiques.
+ * <p>
+ * Chaque instance construit ses propres effets et tâches. Les effets joués dans les mondes utilisent
+ * à la place les {@link fr.hoxys.plugin.atmosforge.models.effects.EffectPlan}, partagés par type de météo.
  */
 public class Weather {
 
     private final Main plugin;
     private final WeatherType weatherType;
     private final List<WeatherEffect> effects;
-    private final Map<UUID, List<BukkitTask>> worldTasks;
+    private final Map<UUID, List<EffectTask>> worldTasks;
     private final Logger logger;
 
     /**
@@ -127,10 +130,9 @@ public class Weather {
      * @param interval L'intervalle entre les dégâts en ticks.
      */
     public void addDamageEffect(double damage, int interval) {
-        BukkitTask task = null;
         addEffect(new WeatherEffect() {
-            private final Map<UUID, BukkitTask> playerTasks = new HashMap<>();
-            private final Map<UUID, BukkitTask> worldTasks = new HashMap<>();
+            private final Map<UUID, EffectTask> playerTasks = new HashMap<>();
+            private final Map<UUID, EffectTask> worldTasks = new HashMap<>();
             private float intensity = 1.0f;
             private int duration = 24000;
 
@@ -143,7 +145,7 @@ public class Weather {
             public void applyToPlayer(Player player, World world) {
                 if (isActiveForPlayer(player)) return;
 
-                BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+                EffectTask task = plugin.getTickEngine().runRepeating(() -> {
                     if (!player.isOnline() || !player.getWorld().equals(world)) {
                         removeFromPlayer(player);
                         return;
@@ -163,7 +165,7 @@ public class Weather {
             public void applyToWorld(World world) {
                 if (isActiveForWorld(world)) return;
 
-                BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+                EffectTask task = plugin.getTickEngine().runRepeating(() -> {
                     for (Player player : world.getPlayers()) {
                         // Vérifier si le joueur est exposé au ciel
                         if (isPlayerExposedToSky(player)) {
@@ -178,7 +180,7 @@ public class Weather {
 
             @Override
             public void removeFromPlayer(Player player) {
-                BukkitTask task = playerTasks.remove(player.getUniqueId());
+                EffectTask task = playerTasks.remove(player.getUniqueId());
                 if (task != null) {
                     task.cancel();
                 }
@@ -186,7 +188,7 @@ public class Weather {
 
             @Override
             public void removeFromWorld(World world) {
-                BukkitTask task = worldTasks.remove(world.getUID());
+                EffectTask task = worldTasks.remove(world.getUID());
                 if (task != null) {
                     task.cancel();
                 }
@@ -223,7 +225,7 @@ public class Weather {
             }
 
             private boolean isPlayerExposedToSky(Player player) {
-                return player.getLocation().getWorld().getHighestBlockYAt(player.getLocation()) <= player.getLocation().getY();
+                return plugin.getPlayerEnvironments().get(player).isExposed();
             }
 
             private void sendDamageMessage(Player player) {
@@ -291,7 +293,7 @@ public class Weather {
         // Annuler les tâches précédentes
         removeFromWorld(world);
 
-        List<BukkitTask> tasks = new ArrayList<>();
+        List<EffectTask> tasks = new ArrayList<>();
 
         // Appliquer tous les effets au monde
         for (WeatherEffect effect : effects) {
@@ -325,8 +327,8 @@ public class Weather {
 
         // Annuler toutes les tâches existantes
         if (worldTasks.containsKey(worldId)) {
-            List<BukkitTask> tasks = worldTasks.get(worldId);
-            for (BukkitTask task : tasks) {
+            List<EffectTask> tasks = worldTasks.get(worldId);
+            for (EffectTask task : tasks) {
                 task.cancel();
             }
             worldTasks.remove(worldId);
@@ -344,8 +346,8 @@ public class Weather {
      * Annule toutes les tâches associées à cette condition météorologique.
      */
     public void cancelAllTasks() {
-        for (List<BukkitTask> tasks : worldTasks.values()) {
-            for (BukkitTask task : tasks) {
+        for (List<EffectTask> tasks : worldTasks.values()) {
+            for (EffectTask task : tasks) {
                 task.cancel();
             }
         }
@@ -0,0 +1,309 @@
+package fr.hoxys.plugin.atmosforge.models;
+
+/**
+ * État climatique d'un monde : météo, saison et cycle de nuit.
+ * Les valeurs sont stockées sous forme primitive ; les types météo et les saisons
+ * sont représentés par leur ordinal, -1 indiquant une valeur absente.
+ */
+public final class WorldClimateState {
+
+    private static final WeatherType[] WEATHER_TYPES = WeatherType.values();
+    private static final Season[] SEASONS = Season.values();
+
+    private final int index;
+    private final String worldName;
+
+    // Données persistées
+    private int weather = -1;
+    private int weatherDuration;
+    private int season = -1;
+    private int seasonDay;
+    private int previousWeather = -1;
+
+    // Données d'exécution
+    private boolean nightCycle;
+    private long weatherExpiryTick;
+
+    /**
+     * Constructeur de l'état climatique.
+     *
+     * @param index L'index dense du monde.
+     * @param worldName Le nom du monde.
+     */
+    public WorldClimateState(int index, String worldName) {
+        this.index = index;
+        this.worldName = worldName;
+    }
+
+    /**
+     * Crée une copie indépendante de cet état.
+     *
+     * @return La copie de l'état.
+     */
+    public WorldClimateState copy() {
+        WorldClimateState copy = new WorldClimateState(index, worldName);
+        copy.weather = weather;
+        copy.weatherDuration = weatherDuration;
+        copy.season = season;
+        copy.seasonDay = seasonDay;
+        copy.previousWeather = previousWeather;
+        copy.nightCycle = nightCycle;
+        copy.weatherExpiryTick = weatherExpiryTick;
+        return copy;
+    }
+
+    /**
+     * Remplace les données de cet état par celles d'un autre état.
+     *
+     * @param other L'état dont les données sont copiées.
+     */
+    public void copyFrom(WorldClimateState other) {
+        weather = other.weather;
+        weatherDuration = other.weatherDuration;
+        season = other.season;
+        seasonDay = other.seasonDay;
+        previousWeather = other.previousWeather;
+        nightCycle = other.nightCycle;
+        weatherExpiryTick = other.weatherExpiryTick;
+    }
+
+    /**
+     * Efface toutes les données de l'état.
+     */
+    public void reset() {
+        weather = -1;
+        weatherDuration = 0;
+        season = -1;
+        seasonDay = 0;
+        previousWeather = -1;
+        nightCycle = false;
+        weatherExpiryTick = 0L;
+    }
+
+    /**
+     * Vérifie si l'état ne contient aucune donnée persistée.
+     *
+     * @return true si l'état est vide, false sinon.
+     */
+    public boolean isEmpty() {
+        return weather < 0 && season < 0 && previousWeather < 0;
+    }
+
+    /**
+     * Obtient l'index dense du monde.
+     *
+     * @return L'index du monde.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Obtient le nom du monde.
+     *
+     * @return Le nom du monde.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Obtient le code de la météo actuelle.
+     *
+     * @return L'ordinal du type de météo, ou -1 si aucune.
+     */
+    public int getWeatherCode() {
+        return weather;
+    }
+
+    /**
+     * Définit le code de la météo actuelle.
+     *
+     * @param weather L'ordinal du type de météo, ou -1.
+     */
+    public void setWeatherCode(int weather) {
+        this.weather = weather;
+    }
+
+    /**
+     * Obtient la météo actuelle.
+     *
+     * @return Le type de météo, ou null si aucun.
+     */
+    public WeatherType getWeather() {
+        return weather < 0 ? null : WEATHER_TYPES[weather];
+    }
+
+    /**
+     * Définit la météo actuelle.
+     *
+     * @param weatherType Le type de météo, ou null.
+     */
+    public void setWeather(WeatherType weatherType) {
+        this.weather = weatherType == null ? -1 : weatherType.ordinal();
+    }
+
+    /**
+     * Obtient la durée attribuée à la météo actuelle.
+     *
+     * @return La durée en minutes.
+     */
+    public int getWeatherDuration() {
+        return weatherDuration;
+    }
+
+    /**
+     * Définit la durée attribuée à la météo actuelle.
+     *
+     * @param weatherDuration La durée en minutes.
+     */
+    public void setWeatherDuration(int weatherDuration) {
+        this.weatherDuration = weatherDuration;
+    }
+
+    /**
+     * Obtient le code de la saison actuelle.
+     *
+     * @return L'ordinal de la saison, ou -1 si aucune.
+     */
+    public int getSeasonCode() {
+        return season;
+    }
+
+    /**
+     * Définit le code de la saison actuelle.
+     *
+     * @param season L'ordinal de la saison, ou -1.
+     */
+    public void setSeasonCode(int season) {
+        this.season = season;
+    }
+
+    /**
+     * Obtient la saison actuelle.
+     *
+     * @return La saison, ou null si aucune.
+     */
+    public Season getSeason() {
+        return season < 0 ? null : SEASONS[season];
+    }
+
+    /**
+     * Définit la saison actuelle.
+     *
+     * @param season La saison, ou null.
+     */
+    public void setSeason(Season season) {
+        this.season = season == null ? -1 : season.ordinal();
+    }
+
+    /**
+     * Obtient le jour actuel de la saison.
+     *
+     * @return Le jour de la saison.
+     */
+    public int getSeasonDay() {
+        return seasonDay;
+    }
+
+    /**
+     * Définit le jour actuel de la saison.
+     *
+     * @param seasonDay Le jour de la saison.
+     */
+    public void setSeasonDay(int seasonDay) {
+        this.seasonDay = seasonDay;
+    }
+
+    /**
+     * Obtient le code de la météo à restaurer après le cycle de nuit.
+     *
+     * @return L'ordinal du type de météo, ou -1 si aucune.
+     */
+    public int getPreviousWeatherCode() {
+        return previousWeather;
+    }
+
+    /**
+     * Définit le code de la météo à restaurer après le cycle de nuit.
+     *
+     * @param previousWeather L'ordinal du type de météo, ou -1.
+     */
+    public void setPreviousWeatherCode(int previousWeather) {
+        this.previousWeather = previousWeather;
+    }
+
+    /**
+     * Obtient la météo à restaurer après le cycle de nuit.
+     *
+     * @return Le type de météo, ou null si aucun.
+     */
+    public WeatherType getPreviousWeather() {
+        return previousWeather < 0 ? null : WEATHER_TYPES[previousWeather];
+    }
+
+    /**
+     * Définit la météo à restaurer après le cycle de nuit.
+     *
+     * @param weatherType Le type de météo, ou null.
+     */
+    public void setPreviousWeather(WeatherType weatherType) {
+        this.previousWeather = weatherType == null ? -1 : weatherType.ordinal();
+    }
+
+    /**
+     * Vérifie si le cycle de nuit est actif.
+     *
+     * @return true si le cycle de nuit est actif, false sinon.
+     */
+    public boolean isNightCycle() {
+        return nightCycle;
+    }
+
+    /**
+     * Définit si le cycle de nuit est actif.
+     *
+     * @param nightCycle true si le cycle de nuit est actif.
+     */
+    public void setNightCycle(boolean nightCycle) {
+        this.nightCycle = nightCycle;
+    }
+
+    /**
+     * Obtient le tick moteur auquel la météo actuelle expire.
+     *
+     * @return Le tick d'expiration, ou 0 si la météo n'expire pas.
+     */
+    public long getWeatherExpiryTick() {
+        return weatherExpiryTick;
+    }
+
+    /**
+     * Définit le tick moteur auquel la météo actuelle expire.
+     *
+     * @param weatherExpiryTick Le tick d'expiration, ou 0 si la météo n'expire pas.
+     */
+    public void setWeatherExpiryTick(long weatherExpiryTick) {
+        this.weatherExpiryTick = weatherExpiryTick;
+    }
+
+    /**
+     * Vérifie si un code de météo est valide.
+     *
+     * @param code Le code à vérifier.
+     * @return true si le code correspond à un type de météo, false sinon.
+     */
+    public static boolean isValidWeatherCode(int code) {
+        return code >= 0 && code < WEATHER_TYPES.length;
+    }
+
+    /**
+     * Vérifie si un code de saison est valide.
+     *
+     * @param code Le code à vérifier.
+     * @return true si le code correspond à une saison, false sinon.
+     */
+    public static boolean isValidSeasonCode(int code) {
+        return code >= 0 && code < SEASONS.length;
+    }
+}
@@ -1,6 +1,7 @@
 package fr.hoxys.plugin.atmosforge.models.effects;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
 import org.bukkit.Location;
@@ -8,7 +9,6 @@ import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,7 +33,7 @@ public class BlockEffect implements WeatherEffect {
 
     // Stocke les blocs affectés pour pouvoir les restaurer plus tard
     private final Map<Location, Material> affectedBlocks;
-    private final Map<UUID, BukkitTask> worldTasks;
+    private final Map<UUID, EffectTask> worldTasks;
     private final Random random;
 
     /**
@@ -82,7 +82,7 @@ public class BlockEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce monde
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runEffect(() -> {
             // Pour chaque joueur dans ce monde
             for (Player player : world.getPlayers()) {
                 // Trouver des blocs à affecter autour du joueur
@@ -112,7 +112,7 @@ public class BlockEffect implements WeatherEffect {
             int z = playerLoc.getBlockZ() + random.nextInt(radius * 2) - radius;
 
             // Trouver le bloc le plus haut à cette position
-            int y = world.getHighestBlockYAt(x, z);
+            int y = plugin.getSkyExposureCache().getHighestBlockYAt(world, x, z);
             Block block = world.getBlockAt(x, y, z);
 
             // Si le bloc est du type affecté, le changer
@@ -134,7 +134,7 @@ public class BlockEffect implements WeatherEffect {
 
     @Override
     public void removeFromWorld(World world) {
-        BukkitTask task = worldTasks.remove(world.getUID());
+        EffectTask task = worldTasks.remove(world.getUID());
         if (task != null) {
             task.cancel();
         }
@@ -195,7 +195,7 @@ public class BlockEffect implements WeatherEffect {
      */
     public void cancelAllTasksAndRestoreBlocks() {
         // Annuler toutes les tâches
-        for (BukkitTask task : worldTasks.values()) {
+        for (EffectTask task : worldTasks.values()) {
             task.cancel();
         }
         worldTasks.clear();
@@ -0,0 +1,149 @@
+package fr.hoxys.plugin.atmosforge.models.effects;
+
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.ParticleEmitter;
+import fr.hoxys.plugin.atmosforge.models.WeatherType;
+
+import org.bukkit.World;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Plan d'effets compilé d'un type de météo, tel que défini dans {@code weathers/*.yml}.
+ * <p>
+ * Un plan se compose de deux pistes : l'ambiance (particules et sons), jouée par une tâche adaptative
+ * dont l'intervalle s'étire avec la charge du serveur, et les dangers (potions, dégâts, vent), joués
+ * à intervalle fixe. Chaque piste avance par pas réguliers, le plus grand diviseur commun des intervalles
+ * de ses couches ; chaque couche occupe un créneau d'un pas sur {@code n}, calculé à la compilation.
+ * Un plan est immuable et peut être partagé par tous les mondes.
+ */
+public final class EffectPlan {
+
+    private final WeatherType weatherType;
+    private final Track ambience;
+    private final Track hazards;
+
+    /**
+     * Constructeur d'un plan d'effets.
+     *
+     * @param weatherType Le type de météo du plan.
+     * @param ambience Les couches de particules et de sons.
+     * @param hazards Les couches de potions, de dégâts et de vent.
+     */
+    public EffectPlan(WeatherType weatherType, List<PlanLayer> ambience, List<PlanLayer> hazards) {
+        this.weatherType = weatherType;
+        this.ambience = new Track(ambience);
+        this.hazards = new Track(hazards);
+    }
+
+    /**
+     * Obtient le type de météo du plan.
+     *
+     * @return Le type de météo.
+     */
+    public WeatherType getWeatherType() {
+        return weatherType;
+    }
+
+    /**
+     * Obtient la piste d'ambiance : particules et sons.
+     *
+     * @return La piste d'ambiance.
+     */
+    public Track getAmbience() {
+        return ambience;
+    }
+
+    /**
+     * Obtient la piste des dangers : potions, dégâts et vent.
+     *
+     * @return La piste des dangers.
+     */
+    public Track getHazards() {
+        return hazards;
+    }
+
+    /**
+     * Obtient le nombre total de couches du plan.
+     *
+     * @return Le nombre de couches.
+     */
+    public int getLayerCount() {
+        return ambience.layers.length + hazards.layers.length;
+    }
+
+    /**
+     * Couches jouées par une même tâche, avec le créneau de chacune.
+     */
+    public static final class Track {
+        private final PlanLayer[] layers;
+        private final int[] slots;
+        private final int period;
+
+        private Track(List<PlanLayer> layers) {
+            this.layers = layers.toArray(new PlanLayer[0]);
+            this.slots = new int[this.layers.length];
+
+            // Le pas de la piste divise tous les intervalles : chaque couche revient tous les slots[i] pas
+            int gcd = 0;
+            for (PlanLayer layer : this.layers) {
+                gcd = gcd(gcd, layer.getInterval());
+            }
+            this.period = Math.max(1, gcd);
+            for (int i = 0; i < this.layers.length; i++) {
+                slots[i] = this.layers[i].getInterval() / period;
+            }
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+
+        /**
+         * Vérifie si la piste ne contient aucune couche.
+         *
+         * @return true si elle est vide, false sinon.
+         */
+        public boolean isEmpty() {
+            return layers.length == 0;
+        }
+
+        /**
+         * Obtient le pas de la piste.
+         *
+         * @return L'intervalle entre deux pas en ticks.
+         */
+        public int getPeriod() {
+            return period;
+        }
+
+        /**
+         * Joue les couches dont le créneau tombe sur ce pas.
+         *
+         * @param plugin L'instance du plugin principal.
+         * @param world Le monde.
+         * @param step Le numéro du pas, depuis le début de la météo.
+         * @param particles Si les couches de particules doivent être jouées.
+         */
+        public void run(Main plugin, World world, long step, boolean particles) {
+            SplittableRandom random = ParticleEmitter.random();
+            for (int i = 0; i < layers.length; i++) {
+                if (step % slots[i] != 0) {
+                    continue;
+                }
+
+                PlanLayer layer = layers[i];
+                if (!particles && layer instanceof PlanLayer.Particles) {
+                    continue;
+                }
+                layer.run(plugin, world, random);
+            }
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package fr.hoxys.plugin.atmosforge.models.effects;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.ClusterEmitter;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
+import fr.hoxys.plugin.atmosforge.engine.ParticleCuller;
+import fr.hoxys.plugin.atmosforge.engine.ParticleEmitter;
+import fr.hoxys.plugin.atmosforge.engine.ParticlePriority;
+import fr.hoxys.plugin.atmosforge.engine.PlayerGrid;
+import fr.hoxys.plugin.atmosforge.engine.PlayerPositionCache;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
-import org.bukkit.Location;
 import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 import java.util.UUID;
 
 /**
@@ -29,9 +33,11 @@ public class ParticleEffect implements WeatherEffect {
     private final double particleHeight;
     private final float particleSpeed;
 
-    private final Map<UUID, BukkitTask> playerTasks;
-    private final Map<UUID, BukkitTask> worldTasks;
-    private final Random random;
+    private final Map<UUID, EffectTask> playerTasks;
+    private final Map<UUID, EffectTask> worldTasks;
+
+    // Envoi d'une particule à un joueur, conservé pour ne pas allouer à chaque émission
+    private final ClusterEmitter.Target spawner;
 
     /**
      * Constructeur de ParticleEffect.
@@ -61,7 +67,7 @@ public class ParticleEffect implements WeatherEffect {
 
         this.playerTasks = new HashMap<>();
         this.worldTasks = new HashMap<>();
-        this.random = new Random();
+        this.spawner = (player, x, y, z) -> player.spawnParticle(particleType, x, y, z, 1, 0, 0, 0, particleSpeed);
     }
 
     @Override
@@ -76,28 +82,26 @@ public class ParticleEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce joueur
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runEffect(() -> {
             // Ne pas appliquer l'effet si le joueur n'est plus en ligne ou a changé de monde
             if (!player.isOnline() || !player.getWorld().equals(world)) {
                 removeFromPlayer(player);
                 return;
             }
 
-            // Calculer le nombre réel de particules basé sur l'intensité
-            int count = (int) (particleCount * intensity);
-
-            // Créer des particules autour du joueur
-            for (int i = 0; i < count; i++) {
-                // Position aléatoire dans un rayon
-                double x = player.getLocation().getX() + (random.nextDouble() * 2 - 1) * particleSpread;
-                double z = player.getLocation().getZ() + (random.nextDouble() * 2 - 1) * particleSpread;
-                double y = player.getLocation().getY() + particleHeight + random.nextDouble() * particleSpread;
-
-                Location particleLocation = new Location(world, x, y, z);
-
-                // Afficher la particule pour ce joueur uniquement
-                player.spawnParticle(particleType, particleLocation, 1, 0, 0, 0, particleSpeed);
-            }
+            // Calculer le nombre réel de particules basé sur l'intensité, dans la limite du budget du joueur
+            int count = plugin.getParticleBudget().request(player, (int) (particleCount * intensity),
+                    ParticlePriority.NORMAL, 0.0);
+
+            // Créer des particules dans un rayon autour du joueur, pour ce joueur uniquement et s'il peut les voir
+            ParticleCuller culler = plugin.getParticleCuller();
+            ParticleCuller.View view = culler.view(player);
+            PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+            ParticleEmitter.emit((x, y, z) -> {
+                if (culler.isVisibleThroughTerrain(view, x, y, z)) {
+                    player.spawnParticle(particleType, x, y, z, 1, 0, 0, 0, particleSpeed);
+                }
+            }, count, position.getX(), position.getY(), position.getZ(), particleSpread, particleHeight, particleSpread);
         }, 0L, 5L); // Toutes les 5 ticks (1/4 de seconde)
 
         playerTasks.put(player.getUniqueId(), task);
@@ -110,24 +114,14 @@ public class ParticleEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce monde
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runEffect(() -> {
             // Calculer le nombre réel de particules basé sur l'intensité
-            int count = (int) (particleCount * intensity);
-
-            // Pour chaque joueur dans ce monde
-            for (Player player : world.getPlayers()) {
-                // Créer des particules autour du joueur
-                for (int i = 0; i < count; i++) {
-                    // Position aléatoire dans un rayon
-                    double x = player.getLocation().getX() + (random.nextDouble() * 2 - 1) * particleSpread;
-                    double z = player.getLocation().getZ() + (random.nextDouble() * 2 - 1) * particleSpread;
-                    double y = player.getLocation().getY() + particleHeight + random.nextDouble() * particleSpread;
+            int particles = (int) (particleCount * intensity);
 
-                    Location particleLocation = new Location(world, x, y, z);
-
-                    // Afficher la particule pour tous les joueurs du monde
-                    world.spawnParticle(particleType, particleLocation, 1, 0, 0, 0, particleSpeed);
-                }
+            // Émettre une seule fois par groupe de joueurs dont les zones se chevauchent
+            for (PlayerGrid.Cluster cluster : plugin.getPlayerGrid().getClusters(world, particleSpread * 2)) {
+                ClusterEmitter.emit(plugin, cluster, particles, ParticlePriority.NORMAL,
+                        particleSpread, particleHeight, particleSpread, spawner);
             }
         }, 0L, 5L); // Toutes les 5 ticks (1/4 de seconde)
 
@@ -136,7 +130,7 @@ public class ParticleEffect implements WeatherEffect {
 
     @Override
     public void removeFromPlayer(Player player) {
-        BukkitTask task = playerTasks.remove(player.getUniqueId());
+        EffectTask task = playerTasks.remove(player.getUniqueId());
         if (task != null) {
             task.cancel();
         }
@@ -144,7 +138,7 @@ public class ParticleEffect implements WeatherEffect {
 
     @Override
     public void removeFromWorld(World world) {
-        BukkitTask task = worldTasks.remove(world.getUID());
+        EffectTask task = worldTasks.remove(world.getUID());
         if (task != null) {
             task.cancel();
         }
@@ -212,13 +206,13 @@ public class ParticleEffect implements WeatherEffect {
      */
     public void cancelAllTasks() {
         // Annuler les tâches de joueurs
-        for (BukkitTask task : playerTasks.values()) {
+        for (EffectTask task : playerTasks.values()) {
             task.cancel();
         }
         playerTasks.clear();
 
         // Annuler les tâches de mondes
-        for (BukkitTask task : worldTasks.values()) {
+        for (EffectTask task : worldTasks.values()) {
             task.cancel();
         }
         worldTasks.clear();
@@ -0,0 +1,319 @@
+package fr.hoxys.plugin.atmosforge.models.effects;
+
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.ClusterEmitter;
+import fr.hoxys.plugin.atmosforge.engine.ParticlePriority;
+import fr.hoxys.plugin.atmosforge.engine.PlayerGrid;
+import fr.hoxys.plugin.atmosforge.integration.ProtocolLibHook;
+
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.Vector;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Couche d'un {@link EffectPlan} : un effet élémentaire, déjà résolu, joué à intervalle régulier.
+ * <p>
+ * Toutes les valeurs d'une couche (types de particule, de son et d'effet, nombres, probabilités)
+ * sont résolues une seule fois par l'{@link fr.hoxys.plugin.atmosforge.config.EffectPlanLoader} :
+ * jouer une couche ne lit plus aucune configuration. Les couches sont immuables.
+ */
+public abstract class PlanLayer {
+
+    /**
+     * Joueurs concernés par une couche de danger.
+     */
+    public enum Condition {
+        /** Joueurs directement exposés au ciel. */
+        EXPOSED,
+        /** Joueurs dans l'eau. */
+        IN_WATER
+    }
+
+    private final int interval;
+    private final double chance;
+
+    /**
+     * Constructeur d'une couche.
+     *
+     * @param interval L'intervalle entre deux déclenchements en ticks.
+     * @param chance La probabilité de l'effet à chaque déclenchement, entre 0 et 1.
+     */
+    protected PlanLayer(int interval, double chance) {
+        this.interval = Math.max(1, interval);
+        this.chance = Math.max(0.0, Math.min(1.0, chance));
+    }
+
+    /**
+     * Obtient l'intervalle entre deux déclenchements de la couche.
+     *
+     * @return L'intervalle en ticks.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Obtient la probabilité de l'effet à chaque déclenchement.
+     *
+     * @return La probabilité, entre 0 et 1.
+     */
+    public double getChance() {
+        return chance;
+    }
+
+    /**
+     * Tire au sort si l'effet a lieu, sans tirage lorsqu'il est certain.
+     */
+    protected boolean roll(SplittableRandom random) {
+        return chance >= 1.0 || (chance > 0.0 && random.nextDouble() < chance);
+    }
+
+    /**
+     * Joue la couche dans un monde.
+     *
+     * @param plugin L'instance du plugin principal.
+     * @param world Le monde.
+     * @param random Le générateur aléatoire du thread principal.
+     */
+    public abstract void run(Main plugin, World world, SplittableRandom random);
+
+    /**
+     * Vérifie si un joueur est concerné par une couche de danger.
+     */
+    private static boolean matches(Main plugin, Player player, Condition condition) {
+        if (condition == Condition.IN_WATER) {
+            return player.isInWater();
+        }
+        return plugin.getPlayerEnvironments().get(player).isExposed();
+    }
+
+    /**
+     * Particules réparties autour des joueurs, émises une fois par groupe de joueurs proches.
+     * Avec ProtocolLib, les particules rejoignent le paquet groupé de chaque joueur au lieu d'être
+     * envoyées une à une par Bukkit.
+     */
+    public static final class Particles extends PlanLayer {
+        private final Particle particle;
+        private final Object data;
+        private final float speed;
+        private final int count;
+        private final double spread;
+        private final double yOffset;
+        private final double height;
+        private final ClusterEmitter.Target spawner;
+
+        /**
+         * Constructeur d'une couche de particules.
+         *
+         * @param interval L'intervalle entre deux émissions en ticks.
+         * @param chance La probabilité d'émettre à chaque intervalle.
+         * @param particle Le type de particule.
+         * @param data Les données de la particule, ou null si elle n'en a pas.
+         * @param count Le nombre de particules autour de chaque joueur.
+         * @param spread L'étendue horizontale autour du joueur.
+         * @param yOffset Le décalage vertical du bas de la zone.
+         * @param height La hauteur de la zone.
+         * @param speed La vitesse des particules.
+         */
+        public Particles(int interval, double chance, Particle particle, Object data,
+                         int count, double spread, double yOffset, double height, double speed) {
+            super(interval, chance);
+            this.particle = particle;
+            this.data = data;
+            this.speed = (float) speed;
+            this.count = count;
+            this.spread = spread;
+            this.yOffset = yOffset;
+            this.height = height;
+            this.spawner = (player, x, y, z) -> player.spawnParticle(particle, x, y, z, 1, 0, 0, 0, speed, data);
+        }
+
+        @Override
+        public void run(Main plugin, World world, SplittableRandom random) {
+            if (!roll(random)) {
+                return;
+            }
+
+            ClusterEmitter.Target target = spawner;
+            if (plugin.isProtocolLibEnabled()) {
+                ProtocolLibHook hook = plugin.getProtocolLibHook();
+                target = (player, x, y, z) -> hook.sendParticlePacket(player, particle, x, y, z, 1, 0f, 0f, 0f, speed, data);
+            }
+
+            for (PlayerGrid.Cluster cluster : plugin.getPlayerGrid().getClusters(world, spread * 2)) {
+                ClusterEmitter.emit(plugin, cluster, count, ParticlePriority.NORMAL, spread, yOffset, height, target);
+            }
+        }
+    }
+
+    /**
+     * Son joué à tous les joueurs du monde, par le bus sonore.
+     */
+    public static final class Sounds extends PlanLayer {
+        private final Sound sound;
+        private final float volume;
+        private final float pitch;
+        private final boolean ambient;
+
+        /**
+         * Constructeur d'une couche de sons.
+         *
+         * @param interval L'intervalle entre deux sons en ticks.
+         * @param chance La probabilité de jouer le son à chaque intervalle.
+         * @param sound Le son.
+         * @param volume Le volume du son.
+         * @param pitch La hauteur du son.
+         * @param ambient Si le son est une couche d'ambiance, plafonnée par le bus sonore.
+         */
+        public Sounds(int interval, double chance, Sound sound, float volume, float pitch, boolean ambient) {
+            super(interval, chance);
+            this.sound = sound;
+            this.volume = volume;
+            this.pitch = pitch;
+            this.ambient = ambient;
+        }
+
+        @Override
+        public void run(Main plugin, World world, SplittableRandom random) {
+            if (!roll(random)) {
+                return;
+            }
+
+            List<Player> players = world.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                if (ambient) {
+                    plugin.getSoundBus().playAmbient(players.get(i), sound, volume, pitch);
+                } else {
+                    plugin.getSoundBus().play(players.get(i), sound, volume, pitch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Effet de potion accordé aux joueurs concernés, par le réconciliateur d'effets.
+     */
+    public static final class Potion extends PlanLayer {
+        private final PotionEffectType type;
+        private final int amplifier;
+        private final int duration;
+        private final Condition condition;
+
+        /**
+         * Constructeur d'une couche d'effet de potion.
+         *
+         * @param interval L'intervalle entre deux tirages en ticks.
+         * @param chance La probabilité pour chaque joueur de recevoir l'effet à chaque intervalle.
+         * @param type Le type d'effet.
+         * @param amplifier L'amplificateur de l'effet.
+         * @param duration La durée de l'effet en ticks.
+         * @param condition Les joueurs concernés.
+         */
+        public Potion(int interval, double chance, PotionEffectType type, int amplifier, int duration, Condition condition) {
+            super(interval, chance);
+            this.type = type;
+            this.amplifier = amplifier;
+            this.duration = duration;
+            this.condition = condition;
+        }
+
+        @Override
+        public void run(Main plugin, World world, SplittableRandom random) {
+            List<Player> players = world.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                Player player = players.get(i);
+                if (matches(plugin, player, condition) && roll(random)) {
+                    plugin.getPotionReconciler().grant(player, type, duration, amplifier);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dégâts infligés aux joueurs concernés, avec leur message.
+     */
+    public static final class Damage extends PlanLayer {
+        private final double amount;
+        private final String message;
+        private final Condition condition;
+
+        /**
+         * Constructeur d'une couche de dégâts.
+         *
+         * @param interval L'intervalle entre deux tirages en ticks.
+         * @param chance La probabilité pour chaque joueur de subir les dégâts à chaque intervalle.
+         * @param amount La quantité de dégâts.
+         * @param message Le message envoyé au joueur blessé, déjà traduit, ou null.
+         * @param condition Les joueurs concernés.
+         */
+        public Damage(int interval, double chance, double amount, String message, Condition condition) {
+            super(interval, chance);
+            this.amount = amount;
+            this.message = message;
+            this.condition = condition;
+        }
+
+        @Override
+        public void run(Main plugin, World world, SplittableRandom random) {
+            List<Player> players = world.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                Player player = players.get(i);
+                if (matches(plugin, player, condition) && roll(random)) {
+                    player.damage(amount);
+                    if (message != null) {
+                        player.sendMessage(message);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Poussée du vent sur les joueurs concernés, dans une direction horizontale aléatoire.
+     */
+    public static final class Push extends PlanLayer {
+        private final double horizontal;
+        private final double vertical;
+        private final Condition condition;
+
+        /**
+         * Constructeur d'une couche de poussée.
+         *
+         * @param interval L'intervalle entre deux tirages en ticks.
+         * @param chance La probabilité pour chaque joueur d'être poussé à chaque intervalle.
+         * @param horizontal La force horizontale de la poussée.
+         * @param vertical La force verticale de la poussée.
+         * @param condition Les joueurs concernés.
+         */
+        public Push(int interval, double chance, double horizontal, double vertical, Condition condition) {
+            super(interval, chance);
+            this.horizontal = horizontal;
+            this.vertical = vertical;
+            this.condition = condition;
+        }
+
+        @Override
+        public void run(Main plugin, World world, SplittableRandom random) {
+            List<Player> players = world.getPlayers();
+            for (int i = 0; i < players.size(); i++) {
+                Player player = players.get(i);
+                if (!matches(plugin, player, condition) || !roll(random)) {
+                    continue;
+                }
+
+                double angle = random.nextDouble() * 2 * Math.PI;
+                Vector velocity = player.getVelocity();
+                velocity.setX(velocity.getX() + Math.cos(angle) * horizontal);
+                velocity.setY(velocity.getY() + vertical);
+                velocity.setZ(velocity.getZ() + Math.sin(angle) * horizontal);
+                player.setVelocity(velocity);
+            }
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package fr.hoxys.plugin.atmosforge.models.effects;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,8 +28,8 @@ public class PotionEffect implements WeatherEffect {
     private final boolean particles;
     private final boolean icon;
 
-    private final Map<UUID, BukkitTask> playerTasks;
-    private final Map<UUID, BukkitTask> worldTasks;
+    private final Map<UUID, EffectTask> playerTasks;
+    private final Map<UUID, EffectTask> worldTasks;
 
     /**
      * Constructeur de PotionEffect.
@@ -75,7 +75,7 @@ public class PotionEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce joueur
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runRepeating(() -> {
             // Ne pas appliquer l'effet si le joueur n'est plus en ligne ou a changé de monde
             if (!player.isOnline() || !player.getWorld().equals(world)) {
                 removeFromPlayer(player);
@@ -86,8 +86,8 @@ public class PotionEffect implements WeatherEffect {
             int realAmplifier = Math.max(0, (int) (amplifier * intensity));
 
             // Appliquer l'effet de potion
-            player.addPotionEffect(new org.bukkit.potion.PotionEffect(
-                    effectType, effectDuration, realAmplifier, ambient, particles, icon));
+            plugin.getPotionReconciler().grant(player, effectType, effectDuration, realAmplifier,
+                    ambient, particles, icon);
 
         }, 0L, effectDuration / 2); // Renouveler l'effet avant qu'il n'expire
 
@@ -101,15 +101,15 @@ public class PotionEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce monde
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runRepeating(() -> {
             // Calculer l'amplificateur réel basé sur l'intensité
             int realAmplifier = Math.max(0, (int) (amplifier * intensity));
 
             // Pour chaque joueur dans ce monde
             for (Player player : world.getPlayers()) {
                 // Appliquer l'effet de potion
-                player.addPotionEffect(new org.bukkit.potion.PotionEffect(
-                        effectType, effectDuration, realAmplifier, ambient, particles, icon));
+                plugin.getPotionReconciler().grant(player, effectType, effectDuration, realAmplifier,
+                        ambient, particles, icon);
             }
         }, 0L, effectDuration / 2); // Renouveler l'effet avant qu'il n'expire
 
@@ -118,25 +118,25 @@ public class PotionEffect implements WeatherEffect {
 
     @Override
     public void removeFromPlayer(Player player) {
-        BukkitTask task = playerTasks.remove(player.getUniqueId());
+        EffectTask task = playerTasks.remove(player.getUniqueId());
         if (task != null) {
             task.cancel();
         }
 
         // Supprimer l'effet de potion
-        player.removePotionEffect(effectType);
+        plugin.getPotionReconciler().revoke(player, effectType);
     }
 
     @Override
     public void removeFromWorld(World world) {
-        BukkitTask task = worldTasks.remove(world.getUID());
+        EffectTask task = worldTasks.remove(world.getUID());
         if (task != null) {
             task.cancel();
         }
 
         // Supprimer l'effet de potion pour tous les joueurs dans ce monde
         for (Player player : world.getPlayers()) {
-            player.removePotionEffect(effectType);
+            plugin.getPotionReconciler().revoke(player, effectType);
         }
     }
 
@@ -175,26 +175,26 @@ public class PotionEffect implements WeatherEffect {
      */
     public void cancelAllTasks() {
         // Annuler les tâches de joueurs et supprimer les effets
-        for (Map.Entry<UUID, BukkitTask> entry : playerTasks.entrySet()) {
+        for (Map.Entry<UUID, EffectTask> entry : playerTasks.entrySet()) {
             entry.getValue().cancel();
 
             // Supprimer l'effet de potion pour le joueur
             Player player = plugin.getServer().getPlayer(entry.getKey());
             if (player != null && player.isOnline()) {
-                player.removePotionEffect(effectType);
+                plugin.getPotionReconciler().revoke(player, effectType);
             }
         }
         playerTasks.clear();
 
         // Annuler les tâches de mondes et supprimer les effets pour tous les joueurs
-        for (Map.Entry<UUID, BukkitTask> entry : worldTasks.entrySet()) {
+        for (Map.Entry<UUID, EffectTask> entry : worldTasks.entrySet()) {
             entry.getValue().cancel();
 
             // Supprimer l'effet de potion pour tous les joueurs dans ce monde
             World world = plugin.getServer().getWorld(entry.getKey());
             if (world != null) {
                 for (Player player : world.getPlayers()) {
-                    player.removePotionEffect(effectType);
+                    plugin.getPotionReconciler().revoke(player, effectType);
                 }
             }
         }
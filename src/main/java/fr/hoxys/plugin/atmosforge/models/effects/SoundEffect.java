@@ -1,13 +1,13 @@
 package fr.hoxys.plugin.atmosforge.models.effects;
 
 import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.EffectTask;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,8 +28,8 @@ public class SoundEffect implements WeatherEffect {
     private final float pitch;
     private final int interval;
 
-    private final Map<UUID, BukkitTask> playerTasks;
-    private final Map<UUID, BukkitTask> worldTasks;
+    private final Map<UUID, EffectTask> playerTasks;
+    private final Map<UUID, EffectTask> worldTasks;
     private final Random random;
 
     /**
@@ -72,7 +72,7 @@ public class SoundEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce joueur
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runEffect(() -> {
             // Ne pas appliquer l'effet si le joueur n'est plus en ligne ou a changé de monde
             if (!player.isOnline() || !player.getWorld().equals(world)) {
                 removeFromPlayer(player);
@@ -82,8 +82,8 @@ public class SoundEffect implements WeatherEffect {
             // Calculer le volume réel basé sur l'intensité
             float actualVolume = volume * intensity;
 
-            // Jouer le son pour ce joueur uniquement
-            player.playSound(player.getLocation(), soundType, actualVolume, pitch);
+            // Jouer le son pour ce joueur uniquement, mixé avec les autres ambiances du tick
+            plugin.getSoundBus().playAmbient(player, soundType, actualVolume, pitch);
 
         }, 0L, interval); // Intervalle entre les sons
 
@@ -97,14 +97,14 @@ public class SoundEffect implements WeatherEffect {
         }
 
         // Créer une tâche pour ce monde
-        BukkitTask task = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+        EffectTask task = plugin.getTickEngine().runEffect(() -> {
             // Calculer le volume réel basé sur l'intensité
             float actualVolume = volume * intensity;
 
             // Pour chaque joueur dans ce monde
             for (Player player : world.getPlayers()) {
-                // Jouer le son pour tous les joueurs du monde
-                player.playSound(player.getLocation(), soundType, actualVolume, pitch);
+                // Jouer le son pour tous les joueurs du monde, mixé avec les autres ambiances du tick
+                plugin.getSoundBus().playAmbient(player, soundType, actualVolume, pitch);
             }
         }, 0L, interval); // Intervalle entre les sons
 
@@ -113,7 +113,7 @@ public class SoundEffect implements WeatherEffect {
 
     @Override
     public void removeFromPlayer(Player player) {
-        BukkitTask task = playerTasks.remove(player.getUniqueId());
+        EffectTask task = playerTasks.remove(player.getUniqueId());
         if (task != null) {
             task.cancel();
         }
@@ -121,7 +121,7 @@ public class SoundEffect implements WeatherEffect {
 
     @Override
     public void removeFromWorld(World world) {
-        BukkitTask task = worldTasks.remove(world.getUID());
+        EffectTask task = worldTasks.remove(world.getUID());
         if (task != null) {
             task.cancel();
         }
@@ -189,13 +189,13 @@ public class SoundEffect implements WeatherEffect {
      */
     public void cancelAllTasks() {
         // Annuler les tâches de joueurs
-        for (BukkitTask task : playerTasks.values()) {
+        for (EffectTask task : playerTasks.values()) {
             task.cancel();
         }
         playerTasks.clear();
 
         // Annuler les tâches de mondes
-        for (BukkitTask task : worldTasks.values()) {
+        for (EffectTask task : worldTasks.values()) {
             task.cancel();
         }
         worldTasks.clear();
@@ -1,5 +1,9 @@
 package fr.hoxys.plugin.atmosforge.utils;
 
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.ParticleEmitter;
+import fr.hoxys.plugin.atmosforge.engine.ParticlePriority;
+import fr.hoxys.plugin.atmosforge.engine.PlayerPositionCache;
 import fr.hoxys.plugin.atmosforge.models.WeatherType;
 import fr.hoxys.plugin.atmosforge.models.effects.BlockEffect;
 import fr.hoxys.plugin.atmosforge.models.effects.ParticleEffect;
@@ -99,72 +103,48 @@ public class EffectUtils {
     }
 
     /**
-     * Crée un effet de pluie autour d'un joueur.
+     * Crée un effet de pluie autour d'un joueur, visible par lui seul et limité par son budget de particules.
      *
      * @param player Le joueur autour duquel créer l'effet.
      * @param intensity L'intensité de la pluie (0.0 à 1.0).
      */
     public static void createRainEffect(Player player, float intensity) {
-        Location loc = player.getLocation();
-        World world = loc.getWorld();
-        if (world == null) return;
-
-        int particleCount = (int) (20 * intensity);
-
-        for (int i = 0; i < particleCount; i++) {
-            double x = loc.getX() + (Math.random() * 20 - 10);
-            double z = loc.getZ() + (Math.random() * 20 - 10);
-            double y = loc.getY() + 10;
+        Main plugin = Main.getInstance();
+        int particleCount = plugin.getParticleBudget().request(player, (int) (20 * intensity), ParticlePriority.NORMAL, 0.0);
 
-            Location particleLoc = new Location(world, x, y, z);
-            world.spawnParticle(Particle.FALLING_DRIPSTONE_WATER, particleLoc, 1, 0, 0, 0, 0);
-        }
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        ParticleEmitter.emit((x, y, z) -> player.spawnParticle(Particle.FALLING_DRIPSTONE_WATER, x, y, z, 1, 0, 0, 0, 0),
+                particleCount, position.getX(), position.getY(), position.getZ(), 10, 10, 0);
     }
 
     /**
-     * Crée un effet de neige autour d'un joueur.
+     * Crée un effet de neige autour d'un joueur, visible par lui seul et limité par son budget de particules.
      *
      * @param player Le joueur autour duquel créer l'effet.
      * @param intensity L'intensité de la neige (0.0 à 1.0).
      */
     public static void createSnowEffect(Player player, float intensity) {
-        Location loc = player.getLocation();
-        World world = loc.getWorld();
-        if (world == null) return;
-
-        int particleCount = (int) (20 * intensity);
+        Main plugin = Main.getInstance();
+        int particleCount = plugin.getParticleBudget().request(player, (int) (20 * intensity), ParticlePriority.NORMAL, 0.0);
 
-        for (int i = 0; i < particleCount; i++) {
-            double x = loc.getX() + (Math.random() * 20 - 10);
-            double z = loc.getZ() + (Math.random() * 20 - 10);
-            double y = loc.getY() + 10;
-
-            Location particleLoc = new Location(world, x, y, z);
-            world.spawnParticle(Particle.SNOWFLAKE, particleLoc, 1, 0, 0, 0, 0);
-        }
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        ParticleEmitter.emit((x, y, z) -> player.spawnParticle(Particle.SNOWFLAKE, x, y, z, 1, 0, 0, 0, 0),
+                particleCount, position.getX(), position.getY(), position.getZ(), 10, 10, 0);
     }
 
     /**
-     * Crée un effet de brouillard autour d'un joueur.
+     * Crée un effet de brouillard autour d'un joueur, visible par lui seul et limité par son budget de particules.
      *
      * @param player Le joueur autour duquel créer l'effet.
      * @param intensity L'intensité du brouillard (0.0 à 1.0).
      */
     public static void createFogEffect(Player player, float intensity) {
-        Location loc = player.getLocation();
-        World world = loc.getWorld();
-        if (world == null) return;
-
-        int particleCount = (int) (15 * intensity);
-
-        for (int i = 0; i < particleCount; i++) {
-            double x = loc.getX() + (Math.random() * 10 - 5);
-            double z = loc.getZ() + (Math.random() * 10 - 5);
-            double y = loc.getY() + (Math.random() * 3 - 1);
+        Main plugin = Main.getInstance();
+        int particleCount = plugin.getParticleBudget().request(player, (int) (15 * intensity), ParticlePriority.LOW, 0.0);
 
-            Location particleLoc = new Location(world, x, y, z);
-            world.spawnParticle(Particle.CLOUD, particleLoc, 1, 0.5, 0.1, 0.5, 0);
-        }
+        PlayerPositionCache.Position position = plugin.getPlayerPositions().get(player);
+        ParticleEmitter.emit((x, y, z) -> player.spawnParticle(Particle.CLOUD, x, y, z, 1, 0.5, 0.1, 0.5, 0),
+                particleCount, position.getX(), position.getY(), position.getZ(), 5, -1, 3);
     }
 
     /**
@@ -1,5 +1,8 @@
 package fr.hoxys.plugin.atmosforge.utils;
 
+import fr.hoxys.plugin.atmosforge.Main;
+import fr.hoxys.plugin.atmosforge.engine.SkyExposureCache;
+
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -44,7 +47,7 @@ public class LocationUtils {
         // Trouver la surface à cette position
         World world = center.getWorld();
         if (world != null) {
-            int y = world.getHighestBlockYAt((int) x, (int) z);
+            int y = getHighestBlockYAt(world, (int) x, (int) z);
             return new Location(world, x, y + 1, z);
         }
 
@@ -54,6 +57,7 @@ public class LocationUtils {
 
     /**
      * Vérifie si une location a une vue dégagée vers le ciel.
+     * La hauteur de la colonne est lue depuis le cache d'exposition au ciel.
      *
      * @param location La location à vérifier.
      * @return true si la location a une vue dégagée vers le ciel, false sinon.
@@ -62,19 +66,7 @@ public class LocationUtils {
         World world = location.getWorld();
         if (world == null) return false;
 
-        int x = location.getBlockX();
-        int y = location.getBlockY();
-        int z = location.getBlockZ();
-
-        // Vérifier s'il y a des blocs au-dessus
-        for (int i = y + 1; i < world.getMaxHeight(); i++) {
-            Block block = world.getBlockAt(x, i, z);
-            if (!block.getType().isAir()) {
-                return false;
-            }
-        }
-
-        return true;
+        return getHighestBlockYAt(world, location.getBlockX(), location.getBlockZ()) <= location.getBlockY();
     }
 
     /**
@@ -128,7 +120,7 @@ public class LocationUtils {
                 // Vérifier si le bloc est dans le rayon
                 double distance = Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(z - centerZ, 2));
                 if (distance <= radius) {
-                    int y = world.getHighestBlockYAt(x, z);
+                    int y = getHighestBlockYAt(world, x, z);
                     blocks.add(world.getBlockAt(x, y, z));
                 }
             }
@@ -136,4 +128,21 @@ public class LocationUtils {
 
         return blocks;
     }
+
+    /**
+     * Obtient la hauteur du bloc le plus haut d'une colonne, depuis le cache d'exposition si le plugin est actif.
+     *
+     * @param world Le monde de la colonne.
+     * @param x La coordonnée X de la colonne.
+     * @param z La coordonnée Z de la colonne.
+     * @return La hauteur du bloc le plus haut.
+     */
+    private static int getHighestBlockYAt(World world, int x, int z) {
+        Main plugin = Main.getInstance();
+        SkyExposureCache cache = plugin != null ? plugin.getSkyExposureCache() : null;
+        if (cache == null) {
+            return world.getHighestBlockYAt(x, z);
+        }
+        return cache.getHighestBlockYAt(world, x, z);
+    }
 }
\ No newline at end of file
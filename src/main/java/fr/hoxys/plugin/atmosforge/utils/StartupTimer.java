@@ -0,0 +1,52 @@
+package fr.hoxys.plugin.atmosforge.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Mesure la durée de chaque phase du démarrage du plugin.
+ */
+public class StartupTimer {
+
+    private final long startTime;
+    private final List<String> phases;
+    private long phaseStart;
+
+    public StartupTimer() {
+        this.startTime = System.nanoTime();
+        this.phaseStart = startTime;
+        this.phases = new ArrayList<>();
+    }
+
+    /**
+     * Termine la phase en cours et démarre la suivante.
+     *
+     * @param phase Le nom de la phase terminée.
+     */
+    public void mark(String phase) {
+        long now = System.nanoTime();
+        phases.add(phase + " " + formatMillis(now - phaseStart));
+        phaseStart = now;
+    }
+
+    /**
+     * Affiche la durée de chaque phase et la durée totale du démarrage.
+     *
+     * @param logger Le logger du plugin.
+     */
+    public void report(Logger logger) {
+        logger.info("Startup timings: " + String.join(", ", phases)
+                + " (total " + formatMillis(System.nanoTime() - startTime) + ")");
+    }
+
+    /**
+     * Formate une durée en nanosecondes en millisecondes.
+     *
+     * @param nanos La durée en nanosecondes.
+     * @return La durée formatée.
+     */
+    public static String formatMillis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,75 @@
+package fr.hoxys.plugin.atmosforge.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Vérifie que la génération des positions de particules n'alloue rien une fois préchauffée.
+ */
+class ParticleEmitterTest {
+
+    // Particules émises par appel, comme une vague de pluie forte autour d'un joueur
+    private static final int BATCH_SIZE = 20;
+
+    // Appels de préchauffage, assez pour que le JIT compile la boucle, puis appels mesurés
+    private static final int WARMUP_BATCHES = 200_000;
+    private static final int MEASURED_BATCHES = 500_000;
+
+    @Test
+    void emitDoesNotAllocateAfterWarmUp() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "JVM without allocation counters");
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported(), "JVM without allocation counters");
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        Accumulator accumulator = new Accumulator();
+        long threadId = Thread.currentThread().threadId();
+        emitBatches(accumulator, WARMUP_BATCHES);
+        accumulator.count = 0;
+
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        emitBatches(accumulator, MEASURED_BATCHES);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        long particles = (long) MEASURED_BATCHES * BATCH_SIZE;
+        assertEquals(particles, accumulator.count);
+        // Seule la lecture du compteur peut allouer quelques octets, bien moins d'un octet par particule
+        assertEquals(0L, allocated / particles, allocated + " bytes allocated for " + particles + " particles");
+    }
+
+    @Test
+    void emitStaysInsideTheBox() {
+        ParticleEmitter.emit((x, y, z) -> {
+            assertTrue(x >= 95.0 && x <= 105.0, "x = " + x);
+            assertTrue(y >= 74.0 && y < 84.0, "y = " + y);
+            assertTrue(z >= -205.0 && z <= -195.0, "z = " + z);
+        }, 1000, 100.0, 64.0, -200.0, 5.0, 10.0, 10.0);
+    }
+
+    private static void emitBatches(Accumulator accumulator, int batches) {
+        for (int i = 0; i < batches; i++) {
+            ParticleEmitter.emit(accumulator, BATCH_SIZE, i, 64.0, -i, 5.0, 10.0, 0.0);
+        }
+    }
+
+    /**
+     * Destination qui compte les particules et additionne leurs coordonnées.
+     */
+    private static final class Accumulator implements ParticleEmitter.Sink {
+        private long count;
+        private double sum;
+
+        @Override
+        public void emit(double x, double y, double z) {
+            count++;
+            sum += x + y + z;
+        }
+    }
+}